@@ -0,0 +1,45 @@
+package com.ljh.smarteducation.config;
+
+import com.ljh.smarteducation.service.ApiUsageService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executor;
+
+/**
+ * 启动后在后台为已有的 API 使用日志生成日汇总（只在首次升级时执行一次），不阻塞应用启动
+ */
+@Slf4j
+@Component
+public class ApiUsageRollupBackfillRunner implements CommandLineRunner {
+
+    private final ApiUsageService apiUsageService;
+    private final Executor taskExecutor;
+    private final boolean enabled;
+
+    public ApiUsageRollupBackfillRunner(ApiUsageService apiUsageService,
+                                        @Qualifier("taskExecutor") Executor taskExecutor,
+                                        @Value("${api-usage.rollup.backfill-on-startup:true}") boolean enabled) {
+        this.apiUsageService = apiUsageService;
+        this.taskExecutor = taskExecutor;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void run(String... args) {
+        if (!enabled) {
+            return;
+        }
+        taskExecutor.execute(() -> {
+            try {
+                apiUsageService.backfillRollupOnce();
+            } catch (Exception e) {
+                log.warn("API 使用日汇总回填失败，可通过 POST /api/admin/statistics/rollup/rebuild 重试: {}",
+                        e.getMessage());
+            }
+        });
+    }
+}
@@ -37,61 +37,34 @@ public class AuthTokenFilter extends OncePerRequestFilter {
                     String jwt = parseJwt(request);
 
                     if (jwt != null) {
-                        // 2. 验证JWT是否有效
-                        if (jwtUtils.validateJwtToken(jwt)) {
-                            // 3. 如果有效，从中获取用户名
-                            String username = jwtUtils.getUserNameFromJwtToken(jwt);
+                        // 2. 验证JWT并取出用户名（一次解析，近期校验过的令牌直接命中缓存）
+                        String username = jwtUtils.verifyAndGetUsername(jwt);
+                        if (username != null) {
+                            // 3. 加载用户信息（带 TTL 的缓存，用户变更时失效，大多数请求不再查询数据库）
+                            UserDetails userDetails = userDetailsService.loadCachedUserByUsername(username);
 
-                            // 4. 从数据库加载用户信息
-                            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-
-                            // 5. 创建一个认证对象
+                            // 4. 创建一个认证对象
                             UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
                                     userDetails, null, userDetails.getAuthorities());
                             authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
-                            // 6. 将认证信息设置到Spring Security的上下文中，表示当前用户已通过认证
+                            // 5. 将认证信息设置到Spring Security的上下文中，表示当前用户已通过认证
                             SecurityContextHolder.getContext().setAuthentication(authentication);
 
-                            System.out.println(">>> [AuthTokenFilter] JWT验证成功，用户: " + username + ", 路径: " + request.getRequestURI());
-                            System.out.println(">>> [AuthTokenFilter] 用户权限: " + userDetails.getAuthorities());
-                            System.out.println(">>> [AuthTokenFilter] SecurityContext认证状态: " + (SecurityContextHolder.getContext().getAuthentication() != null ? "已设置" : "未设置"));
-                            System.out.println(">>> [AuthTokenFilter] 当前认证对象: " + SecurityContextHolder.getContext().getAuthentication());
-                            logger.debug("JWT验证成功，用户: {}, 路径: {}", username, request.getRequestURI());
+                            logger.debug("JWT验证成功，用户: {}, 权限: {}, 路径: {}", username,
+                                    userDetails.getAuthorities(), request.getRequestURI());
                         } else {
-                            System.err.println(">>> [AuthTokenFilter] JWT验证失败，路径: " + request.getRequestURI());
                             logger.warn("JWT验证失败，路径: {}", request.getRequestURI());
                         }
-                    } else {
+                    } else if (request.getRequestURI().startsWith("/api/admin/")) {
                         // 对于需要认证的API，如果没有token会返回401
-                        if (request.getRequestURI().startsWith("/api/admin/")) {
-                            System.err.println(">>> [AuthTokenFilter] 未找到JWT token，路径: " + request.getRequestURI());
-                            System.err.println(">>> [AuthTokenFilter] Authorization header: " + request.getHeader("Authorization"));
-                            logger.debug("未找到JWT token，路径: {}", request.getRequestURI());
-                        }
-                    }
-                    
-                    // 特别针对 /api/admin/questions 的调试日志
-                    if (request.getRequestURI().equals("/api/admin/questions")) {
-                        System.out.println(">>> [AuthTokenFilter] ========== /api/admin/questions 请求调试 ==========");
-                        System.out.println(">>> [AuthTokenFilter] JWT token: " + (jwt != null ? jwt.substring(0, Math.min(30, jwt.length())) + "..." : "null"));
-                        System.out.println(">>> [AuthTokenFilter] SecurityContext认证状态: " + (SecurityContextHolder.getContext().getAuthentication() != null ? "已设置" : "未设置"));
-                        if (SecurityContextHolder.getContext().getAuthentication() != null) {
-                            System.out.println(">>> [AuthTokenFilter] 当前认证对象: " + SecurityContextHolder.getContext().getAuthentication());
-                            System.out.println(">>> [AuthTokenFilter] 用户权限: " + SecurityContextHolder.getContext().getAuthentication().getAuthorities());
-                        }
-                        System.out.println(">>> [AuthTokenFilter] ================================================");
+                        logger.debug("未找到JWT token，路径: {}", request.getRequestURI());
                     }
                 } catch (Exception e) {
-                    System.err.println(">>> [AuthTokenFilter] ========== EXCEPTION CAUGHT ==========");
-                    System.err.println(">>> [AuthTokenFilter] URI: " + request.getRequestURI());
-                    System.err.println(">>> [AuthTokenFilter] Error: " + e.getMessage());
-                    e.printStackTrace(System.err);
-                    System.err.println(">>> [AuthTokenFilter] =========================================");
-                    logger.error("Cannot set user authentication: {}", e.getMessage(), e);
+                    logger.error("Cannot set user authentication, 路径: {}: {}", request.getRequestURI(), e.getMessage(), e);
                 }
 
-        // 7. 放行请求，让它继续访问后续的Controller
+        // 6. 放行请求，让它继续访问后续的Controller
         filterChain.doFilter(request, response);
     }
 
@@ -1,5 +1,7 @@
 package com.ljh.smarteducation.config;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.ljh.smarteducation.entity.User;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
@@ -9,41 +11,86 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.Date;
 
+/**
+ * JWT 签发与校验
+ *
+ * 签名密钥和解析器在启动时构建一次（JwtParser 不可变，可在线程间共享）。
+ * 校验通过的令牌按 SHA-256 摘要缓存其用户名和过期时间，同一令牌再次出现时只需计算摘要，
+ * 不再做 Base64 解码、JSON 解析和 HS512 验签；命中时仍按令牌自身的过期时间判断是否有效。
+ */
 @Component
 public class JwtUtils {
     private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
 
-    @Value("${jwt.secret}")
-    private String jwtSecret;
+    private final int jwtExpirationMs;
+    private final SecretKey signingKey;
+    private final JwtParser parser;
+    private final Cache<ByteBuffer, VerifiedToken> verifiedTokens;
 
-    @Value("${jwt.expirationMs}")
-    private int jwtExpirationMs;
+    /**
+     * MessageDigest 不是线程安全的，每个线程复用一个
+     */
+    private final ThreadLocal<MessageDigest> digests = ThreadLocal.withInitial(JwtUtils::newDigest);
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+    public JwtUtils(@Value("${jwt.secret}") String jwtSecret,
+                    @Value("${jwt.expirationMs}") int jwtExpirationMs,
+                    @Value("${jwt.verified-cache.max-entries:10000}") long maxVerifiedTokens,
+                    @Value("${jwt.verified-cache.ttl-seconds:600}") long verifiedTokenTtlSeconds) {
+        this.jwtExpirationMs = jwtExpirationMs;
+        this.signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        this.parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(maxVerifiedTokens)
+                .expireAfterWrite(Duration.ofSeconds(verifiedTokenTtlSeconds))
+                .build();
     }
 
-
     public String generateJwtToken(User user) {
         return Jwts.builder()
                 .setSubject((user.getUsername()))
                 .setIssuedAt(new Date())
                 .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS512)
+                .signWith(signingKey, SignatureAlgorithm.HS512)
                 .compact();
     }
 
-    public String getUserNameFromJwtToken(String token) {
-        return Jwts.parserBuilder().setSigningKey(getSigningKey()).build().parseClaimsJws(token).getBody().getSubject();
-    }
+    /**
+     * 校验令牌并取出用户名（一次解析）
+     *
+     * @return 用户名；令牌无效、被篡改或已过期时返回 null
+     */
+    public String verifyAndGetUsername(String authToken) {
+        if (authToken == null || authToken.isEmpty()) {
+            return null;
+        }
+        ByteBuffer digest = digestOf(authToken);
+        VerifiedToken cached = verifiedTokens.getIfPresent(digest);
+        if (cached != null) {
+            if (cached.expiresAtMillis() > System.currentTimeMillis()) {
+                return cached.username();
+            }
+            verifiedTokens.invalidate(digest);
+            logger.error("JWT token is expired: {}", new Date(cached.expiresAtMillis()));
+            return null;
+        }
 
-    public boolean validateJwtToken(String authToken) {
         try {
-            Jwts.parserBuilder().setSigningKey(getSigningKey()).build().parseClaimsJws(authToken);
-            return true;
-        } catch (SecurityException e) {
+            Claims claims = parser.parseClaimsJws(authToken).getBody();
+            String username = claims.getSubject();
+            Date expiration = claims.getExpiration();
+            // 没有过期时间的令牌不缓存，每次都完整校验
+            if (username != null && expiration != null) {
+                verifiedTokens.put(digest, new VerifiedToken(username, expiration.getTime()));
+            }
+            return username;
+        } catch (io.jsonwebtoken.security.SecurityException e) {
             logger.error("Invalid JWT signature: {}", e.getMessage());
         } catch (MalformedJwtException e) {
             logger.error("Invalid JWT token: {}", e.getMessage());
@@ -53,7 +100,24 @@ public class JwtUtils {
             logger.error("JWT token is unsupported: {}", e.getMessage());
         } catch (IllegalArgumentException e) {
             logger.error("JWT claims string is empty: {}", e.getMessage());
+        } catch (JwtException e) {
+            logger.error("Invalid JWT token: {}", e.getMessage());
         }
-        return false;
+        return null;
+    }
+
+    private ByteBuffer digestOf(String token) {
+        return ByteBuffer.wrap(digests.get().digest(token.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record VerifiedToken(String username, long expiresAtMillis) {
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,44 @@
+package com.ljh.smarteducation.config;
+
+import com.ljh.smarteducation.service.QuestionBankService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executor;
+
+/**
+ * 启动后在后台回填旧题目的冗余列（question_type 等），不阻塞应用启动
+ */
+@Slf4j
+@Component
+public class QuestionColumnBackfillRunner implements CommandLineRunner {
+
+    private final QuestionBankService questionBankService;
+    private final Executor taskExecutor;
+    private final boolean enabled;
+
+    public QuestionColumnBackfillRunner(QuestionBankService questionBankService,
+                                        @Qualifier("taskExecutor") Executor taskExecutor,
+                                        @Value("${question.columns.backfill-on-startup:true}") boolean enabled) {
+        this.questionBankService = questionBankService;
+        this.taskExecutor = taskExecutor;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void run(String... args) {
+        if (!enabled) {
+            return;
+        }
+        taskExecutor.execute(() -> {
+            try {
+                questionBankService.backfillContentColumns();
+            } catch (Exception e) {
+                log.warn("题目冗余列回填失败，可通过 POST /api/admin/questions/backfill-columns 重试: {}", e.getMessage());
+            }
+        });
+    }
+}
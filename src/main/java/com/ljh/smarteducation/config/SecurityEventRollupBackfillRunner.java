@@ -0,0 +1,45 @@
+package com.ljh.smarteducation.config;
+
+import com.ljh.smarteducation.service.SecurityLogService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executor;
+
+/**
+ * 启用分钟汇总后，在后台为已有的安全日志生成汇总（只在首次启用时执行一次），不阻塞应用启动
+ */
+@Slf4j
+@Component
+public class SecurityEventRollupBackfillRunner implements CommandLineRunner {
+
+    private final SecurityLogService securityLogService;
+    private final Executor taskExecutor;
+    private final boolean enabled;
+
+    public SecurityEventRollupBackfillRunner(SecurityLogService securityLogService,
+                                             @Qualifier("taskExecutor") Executor taskExecutor,
+                                             @Value("${security.event-rollup.backfill-on-startup:true}") boolean enabled) {
+        this.securityLogService = securityLogService;
+        this.taskExecutor = taskExecutor;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void run(String... args) {
+        if (!enabled || !securityLogService.isRollupEnabled()) {
+            return;
+        }
+        taskExecutor.execute(() -> {
+            try {
+                securityLogService.backfillRollupOnce();
+            } catch (Exception e) {
+                log.warn("安全事件分钟汇总回填失败，可通过 POST /api/admin/security-logs/rollup/rebuild 重试: {}",
+                        e.getMessage());
+            }
+        });
+    }
+}
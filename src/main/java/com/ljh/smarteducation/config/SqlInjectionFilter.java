@@ -2,8 +2,9 @@ package com.ljh.smarteducation.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ljh.smarteducation.entity.SecurityEventLog;
-import com.ljh.smarteducation.repository.SecurityEventLogRepository;
-import com.ljh.smarteducation.util.InputValidator;
+import com.ljh.smarteducation.service.IpReputationService;
+import com.ljh.smarteducation.service.SecurityEventWriter;
+import com.ljh.smarteducation.util.SqlInjectionScanner;
 import jakarta.servlet.*;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -13,11 +14,13 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.annotation.Order;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
 import org.springframework.stereotype.Component;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.regex.Pattern;
 
 /**
  * SQL 注入检测过滤器
@@ -30,7 +33,11 @@ import java.util.*;
 @Order(1) // 设置最高优先级，在其他过滤器之前执行
 public class SqlInjectionFilter implements Filter {
 
-    private final SecurityEventLogRepository securityEventLogRepository;
+    private static final Pattern IPV4_LITERAL = Pattern.compile("\\d{1,3}(\\.\\d{1,3}){3}");
+    private static final Pattern IPV6_LITERAL = Pattern.compile("[0-9a-fA-F]*:[0-9a-fA-F:.]*");
+
+    private final SecurityEventWriter securityEventWriter;
+    private final IpReputationService ipReputationService;
     private final ObjectMapper objectMapper;
 
     // ==================== 配置项 ====================
@@ -44,12 +51,30 @@ public class SqlInjectionFilter implements Filter {
     @Value("${sql.injection.filter.whitelist:}")
     private String whitelistPaths;
 
+    /**
+     * 请求体最多检查的字节数；超过此大小的 JSON 请求体不做部分检查，直接以 413 拒绝
+     */
+    @Value("${sql.injection.filter.max-inspect-bytes:1048576}")
+    private int maxInspectBytes;
+
+    /**
+     * 受信任的反向代理（逗号分隔的 IP 或 CIDR，如 10.0.0.0/8,127.0.0.1）
+     *
+     * 只有直接连接方（getRemoteAddr）属于受信任代理时，才从 X-Forwarded-For / X-Real-IP 中取客户端 IP；
+     * 否则这些请求头可由客户端任意伪造（冒充他人 IP 使其被封禁，或每次换一个值绕过封禁），一律使用 getRemoteAddr。
+     * 默认为空，即不信任任何转发头。部署在 Nginx 等反向代理之后时必须配置代理地址，否则所有请求都会记在代理的 IP 上。
+     */
+    @Value("${security.offender.trusted-proxies:}")
+    private String trustedProxies;
+
     private Set<String> whitelist;
+    private List<IpAddressMatcher> trustedProxyMatchers;
 
     // ==================== 构造函数 ====================
 
-    public SqlInjectionFilter(SecurityEventLogRepository securityEventLogRepository) {
-        this.securityEventLogRepository = securityEventLogRepository;
+    public SqlInjectionFilter(SecurityEventWriter securityEventWriter, IpReputationService ipReputationService) {
+        this.securityEventWriter = securityEventWriter;
+        this.ipReputationService = ipReputationService;
         this.objectMapper = new ObjectMapper();
     }
 
@@ -66,11 +91,22 @@ public class SqlInjectionFilter implements Filter {
             }
         }
         
+        // 初始化受信任代理
+        trustedProxyMatchers = new ArrayList<>();
+        if (trustedProxies != null && !trustedProxies.trim().isEmpty()) {
+            for (String proxy : trustedProxies.split(",")) {
+                if (!proxy.trim().isEmpty()) {
+                    trustedProxyMatchers.add(new IpAddressMatcher(proxy.trim()));
+                }
+            }
+        }
+        
         log.info("========================================");
         log.info("SQL 注入检测过滤器已启动");
         log.info("启用状态: {}", filterEnabled);
         log.info("检测模式: {}", filterMode);
         log.info("白名单路径: {}", whitelist);
+        log.info("受信任代理: {}", trustedProxyMatchers.isEmpty() ? "无（不读取 X-Forwarded-For）" : trustedProxies);
         log.info("========================================");
     }
 
@@ -96,14 +132,22 @@ public class SqlInjectionFilter implements Filter {
                 return;
             }
 
-            // 3. 检测 URL 参数
+            // 3. 封禁期内的 IP 直接拒绝，不读取参数和请求体，也不逐条记录日志（封禁结束时汇总）
+            String clientIp = getClientIpAddress(httpRequest);
+            if (ipReputationService.checkBlocked(clientIp)) {
+                log.debug("IP 处于封禁期，拒绝请求: {} {}", clientIp, requestPath);
+                rejectBlockedIp(httpResponse);
+                return;
+            }
+
+            // 4. 检测 URL 参数
             Map<String, String[]> parameterMap = httpRequest.getParameterMap();
             for (Map.Entry<String, String[]> entry : parameterMap.entrySet()) {
                 String paramName = entry.getKey();
                 String[] paramValues = entry.getValue();
                 
                 for (String paramValue : paramValues) {
-                    if (InputValidator.containsSqlInjection(paramValue)) {
+                    if (SqlInjectionScanner.containsSqlInjection(paramValue)) {
                         log.warn("检测到 SQL 注入攻击 - URL 参数: {} = {}", paramName, paramValue);
                         handleSqlInjectionDetected(httpRequest, httpResponse, paramValue);
                         return; // 拦截请求，不继续处理
@@ -111,32 +155,35 @@ public class SqlInjectionFilter implements Filter {
                 }
             }
 
-            // 4. 检测请求体（仅 POST/PUT 请求）
+            // 5. 检测请求体（仅 POST/PUT 请求）
             String method = httpRequest.getMethod();
             if ("POST".equalsIgnoreCase(method) || "PUT".equalsIgnoreCase(method)) {
                 String contentType = httpRequest.getContentType();
                 
                 // 仅检测 JSON 请求体
                 if (contentType != null && contentType.contains("application/json")) {
-                    // 缓存请求体以支持多次读取
-                    CachedBodyHttpServletRequest cachedRequest = new CachedBodyHttpServletRequest(httpRequest);
-                    String requestBody = cachedRequest.getBody();
-                    
-                    if (requestBody != null && !requestBody.trim().isEmpty()) {
-                        if (InputValidator.containsSqlInjection(requestBody)) {
-                            log.warn("检测到 SQL 注入攻击 - 请求体: {}", requestBody.substring(0, Math.min(100, requestBody.length())));
-                            handleSqlInjectionDetected(cachedRequest, httpResponse, requestBody);
-                            return; // 拦截请求，不继续处理
-                        }
+                    // 边读边扫描请求体（只检查 JSON 字符串值），超过 maxInspectBytes 字节的请求体整体拒绝
+                    InspectedBodyHttpServletRequest inspectedRequest =
+                            new InspectedBodyHttpServletRequest(httpRequest, maxInspectBytes);
+                    if (inspectedRequest.isTooLarge()) {
+                        log.warn("请求体超过检查上限 {} 字节，拒绝请求: {} {}", maxInspectBytes, method, requestPath);
+                        rejectTooLarge(httpResponse);
+                        return;
+                    }
+                    if (inspectedRequest.isInjectionDetected()) {
+                        String fragment = inspectedRequest.getMatchedFragment();
+                        log.warn("检测到 SQL 注入攻击 - 请求体: {}", fragment.substring(0, Math.min(100, fragment.length())));
+                        handleSqlInjectionDetected(inspectedRequest, httpResponse, fragment);
+                        return; // 拦截请求，不继续处理
                     }
                     
-                    // 使用缓存的请求继续处理
-                    chain.doFilter(cachedRequest, response);
+                    // 使用已读取的请求体继续处理
+                    chain.doFilter(inspectedRequest, response);
                     return;
                 }
             }
 
-            // 5. 没有检测到注入，放行请求
+            // 6. 没有检测到注入，放行请求
             chain.doFilter(request, response);
 
         } catch (Exception e) {
@@ -172,7 +219,8 @@ public class SqlInjectionFilter implements Filter {
         eventLog.setDescription("检测到 SQL 注入攻击尝试");
         
         // 2. 设置请求信息
-        eventLog.setIpAddress(getClientIpAddress(request));
+        String clientIp = getClientIpAddress(request);
+        eventLog.setIpAddress(clientIp);
         eventLog.setRequestUrl(request.getRequestURI());
         eventLog.setRequestMethod(request.getMethod());
         eventLog.setUserAgent(request.getHeader("User-Agent"));
@@ -208,17 +256,13 @@ public class SqlInjectionFilter implements Filter {
             log.debug("获取用户信息失败: {}", e.getMessage());
         }
         
-        // 6. 异步保存日志（使用新线程，避免阻塞请求）
-        new Thread(() -> {
-            try {
-                securityEventLogRepository.save(eventLog);
-                log.info("SQL 注入攻击日志已保存 - IP: {}, URL: {}", eventLog.getIpAddress(), eventLog.getRequestUrl());
-            } catch (Exception e) {
-                log.error("保存安全日志失败: {}", e.getMessage(), e);
-            }
-        }).start();
+        // 6. 交给后台批量写入（队列有界，攻击高峰时抽样/丢弃，不阻塞请求）
+        securityEventWriter.submit(eventLog);
+
+        // 7. 计入 IP 信誉表，短时间内多次违规的 IP 会被临时封禁
+        ipReputationService.recordOffence(clientIp, request.getRequestURI(), request.getMethod());
         
-        // 7. 返回错误响应
+        // 8. 返回错误响应
         response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
         response.setContentType("application/json");
         response.setCharacterEncoding("UTF-8");
@@ -232,89 +276,209 @@ public class SqlInjectionFilter implements Filter {
         response.getWriter().flush();
     }
 
+    /**
+     * 拒绝处于封禁期的 IP
+     * 
+     * @param response HTTP 响应
+     * @throws IOException IO 异常
+     */
+    private void rejectBlockedIp(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpServletResponse.SC_FORBIDDEN);
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+
+        Map<String, String> errorResponse = new HashMap<>();
+        errorResponse.put("error", "请求过于频繁地触发安全规则，已被暂时拒绝");
+        errorResponse.put("code", "IP_BLOCKED");
+
+        response.getWriter().write(objectMapper.writeValueAsString(errorResponse));
+        response.getWriter().flush();
+    }
+
+    /**
+     * 拒绝超过检查上限的请求体
+     * 
+     * @param response HTTP 响应
+     * @throws IOException IO 异常
+     */
+    private void rejectTooLarge(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+
+        Map<String, String> errorResponse = new HashMap<>();
+        errorResponse.put("error", "请求体过大，已被拒绝");
+        errorResponse.put("code", "PAYLOAD_TOO_LARGE");
+
+        response.getWriter().write(objectMapper.writeValueAsString(errorResponse));
+        response.getWriter().flush();
+    }
+
     // ==================== 辅助方法 ====================
 
     /**
-     * 获取客户端真实 IP 地址
-     * 支持代理和负载均衡场景
+     * 获取客户端 IP 地址（用于封禁判断和安全日志）
+     * 
+     * 直接连接方不是受信任代理时返回 getRemoteAddr，忽略转发头；
+     * 是受信任代理时从右向左查看 X-Forwarded-For，跳过受信任代理，返回第一个不受信任的地址
+     * （最左边的值由客户端提供，不可信），没有 X-Forwarded-For 时使用 X-Real-IP。
      * 
      * @param request HTTP 请求
      * @return 客户端 IP 地址
      */
     private String getClientIpAddress(HttpServletRequest request) {
-        // 1. 优先从 X-Forwarded-For 获取（经过代理的情况）
-        String ip = request.getHeader("X-Forwarded-For");
-        if (ip != null && !ip.isEmpty() && !"unknown".equalsIgnoreCase(ip)) {
-            // X-Forwarded-For 可能包含多个 IP，取第一个
-            int index = ip.indexOf(',');
-            if (index != -1) {
-                return ip.substring(0, index).trim();
+        String remoteAddr = request.getRemoteAddr();
+        if (!isTrustedProxy(remoteAddr)) {
+            return remoteAddr;
+        }
+
+        // 1. 经过受信任代理：从 X-Forwarded-For 末尾开始跳过代理自身
+        String forwardedFor = request.getHeader("X-Forwarded-For");
+        if (forwardedFor != null && !forwardedFor.isBlank()) {
+            String[] hops = forwardedFor.split(",");
+            for (int i = hops.length - 1; i >= 0; i--) {
+                String hop = hops[i].trim();
+                if (!hop.isEmpty() && !"unknown".equalsIgnoreCase(hop) && !isTrustedProxy(hop)) {
+                    return hop;
+                }
             }
-            return ip.trim();
         }
         
         // 2. 其次从 X-Real-IP 获取
-        ip = request.getHeader("X-Real-IP");
-        if (ip != null && !ip.isEmpty() && !"unknown".equalsIgnoreCase(ip)) {
-            return ip.trim();
+        String realIp = request.getHeader("X-Real-IP");
+        if (realIp != null && !realIp.isBlank() && !"unknown".equalsIgnoreCase(realIp)) {
+            return realIp.trim();
         }
         
-        // 3. 最后从 RemoteAddr 获取
-        return request.getRemoteAddr();
+        // 3. 最后使用 RemoteAddr
+        return remoteAddr;
+    }
+
+    /**
+     * 只匹配 IP 字面量：IpAddressMatcher 会对主机名做 DNS 解析，转发头中的值不能交给它解析
+     */
+    private boolean isTrustedProxy(String ip) {
+        if (ip == null || trustedProxyMatchers.isEmpty()
+                || !(IPV4_LITERAL.matcher(ip).matches() || IPV6_LITERAL.matcher(ip).matches())) {
+            return false;
+        }
+        for (IpAddressMatcher matcher : trustedProxyMatchers) {
+            try {
+                if (matcher.matches(ip)) {
+                    return true;
+                }
+            } catch (IllegalArgumentException e) {
+                return false;
+            }
+        }
+        return false;
     }
 
-    // ==================== 请求体缓存类 ====================
+    // ==================== 请求体检查类 ====================
 
     /**
-     * 缓存请求体的 HttpServletRequest 包装类
-     * 用于支持多次读取请求体
+     * 边读边扫描请求体的 HttpServletRequest 包装类
+     * 
+     * 读取的字节只保存一份：扫描器直接处理读取缓冲区，后续处理从同一缓冲区读取，不再复制或解码成字符串。
+     * 请求体超过检查上限时标记为过大（Content-Length 已超出时不读取），由过滤器拒绝，不会把未检查的字节传给后续处理。
      */
-    private static class CachedBodyHttpServletRequest extends HttpServletRequestWrapper {
-        
-        private final byte[] cachedBody;
+    private static class InspectedBodyHttpServletRequest extends HttpServletRequestWrapper {
 
-        public CachedBodyHttpServletRequest(HttpServletRequest request) throws IOException {
+        private static final int INITIAL_BUFFER_SIZE = 8192;
+        private static final int FRAGMENT_BYTES = 600;
+
+        private byte[] buffer;
+        private int length;
+        private boolean tooLarge;
+        private final SqlInjectionScanner scanner = SqlInjectionScanner.forJson();
+
+        public InspectedBodyHttpServletRequest(HttpServletRequest request, int maxInspectBytes) throws IOException {
             super(request);
-            // 读取并缓存请求体
-            InputStream inputStream = request.getInputStream();
-            this.cachedBody = inputStream.readAllBytes();
+            long contentLength = request.getContentLengthLong();
+            if (contentLength > maxInspectBytes) {
+                this.buffer = new byte[0];
+                this.tooLarge = true;
+                return;
+            }
+            this.buffer = new byte[(int) Math.max(1, Math.min(maxInspectBytes,
+                    contentLength > 0 ? contentLength : INITIAL_BUFFER_SIZE))];
+
+            ServletInputStream in = request.getInputStream();
+            boolean exhausted = false;
+            while (true) {
+                if (length == buffer.length) {
+                    if (length >= maxInspectBytes) {
+                        // 已读满检查上限：流中还有数据则请求体过大
+                        tooLarge = in.read() >= 0;
+                        exhausted = !tooLarge;
+                        break;
+                    }
+                    buffer = Arrays.copyOf(buffer, (int) Math.min(maxInspectBytes, (long) buffer.length * 2));
+                }
+                int read = in.read(buffer, length, buffer.length - length);
+                if (read < 0) {
+                    exhausted = true;
+                    break;
+                }
+                boolean detected = scanner.feed(buffer, length, read);
+                length += read;
+                if (detected) {
+                    break;
+                }
+            }
+            if (exhausted) {
+                scanner.finish();
+            }
         }
 
-        @Override
-        public ServletInputStream getInputStream() throws IOException {
-            return new CachedBodyServletInputStream(this.cachedBody);
+        public boolean isTooLarge() {
+            return tooLarge;
         }
 
-        @Override
-        public BufferedReader getReader() throws IOException {
-            ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(this.cachedBody);
-            return new BufferedReader(new InputStreamReader(byteArrayInputStream, StandardCharsets.UTF_8));
+        public boolean isInjectionDetected() {
+            return scanner.detected();
+        }
+
+        /**
+         * 触发检测的字符串值（原始 JSON 文本，最多 FRAGMENT_BYTES 字节）
+         */
+        public String getMatchedFragment() {
+            int from = (int) Math.max(0, scanner.matchedValueStart());
+            int to = Math.min(length, from + FRAGMENT_BYTES);
+            return new String(buffer, from, Math.max(0, to - from), StandardCharsets.UTF_8);
         }
 
         /**
-         * 获取请求体内容
-         * 
-         * @return 请求体字符串
+         * 每次调用都返回从头读取缓冲区的新输入流
          */
-        public String getBody() {
-            return new String(this.cachedBody, StandardCharsets.UTF_8);
+        @Override
+        public ServletInputStream getInputStream() {
+            return new InspectedBodyServletInputStream(buffer, length);
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
         }
     }
 
     /**
-     * 缓存的 ServletInputStream 实现
+     * 读取已检查的缓冲区
      */
-    private static class CachedBodyServletInputStream extends ServletInputStream {
-        
-        private final ByteArrayInputStream byteArrayInputStream;
+    private static class InspectedBodyServletInputStream extends ServletInputStream {
+
+        private final byte[] buffer;
+        private final int length;
+        private int position;
 
-        public CachedBodyServletInputStream(byte[] cachedBody) {
-            this.byteArrayInputStream = new ByteArrayInputStream(cachedBody);
+        public InspectedBodyServletInputStream(byte[] buffer, int length) {
+            this.buffer = buffer;
+            this.length = length;
         }
 
         @Override
         public boolean isFinished() {
-            return byteArrayInputStream.available() == 0;
+            return position >= length;
         }
 
         @Override
@@ -328,8 +492,22 @@ public class SqlInjectionFilter implements Filter {
         }
 
         @Override
-        public int read() throws IOException {
-            return byteArrayInputStream.read();
+        public int read() {
+            return position < length ? buffer[position++] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (position >= length) {
+                return -1;
+            }
+            int n = Math.min(len, length - position);
+            System.arraycopy(buffer, position, b, off, n);
+            position += n;
+            return n;
         }
     }
 }
@@ -1,7 +1,11 @@
 package com.ljh.smarteducation.controller;
 
+import com.ljh.smarteducation.dto.ApiUsageDailyTotals;
+import com.ljh.smarteducation.dto.ApiUsageModelTotals;
+import com.ljh.smarteducation.dto.ApiUsageTotals;
 import com.ljh.smarteducation.entity.ApiUsageLog;
 import com.ljh.smarteducation.repository.ApiUsageLogRepository;
+import com.ljh.smarteducation.service.ApiUsageService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -11,8 +15,11 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -24,9 +31,14 @@ import java.util.Map;
 @RequestMapping("/api/admin/statistics")
 public class ApiStatisticsController {
     
+    private static final int MAX_PAGE_SIZE = 200;
+    
     @Autowired
     private ApiUsageLogRepository apiUsageLogRepository;
     
+    @Autowired
+    private ApiUsageService apiUsageService;
+    
     /**
      * 获取 API 使用总体统计
      */
@@ -36,17 +48,12 @@ public class ApiStatisticsController {
         try {
             Map<String, Object> summary = new HashMap<>();
             
-            // 总调用次数（仅统计成功的）
-            long totalCalls = apiUsageLogRepository.countSuccessCalls();
-            
-            // 总 Token 使用量
-            Long totalTokens = apiUsageLogRepository.sumTotalTokens();
-            
-            // 总成本
-            Double totalCost = apiUsageLogRepository.sumTotalCost();
-            
-            // 总题目数
-            Integer totalQuestions = apiUsageLogRepository.sumQuestionCount();
+            // 读日汇总表（仅统计成功的）
+            ApiUsageTotals totals = apiUsageService.getTotals();
+            long totalCalls = totals.getCallCount();
+            long totalTokens = totals.getTotalTokens();
+            double totalCost = totals.getTotalCost();
+            long totalQuestions = totals.getQuestionCount();
             
             // 计算平均值
             double avgTokensPerSet = totalCalls > 0 ? totalTokens / (double) totalCalls : 0;
@@ -122,8 +129,16 @@ public class ApiStatisticsController {
         try {
             LocalDateTime startDate = LocalDateTime.now().minusDays(days);
             
-            List<Map<String, Object>> trend = 
-                apiUsageLogRepository.getCostTrendByDay(startDate);
+            List<Map<String, Object>> trend = new ArrayList<>();
+            for (ApiUsageDailyTotals day : apiUsageService.getDailyTotals(startDate.toLocalDate())) {
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("date", day.getDay().toString());
+                row.put("call_count", day.getCallCount());
+                row.put("total_tokens", day.getTotalTokens());
+                row.put("total_cost", day.getTotalCost());
+                row.put("question_count", day.getQuestionCount());
+                trend.add(row);
+            }
             
             Map<String, Object> response = new HashMap<>();
             response.put("trend", trend);
@@ -145,8 +160,15 @@ public class ApiStatisticsController {
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<Map<String, Object>> getStatisticsByModel() {
         try {
-            List<Map<String, Object>> modelStats = 
-                apiUsageLogRepository.getStatisticsByModel();
+            List<Map<String, Object>> modelStats = new ArrayList<>();
+            for (ApiUsageModelTotals model : apiUsageService.getModelTotals()) {
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("modelName", model.getModelName());
+                row.put("callCount", model.getCallCount());
+                row.put("totalTokens", model.getTotalTokens());
+                row.put("totalCost", model.getTotalCost());
+                modelStats.add(row);
+            }
             
             Map<String, Object> response = new HashMap<>();
             response.put("statistics", modelStats);
@@ -161,42 +183,40 @@ public class ApiStatisticsController {
     
     /**
      * 获取指定时间范围的统计
+     * 合计来自日汇总表；传入 page 时附带该时间段的原始日志（分页）
      */
     @GetMapping("/date-range")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<Map<String, Object>> getStatsByDateRange(
             @RequestParam String startDate,
-            @RequestParam String endDate) {
+            @RequestParam String endDate,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(defaultValue = "20") int size) {
         
         try {
             LocalDateTime start = LocalDateTime.parse(startDate);
             LocalDateTime end = LocalDateTime.parse(endDate);
             
-            List<ApiUsageLog> logs = apiUsageLogRepository.findByDateRange(start, end);
-            
-            // 计算该时间段的统计
-            long totalCalls = logs.stream().filter(ApiUsageLog::getSuccess).count();
-            int totalTokens = logs.stream()
-                .filter(ApiUsageLog::getSuccess)
-                .mapToInt(log -> log.getTotalTokens() != null ? log.getTotalTokens() : 0)
-                .sum();
-            double totalCost = logs.stream()
-                .filter(ApiUsageLog::getSuccess)
-                .mapToDouble(log -> log.getTotalCost() != null ? log.getTotalCost() : 0.0)
-                .sum();
-            int totalQuestions = logs.stream()
-                .filter(ApiUsageLog::getSuccess)
-                .mapToInt(log -> log.getQuestionCount() != null ? log.getQuestionCount() : 0)
-                .sum();
+            ApiUsageTotals totals = apiUsageService.getTotalsBetween(start, end);
             
             Map<String, Object> response = new HashMap<>();
             response.put("startDate", startDate);
             response.put("endDate", endDate);
-            response.put("totalCalls", totalCalls);
-            response.put("totalTokens", totalTokens);
-            response.put("totalCost", String.format("%.2f", totalCost));
-            response.put("totalQuestions", totalQuestions);
-            response.put("logs", logs);
+            response.put("totalCalls", totals.getCallCount());
+            response.put("totalTokens", totals.getTotalTokens());
+            response.put("totalCost", String.format("%.2f", totals.getTotalCost()));
+            response.put("totalQuestions", totals.getQuestionCount());
+            
+            if (page != null) {
+                int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+                Page<ApiUsageLog> logsPage = apiUsageLogRepository.findByDateRange(start, end,
+                    PageRequest.of(page, pageSize, Sort.by("createdAt").descending()));
+                response.put("logs", logsPage.getContent());
+                response.put("totalElements", logsPage.getTotalElements());
+                response.put("totalPages", logsPage.getTotalPages());
+                response.put("currentPage", page);
+                response.put("pageSize", pageSize);
+            }
             
             return ResponseEntity.ok(response);
         } catch (Exception e) {
@@ -206,6 +226,29 @@ public class ApiStatisticsController {
         }
     }
     
+    /**
+     * 从原始日志重建日汇总（from/to 为日期，含两端）
+     */
+    @PostMapping("/rollup/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> rebuildRollup(
+            @RequestParam String from,
+            @RequestParam String to) {
+        try {
+            int rows = apiUsageService.rebuildRollup(LocalDate.parse(from), LocalDate.parse(to));
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("from", from);
+            response.put("to", to);
+            response.put("rollupRows", rows);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "重建日汇总失败: " + e.getMessage());
+            return ResponseEntity.status(500).body(errorResponse);
+        }
+    }
+    
     /**
      * 获取单个日志详情
      */
@@ -0,0 +1,122 @@
+package com.ljh.smarteducation.controller;
+
+import com.ljh.smarteducation.service.ChunkedUploadService;
+import com.ljh.smarteducation.service.ChunkedUploadService.UploadSession;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 分片上传接口
+ *
+ * 完成后返回的 uploadId 可以代替 file 参数传给
+ * /api/admin/questions/upload、/api/admin/questions/upload/async 和 /api/admin/resources/upload。
+ */
+@RestController
+@RequestMapping("/api/admin/uploads/chunked")
+@CrossOrigin(origins = "http://localhost:5173")
+@PreAuthorize("hasRole('ADMIN')")
+public class ChunkedUploadController {
+
+    private final ChunkedUploadService chunkedUploadService;
+
+    public ChunkedUploadController(ChunkedUploadService chunkedUploadService) {
+        this.chunkedUploadService = chunkedUploadService;
+    }
+
+    /**
+     * POST /api/admin/uploads/chunked - 登记一次分片上传
+     */
+    @PostMapping
+    public ResponseEntity<?> init(@RequestParam("fileName") String fileName,
+                                  @RequestParam("totalSize") long totalSize,
+                                  @RequestParam(value = "contentType", required = false) String contentType) {
+        try {
+            UploadSession session = chunkedUploadService.init(fileName, contentType, totalSize);
+            return ResponseEntity.ok(toStatus(session));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IOException e) {
+            return ResponseEntity.status(500).body("Failed to create upload: " + e.getMessage());
+        }
+    }
+
+    /**
+     * GET /api/admin/uploads/chunked/{uploadId} - 查询续传位置
+     */
+    @GetMapping("/{uploadId}")
+    public ResponseEntity<?> getStatus(@PathVariable String uploadId) {
+        return chunkedUploadService.getSession(uploadId)
+                .<ResponseEntity<?>>map(session -> ResponseEntity.ok(toStatus(session)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * PUT /api/admin/uploads/chunked/{uploadId}?offset=&checksum= - 上传一个分片（请求体为原始字节）
+     * 偏移量与服务器记录不一致时返回 409 和当前偏移量
+     */
+    @PutMapping("/{uploadId}")
+    public ResponseEntity<?> putChunk(@PathVariable String uploadId,
+                                      @RequestParam("offset") long offset,
+                                      @RequestParam("checksum") String checksum,
+                                      HttpServletRequest request) {
+        try {
+            long received = chunkedUploadService.writeChunk(uploadId, offset, request.getInputStream(), checksum);
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("uploadId", uploadId);
+            body.put("offset", received);
+            return ResponseEntity.ok(body);
+        } catch (IllegalStateException e) {
+            return chunkedUploadService.getSession(uploadId)
+                    .<ResponseEntity<?>>map(session -> ResponseEntity.status(409).body(toStatus(session)))
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IOException e) {
+            return ResponseEntity.status(500).body("Failed to write chunk: " + e.getMessage());
+        }
+    }
+
+    /**
+     * POST /api/admin/uploads/chunked/{uploadId}/complete?sha256= - 校验整文件哈希并完成上传
+     */
+    @PostMapping("/{uploadId}/complete")
+    public ResponseEntity<?> complete(@PathVariable String uploadId,
+                                      @RequestParam("sha256") String sha256) {
+        try {
+            return ResponseEntity.ok(toStatus(chunkedUploadService.complete(uploadId, sha256)));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).body(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IOException e) {
+            return ResponseEntity.status(500).body("Failed to complete upload: " + e.getMessage());
+        }
+    }
+
+    /**
+     * DELETE /api/admin/uploads/chunked/{uploadId} - 放弃上传
+     */
+    @DeleteMapping("/{uploadId}")
+    public ResponseEntity<Void> abort(@PathVariable String uploadId) throws IOException {
+        chunkedUploadService.abort(uploadId);
+        return ResponseEntity.noContent().build();
+    }
+
+    private Map<String, Object> toStatus(UploadSession session) {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("uploadId", session.getUploadId());
+        status.put("fileName", session.getFileName());
+        status.put("totalSize", session.getTotalSize());
+        status.put("offset", session.getReceivedBytes());
+        status.put("completed", session.isCompleted());
+        status.put("sha256", session.getSha256());
+        status.put("maxChunkBytes", chunkedUploadService.getMaxChunkBytes());
+        return status;
+    }
+}
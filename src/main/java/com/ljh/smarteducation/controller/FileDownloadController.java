@@ -3,13 +3,22 @@ package com.ljh.smarteducation.controller;
 import com.ljh.smarteducation.entity.ResourceFile;
 import com.ljh.smarteducation.service.FileStorageService;
 import com.ljh.smarteducation.service.ResourceFileService;
-import org.springframework.core.io.Resource;
+import com.ljh.smarteducation.service.SignedUrlService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.HttpRange;
 import org.springframework.web.bind.annotation.*;
 
-import java.net.MalformedURLException;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
 import java.util.Optional;
 
 @RestController
@@ -17,34 +26,171 @@ import java.util.Optional;
 @CrossOrigin(origins = "*") // 允许所有来源 (学生端)
 public class FileDownloadController {
 
+    /**
+     * 内容寻址的 blob 内容永不改变，可以长期缓存
+     */
+    private static final String IMMUTABLE_CACHE_CONTROL = "public, max-age=31536000, immutable";
+    private static final String LEGACY_CACHE_CONTROL = "public, max-age=86400";
+
+    /**
+     * Tomcat sendfile 请求属性：由容器在 Servlet 返回后直接用 sendfile 发送文件区间
+     */
+    private static final String SENDFILE_SUPPORT_ATTR = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
     private final ResourceFileService resourceFileService;
     private final FileStorageService storageService;
+    private final SignedUrlService signedUrlService;
 
-    public FileDownloadController(ResourceFileService resourceFileService, FileStorageService storageService) {
+    public FileDownloadController(ResourceFileService resourceFileService, FileStorageService storageService,
+                                  SignedUrlService signedUrlService) {
         this.resourceFileService = resourceFileService;
         this.storageService = storageService;
+        this.signedUrlService = signedUrlService;
     }
 
     /**
      * GET /api/files/{id} - 学生端通过此接口获取文件 (如.mp3)
+     * 支持单段 Range 请求（206）、ETag 条件请求（304）；多段 Range 按完整内容返回
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Resource> serveFile(@PathVariable Long id) {
+    public void serveFile(@PathVariable Long id, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
         Optional<ResourceFile> fileOpt = resourceFileService.getFile(id);
+        if (fileOpt.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        serve(fileOpt.get(), request, response);
+    }
+
+    /**
+     * GET /api/files/s/{token} - 签名下载链接，令牌自带文件信息，验签后直接读取磁盘，不查询数据库
+     */
+    @GetMapping("/s/{token}")
+    public void serveSignedFile(@PathVariable String token, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        Optional<ResourceFile> fileOpt = signedUrlService.verify(token);
+        if (fileOpt.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_FORBIDDEN);
+            return;
+        }
+        serve(fileOpt.get(), request, response);
+    }
+
+    private void serve(ResourceFile fileDetails, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        Path path = storageService.resolve(fileDetails.getStoragePath());
+        long length;
+        try {
+            length = Files.size(path);
+        } catch (NoSuchFileException e) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        String etag = etagOf(fileDetails, length);
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL,
+                fileDetails.getContentHash() != null ? IMMUTABLE_CACHE_CONTROL : LEGACY_CACHE_CONTROL);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
 
-        if (fileOpt.isPresent()) {
-            ResourceFile fileDetails = fileOpt.get();
+        if (etagMatches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long start = 0;
+        long end = length - 1;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && ifRangeMatches(request.getHeader(HttpHeaders.IF_RANGE), etag)) {
             try {
-                Resource resource = storageService.loadAsResource(fileDetails.getStoragePath());
-                return ResponseEntity.ok()
-                        .contentType(MediaType.parseMediaType(fileDetails.getFileType()))
-                        .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + fileDetails.getFileName() + "\"")
-                        .body(resource);
-            } catch (MalformedURLException e) {
-                return ResponseEntity.status(404).build();
+                List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+                if (ranges.size() == 1) {
+                    start = ranges.get(0).getRangeStart(length);
+                    end = ranges.get(0).getRangeEnd(length);
+                    if (start >= length || start > end) {
+                        throw new IllegalArgumentException("Range not satisfiable: " + rangeHeader);
+                    }
+                    response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+                }
+            } catch (IllegalArgumentException e) {
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                return;
+            }
+        }
+
+        response.setContentType(fileDetails.getFileType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + fileDetails.getFileName() + "\"");
+        response.setContentLengthLong(end - start + 1);
+
+        if ("HEAD".equalsIgnoreCase(request.getMethod())) {
+            return;
+        }
+        transfer(path, start, end, request, response);
+    }
+
+    /**
+     * 发送文件区间 [start, end]：容器支持 sendfile 时交给容器零拷贝发送，否则用 FileChannel.transferTo
+     */
+    private void transfer(Path path, long start, long end, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTR))) {
+            request.setAttribute(SENDFILE_FILENAME_ATTR, path.toString());
+            request.setAttribute(SENDFILE_START_ATTR, start);
+            request.setAttribute(SENDFILE_END_ATTR, end + 1);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = end - start + 1;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    /**
+     * 强 ETag：内容寻址文件直接使用内容哈希；旧文件按 id 存储且不会被覆盖，用 id 和大小标识
+     */
+    private static String etagOf(ResourceFile file, long length) {
+        if (file.getContentHash() != null) {
+            return "\"" + file.getContentHash() + "\"";
+        }
+        return "\"" + file.getId() + "-" + length + "\"";
+    }
+
+    private static boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
             }
-        } else {
-            return ResponseEntity.status(404).build();
         }
+        return false;
+    }
+
+    /**
+     * If-Range 只接受强 ETag 比较；带日期的 If-Range 视为不匹配，返回完整内容
+     */
+    private static boolean ifRangeMatches(String ifRange, String etag) {
+        return ifRange == null || ifRange.trim().equals(etag);
     }
-}
\ No newline at end of file
+}
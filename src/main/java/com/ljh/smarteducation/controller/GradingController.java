@@ -1,11 +1,17 @@
 package com.ljh.smarteducation.controller;
 
+import com.ljh.smarteducation.dto.GradeRequest;
+import com.ljh.smarteducation.dto.PendingSubmissionSummary;
 import com.ljh.smarteducation.entity.StudentSubmission;
-import com.ljh.smarteducation.repository.StudentSubmissionRepository;
+import com.ljh.smarteducation.service.GradingService;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -15,20 +21,64 @@ import java.util.Map;
 @PreAuthorize("hasRole('ADMIN')") // 确保只有管理员能访问
 public class GradingController {
 
-    private final StudentSubmissionRepository submissionRepository;
+    /**
+     * 单次领取/批量批改的最大份数
+     */
+    private static final int MAX_BATCH = 500;
+
+    private final GradingService gradingService;
 
-    public GradingController(StudentSubmissionRepository submissionRepository) {
-        this.submissionRepository = submissionRepository;
+    public GradingController(GradingService gradingService) {
+        this.gradingService = gradingService;
     }
 
     /**
-     * GET /api/admin/grading/pending - 获取所有待批改的答卷
+     * GET /api/admin/grading/pending?page=&size= - 分页获取待批改的答卷摘要（按提交时间先后，不含答案）
      */
     @GetMapping("/pending")
-    public ResponseEntity<List<StudentSubmission>> getPendingSubmissions() {
-        // 查找所有 graded = false 的答卷
-        List<StudentSubmission> pending = submissionRepository.findByGraded(false);
-        return ResponseEntity.ok(pending);
+    public ResponseEntity<Map<String, Object>> getPendingSubmissions(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        Page<PendingSubmissionSummary> pendingPage = gradingService.getPendingPage(Math.max(0, page),
+                Math.max(1, Math.min(size, MAX_BATCH)));
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("submissions", pendingPage.getContent());
+        response.put("totalElements", pendingPage.getTotalElements());
+        response.put("totalPages", pendingPage.getTotalPages());
+        response.put("currentPage", pendingPage.getNumber());
+        response.put("pageSize", pendingPage.getSize());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * POST /api/admin/grading/claim?count= - 领取最早的若干份待批改答卷（返回完整答卷）
+     */
+    @PostMapping("/claim")
+    public ResponseEntity<List<StudentSubmission>> claimSubmissions(
+            @RequestParam(defaultValue = "10") int count, Authentication authentication) {
+        return ResponseEntity.ok(gradingService.claim(authentication.getName(), Math.max(1, Math.min(count, MAX_BATCH))));
+    }
+
+    /**
+     * DELETE /api/admin/grading/claim - 释放自己领取但尚未批改的答卷
+     */
+    @DeleteMapping("/claim")
+    public ResponseEntity<Map<String, Object>> releaseClaims(Authentication authentication) {
+        return ResponseEntity.ok(Map.of("released", gradingService.release(authentication.getName())));
+    }
+
+    /**
+     * POST /api/admin/grading/bulk - 批量提交批改结果，请求体为 [{submissionId, manualScore, feedback}, ...]
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<Map<String, Object>> gradeSubmissions(@RequestBody List<GradeRequest> grades,
+                                                                Authentication authentication) {
+        if (grades.size() > MAX_BATCH || grades.stream().anyMatch(grade -> grade.getSubmissionId() == null)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "批改数量超过上限或缺少答卷 ID"));
+        }
+        int updated = gradingService.gradeAll(authentication.getName(), grades);
+        return ResponseEntity.ok(Map.of("requested", grades.size(), "updated", updated));
     }
 
     /**
@@ -37,20 +87,22 @@ public class GradingController {
     @PostMapping("/{submissionId}")
     public ResponseEntity<StudentSubmission> gradeSubmission(
             @PathVariable Long submissionId,
-            @RequestBody Map<String, Object> payload) {
-        
-        StudentSubmission submission = submissionRepository.findById(submissionId)
-                .orElseThrow(() -> new RuntimeException("Submission not found"));
+            @RequestBody Map<String, Object> payload,
+            Authentication authentication) {
 
         // 从请求体中获取评语和分数
-        String feedback = (String) payload.get("feedback");
-        Integer manualScore = (Integer) payload.get("manualScore");
-
-        submission.setFeedback(feedback);
-        submission.setManualScore(manualScore);
-        submission.setGraded(true); // 标记为已批改
+        GradeRequest grade = new GradeRequest();
+        grade.setSubmissionId(submissionId);
+        grade.setFeedback((String) payload.get("feedback"));
+        grade.setManualScore((Integer) payload.get("manualScore"));
 
-        StudentSubmission savedSubmission = submissionRepository.save(submission);
-        return ResponseEntity.ok(savedSubmission);
+        try {
+            return gradingService.grade(authentication.getName(), grade)
+                    .map(ResponseEntity::ok)
+                    .orElseThrow(() -> new RuntimeException("Submission not found"));
+        } catch (IllegalStateException e) {
+            // 答卷已被其他教师领取
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
     }
 }
@@ -1,31 +1,36 @@
 package com.ljh.smarteducation.controller;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ljh.smarteducation.dto.AnswerSubmission;
+import com.ljh.smarteducation.dto.QuestionSetSummaryDto;
 import com.ljh.smarteducation.dto.SubmissionResult;
-import com.ljh.smarteducation.dto.QuestionSetDetailDto;
 import com.ljh.smarteducation.entity.Question;
-import com.ljh.smarteducation.entity.QuestionSet; // 1. 导入
-import com.ljh.smarteducation.entity.ResourceFile;
-import com.ljh.smarteducation.entity.StudentSubmission;
-import com.ljh.smarteducation.entity.User;
-import com.ljh.smarteducation.repository.QuestionSetRepository; // 2. 导入
-import com.ljh.smarteducation.repository.StudentSubmissionRepository;
-import com.ljh.smarteducation.service.QuestionBankService;
-import com.ljh.smarteducation.service.UserService;
+import com.ljh.smarteducation.service.AnswerKey;
+import com.ljh.smarteducation.service.AnswerKeyService;
+import com.ljh.smarteducation.service.QuestionSamplingService;
+import com.ljh.smarteducation.service.QuestionSetCatalogService;
+import com.ljh.smarteducation.service.QuestionSetPayloadService;
+import com.ljh.smarteducation.service.SubmissionIntakeService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.Collections;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
 
 @RestController
 @RequestMapping("/api/practice")
@@ -33,59 +38,165 @@ import java.util.stream.Collectors;
 public class PracticeController {
 
     @Autowired
-    private QuestionBankService questionBankService;
+    private AnswerKeyService answerKeyService;
     @Autowired
-    private ObjectMapper objectMapper;
+    private QuestionSamplingService questionSamplingService;
     @Autowired
-    private StudentSubmissionRepository submissionRepository;
+    private QuestionSetPayloadService questionSetPayloadService;
     @Autowired
-    private UserService userService;
-
-    // --- ↓↓↓ 3. (新增) 注入套题仓库 ↓↓↓ ---
+    private QuestionSetCatalogService questionSetCatalogService;
     @Autowired
-    private QuestionSetRepository questionSetRepository;
-    // --- ↑↑↑ 3. 新增结束 ↑↑↑ ---
+    private SubmissionIntakeService submissionIntakeService;
+
+    /**
+     * 单次随机练习最多抽取的题目数
+     */
+    private static final int MAX_PRACTICE_QUESTIONS = 100;
+
+    /**
+     * 套题列表单页最大条数
+     */
+    private static final int MAX_SET_PAGE_SIZE = 100;
 
 
     /**
-     * (旧) GET /api/practice/questions - (保持不变, 用于随机练习)
+     * GET /api/practice/questions - 随机练习
+     * 在内存索引中抽取题目 ID，只查询被抽中的题目；可按学科、题型、难度过滤，stratified=true 时分层抽取
      */
     @GetMapping("/questions")
-    public ResponseEntity<List<Question>> getPracticeQuestions() {
-        List<Question> allQuestions = questionBankService.getAllQuestions();
-        Collections.shuffle(allQuestions);
-        List<Question> practiceQuestions = allQuestions.subList(0, Math.min(5, allQuestions.size()));
-        return ResponseEntity.ok(practiceQuestions);
+    public ResponseEntity<List<Question>> getPracticeQuestions(
+            @RequestParam(value = "count", defaultValue = "5") int count,
+            @RequestParam(value = "subject", required = false) String subject,
+            @RequestParam(value = "type", required = false) String type,
+            @RequestParam(value = "difficulty", required = false) String difficulty,
+            @RequestParam(value = "stratified", defaultValue = "false") boolean stratified) {
+        int limit = Math.max(1, Math.min(count, MAX_PRACTICE_QUESTIONS));
+        return ResponseEntity.ok(questionSamplingService.sample(limit, subject, type, difficulty, stratified));
     }
 
     // --- ↓↓↓ 4. (新增) API: 获取所有套题 ↓↓↓ ---
+    /**
+     * GET /api/practice/sets?subject=&page=&size= - 套题列表（摘要，按上传时间倒序，短时缓存）
+     */
     @GetMapping("/sets")
-    public ResponseEntity<List<QuestionSet>> getQuestionSets() {
-        // (简单起见，我们先返回所有学科的套题)
-        List<QuestionSet> sets = questionSetRepository.findAll();
-        return ResponseEntity.ok(sets);
+    public ResponseEntity<Map<String, Object>> getQuestionSets(
+            @RequestParam(value = "subject", required = false) String subject,
+            @RequestParam(value = "page", defaultValue = "0") int page,
+            @RequestParam(value = "size", defaultValue = "20") int size) {
+        Page<QuestionSetSummaryDto> setPage = questionSetCatalogService.listSets(subject, Math.max(0, page),
+                Math.max(1, Math.min(size, MAX_SET_PAGE_SIZE)));
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("sets", setPage.getContent());
+        response.put("totalElements", setPage.getTotalElements());
+        response.put("totalPages", setPage.getTotalPages());
+        response.put("currentPage", setPage.getNumber());
+        response.put("pageSize", setPage.getSize());
+        return ResponseEntity.ok(response);
     }
     // --- ↑↑↑ 4. 新增结束 ↑↑↑ ---
 
     // --- ↓↓↓ 5. (核心修改) API: 获取指定套题的所有题目和音频 ---
+    /**
+     * 返回缓存的 QuestionSetDetailDto JSON（gzip 压缩，音频以签名链接的形式提供），支持 If-None-Match 返回 304
+     */
     @GetMapping("/set/{setId}")
-    public ResponseEntity<QuestionSetDetailDto> getQuestionsForSet(@PathVariable Long setId) {
-        // 使用 service 中按序号排序的方法
-        List<Question> questions = questionBankService.getQuestionsBySetId(setId);
-        
-        // (新增) 获取套题信息，并从中得到关联的音频文件
-        QuestionSet questionSet = questionSetRepository.findById(setId).orElse(null);
-        ResourceFile resourceFile = null;
-        if (questionSet != null) {
-            resourceFile = questionSet.getResourceFile();
+    public ResponseEntity<byte[]> getQuestionsForSet(
+            @PathVariable Long setId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        Optional<QuestionSetPayloadService.Payload> payloadOpt = questionSetPayloadService.getPayload(setId);
+        if (payloadOpt.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        QuestionSetPayloadService.Payload payload = payloadOpt.get();
+
+        // 内容不变时 ETag 不变，客户端每次都需要重新验证；gzip 与未压缩的响应体字节不同，使用不同的强 ETag
+        boolean gzip = acceptsGzip(acceptEncoding);
+        String etag = gzip ? gzipEtagOf(payload.etag()) : payload.etag();
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .header("X-Payload-Version", String.valueOf(payload.version()));
+        if (ifNoneMatch != null && matchesAny(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(builder.build().getHeaders()).build();
+        }
+        if (gzip) {
+            return builder.contentType(MediaType.APPLICATION_JSON)
+                    .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .body(payload.gzip());
+        }
+        return builder.contentType(MediaType.APPLICATION_JSON).body(gunzip(payload.gzip()));
+    }
+
+    /**
+     * 按 Accept-Encoding 的编码名和 q 值判断客户端是否接受 gzip：
+     * 显式列出的 gzip（或 x-gzip）以其 q 值为准，否则看 *；q=0 表示不接受，q 值无法解析时按不接受处理
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzipQuality = null;
+        Double wildcardQuality = null;
+        for (String element : acceptEncoding.split(",")) {
+            String[] parts = element.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            double quality = 1.0;
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.length() > 2 && param.regionMatches(true, 0, "q=", 0, 2)) {
+                    try {
+                        quality = Double.parseDouble(param.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzipQuality = quality;
+            } else if (coding.equals("*")) {
+                wildcardQuality = quality;
+            }
+        }
+        if (gzipQuality != null) {
+            return gzipQuality > 0;
+        }
+        return wildcardQuality != null && wildcardQuality > 0;
+    }
+
+    /**
+     * "abc" -> "abc-gz"
+     */
+    private static String gzipEtagOf(String etag) {
+        return etag.substring(0, etag.length() - 1) + "-gz\"";
+    }
+
+    /**
+     * If-None-Match 是逗号分隔的 ETag 列表（或 *），按弱比较逐个比对：忽略 W/ 前缀，引号内的值必须完全相同
+     */
+    private static boolean matchesAny(String ifNoneMatch, String etag) {
+        String expected = opaqueTag(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || opaqueTag(tag).equals(expected)) {
+                return true;
+            }
         }
-        
-        // (新增) 组装成 DTO 返回
-        QuestionSetDetailDto dto = new QuestionSetDetailDto();
-        dto.setQuestions(questions);
-        dto.setResourceFile(resourceFile);
+        return false;
+    }
 
-        return ResponseEntity.ok(dto);
+    private static String opaqueTag(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    private static byte[] gunzip(byte[] gzip) {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
     // --- ↑↑↑ 5. 修改结束 ↑↑↑ ---
 
@@ -100,8 +211,6 @@ public class PracticeController {
         // (获取当前登录用户)
         UserDetails userDetails = (UserDetails) authentication.getPrincipal();
         String username = userDetails.getUsername();
-        User currentUser = userService.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
 
         Map<Long, String> studentAnswers = submission.getAnswers();
         SubmissionResult result = new SubmissionResult();
@@ -110,60 +219,29 @@ public class PracticeController {
         int totalQuestions = studentAnswers.size();
         boolean needsManualGrading = false; // 标记是否包含作文题
 
-        // (自动批改逻辑 - 保持不变)
+        // (自动批改逻辑) 整份答卷共用一张预编译的答案表，不再逐题查库、解析选项
+        AnswerKey answerKey = answerKeyService.getAnswerKey(submission.getQuestionSetId(), studentAnswers.keySet());
         for (Map.Entry<Long, String> entry : studentAnswers.entrySet()) {
             Long questionId = entry.getKey();
-            String studentAnswerString = entry.getValue();
-
-            Optional<Question> questionOptional = questionBankService.getQuestionById(questionId);
             boolean isCorrect = false;
 
-            if (questionOptional.isPresent()) {
-                Question question = questionOptional.get();
-                Map<String, Object> content = question.getContent();
-                String questionType = (String) content.getOrDefault("questionType", "MULTIPLE_CHOICE");
-
-                if ("MULTIPLE_CHOICE".equals(questionType) || "LISTENING".equals(questionType)) {
-                    try {
-                        Long selectedOptionIdByStudent = Long.parseLong(studentAnswerString);
-                        Long correctOptionIdFromDB = getCorrectOptionId(content);
-                        if (selectedOptionIdByStudent.equals(correctOptionIdFromDB)) {
-                            score++;
-                            isCorrect = true;
-                        }
-                    } catch (NumberFormatException e) {
-                        isCorrect = false;
-                    }
-                } else if ("WRITING".equals(questionType) || "TRANSLATION".equals(questionType)) {
-                    needsManualGrading = true;
-                    isCorrect = false; // 默认为 false，等待人工批改
+            byte gradingMode = answerKey.gradingMode(questionId);
+            if (gradingMode == AnswerKey.MODE_AUTO) {
+                isCorrect = answerKey.isCorrect(questionId, entry.getValue());
+                if (isCorrect) {
+                    score++;
                 }
+            } else if (gradingMode == AnswerKey.MODE_MANUAL) {
+                needsManualGrading = true; // 作文/翻译题计为未得分，等待人工批改
             }
             correctnessMap.put(questionId, isCorrect);
         }
 
-        // (保存答卷记录 - 核心修改)
-        StudentSubmission newSubmission = new StudentSubmission();
-        newSubmission.setUserId(currentUser.getId());
-        newSubmission.setUsername(currentUser.getUsername());
-
+        // (保存答卷记录 - 核心修改) 写后模式下先写本地日志即返回，由后台批量入库
         Map<String, String> answersAsStringMap = studentAnswers.entrySet().stream()
                 .collect(Collectors.toMap(e -> String.valueOf(e.getKey()), Map.Entry::getValue));
-        newSubmission.setAnswers(answersAsStringMap);
-
-        newSubmission.setScore(score);
-        newSubmission.setTotalQuestions(totalQuestions);
-        newSubmission.setGraded(!needsManualGrading);
-
-        // --- ↓↓↓ 6. (新增) 关联答卷到套题 ↓↓↓ ---
-        if (submission.getQuestionSetId() != null) {
-            // 从数据库查找 QuestionSet 以确保关联的是一个受管实体
-            questionSetRepository.findById(submission.getQuestionSetId())
-                    .ifPresent(newSubmission::setQuestionSet);
-        }
-        // --- ↑↑↑ 6. 新增结束 ↑↑↑ ---
-
-        submissionRepository.save(newSubmission);
+        submissionIntakeService.submit(username, submission.getQuestionSetId(), answersAsStringMap,
+                score, totalQuestions, !needsManualGrading);
 
         // (返回结果 - 保持不变)
         result.setScore(score);
@@ -172,43 +250,5 @@ public class PracticeController {
 
         return ResponseEntity.ok(result);
     }
-
-    /**
-     * 辅助方法 (已修复笔误)
-     */
-    private Long getCorrectOptionId(Map<String, Object> content) {
-        Object optionsObject = content.get("options");
-        Long correctOptionIdFromDB = -1L;
-
-        if (optionsObject instanceof List) {
-            try {
-                List<Map<String, Object>> optionsList = objectMapper.convertValue(
-                        optionsObject,
-                        new TypeReference<List<Map<String, Object>>>() {}
-                );
-
-                for (Map<String, Object> optionMap : optionsList) {
-                    // (已修复) 使用 optionMap.get
-                    Object correctValue = optionMap.getOrDefault("correct", optionMap.get("isCorrect"));
-                    if (Boolean.TRUE.equals(correctValue)) {
-                        Object optionIdObj = optionMap.get("id");
-                        if (optionIdObj instanceof Number) {
-                            correctOptionIdFromDB = ((Number) optionIdObj).longValue();
-                        } else if (optionIdObj instanceof String) {
-                            try {
-                                correctOptionIdFromDB = Long.parseLong((String) optionIdObj);
-                            } catch (NumberFormatException e) {
-                                // 忽略解析错误
-                            }
-                        }
-                        break; // 找到即跳出循环
-                    }
-                }
-            } catch (IllegalArgumentException e) {
-                System.err.println("Error converting options list: " + e.getMessage());
-            }
-        }
-        return correctOptionIdFromDB;
-    }
 }
 
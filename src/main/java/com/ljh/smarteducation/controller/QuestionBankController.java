@@ -1,13 +1,19 @@
 package com.ljh.smarteducation.controller;
 
+import com.ljh.smarteducation.dto.QuestionSummary;
 import com.ljh.smarteducation.entity.Question;
 import com.ljh.smarteducation.entity.QuestionSet;
 import com.ljh.smarteducation.entity.UploadTask;
+import com.ljh.smarteducation.event.QuestionBankChangedEvent;
 import com.ljh.smarteducation.repository.QuestionBankRepository;
 import com.ljh.smarteducation.repository.QuestionSetRepository;
+import com.ljh.smarteducation.service.ChunkedUploadService;
 import com.ljh.smarteducation.service.QuestionBankService;
+import com.ljh.smarteducation.service.QuestionSetPayloadService;
+import com.ljh.smarteducation.service.StoredUpload;
 import com.ljh.smarteducation.service.UploadTaskService;
 import com.ljh.smarteducation.util.InputValidator;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.transaction.annotation.Transactional;
@@ -30,28 +36,46 @@ public class QuestionBankController {
     private final QuestionSetRepository questionSetRepository;
     private final QuestionBankRepository questionBankRepository;
     private final UploadTaskService uploadTaskService;
+    private final ChunkedUploadService chunkedUploadService;
+    private final QuestionSetPayloadService questionSetPayloadService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * 题目列表单页最大条数
+     */
+    private static final int MAX_PAGE_SIZE = 200;
 
     public QuestionBankController(QuestionBankService questionBankService,
                                    QuestionSetRepository questionSetRepository,
                                    QuestionBankRepository questionBankRepository,
-                                   UploadTaskService uploadTaskService) {
+                                   UploadTaskService uploadTaskService,
+                                   ChunkedUploadService chunkedUploadService,
+                                   QuestionSetPayloadService questionSetPayloadService,
+                                   ApplicationEventPublisher eventPublisher) {
         this.questionBankService = questionBankService;
         this.questionSetRepository = questionSetRepository;
         this.questionBankRepository = questionBankRepository;
         this.uploadTaskService = uploadTaskService;
+        this.chunkedUploadService = chunkedUploadService;
+        this.questionSetPayloadService = questionSetPayloadService;
+        this.eventPublisher = eventPublisher;
     }
 
     // --- 同步上传接口（保留用于小文件或测试） ---
+    // file 与 uploadId（分片上传完成后的 ID）二选一
     @PostMapping("/upload")
     public ResponseEntity<String> uploadQuestionBank(
-            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "file", required = false) MultipartFile file,
+            @RequestParam(value = "uploadId", required = false) String uploadId,
             @RequestParam("subject") String subject) {
-        if (file.isEmpty()) {
+        if (uploadId == null && (file == null || file.isEmpty())) {
             return ResponseEntity.badRequest().body("Please upload a file.");
         }
-        try {
-            questionBankService.importQuestionsFromWord(file, subject);
+        try (StoredUpload upload = chunkedUploadService.open(file, uploadId)) {
+            questionBankService.importQuestionsFromWord(upload, subject);
             return ResponseEntity.ok("File uploaded and processed successfully.");
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (IOException e) {
             return ResponseEntity.internalServerError().body("Failed to parse Word file: " + e.getMessage());
         } catch (Exception e) {
@@ -64,18 +88,25 @@ public class QuestionBankController {
      */
     @PostMapping("/upload/async")
     public ResponseEntity<?> uploadQuestionBankAsync(
-            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "file", required = false) MultipartFile file,
+            @RequestParam(value = "uploadId", required = false) String uploadId,
             @RequestParam("subject") String subject) {
-        if (file.isEmpty()) {
+        if (uploadId == null && (file == null || file.isEmpty())) {
             return ResponseEntity.badRequest().body("Please upload a file.");
         }
 
+        StoredUpload upload = null;
         try {
+            // 在请求线程内落盘（同时计算哈希），请求结束后 MultipartFile 的临时文件会被容器清理；
+            // 分片上传的文件已经在磁盘上，直接接管
+            upload = chunkedUploadService.open(file, uploadId);
+
             // 创建任务
-            UploadTask task = uploadTaskService.createTask(file, subject);
+            UploadTask task = uploadTaskService.createTask(upload, subject);
 
-            // 异步处理
-            uploadTaskService.processTaskAsync(task.getTaskId(), file, subject);
+            // 异步处理（由异步任务负责删除落盘文件）
+            uploadTaskService.processTaskAsync(task.getTaskId(), upload, subject);
+            upload = null;
 
             // 立即返回任务ID
             return ResponseEntity.ok(new java.util.HashMap<String, Object>() {{
@@ -83,8 +114,17 @@ public class QuestionBankController {
                 put("status", task.getStatus());
                 put("message", "任务已创建，正在后台处理...");
             }});
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(500).body("创建任务失败: " + e.getMessage());
+        } finally {
+            if (upload != null) {
+                try {
+                    upload.close();
+                } catch (IOException ignored) {
+                }
+            }
         }
     }
 
@@ -113,19 +153,78 @@ public class QuestionBankController {
     }
 
     /**
-     * GET /api/admin/questions - 获取所有问题
+     * GET /api/admin/questions?after=&limit=&subject=&setId=&type=&validationStatus= - 题目列表
+     * 按 ID 游标分页，只返回摘要（不含 content）；nextCursor 为 null 表示没有下一页
      */
     @GetMapping
-    public ResponseEntity<List<Question>> getAllQuestions() {
-        System.out.println(">>> [QuestionBankController] getAllQuestions 被调用");
-        System.out.println(">>> [QuestionBankController] SecurityContext认证状态: " + (org.springframework.security.core.context.SecurityContextHolder.getContext().getAuthentication() != null ? "已设置" : "未设置"));
-        if (org.springframework.security.core.context.SecurityContextHolder.getContext().getAuthentication() != null) {
-            System.out.println(">>> [QuestionBankController] 当前认证对象: " + org.springframework.security.core.context.SecurityContextHolder.getContext().getAuthentication());
-            System.out.println(">>> [QuestionBankController] 用户权限: " + org.springframework.security.core.context.SecurityContextHolder.getContext().getAuthentication().getAuthorities());
+    public ResponseEntity<Map<String, Object>> listQuestions(
+            @RequestParam(value = "after", required = false) Long after,
+            @RequestParam(value = "limit", defaultValue = "50") int limit,
+            @RequestParam(value = "subject", required = false) String subject,
+            @RequestParam(value = "setId", required = false) Long setId,
+            @RequestParam(value = "type", required = false) String type,
+            @RequestParam(value = "validationStatus", required = false) String validationStatus) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<QuestionSummary> items = questionBankService.listQuestionSummaries(after, pageSize, subject, setId,
+                type, validationStatus);
+
+        Map<String, Object> page = new java.util.LinkedHashMap<>();
+        page.put("items", items);
+        page.put("limit", pageSize);
+        page.put("nextCursor", items.size() == pageSize ? items.get(items.size() - 1).getId() : null);
+        return ResponseEntity.ok(page);
+    }
+
+    /**
+     * GET /api/admin/questions/export - 导出全部题目（含完整 content，不分页）
+     */
+    @GetMapping("/export")
+    public ResponseEntity<List<Question>> exportAllQuestions() {
+        return ResponseEntity.ok(questionBankService.getAllQuestions());
+    }
+
+    /**
+     * GET /api/admin/questions/sets/{setId}?type=LISTENING - 某套题的题目，可按题型过滤
+     */
+    @GetMapping("/sets/{setId}")
+    public ResponseEntity<List<Question>> getQuestionsOfSet(@PathVariable Long setId,
+                                                            @RequestParam(value = "type", required = false) String type) {
+        return ResponseEntity.ok(type == null || type.isBlank()
+                ? questionBankService.getQuestionsBySetId(setId)
+                : questionBankService.getQuestionsBySetIdAndType(setId, type));
+    }
+
+    /**
+     * POST /api/admin/questions/sets/warmup - 预先构建套题详情缓存（如考试开始前），请求体为套题 ID 列表
+     */
+    @PostMapping("/sets/warmup")
+    public ResponseEntity<List<Map<String, Object>>> warmUpQuestionSets(@RequestBody List<Long> setIds) {
+        List<Map<String, Object>> result = new java.util.ArrayList<>();
+        for (QuestionSetPayloadService.Payload payload : questionSetPayloadService.warmUp(setIds)) {
+            result.add(Map.of(
+                    "setId", payload.questionSetId(),
+                    "version", payload.version(),
+                    "etag", payload.etag(),
+                    "bytes", payload.rawSize(),
+                    "gzipBytes", payload.gzip().length));
         }
-        List<Question> questions = questionBankService.getAllQuestions();
-        System.out.println(">>> [QuestionBankController] 返回 " + questions.size() + " 个问题");
-        return ResponseEntity.ok(questions);
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * GET /api/admin/questions/type-counts - 各题型的题目数量
+     */
+    @GetMapping("/type-counts")
+    public ResponseEntity<Map<String, Long>> countQuestionsByType() {
+        return ResponseEntity.ok(questionBankService.countQuestionsByType());
+    }
+
+    /**
+     * POST /api/admin/questions/backfill-columns - 回填旧题目的题型/大题/题组/正确选项列
+     */
+    @PostMapping("/backfill-columns")
+    public ResponseEntity<Map<String, Object>> backfillContentColumns() {
+        return ResponseEntity.ok(Map.of("updated", questionBankService.backfillContentColumns()));
     }
 
     /**
@@ -201,6 +300,8 @@ public class QuestionBankController {
                 questionSetRepository.delete(set);
                 deletedCount++;
             }
+            eventPublisher.publishEvent(new QuestionBankChangedEvent(toDelete.stream()
+                    .map(QuestionSet::getId).collect(Collectors.toUnmodifiableSet())));
             
             return ResponseEntity.ok(String.format("成功删除 %d 个重复的套题，保留了最新的一个（ID: %d）", 
                     deletedCount, keepSet.getId()));
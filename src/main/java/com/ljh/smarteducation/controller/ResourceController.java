@@ -1,7 +1,9 @@
 package com.ljh.smarteducation.controller;
 
 import com.ljh.smarteducation.entity.ResourceFile;
+import com.ljh.smarteducation.service.ChunkedUploadService;
 import com.ljh.smarteducation.service.ResourceFileService;
+import com.ljh.smarteducation.service.StoredUpload;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -17,20 +19,35 @@ import java.util.List;
 public class ResourceController {
 
     private final ResourceFileService resourceFileService;
+    private final ChunkedUploadService chunkedUploadService;
 
-    public ResourceController(ResourceFileService resourceFileService) {
+    public ResourceController(ResourceFileService resourceFileService,
+                              ChunkedUploadService chunkedUploadService) {
         this.resourceFileService = resourceFileService;
+        this.chunkedUploadService = chunkedUploadService;
     }
 
     /**
      * POST /api/admin/resources/upload - 上传文件 (如.mp3)
+     * file 与 uploadId（分片上传完成后的 ID）二选一
      */
     @PostMapping("/upload")
-    public ResponseEntity<?> uploadFile(@RequestParam("file") MultipartFile file,
+    public ResponseEntity<?> uploadFile(@RequestParam(value = "file", required = false) MultipartFile file,
+                                        @RequestParam(value = "uploadId", required = false) String uploadId,
                                         @RequestParam("subject") String subject) {
+        if (uploadId == null && file == null) {
+            return ResponseEntity.badRequest().body("Please upload a file.");
+        }
         try {
+            if (uploadId != null) {
+                try (StoredUpload upload = chunkedUploadService.take(uploadId)) {
+                    return ResponseEntity.ok(resourceFileService.saveFile(upload, subject));
+                }
+            }
             ResourceFile savedFile = resourceFileService.saveFile(file, subject);
             return ResponseEntity.ok(savedFile);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (IOException e) {
             return ResponseEntity.status(500).body("Failed to upload file: " + e.getMessage());
         }
@@ -1,6 +1,8 @@
 package com.ljh.smarteducation.controller;
 
 import com.ljh.smarteducation.entity.SecurityEventLog;
+import com.ljh.smarteducation.service.IpReputationService;
+import com.ljh.smarteducation.service.SecurityEventWriter;
 import com.ljh.smarteducation.service.SecurityLogService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -9,6 +11,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
@@ -30,13 +33,20 @@ import java.util.Map;
 public class SecurityLogController {
 
     private final SecurityLogService securityLogService;
+    private final SecurityEventWriter securityEventWriter;
+    private final IpReputationService ipReputationService;
     
     // 时间格式化器
     private static final DateTimeFormatter DATE_TIME_FORMATTER = 
         DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
-    public SecurityLogController(SecurityLogService securityLogService) {
+    private static final int MAX_PAGE_SIZE = 200;
+
+    public SecurityLogController(SecurityLogService securityLogService, SecurityEventWriter securityEventWriter,
+                                 IpReputationService ipReputationService) {
         this.securityLogService = securityLogService;
+        this.securityEventWriter = securityEventWriter;
+        this.ipReputationService = ipReputationService;
     }
 
     // ==================== 查询接口 ====================
@@ -53,16 +63,7 @@ public class SecurityLogController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size) {
         try {
-            Page<SecurityEventLog> logPage = securityLogService.findAllPaged(PageRequest.of(page, size));
-            
-            Map<String, Object> response = new HashMap<>();
-            response.put("logs", logPage.getContent());
-            response.put("totalElements", logPage.getTotalElements());
-            response.put("totalPages", logPage.getTotalPages());
-            response.put("currentPage", logPage.getNumber());
-            response.put("pageSize", logPage.getSize());
-            
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok(toPageResponse(securityLogService.findAllPaged(pageRequest(page, size))));
         } catch (Exception e) {
             log.error("查询安全日志失败: {}", e.getMessage(), e);
             return ResponseEntity.internalServerError()
@@ -71,16 +72,28 @@ public class SecurityLogController {
     }
 
     /**
-     * GET /api/admin/security-logs/type/{eventType} - 按事件类型查询
+     * GET /api/admin/security-logs/type/{eventType} - 按事件类型分页查询
      * 
      * @param eventType 事件类型
-     * @return 安全日志列表
+     * @param startTime 开始时间（可选，格式：yyyy-MM-dd HH:mm:ss，默认最近7天）
+     * @param endTime 结束时间（可选，格式：yyyy-MM-dd HH:mm:ss）
+     * @param page 页码（从0开始）
+     * @param size 每页大小
+     * @return 分页的安全日志数据
      */
     @GetMapping("/type/{eventType}")
-    public ResponseEntity<?> getLogsByEventType(@PathVariable String eventType) {
+    public ResponseEntity<?> getLogsByEventType(
+            @PathVariable String eventType,
+            @RequestParam(required = false) String startTime,
+            @RequestParam(required = false) String endTime,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
         try {
-            List<SecurityEventLog> logs = securityLogService.findByEventType(eventType);
-            return ResponseEntity.ok(logs);
+            LocalDateTime[] range = parseRange(startTime, endTime);
+            return ResponseEntity.ok(toPageResponse(
+                securityLogService.findByEventType(eventType, range[0], range[1], pageRequest(page, size))));
+        } catch (DateTimeParseException e) {
+            return invalidTimeFormat(e);
         } catch (Exception e) {
             log.error("按事件类型查询失败: {}", e.getMessage(), e);
             return ResponseEntity.internalServerError()
@@ -89,16 +102,28 @@ public class SecurityLogController {
     }
 
     /**
-     * GET /api/admin/security-logs/ip/{ipAddress} - 按IP地址查询
+     * GET /api/admin/security-logs/ip/{ipAddress} - 按IP地址分页查询
      * 
      * @param ipAddress IP地址
-     * @return 安全日志列表
+     * @param startTime 开始时间（可选，格式：yyyy-MM-dd HH:mm:ss，默认最近7天）
+     * @param endTime 结束时间（可选，格式：yyyy-MM-dd HH:mm:ss）
+     * @param page 页码（从0开始）
+     * @param size 每页大小
+     * @return 分页的安全日志数据
      */
     @GetMapping("/ip/{ipAddress}")
-    public ResponseEntity<?> getLogsByIpAddress(@PathVariable String ipAddress) {
+    public ResponseEntity<?> getLogsByIpAddress(
+            @PathVariable String ipAddress,
+            @RequestParam(required = false) String startTime,
+            @RequestParam(required = false) String endTime,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
         try {
-            List<SecurityEventLog> logs = securityLogService.findByIpAddress(ipAddress);
-            return ResponseEntity.ok(logs);
+            LocalDateTime[] range = parseRange(startTime, endTime);
+            return ResponseEntity.ok(toPageResponse(
+                securityLogService.findByIpAddress(ipAddress, range[0], range[1], pageRequest(page, size))));
+        } catch (DateTimeParseException e) {
+            return invalidTimeFormat(e);
         } catch (Exception e) {
             log.error("按IP地址查询失败: {}", e.getMessage(), e);
             return ResponseEntity.internalServerError()
@@ -107,27 +132,56 @@ public class SecurityLogController {
     }
 
     /**
-     * GET /api/admin/security-logs/time-range - 按时间范围查询
+     * GET /api/admin/security-logs/severity/{severity} - 按严重程度分页查询
+     * 
+     * @param severity 严重程度（HIGH、MEDIUM、LOW）
+     * @param startTime 开始时间（可选，格式：yyyy-MM-dd HH:mm:ss，默认最近7天）
+     * @param endTime 结束时间（可选，格式：yyyy-MM-dd HH:mm:ss）
+     * @param page 页码（从0开始）
+     * @param size 每页大小
+     * @return 分页的安全日志数据
+     */
+    @GetMapping("/severity/{severity}")
+    public ResponseEntity<?> getLogsBySeverity(
+            @PathVariable String severity,
+            @RequestParam(required = false) String startTime,
+            @RequestParam(required = false) String endTime,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            LocalDateTime[] range = parseRange(startTime, endTime);
+            return ResponseEntity.ok(toPageResponse(
+                securityLogService.findBySeverity(severity, range[0], range[1], pageRequest(page, size))));
+        } catch (DateTimeParseException e) {
+            return invalidTimeFormat(e);
+        } catch (Exception e) {
+            log.error("按严重程度查询失败: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError()
+                .body(Map.of("error", "查询失败", "code", "QUERY_ERROR"));
+        }
+    }
+
+    /**
+     * GET /api/admin/security-logs/time-range - 按时间范围分页查询
      * 
      * @param startTime 开始时间（格式：yyyy-MM-dd HH:mm:ss）
      * @param endTime 结束时间（格式：yyyy-MM-dd HH:mm:ss）
-     * @return 安全日志列表
+     * @param page 页码（从0开始）
+     * @param size 每页大小
+     * @return 分页的安全日志数据
      */
     @GetMapping("/time-range")
     public ResponseEntity<?> getLogsByTimeRange(
             @RequestParam String startTime,
-            @RequestParam String endTime) {
+            @RequestParam String endTime,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
         try {
-            // 解析时间字符串
-            LocalDateTime start = LocalDateTime.parse(startTime, DATE_TIME_FORMATTER);
-            LocalDateTime end = LocalDateTime.parse(endTime, DATE_TIME_FORMATTER);
-            
-            List<SecurityEventLog> logs = securityLogService.findByTimeRange(start, end);
-            return ResponseEntity.ok(logs);
+            LocalDateTime[] range = parseRange(startTime, endTime);
+            return ResponseEntity.ok(toPageResponse(
+                securityLogService.findByTimeRange(range[0], range[1], pageRequest(page, size))));
         } catch (DateTimeParseException e) {
-            log.error("时间格式错误: {}", e.getMessage());
-            return ResponseEntity.badRequest()
-                .body(Map.of("error", "时间格式错误，请使用格式：yyyy-MM-dd HH:mm:ss", "code", "INVALID_TIME_FORMAT"));
+            return invalidTimeFormat(e);
         } catch (Exception e) {
             log.error("按时间范围查询失败: {}", e.getMessage(), e);
             return ResponseEntity.internalServerError()
@@ -147,8 +201,9 @@ public class SecurityLogController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size) {
         try {
-            // 查询最近的SQL注入攻击记录
-            List<SecurityEventLog> logs = securityLogService.findRecentSqlInjectionAttempts(size);
+            // 查询最近的SQL注入攻击记录（当前页）
+            PageRequest pageRequest = pageRequest(page, size);
+            List<SecurityEventLog> logs = securityLogService.findRecentSqlInjectionAttempts(pageRequest);
             
             // 计算最近24小时的攻击次数
             LocalDateTime now = LocalDateTime.now();
@@ -156,12 +211,14 @@ public class SecurityLogController {
             Long count24h = securityLogService.countSqlInjectionAttempts(yesterday, now);
             
             // 计算总攻击次数（所有时间）
-            Long totalCount = (long) securityLogService.findByEventType("SQL_INJECTION_ATTEMPT").size();
+            long totalCount = securityLogService.countByEventType("SQL_INJECTION_ATTEMPT");
             
             Map<String, Object> response = new HashMap<>();
             response.put("logs", logs);
             response.put("count24h", count24h);
             response.put("totalCount", totalCount);
+            response.put("currentPage", pageRequest.getPageNumber());
+            response.put("pageSize", pageRequest.getPageSize());
             
             return ResponseEntity.ok(response);
         } catch (Exception e) {
@@ -210,4 +267,97 @@ public class SecurityLogController {
                 .body(Map.of("error", "查询失败", "code", "QUERY_ERROR"));
         }
     }
+
+    /**
+     * GET /api/admin/security-logs/writer - 安全事件异步写入队列的深度、抽样和丢弃计数
+     * 
+     * @return 写入统计
+     */
+    @GetMapping("/writer")
+    public ResponseEntity<Map<String, Object>> getWriterStatistics() {
+        return ResponseEntity.ok(securityEventWriter.getStatistics());
+    }
+
+    /**
+     * GET /api/admin/security-logs/blocklist - 当前处于封禁期的 IP
+     * 
+     * @return 封禁列表和信誉表统计
+     */
+    @GetMapping("/blocklist")
+    public ResponseEntity<Map<String, Object>> getBlocklist() {
+        Map<String, Object> response = new HashMap<>(ipReputationService.getStatistics());
+        response.put("blocklist", ipReputationService.getBlocklist());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * DELETE /api/admin/security-logs/blocklist/{ipAddress} - 解除 IP 封禁
+     * 
+     * @param ipAddress IP 地址
+     * @return 操作结果
+     */
+    @DeleteMapping("/blocklist/{ipAddress}")
+    public ResponseEntity<Map<String, Object>> unblockIp(@PathVariable String ipAddress) {
+        if (!ipReputationService.unblock(ipAddress)) {
+            return ResponseEntity.notFound().build();
+        }
+        log.info("管理员解除 IP 封禁: {}", ipAddress);
+        return ResponseEntity.ok(Map.of("ipAddress", ipAddress, "unblocked", true));
+    }
+
+    /**
+     * POST /api/admin/security-logs/rollup/rebuild - 从原始日志重建分钟汇总（from/to 为日期，含两端）
+     * 
+     * @param from 开始日期（格式：yyyy-MM-dd）
+     * @param to 结束日期（格式：yyyy-MM-dd）
+     * @return 写入的汇总行数
+     */
+    @PostMapping("/rollup/rebuild")
+    public ResponseEntity<?> rebuildRollup(@RequestParam String from, @RequestParam String to) {
+        if (!securityLogService.isRollupEnabled()) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("error", "未启用分钟汇总（security.event-rollup.enabled）", "code", "ROLLUP_DISABLED"));
+        }
+        try {
+            LocalDate fromDate = LocalDate.parse(from);
+            LocalDate toDate = LocalDate.parse(to);
+            int rows = securityLogService.rebuildRollup(fromDate, toDate);
+            return ResponseEntity.ok(Map.of("from", fromDate, "to", toDate, "rows", rows));
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("error", "日期格式错误，请使用格式：yyyy-MM-dd", "code", "INVALID_TIME_FORMAT"));
+        }
+    }
+
+    // ==================== 辅助方法 ====================
+
+    /**
+     * 解析可选的时间范围，未指定时默认最近7天
+     */
+    private static LocalDateTime[] parseRange(String startTime, String endTime) {
+        LocalDateTime end = endTime != null ? LocalDateTime.parse(endTime, DATE_TIME_FORMATTER) : LocalDateTime.now();
+        LocalDateTime start = startTime != null
+            ? LocalDateTime.parse(startTime, DATE_TIME_FORMATTER) : end.minusDays(7);
+        return new LocalDateTime[]{start, end};
+    }
+
+    private static PageRequest pageRequest(int page, int size) {
+        return PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), MAX_PAGE_SIZE));
+    }
+
+    private static Map<String, Object> toPageResponse(Page<SecurityEventLog> logPage) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("logs", logPage.getContent());
+        response.put("totalElements", logPage.getTotalElements());
+        response.put("totalPages", logPage.getTotalPages());
+        response.put("currentPage", logPage.getNumber());
+        response.put("pageSize", logPage.getSize());
+        return response;
+    }
+
+    private static ResponseEntity<Map<String, String>> invalidTimeFormat(DateTimeParseException e) {
+        log.error("时间格式错误: {}", e.getMessage());
+        return ResponseEntity.badRequest()
+            .body(Map.of("error", "时间格式错误，请使用格式：yyyy-MM-dd HH:mm:ss", "code", "INVALID_TIME_FORMAT"));
+    }
 }
@@ -1,17 +1,19 @@
 package com.ljh.smarteducation.controller;
 
-import com.ljh.smarteducation.repository.StudentSubmissionRepository;
-import com.ljh.smarteducation.repository.UserRepository;
+import com.ljh.smarteducation.service.AnswerKeyService;
+import com.ljh.smarteducation.service.CacheService;
+import com.ljh.smarteducation.service.DashboardCounterService;
+import com.ljh.smarteducation.service.QuestionSetPayloadService;
+import com.ljh.smarteducation.service.SubmissionIntakeService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.time.LocalDate;
-import java.time.ZoneOffset;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @RestController
@@ -20,12 +22,21 @@ import java.util.Map;
 @PreAuthorize("hasRole('ADMIN')") // 确保只有管理员能访问
 public class StatisticsController {
 
-    private final UserRepository userRepository;
-    private final StudentSubmissionRepository submissionRepository;
+    private final DashboardCounterService dashboardCounterService;
+    private final CacheService cacheService;
+    private final AnswerKeyService answerKeyService;
+    private final QuestionSetPayloadService questionSetPayloadService;
+    private final SubmissionIntakeService submissionIntakeService;
 
-    public StatisticsController(UserRepository userRepository, StudentSubmissionRepository submissionRepository) {
-        this.userRepository = userRepository;
-        this.submissionRepository = submissionRepository;
+    public StatisticsController(DashboardCounterService dashboardCounterService, CacheService cacheService,
+                                AnswerKeyService answerKeyService,
+                                QuestionSetPayloadService questionSetPayloadService,
+                                SubmissionIntakeService submissionIntakeService) {
+        this.dashboardCounterService = dashboardCounterService;
+        this.cacheService = cacheService;
+        this.answerKeyService = answerKeyService;
+        this.questionSetPayloadService = questionSetPayloadService;
+        this.submissionIntakeService = submissionIntakeService;
     }
 
     /**
@@ -33,29 +44,35 @@ public class StatisticsController {
      */
     @GetMapping("/dashboard")
     public ResponseEntity<Map<String, Object>> getDashboardStatistics() {
-        Map<String, Object> stats = new HashMap<>();
-
-        // 1. 按角色统计用户总数
-        long totalStudents = userRepository.countByRole("ROLE_STUDENT");
-        long totalTeachers = userRepository.countByRole("ROLE_TEACHER"); // (新增)
-        long totalAdmins = userRepository.countByRole("ROLE_ADMIN");
-
-        // 2. 统计答卷总数
-        long totalSubmissions = submissionRepository.count();
-        long pendingSubmissions = submissionRepository.countByGraded(false); // 待批改
-
-        // 3. (新增) 统计今日新注册用户
-        LocalDate today = LocalDate.now();
-        long newUsersToday = userRepository.countByCreateTimeGreaterThanEqual(today.atStartOfDay(ZoneOffset.UTC).toLocalDateTime());
+        // 计数器在内存中维护，定期与数据库对账
+        return ResponseEntity.ok(dashboardCounterService.snapshot());
+    }
 
-        stats.put("totalStudents", totalStudents);
-        stats.put("totalTeachers", totalTeachers);
-        stats.put("totalAdmins", totalAdmins);
-        stats.put("totalSubmissions", totalSubmissions);
-        stats.put("pendingSubmissions", pendingSubmissions);
-        stats.put("newUsersToday", newUsersToday);
+    /**
+     * POST /api/admin/statistics/dashboard/reconcile - 立即用数据库中的计数修正仪表盘计数器
+     */
+    @PostMapping("/dashboard/reconcile")
+    public ResponseEntity<Map<String, Object>> reconcileDashboardStatistics() {
+        dashboardCounterService.reconcile();
+        return ResponseEntity.ok(dashboardCounterService.snapshot());
+    }
 
+    /**
+     * GET /api/admin/statistics/cache - 获取 OCR/文档/AI 解析缓存、答案表和套题详情缓存的命中统计
+     */
+    @GetMapping("/cache")
+    public ResponseEntity<Map<String, Object>> getCacheStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>(cacheService.getCacheStatistics());
+        stats.put("answerKey", answerKeyService.getStatistics());
+        stats.put("setDetail", questionSetPayloadService.getStatistics());
         return ResponseEntity.ok(stats);
     }
-}
 
+    /**
+     * GET /api/admin/statistics/submission-intake - 答卷写后入库的队列深度和刷写延迟
+     */
+    @GetMapping("/submission-intake")
+    public ResponseEntity<Map<String, Object>> getSubmissionIntakeStatistics() {
+        return ResponseEntity.ok(submissionIntakeService.getStatistics());
+    }
+}
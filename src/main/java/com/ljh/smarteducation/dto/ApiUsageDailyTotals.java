@@ -0,0 +1,10 @@
+package com.ljh.smarteducation.dto;
+
+import java.time.LocalDate;
+
+/**
+ * 某一天的 API 使用量合计（成功调用）
+ */
+public interface ApiUsageDailyTotals extends ApiUsageTotals {
+    LocalDate getDay();
+}
@@ -0,0 +1,8 @@
+package com.ljh.smarteducation.dto;
+
+/**
+ * 某个模型的 API 使用量合计（成功调用）
+ */
+public interface ApiUsageModelTotals extends ApiUsageTotals {
+    String getModelName();
+}
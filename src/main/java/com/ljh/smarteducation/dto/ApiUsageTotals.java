@@ -0,0 +1,11 @@
+package com.ljh.smarteducation.dto;
+
+/**
+ * API 使用量合计（成功调用）
+ */
+public interface ApiUsageTotals {
+    Long getCallCount();
+    Long getTotalTokens();
+    Double getTotalCost();
+    Long getQuestionCount();
+}
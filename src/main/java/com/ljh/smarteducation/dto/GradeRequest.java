@@ -0,0 +1,13 @@
+package com.ljh.smarteducation.dto;
+
+import lombok.Data;
+
+/**
+ * 一份答卷的人工批改结果
+ */
+@Data
+public class GradeRequest {
+    private Long submissionId;
+    private Integer manualScore;
+    private String feedback;
+}
@@ -0,0 +1,18 @@
+package com.ljh.smarteducation.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * 待批改列表项（不含答案 JSON）
+ */
+public interface PendingSubmissionSummary {
+    Long getId();
+    Long getUserId();
+    String getUsername();
+    Long getQuestionSetId();
+    Integer getScore();
+    Integer getTotalQuestions();
+    LocalDateTime getSubmissionTime();
+    String getClaimedBy();
+    LocalDateTime getClaimExpiresAt();
+}
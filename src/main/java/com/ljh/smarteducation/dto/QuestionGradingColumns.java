@@ -0,0 +1,10 @@
+package com.ljh.smarteducation.dto;
+
+/**
+ * 批改所需的冗余列投影（不读取 content）
+ */
+public interface QuestionGradingColumns {
+    Long getId();
+    String getQuestionType();
+    Long getCorrectOptionId();
+}
@@ -1,7 +1,6 @@
 package com.ljh.smarteducation.dto;
 
 import com.ljh.smarteducation.entity.Question;
-import com.ljh.smarteducation.entity.ResourceFile;
 import lombok.Data;
 
 import java.util.List;
@@ -9,5 +8,5 @@ import java.util.List;
 @Data
 public class QuestionSetDetailDto {
     private List<Question> questions;
-    private ResourceFile resourceFile;
+    private ResourceFileDto resourceFile; // 音频文件（含签名下载链接），没有时为 null
 }
@@ -0,0 +1,22 @@
+package com.ljh.smarteducation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 学生端套题列表项：只含列表展示需要的字段，不加载音频文件和题目
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuestionSetSummaryDto {
+    private Long id;
+    private String title;
+    private String subject;
+    private LocalDateTime uploadTime;
+    private Long questionCount;
+    private Boolean hasAudio;
+}
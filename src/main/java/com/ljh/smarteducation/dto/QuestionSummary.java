@@ -0,0 +1,16 @@
+package com.ljh.smarteducation.dto;
+
+/**
+ * 题目列表的轻量投影：不含 content JSON，完整内容通过 GET /api/admin/questions/{id} 按需获取
+ */
+public interface QuestionSummary {
+    Long getId();
+    String getSubject();
+    String getDifficulty();
+    String getKnowledgePoint();
+    Long getQuestionSetId();
+    Integer getSequenceNumber();
+    String getValidationStatus();
+    String getQuestionType();
+    String getPreview(); // 题干前 80 个字符
+}
@@ -0,0 +1,15 @@
+package com.ljh.smarteducation.dto;
+
+import lombok.Data;
+
+/**
+ * 学生端看到的资源文件信息：url 为签名下载链接，下载时不再查询数据库
+ */
+@Data
+public class ResourceFileDto {
+    private Long id;
+    private String fileName;
+    private String fileType;
+    private Long fileSize;
+    private String url;
+}
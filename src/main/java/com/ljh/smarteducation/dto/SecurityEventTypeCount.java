@@ -0,0 +1,10 @@
+package com.ljh.smarteducation.dto;
+
+/**
+ * 某个事件类型的安全事件数量
+ */
+public interface SecurityEventTypeCount {
+    String getEventType();
+
+    Long getEventCount();
+}
@@ -0,0 +1,59 @@
+package com.ljh.smarteducation.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * API 使用日汇总
+ *
+ * 每个 (日期, 模型, 是否成功) 一行，写入 api_usage_log 时在同一事务中累加；
+ * 统计接口只读这张小表，不再扫描整张日志表。模型为空时记为空字符串，保证唯一键生效。
+ */
+@Entity
+@Data
+@Table(name = "api_usage_daily_rollup", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_api_usage_rollup_bucket", columnNames = {"day", "model_name", "success"})
+})
+public class ApiUsageDailyRollup {
+
+    /**
+     * 模型名称为空的日志归入的桶
+     */
+    public static final String UNKNOWN_MODEL = "";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "day", nullable = false)
+    private LocalDate day;
+
+    @Column(name = "model_name", length = 50, nullable = false)
+    private String modelName;
+
+    @Column(name = "success", nullable = false)
+    private Boolean success;
+
+    @Column(name = "call_count", nullable = false)
+    private Long callCount;
+
+    @Column(name = "input_tokens", nullable = false)
+    private Long inputTokens;
+
+    @Column(name = "output_tokens", nullable = false)
+    private Long outputTokens;
+
+    @Column(name = "total_tokens", nullable = false)
+    private Long totalTokens;
+
+    @Column(name = "total_cost", nullable = false)
+    private Double totalCost;
+
+    @Column(name = "question_count", nullable = false)
+    private Long questionCount;
+
+    @Column(name = "duration_ms", nullable = false)
+    private Long durationMs;
+}
@@ -10,7 +10,9 @@ import java.time.LocalDateTime;
  */
 @Entity
 @Data
-@Table(name = "api_usage_log")
+@Table(name = "api_usage_log", indexes = {
+    @Index(name = "idx_api_usage_log_created_at", columnList = "created_at")
+})
 public class ApiUsageLog {
     
     @Id
@@ -0,0 +1,25 @@
+package com.ljh.smarteducation.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 一次性回填任务的完成标记
+ *
+ * 汇总表是否已回填不能用“表是否为空”判断：应用启动后第一条实时写入可能早于回填任务，
+ * 表不再为空，历史数据就永远不会被回填。回填成功后按任务名写入一行，之后启动时跳过。
+ */
+@Entity
+@Data
+@Table(name = "backfill_marker")
+public class BackfillMarker {
+
+    @Id
+    @Column(name = "name", length = 64)
+    private String name;
+
+    @Column(name = "completed_at", nullable = false)
+    private LocalDateTime completedAt;
+}
@@ -8,11 +8,17 @@ import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 
 @Entity
 @Data
-@Table(name = "`questions`")
+@Table(name = "`questions`", indexes = {
+    @Index(name = "idx_questions_subject_id", columnList = "subject, id"),
+    @Index(name = "idx_questions_validation_status_id", columnList = "validation_status, id"),
+    @Index(name = "idx_questions_set_type_seq", columnList = "question_set_id, question_type, sequence_number"),
+    @Index(name = "idx_questions_type_id", columnList = "question_type, id")
+})
 public class Question {
 
     @Id
@@ -54,9 +60,87 @@ public class Question {
 
     // --- ↑↑↑ (新增结束) ↑↑↑ ---
 
+    // --- ↓↓↓ 从 content 中提取的冗余列（保存前由 syncContentColumns 同步，只读查询不必解析 JSON） ↓↓↓ ---
+
+    /**
+     * 题型（content.questionType，缺省为 MULTIPLE_CHOICE）
+     */
+    @Column(name = "question_type", length = 32)
+    private String questionType;
+
+    /**
+     * 所属大题（content.partName）
+     */
+    @Column(name = "part_name")
+    private String partName;
+
+    /**
+     * 听力/阅读题组（content.groupId）
+     */
+    @Column(name = "group_id", length = 64)
+    private String groupId;
+
+    /**
+     * 标记为正确的选项 ID（content.options 中第一个 correct/isCorrect 的选项）
+     */
+    @Column(name = "correct_option_id")
+    private Long correctOptionId;
+
+    // --- ↑↑↑ (冗余列结束) ↑↑↑ ---
+
     @CreationTimestamp
     private LocalDateTime createTime;
 
     @UpdateTimestamp
     private LocalDateTime updateTime;
+
+    /**
+     * 根据 content 重新计算冗余列；JPA 保存前自动调用，绕过 JPA 的批量写入需手动调用
+     */
+    @PrePersist
+    @PreUpdate
+    public void syncContentColumns() {
+        questionType = questionTypeOf(content);
+        partName = content != null ? stringOf(content.get("partName")) : null;
+        groupId = content != null ? stringOf(content.get("groupId")) : null;
+        correctOptionId = content != null ? correctOptionIdOf(content) : null;
+    }
+
+    public static String questionTypeOf(Map<String, Object> content) {
+        return content != null ? stringOf(content.getOrDefault("questionType", "MULTIPLE_CHOICE")) : null;
+    }
+
+    /**
+     * 在 options 中找到第一个标记为 correct/isCorrect 的选项，返回其 ID；没有或 ID 无法识别时为 null
+     */
+    public static Long correctOptionIdOf(Map<String, Object> content) {
+        if (!(content.get("options") instanceof List<?> options)) {
+            return null;
+        }
+        for (Object item : options) {
+            if (!(item instanceof Map<?, ?> option)) {
+                continue;
+            }
+            Object correctValue = option.containsKey("correct") ? option.get("correct") : option.get("isCorrect");
+            if (Boolean.TRUE.equals(correctValue)) {
+                Object optionId = option.get("id");
+                if (optionId instanceof Number number) {
+                    return number.longValue();
+                }
+                if (optionId instanceof String text) {
+                    try {
+                        return Long.parseLong(text);
+                    } catch (NumberFormatException e) {
+                        return null;
+                    }
+                }
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static String stringOf(Object value) {
+        return value != null ? value.toString() : null;
+    }
 }
@@ -9,7 +9,9 @@ import java.time.LocalDateTime;
 
 @Entity
 @Data
-@Table(name = "`question_set`")
+@Table(name = "`question_set`", indexes = {
+    @Index(name = "idx_question_set_subject_upload_time", columnList = "subject, uploadTime")
+})
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class QuestionSet {
 
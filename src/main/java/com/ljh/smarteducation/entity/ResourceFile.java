@@ -9,7 +9,10 @@ import java.time.LocalDateTime;
 
 @Entity
 @Data
-@Table(name = "`resource_file`")
+@Table(name = "`resource_file`", indexes = {
+    @Index(name = "idx_resource_file_storage_path", columnList = "storagePath"),
+    @Index(name = "idx_resource_file_content_hash", columnList = "contentHash")
+})
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class ResourceFile {
 
@@ -21,7 +24,10 @@ public class ResourceFile {
     private String fileName; // 原始文件名 (e.g., "cet4_listening.mp3")
 
     @Column(nullable = false)
-    private String storagePath; // 存储在服务器上的唯一路径 (e.g., "168898888.mp3")
+    private String storagePath; // 存储在服务器上的唯一路径 (e.g., "168898888.mp3", 内容寻址时为 "ab/cd/<sha256>")
+
+    @Column(length = 64)
+    private String contentHash; // 文件内容的 SHA-256（内容寻址存储时相同内容共享同一个 blob）
 
     @Column(nullable = false)
     private String fileType; // MIME type (e.g., "audio/mpeg")
@@ -12,7 +12,10 @@ import java.time.LocalDateTime;
  */
 @Entity
 @Data
-@Table(name = "security_event_log")
+@Table(name = "security_event_log", indexes = {
+    @Index(name = "idx_security_event_time_type", columnList = "event_time, event_type"),
+    @Index(name = "idx_security_event_ip_time", columnList = "ip_address, event_time")
+})
 public class SecurityEventLog {
 
     /**
@@ -0,0 +1,40 @@
+package com.ljh.smarteducation.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 安全事件分钟汇总（可选，security.event-rollup.enabled=true 时维护）
+ *
+ * 每个 (分钟, 事件类型, 严重程度) 一行，SecurityEventBatchRepository 写入一批事件时在同一事务中累加；
+ * 统计接口对整分钟部分只读这张表，首尾不足一分钟的部分再查原始日志。
+ */
+@Entity
+@Data
+@Table(name = "security_event_minute_rollup", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_security_event_rollup_bucket",
+            columnNames = {"bucket_minute", "event_type", "severity"})
+})
+public class SecurityEventMinuteRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 所属分钟（秒及以下为 0）
+     */
+    @Column(name = "bucket_minute", nullable = false)
+    private LocalDateTime bucketMinute;
+
+    @Column(name = "event_type", length = 50, nullable = false)
+    private String eventType;
+
+    @Column(name = "severity", length = 20, nullable = false)
+    private String severity;
+
+    @Column(name = "event_count", nullable = false)
+    private Long eventCount;
+}
@@ -11,7 +11,10 @@ import java.util.Map;
 
 @Entity
 @Data
-@Table(name = "`student_submission`")
+@Table(name = "`student_submission`", indexes = {
+    @Index(name = "uk_student_submission_intake_id", columnList = "intake_id", unique = true),
+    @Index(name = "idx_student_submission_graded_time", columnList = "graded, submissionTime")
+})
 public class StudentSubmission {
 
     @Id
@@ -45,7 +48,18 @@ public class StudentSubmission {
     private String feedback; // 教师评语
     private Integer manualScore; // 教师给出的总分
 
+    // --- ↓↓↓ 批改领取（多位教师同时批改时互不冲突） ↓↓↓ ---
+    private String claimedBy; // 领取人（教师用户名）
+    private LocalDateTime claimExpiresAt; // 领取到期时间，过期后其他教师可重新领取
+    // --- ↑↑↑ 领取结束 ↑↑↑ ---
+
     @CreationTimestamp
     private LocalDateTime submissionTime;
+
+    /**
+     * 入库去重 ID：写后模式下答卷可能因重放被写入多次，唯一索引保证只保留一条
+     */
+    @Column(name = "intake_id", length = 36)
+    private String intakeId;
 }
 
@@ -1,5 +1,6 @@
 package com.ljh.smarteducation.entity;
 
+import com.ljh.smarteducation.event.UserEntityListener;
 import jakarta.persistence.*;
 import lombok.Data;
 import org.hibernate.annotations.CreationTimestamp; // 1. (新增) 导入时间戳
@@ -9,6 +10,7 @@ import java.time.LocalDateTime; // 2. (新增) 导入时间库
 @Entity
 @Data
 @Table(name = "`users`")
+@EntityListeners(UserEntityListener.class)
 public class User {
 
     @Id
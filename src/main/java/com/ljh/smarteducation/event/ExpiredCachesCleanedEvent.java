@@ -0,0 +1,14 @@
+package com.ljh.smarteducation.event;
+
+import java.time.LocalDateTime;
+
+/**
+ * 过期缓存清理事件：文档、OCR、AI 解析缓存表中过期的行已被删除
+ *
+ * CacheServiceImpl 监听此事件，在事务提交后清空各表的 L1 缓存；
+ * 提交前清空时，并发查询仍能读到未提交删除的旧行并回填到 L1。
+ *
+ * @param expiredBefore 本次删除的过期时间上限
+ */
+public record ExpiredCachesCleanedEvent(LocalDateTime expiredBefore) {
+}
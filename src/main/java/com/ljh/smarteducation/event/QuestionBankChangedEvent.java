@@ -0,0 +1,26 @@
+package com.ljh.smarteducation.event;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * 题库变更事件：套题或题目被新增、修改或删除
+ *
+ * 各个题库相关缓存（答案表、套题详情、套题目录、抽题索引）监听此事件，
+ * 在事务提交后失效（@TransactionalEventListener(phase = AFTER_COMMIT)）；不在事务中发布时立即失效。
+ *
+ * @param questionSetIds 受影响的套题 ID（题目不属于任何套题时为空）
+ */
+public record QuestionBankChangedEvent(Set<Long> questionSetIds) {
+
+    public static QuestionBankChangedEvent of(Long... questionSetIds) {
+        Set<Long> ids = new LinkedHashSet<>();
+        for (Long id : questionSetIds) {
+            if (id != null) {
+                ids.add(id);
+            }
+        }
+        return new QuestionBankChangedEvent(Collections.unmodifiableSet(ids));
+    }
+}
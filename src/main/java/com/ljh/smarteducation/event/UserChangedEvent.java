@@ -0,0 +1,12 @@
+package com.ljh.smarteducation.event;
+
+/**
+ * 用户变更事件：用户新增、修改（含角色、用户名变更）或删除
+ *
+ * 缓存用户信息的服务监听此事件，在事务提交后失效对应条目。
+ *
+ * @param userId   用户 ID
+ * @param username 变更后的用户名（用户名被修改时，旧用户名的条目需按 ID 清除）
+ */
+public record UserChangedEvent(Long userId, String username) {
+}
@@ -0,0 +1,31 @@
+package com.ljh.smarteducation.event;
+
+import com.ljh.smarteducation.entity.User;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * User 实体的 JPA 监听器：用户新增、修改或删除后发布 UserChangedEvent
+ *
+ * Hibernate 通过 Spring Boot 配置的 SpringBeanContainer 获取这个 Bean。
+ * 回调在 flush 时触发，监听方用 @TransactionalEventListener 在事务提交后处理。
+ */
+@Component
+public class UserEntityListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public UserEntityListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void publish(User user) {
+        eventPublisher.publishEvent(new UserChangedEvent(user.getId(), user.getUsername()));
+    }
+}
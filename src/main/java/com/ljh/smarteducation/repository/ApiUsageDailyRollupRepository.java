@@ -0,0 +1,89 @@
+package com.ljh.smarteducation.repository;
+
+import com.ljh.smarteducation.dto.ApiUsageDailyTotals;
+import com.ljh.smarteducation.dto.ApiUsageModelTotals;
+import com.ljh.smarteducation.dto.ApiUsageTotals;
+import com.ljh.smarteducation.entity.ApiUsageDailyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ApiUsageDailyRollupRepository extends JpaRepository<ApiUsageDailyRollup, Long> {
+
+    /**
+     * 把一次调用累加到所属的桶，桶不存在时创建
+     */
+    @Modifying
+    @Query(value = "INSERT INTO api_usage_daily_rollup "
+            + "(day, model_name, success, call_count, input_tokens, output_tokens, total_tokens, total_cost, "
+            + "question_count, duration_ms) "
+            + "VALUES (:day, :modelName, :success, 1, :inputTokens, :outputTokens, :totalTokens, :totalCost, "
+            + ":questionCount, :durationMs) "
+            + "ON DUPLICATE KEY UPDATE call_count = call_count + 1, "
+            + "input_tokens = input_tokens + :inputTokens, output_tokens = output_tokens + :outputTokens, "
+            + "total_tokens = total_tokens + :totalTokens, total_cost = total_cost + :totalCost, "
+            + "question_count = question_count + :questionCount, duration_ms = duration_ms + :durationMs",
+            nativeQuery = true)
+    int accumulate(@Param("day") LocalDate day, @Param("modelName") String modelName,
+                   @Param("success") boolean success, @Param("inputTokens") long inputTokens,
+                   @Param("outputTokens") long outputTokens, @Param("totalTokens") long totalTokens,
+                   @Param("totalCost") double totalCost, @Param("questionCount") long questionCount,
+                   @Param("durationMs") long durationMs);
+
+    @Modifying
+    @Query("DELETE FROM ApiUsageDailyRollup r WHERE r.day >= :from AND r.day < :to")
+    int deleteDays(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * 从原始日志重新汇总 [from, to) 内的日期（按 created_at 范围扫描，可使用索引）
+     *
+     * 调用方先删除这些日期的汇总行；重建今天时 record() 可能在删除之后重新创建同一个桶，
+     * 因此重复键时用重新汇总的绝对值覆盖，而不是因唯一键冲突失败。
+     * GROUP BY 的结果包在派生表中，ON DUPLICATE KEY UPDATE 才能引用汇总列。
+     */
+    @Modifying
+    @Query(value = "INSERT INTO api_usage_daily_rollup "
+            + "(day, model_name, success, call_count, input_tokens, output_tokens, total_tokens, total_cost, "
+            + "question_count, duration_ms) "
+            + "SELECT * FROM (SELECT DATE(created_at) AS day, COALESCE(model_name, '') AS model_name, "
+            + "COALESCE(success, false) AS success, COUNT(*) AS call_count, "
+            + "COALESCE(SUM(input_tokens), 0) AS input_tokens, COALESCE(SUM(output_tokens), 0) AS output_tokens, "
+            + "COALESCE(SUM(total_tokens), 0) AS total_tokens, COALESCE(SUM(total_cost), 0) AS total_cost, "
+            + "COALESCE(SUM(question_count), 0) AS question_count, COALESCE(SUM(duration_ms), 0) AS duration_ms "
+            + "FROM api_usage_log WHERE created_at >= :from AND created_at < :to "
+            + "GROUP BY DATE(created_at), COALESCE(model_name, ''), COALESCE(success, false)) AS totals "
+            + "ON DUPLICATE KEY UPDATE call_count = totals.call_count, input_tokens = totals.input_tokens, "
+            + "output_tokens = totals.output_tokens, total_tokens = totals.total_tokens, "
+            + "total_cost = totals.total_cost, question_count = totals.question_count, "
+            + "duration_ms = totals.duration_ms",
+            nativeQuery = true)
+    int rebuildDays(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT COALESCE(SUM(r.callCount), 0) AS callCount, COALESCE(SUM(r.totalTokens), 0) AS totalTokens, "
+            + "COALESCE(SUM(r.totalCost), 0.0) AS totalCost, COALESCE(SUM(r.questionCount), 0) AS questionCount "
+            + "FROM ApiUsageDailyRollup r WHERE r.success = true")
+    ApiUsageTotals sumSuccess();
+
+    @Query("SELECT COALESCE(SUM(r.callCount), 0) AS callCount, COALESCE(SUM(r.totalTokens), 0) AS totalTokens, "
+            + "COALESCE(SUM(r.totalCost), 0.0) AS totalCost, COALESCE(SUM(r.questionCount), 0) AS questionCount "
+            + "FROM ApiUsageDailyRollup r WHERE r.success = true AND r.day >= :from AND r.day < :to")
+    ApiUsageTotals sumSuccessBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT r.day AS day, SUM(r.callCount) AS callCount, SUM(r.totalTokens) AS totalTokens, "
+            + "SUM(r.totalCost) AS totalCost, SUM(r.questionCount) AS questionCount "
+            + "FROM ApiUsageDailyRollup r WHERE r.success = true AND r.day >= :from "
+            + "GROUP BY r.day ORDER BY r.day DESC")
+    List<ApiUsageDailyTotals> sumSuccessByDay(@Param("from") LocalDate from);
+
+    @Query("SELECT r.modelName AS modelName, SUM(r.callCount) AS callCount, SUM(r.totalTokens) AS totalTokens, "
+            + "SUM(r.totalCost) AS totalCost, SUM(r.questionCount) AS questionCount "
+            + "FROM ApiUsageDailyRollup r WHERE r.success = true GROUP BY r.modelName")
+    List<ApiUsageModelTotals> sumSuccessByModel();
+}
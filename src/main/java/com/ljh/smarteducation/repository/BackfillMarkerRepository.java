@@ -0,0 +1,9 @@
+package com.ljh.smarteducation.repository;
+
+import com.ljh.smarteducation.entity.BackfillMarker;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface BackfillMarkerRepository extends JpaRepository<BackfillMarker, String> {
+}
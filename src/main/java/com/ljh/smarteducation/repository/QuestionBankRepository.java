@@ -1,5 +1,7 @@
 package com.ljh.smarteducation.repository;
 
+import com.ljh.smarteducation.dto.QuestionGradingColumns;
+import com.ljh.smarteducation.dto.QuestionSummary;
 import com.ljh.smarteducation.entity.Question;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
@@ -7,6 +9,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -30,4 +33,48 @@ public interface QuestionBankRepository extends JpaRepository<Question, Long> {
     @Query("DELETE FROM Question q WHERE q.questionSet.id IN :questionSetIds")
     void deleteByQuestionSetIdInBulk(@Param("questionSetIds") List<Long> questionSetIds);
     // --- ↑↑↑ (修改结束) ↑↑↑ ---
+
+    /**
+     * 按主键游标分页的题目列表（只取轻量列），过滤条件为 null 时不生效
+     */
+    @Query(value = "SELECT q.id AS id, q.subject AS subject, q.difficulty AS difficulty, "
+            + "q.knowledge_point AS knowledgePoint, q.question_set_id AS questionSetId, "
+            + "q.sequence_number AS sequenceNumber, q.validation_status AS validationStatus, "
+            + "q.question_type AS questionType, "
+            + "LEFT(JSON_UNQUOTE(JSON_EXTRACT(q.content, '$.questionText')), 80) AS preview "
+            + "FROM `questions` q "
+            + "WHERE q.id > :afterId "
+            + "AND (:subject IS NULL OR q.subject = :subject) "
+            + "AND (:setId IS NULL OR q.question_set_id = :setId) "
+            + "AND (:questionType IS NULL OR q.question_type = :questionType) "
+            + "AND (:validationStatus IS NULL OR q.validation_status = :validationStatus) "
+            + "ORDER BY q.id LIMIT :limit", nativeQuery = true)
+    List<QuestionSummary> findSummariesAfter(@Param("afterId") long afterId,
+                                             @Param("subject") String subject,
+                                             @Param("setId") Long setId,
+                                             @Param("questionType") String questionType,
+                                             @Param("validationStatus") String validationStatus,
+                                             @Param("limit") int limit);
+
+    /**
+     * 某套题中指定题型的题目（走 question_set_id, question_type, sequence_number 索引）
+     */
+    List<Question> findByQuestionSetIdAndQuestionTypeOrderBySequenceNumberAsc(Long questionSetId, String questionType);
+
+    /**
+     * 各题型的题目数量，返回 [questionType, count]
+     */
+    @Query("SELECT q.questionType, COUNT(q) FROM Question q GROUP BY q.questionType")
+    List<Object[]> countByQuestionType();
+
+    /**
+     * 某套题的批改列（不读取 content）
+     */
+    @Query("SELECT q.id AS id, q.questionType AS questionType, q.correctOptionId AS correctOptionId "
+            + "FROM Question q WHERE q.questionSet.id = :questionSetId")
+    List<QuestionGradingColumns> findGradingColumnsByQuestionSetId(@Param("questionSetId") Long questionSetId);
+
+    @Query("SELECT q.id AS id, q.questionType AS questionType, q.correctOptionId AS correctOptionId "
+            + "FROM Question q WHERE q.id IN :ids")
+    List<QuestionGradingColumns> findGradingColumnsByIdIn(@Param("ids") Collection<Long> ids);
 }
\ No newline at end of file
@@ -0,0 +1,168 @@
+package com.ljh.smarteducation.repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ljh.smarteducation.entity.Question;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 题目批量写入
+ *
+ * Question 使用 IDENTITY 主键，Hibernate 无法对其做 JDBC 批量插入，逐条 save 时每道题一次往返。
+ * 导入时改用 JdbcTemplate.batchUpdate，配合连接参数 rewriteBatchedStatements=true，
+ * MySQL 驱动会把一批 INSERT 改写为多值 INSERT，一套题只需几条语句。
+ * 在调用方的事务中执行（JPA 事务管理器会把同一连接暴露给 JdbcTemplate）。
+ */
+@Slf4j
+@Repository
+public class QuestionBatchRepository {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String INSERT_SQL = "INSERT INTO `questions` "
+            + "(subject, difficulty, knowledge_point, content, question_set_id, sequence_number, "
+            + "validation_status, question_type, part_name, group_id, correct_option_id, create_time, update_time) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String BACKFILL_SELECT_SQL = "SELECT id, content FROM `questions` "
+            + "WHERE id > ? AND question_type IS NULL ORDER BY id LIMIT " + BATCH_SIZE;
+
+    /**
+     * 只更新仍未回填的行：回填期间题目可能已被 JPA 保存并写入了新的冗余列
+     */
+    private static final String BACKFILL_UPDATE_SQL = "UPDATE `questions` "
+            + "SET question_type = ?, part_name = ?, group_id = ?, correct_option_id = ? "
+            + "WHERE id = ? AND question_type IS NULL";
+
+    /**
+     * content 为空、无法解析或题型为 null 的题目写入此题型，避免每次启动回填时重复读取
+     */
+    public static final String UNKNOWN_QUESTION_TYPE = "UNKNOWN";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    public QuestionBatchRepository(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 批量插入题目（不回填自增 ID）
+     * @return 插入的行数
+     */
+    public int insertAll(List<Question> questions) {
+        if (questions.isEmpty()) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        // JSON 序列化在执行 SQL 之前一次完成
+        List<Object[]> rows = new ArrayList<>(questions.size());
+        for (Question question : questions) {
+            question.syncContentColumns();
+            rows.add(new Object[]{
+                    question.getSubject(),
+                    question.getDifficulty(),
+                    question.getKnowledgePoint(),
+                    toJson(question),
+                    question.getQuestionSet() != null ? question.getQuestionSet().getId() : null,
+                    question.getSequenceNumber(),
+                    question.getValidationStatus(),
+                    question.getQuestionType(),
+                    question.getPartName(),
+                    question.getGroupId(),
+                    question.getCorrectOptionId(),
+                    now,
+                    now
+            });
+        }
+
+        int inserted = 0;
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            List<Object[]> batch = rows.subList(from, Math.min(from + BATCH_SIZE, rows.size()));
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch);
+            inserted += batch.size();
+        }
+
+        long elapsedNanos = Math.max(1, System.nanoTime() - start);
+        log.info("批量写入题目 {} 道，耗时 {} ms，{} 行/秒", inserted, elapsedNanos / 1_000_000,
+                Math.round(inserted * 1e9 / elapsedNanos));
+        return inserted;
+    }
+
+    /**
+     * 回填 question_type/part_name/group_id/correct_option_id 为空的旧题目
+     *
+     * 按 ID 游标每次处理 BATCH_SIZE 行，每批单独提交（不在调用方事务中运行），中断后可重新执行。
+     * content 为空、无法解析或题型为 null 的题目题型记为 UNKNOWN_QUESTION_TYPE，之后的回填不再处理。
+     * @return 更新的行数
+     */
+    public int backfillContentColumns() {
+        long start = System.nanoTime();
+        long afterId = 0;
+        int updated = 0;
+        while (true) {
+            List<Object[]> updates = new ArrayList<>(BATCH_SIZE);
+            List<Long> ids = new ArrayList<>(BATCH_SIZE);
+            jdbcTemplate.query(BACKFILL_SELECT_SQL, rs -> {
+                long id = rs.getLong(1);
+                Question question = new Question();
+                question.setContent(fromJson(rs.getString(2), id));
+                question.syncContentColumns();
+                // content 中显式写了 "questionType": null 时题型同样为空，也要记为 UNKNOWN
+                String questionType = question.getQuestionType() != null
+                        ? question.getQuestionType() : UNKNOWN_QUESTION_TYPE;
+                ids.add(id);
+                updates.add(new Object[]{questionType, question.getPartName(), question.getGroupId(),
+                        question.getCorrectOptionId(), id});
+            }, afterId);
+            if (ids.isEmpty()) {
+                break;
+            }
+            for (int count : jdbcTemplate.batchUpdate(BACKFILL_UPDATE_SQL, updates)) {
+                // 驱动改写批量语句时返回 SUCCESS_NO_INFO（-2），按一行计
+                updated += count == 0 ? 0 : 1;
+            }
+            afterId = ids.get(ids.size() - 1);
+        }
+        if (updated > 0) {
+            log.info("回填题目冗余列 {} 行，耗时 {} ms", updated, (System.nanoTime() - start) / 1_000_000);
+        }
+        return updated;
+    }
+
+    private Map<String, Object> fromJson(String json, long id) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(json, new TypeReference<Map<String, Object>>() {
+            });
+        } catch (JsonProcessingException e) {
+            log.warn("题目 {} 的 content 无法解析，题型记为 {}: {}", id, UNKNOWN_QUESTION_TYPE, e.getMessage());
+            return null;
+        }
+    }
+
+    private String toJson(Question question) {
+        if (question.getContent() == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(question.getContent());
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Failed to serialize question content", e);
+        }
+    }
+}
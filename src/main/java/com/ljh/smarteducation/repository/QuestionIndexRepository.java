@@ -0,0 +1,42 @@
+package com.ljh.smarteducation.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+
+/**
+ * 读取构建抽题索引所需的轻量列（不把 JSON 内容传回应用）
+ */
+@Repository
+public class QuestionIndexRepository {
+
+    /**
+     * 冗余列尚未回填的旧题目从 content 中取题型，content 中也没有时与 Question.questionTypeOf 一样按 MULTIPLE_CHOICE 处理
+     */
+    private static final String INDEX_SQL = "SELECT id, subject, difficulty, knowledge_point, "
+            + "COALESCE(question_type, JSON_UNQUOTE(JSON_EXTRACT(content, '$.questionType')), 'MULTIPLE_CHOICE') "
+            + "FROM `questions`";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public QuestionIndexRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        // MySQL 驱动在 fetchSize 为 Integer.MIN_VALUE 时逐行流式读取，避免一次性缓冲整个结果集
+        this.jdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+    }
+
+    /**
+     * 逐行回调题目的索引列
+     */
+    public void forEachIndexRow(IndexRowHandler handler) {
+        jdbcTemplate.query(INDEX_SQL, rs -> {
+            handler.accept(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4), rs.getString(5));
+        });
+    }
+
+    @FunctionalInterface
+    public interface IndexRowHandler {
+        void accept(long id, String subject, String difficulty, String knowledgePoint, String questionType);
+    }
+}
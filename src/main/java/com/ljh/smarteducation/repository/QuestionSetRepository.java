@@ -1,7 +1,12 @@
 package com.ljh.smarteducation.repository;
 
+import com.ljh.smarteducation.dto.QuestionSetSummaryDto;
 import com.ljh.smarteducation.entity.QuestionSet;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -14,4 +19,21 @@ public interface QuestionSetRepository extends JpaRepository<QuestionSet, Long>
     
     // 根据标题查找所有套题（用于查找重复）
     List<QuestionSet> findByTitle(String title);
+
+    /**
+     * 使用指定资源文件作为音频的套题 ID
+     */
+    @Query("SELECT s.id FROM QuestionSet s WHERE s.resourceFile.id = :resourceFileId")
+    List<Long> findIdsByResourceFileId(@Param("resourceFileId") Long resourceFileId);
+
+    /**
+     * 套题摘要（题目数量、是否有音频），按上传时间倒序；subject 为 null 时不过滤
+     */
+    @Query(value = "SELECT new com.ljh.smarteducation.dto.QuestionSetSummaryDto(s.id, s.title, s.subject, s.uploadTime, "
+            + "(SELECT COUNT(q) FROM Question q WHERE q.questionSet = s), "
+            + "CASE WHEN s.resourceFile IS NULL THEN false ELSE true END) "
+            + "FROM QuestionSet s WHERE (:subject IS NULL OR s.subject = :subject) "
+            + "ORDER BY s.uploadTime DESC, s.id DESC",
+            countQuery = "SELECT COUNT(s) FROM QuestionSet s WHERE (:subject IS NULL OR s.subject = :subject)")
+    Page<QuestionSetSummaryDto> findSummaries(@Param("subject") String subject, Pageable pageable);
 }
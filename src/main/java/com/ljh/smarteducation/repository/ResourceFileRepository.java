@@ -4,4 +4,9 @@ import com.ljh.smarteducation.entity.ResourceFile;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 public interface ResourceFileRepository extends JpaRepository<ResourceFile, Long> {
+
+    /**
+     * 统计引用同一存储路径的资源文件数量（内容寻址存储下多个记录可共享一个 blob）
+     */
+    long countByStoragePath(String storagePath);
 }
\ No newline at end of file
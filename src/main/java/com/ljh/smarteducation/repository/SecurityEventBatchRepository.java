@@ -0,0 +1,88 @@
+package com.ljh.smarteducation.repository;
+
+import com.ljh.smarteducation.entity.SecurityEventLog;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 安全事件批量写入
+ *
+ * 与 QuestionBatchRepository 相同，依靠 rewriteBatchedStatements=true 把一批 INSERT 改写为多值 INSERT。
+ * event_time 由调用方在事件入队时填写（不经过 Hibernate，@CreationTimestamp 不生效）。
+ * 启用分钟汇总时，同一事务中把这批事件按 (分钟, 类型, 严重程度) 合并后累加到 security_event_minute_rollup。
+ */
+@Repository
+public class SecurityEventBatchRepository {
+
+    private static final String INSERT_SQL = "INSERT INTO `security_event_log` "
+            + "(event_type, description, user_id, username, ip_address, request_url, request_method, request_params, "
+            + "sql_fragment, action_taken, severity, event_time, user_agent, remarks) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String ROLLUP_SQL = "INSERT INTO `security_event_minute_rollup` "
+            + "(bucket_minute, event_type, severity, event_count) VALUES (?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE event_count = event_count + VALUES(event_count)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean rollupEnabled;
+
+    public SecurityEventBatchRepository(JdbcTemplate jdbcTemplate,
+                                        @Value("${security.event-rollup.enabled:false}") boolean rollupEnabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.rollupEnabled = rollupEnabled;
+    }
+
+    /**
+     * @return 插入的行数
+     */
+    @Transactional
+    public int insertAll(List<SecurityEventLog> events) {
+        if (events.isEmpty()) {
+            return 0;
+        }
+        List<Object[]> rows = new ArrayList<>(events.size());
+        Map<List<Object>, long[]> buckets = new HashMap<>();
+        for (SecurityEventLog event : events) {
+            LocalDateTime eventTime = event.getEventTime() != null ? event.getEventTime() : LocalDateTime.now();
+            if (rollupEnabled) {
+                buckets.computeIfAbsent(Arrays.asList(Timestamp.valueOf(eventTime.truncatedTo(ChronoUnit.MINUTES)),
+                        event.getEventType(), event.getSeverity()), key -> new long[1])[0]++;
+            }
+            rows.add(new Object[]{
+                    event.getEventType(),
+                    event.getDescription(),
+                    event.getUserId(),
+                    event.getUsername(),
+                    event.getIpAddress() != null ? event.getIpAddress() : "unknown",
+                    event.getRequestUrl() != null ? event.getRequestUrl() : "",
+                    event.getRequestMethod() != null ? event.getRequestMethod() : "",
+                    event.getRequestParams(),
+                    event.getSqlFragment(),
+                    event.getActionTaken(),
+                    event.getSeverity(),
+                    Timestamp.valueOf(eventTime),
+                    event.getUserAgent(),
+                    event.getRemarks()
+            });
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+
+        if (!buckets.isEmpty()) {
+            List<Object[]> rollupRows = new ArrayList<>(buckets.size());
+            buckets.forEach((key, count) -> rollupRows.add(new Object[]{key.get(0), key.get(1), key.get(2), count[0]}));
+            jdbcTemplate.batchUpdate(ROLLUP_SQL, rollupRows);
+        }
+        return rows.size();
+    }
+}
@@ -1,5 +1,6 @@
 package com.ljh.smarteducation.repository;
 
+import com.ljh.smarteducation.dto.SecurityEventTypeCount;
 import com.ljh.smarteducation.entity.SecurityEventLog;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -78,4 +79,56 @@ public interface SecurityEventLogRepository extends JpaRepository<SecurityEventL
      */
     @Query("SELECT s FROM SecurityEventLog s WHERE s.eventType = 'SQL_INJECTION_ATTEMPT' ORDER BY s.eventTime DESC")
     List<SecurityEventLog> findRecentSqlInjectionAttempts(Pageable pageable);
+
+    /**
+     * 查询时间范围内的安全日志（分页，按事件时间降序）
+     */
+    Page<SecurityEventLog> findByEventTimeBetweenOrderByEventTimeDesc(
+            LocalDateTime start, LocalDateTime end, Pageable pageable);
+
+    /**
+     * 按事件类型查询时间范围内的安全日志（分页，按事件时间降序）
+     */
+    Page<SecurityEventLog> findByEventTypeAndEventTimeBetweenOrderByEventTimeDesc(
+            String eventType, LocalDateTime start, LocalDateTime end, Pageable pageable);
+
+    /**
+     * 按IP地址查询时间范围内的安全日志（分页，按事件时间降序，使用 (ip_address, event_time) 索引）
+     */
+    Page<SecurityEventLog> findByIpAddressAndEventTimeBetweenOrderByEventTimeDesc(
+            String ipAddress, LocalDateTime start, LocalDateTime end, Pageable pageable);
+
+    /**
+     * 按严重程度查询时间范围内的安全日志（分页，按事件时间降序）
+     */
+    Page<SecurityEventLog> findBySeverityAndEventTimeBetweenOrderByEventTimeDesc(
+            String severity, LocalDateTime start, LocalDateTime end, Pageable pageable);
+
+    /**
+     * 按事件类型统计时间范围内的数量（在数据库中分组，只扫描 (event_time, event_type) 索引）
+     *
+     * @param start 开始时间
+     * @param end   结束时间
+     * @return 各事件类型的数量
+     */
+    @Query("SELECT s.eventType AS eventType, COUNT(s) AS eventCount FROM SecurityEventLog s "
+            + "WHERE s.eventTime BETWEEN :start AND :end GROUP BY s.eventType")
+    List<SecurityEventTypeCount> countByEventTypeBetween(@Param("start") LocalDateTime start,
+                                                         @Param("end") LocalDateTime end);
+
+    /**
+     * 统计某个事件类型的数量
+     */
+    long countByEventType(String eventType);
+
+    /**
+     * 统计某个事件类型在指定时间之后（含）的数量
+     */
+    long countByEventTypeAndEventTimeGreaterThanEqual(String eventType, LocalDateTime start);
+
+    /**
+     * 最早的事件时间（用于回填分钟汇总）
+     */
+    @Query("SELECT MIN(s.eventTime) FROM SecurityEventLog s")
+    LocalDateTime findEarliestEventTime();
 }
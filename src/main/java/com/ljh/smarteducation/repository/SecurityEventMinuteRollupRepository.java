@@ -0,0 +1,66 @@
+package com.ljh.smarteducation.repository;
+
+import com.ljh.smarteducation.dto.SecurityEventTypeCount;
+import com.ljh.smarteducation.entity.SecurityEventMinuteRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface SecurityEventMinuteRollupRepository extends JpaRepository<SecurityEventMinuteRollup, Long> {
+
+    /**
+     * 按事件类型合计 [from, to) 内各分钟的数量（from/to 为整分钟）
+     */
+    @Query("SELECT r.eventType AS eventType, SUM(r.eventCount) AS eventCount FROM SecurityEventMinuteRollup r "
+            + "WHERE r.bucketMinute >= :from AND r.bucketMinute < :to GROUP BY r.eventType")
+    List<SecurityEventTypeCount> sumByEventTypeBetween(@Param("from") LocalDateTime from,
+                                                       @Param("to") LocalDateTime to);
+
+    /**
+     * 某个事件类型在 to 之前各分钟的合计
+     */
+    @Query("SELECT COALESCE(SUM(r.eventCount), 0) FROM SecurityEventMinuteRollup r "
+            + "WHERE r.eventType = :eventType AND r.bucketMinute < :to")
+    Long sumByEventTypeBefore(@Param("eventType") String eventType, @Param("to") LocalDateTime to);
+
+    @Modifying
+    @Query("DELETE FROM SecurityEventMinuteRollup r WHERE r.bucketMinute >= :from AND r.bucketMinute < :to")
+    int deleteMinutes(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * 从原始日志汇总 [from, to) 内的分钟（按 event_time 范围扫描，可使用索引）
+     *
+     * 重建当天时 SecurityEventBatchRepository 可能在删除之后重新创建当前分钟的桶，
+     * 重复键时用重新汇总的绝对值覆盖，而不是因唯一键冲突失败；GROUP BY 的结果包在派生表中以便引用。
+     */
+    @Modifying
+    @Query(value = "INSERT INTO security_event_minute_rollup (bucket_minute, event_type, severity, event_count) "
+            + "SELECT * FROM (SELECT DATE_FORMAT(event_time, '%Y-%m-%d %H:%i') AS bucket_minute, "
+            + "event_type, severity, COUNT(*) AS event_count "
+            + "FROM security_event_log WHERE event_time >= :from AND event_time < :to "
+            + "GROUP BY DATE_FORMAT(event_time, '%Y-%m-%d %H:%i'), event_type, severity) AS totals "
+            + "ON DUPLICATE KEY UPDATE event_count = totals.event_count",
+            nativeQuery = true)
+    int insertMinutes(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * 在一个事务中重新汇总 [from, to) 内的分钟
+     *
+     * READ COMMITTED 下 INSERT ... SELECT 对 security_event_log 做一致性读而不加共享锁，
+     * 重建持有汇总行锁时不会再等待日志行锁，避免与批量写入（先写日志、再累加汇总）互相等待而死锁。
+     * @return 写入的汇总行数
+     */
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    default int rebuildMinutes(LocalDateTime from, LocalDateTime to) {
+        deleteMinutes(from, to);
+        return insertMinutes(from, to);
+    }
+}
@@ -1,9 +1,17 @@
 package com.ljh.smarteducation.repository;
 
+import com.ljh.smarteducation.dto.PendingSubmissionSummary;
 import com.ljh.smarteducation.entity.StudentSubmission;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -14,5 +22,48 @@ public interface StudentSubmissionRepository extends JpaRepository<StudentSubmis
 
     // --- ↓↓↓ (新增) 用于统计待批改数量的方法 ↓↓↓ ---
     long countByGraded(Boolean graded);
+
+    long countByIdInAndGraded(Collection<Long> ids, Boolean graded);
     // --- ↑↑↑ (新增) 方法结束 ↑↑↑ ---
+
+    /**
+     * 待批改队列（按提交时间先后，走 graded, submissionTime 索引），不读取答案 JSON
+     */
+    @Query(value = "SELECT s.id AS id, s.userId AS userId, s.username AS username, s.questionSet.id AS questionSetId, "
+            + "s.score AS score, s.totalQuestions AS totalQuestions, s.submissionTime AS submissionTime, "
+            + "s.claimedBy AS claimedBy, s.claimExpiresAt AS claimExpiresAt "
+            + "FROM StudentSubmission s WHERE s.graded = false ORDER BY s.submissionTime ASC, s.id ASC",
+            countQuery = "SELECT COUNT(s) FROM StudentSubmission s WHERE s.graded = false")
+    Page<PendingSubmissionSummary> findPendingSummaries(Pageable pageable);
+
+    /**
+     * 领取最早的 count 份未被他人领取（或领取已过期）的待批改答卷；已由自己领取的答卷会续期
+     * @return 本次领取/续期的行数
+     */
+    @Modifying
+    @Query(value = "UPDATE `student_submission` SET claimed_by = :grader, claim_expires_at = :expiresAt "
+            + "WHERE graded = false AND (claimed_by IS NULL OR claimed_by = :grader OR claim_expires_at < :now) "
+            + "ORDER BY submission_time ASC, id ASC LIMIT :count", nativeQuery = true)
+    int claimPending(@Param("grader") String grader, @Param("now") LocalDateTime now,
+                     @Param("expiresAt") LocalDateTime expiresAt, @Param("count") int count);
+
+    @Query("SELECT s FROM StudentSubmission s WHERE s.graded = false AND s.claimedBy = :grader "
+            + "AND s.claimExpiresAt > :now ORDER BY s.submissionTime ASC, s.id ASC")
+    List<StudentSubmission> findClaimedBy(@Param("grader") String grader, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE StudentSubmission s SET s.claimedBy = null, s.claimExpiresAt = null "
+            + "WHERE s.graded = false AND s.claimedBy = :grader")
+    int releaseClaims(@Param("grader") String grader);
+
+    /**
+     * 写入批改结果；答卷被他人领取且未过期时不更新
+     * @return 更新的行数
+     */
+    @Modifying
+    @Query("UPDATE StudentSubmission s SET s.feedback = :feedback, s.manualScore = :manualScore, s.graded = true, "
+            + "s.claimedBy = null, s.claimExpiresAt = null "
+            + "WHERE s.id = :id AND (s.claimedBy IS NULL OR s.claimedBy = :grader OR s.claimExpiresAt < :now)")
+    int grade(@Param("id") Long id, @Param("manualScore") Integer manualScore, @Param("feedback") String feedback,
+              @Param("grader") String grader, @Param("now") LocalDateTime now);
 }
@@ -0,0 +1,160 @@
+package com.ljh.smarteducation.repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ljh.smarteducation.dto.GradeRequest;
+import com.ljh.smarteducation.service.SubmissionJournal;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 答卷批量写入与批量批改
+ *
+ * ON DUPLICATE KEY UPDATE 配合 intake_id 唯一索引：重放已入库的答卷时跳过，不产生重复记录；
+ * 其他错误（外键、非空、超长）照常抛出，不会像 INSERT IGNORE 那样降级为警告而静默丢弃答卷。
+ * 不存在的套题 ID 写为 NULL（与逐条保存时找不到套题就不关联的行为一致），避免外键错误导致整批失败。
+ */
+@Repository
+public class SubmissionBatchRepository {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String INSERT_SQL = "INSERT INTO `student_submission` "
+            + "(user_id, username, question_set_id, answers, score, total_questions, graded, submission_time, intake_id) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE id = id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    public SubmissionBatchRepository(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 批量插入答卷
+     *
+     * rewriteBatchedStatements 下驱动对每行只返回 SUCCESS_NO_INFO，无法区分插入与重复，
+     * 因此先按 intake_id 查出已入库的答卷，只插入其余答卷。
+     * @return 本次实际插入的答卷（已存在的 intakeId 不含在内）
+     */
+    public List<SubmissionJournal.Entry> insertAll(List<SubmissionJournal.Entry> entries) {
+        if (entries.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Set<String> existingIntakeIds = existingIntakeIds(entries);
+        List<SubmissionJournal.Entry> fresh = new ArrayList<>(entries.size());
+        for (SubmissionJournal.Entry entry : entries) {
+            if (!existingIntakeIds.contains(entry.intakeId())) {
+                fresh.add(entry);
+            }
+        }
+        if (fresh.isEmpty()) {
+            return fresh;
+        }
+        Set<Long> existingSetIds = existingQuestionSetIds(fresh);
+
+        List<Object[]> rows = new ArrayList<>(fresh.size());
+        for (SubmissionJournal.Entry entry : fresh) {
+            rows.add(new Object[]{
+                    entry.userId(),
+                    entry.username(),
+                    existingSetIds.contains(entry.questionSetId()) ? entry.questionSetId() : null,
+                    toJson(entry),
+                    entry.score(),
+                    entry.totalQuestions(),
+                    entry.graded(),
+                    new Timestamp(entry.submittedAt()),
+                    entry.intakeId()
+            });
+        }
+
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, rows.subList(from, Math.min(from + BATCH_SIZE, rows.size())));
+        }
+        return fresh;
+    }
+
+    private Set<String> existingIntakeIds(List<SubmissionJournal.Entry> entries) {
+        Set<String> existing = new HashSet<>();
+        for (int from = 0; from < entries.size(); from += BATCH_SIZE) {
+            List<SubmissionJournal.Entry> batch = entries.subList(from, Math.min(from + BATCH_SIZE, entries.size()));
+            String placeholders = String.join(",", Collections.nCopies(batch.size(), "?"));
+            existing.addAll(jdbcTemplate.queryForList(
+                    "SELECT intake_id FROM `student_submission` WHERE intake_id IN (" + placeholders + ")",
+                    String.class, batch.stream().map(SubmissionJournal.Entry::intakeId).toArray()));
+        }
+        return existing;
+    }
+
+    private Set<Long> existingQuestionSetIds(List<SubmissionJournal.Entry> entries) {
+        Set<Long> ids = new HashSet<>();
+        for (SubmissionJournal.Entry entry : entries) {
+            if (entry.questionSetId() != null) {
+                ids.add(entry.questionSetId());
+            }
+        }
+        if (ids.isEmpty()) {
+            return Collections.emptySet();
+        }
+        String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+        return new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT id FROM `question_set` WHERE id IN (" + placeholders + ")", Long.class, ids.toArray()));
+    }
+
+    /**
+     * 用一条 UPDATE 写入多份答卷的批改结果（分数、评语按 ID 用 CASE 分别赋值），并释放领取；
+     * 被他人领取且未过期的答卷不更新
+     * @return 更新的行数
+     */
+    public int gradeAll(List<GradeRequest> grades, String grader, LocalDateTime now) {
+        if (grades.isEmpty()) {
+            return 0;
+        }
+        StringBuilder scoreCase = new StringBuilder("CASE id");
+        StringBuilder feedbackCase = new StringBuilder("CASE id");
+        List<Object> scoreArgs = new ArrayList<>();
+        List<Object> feedbackArgs = new ArrayList<>();
+        List<Object> ids = new ArrayList<>();
+        for (GradeRequest grade : grades) {
+            scoreCase.append(" WHEN ? THEN ?");
+            scoreArgs.add(grade.getSubmissionId());
+            scoreArgs.add(grade.getManualScore());
+            feedbackCase.append(" WHEN ? THEN ?");
+            feedbackArgs.add(grade.getSubmissionId());
+            feedbackArgs.add(grade.getFeedback());
+            ids.add(grade.getSubmissionId());
+        }
+        scoreCase.append(" END");
+        feedbackCase.append(" END");
+
+        String sql = "UPDATE `student_submission` SET manual_score = " + scoreCase
+                + ", feedback = " + feedbackCase
+                + ", graded = true, claimed_by = NULL, claim_expires_at = NULL"
+                + " WHERE id IN (" + String.join(",", Collections.nCopies(ids.size(), "?")) + ")"
+                + " AND (claimed_by IS NULL OR claimed_by = ? OR claim_expires_at < ?)";
+        List<Object> args = new ArrayList<>(scoreArgs.size() + feedbackArgs.size() + ids.size() + 2);
+        args.addAll(scoreArgs);
+        args.addAll(feedbackArgs);
+        args.addAll(ids);
+        args.add(grader);
+        args.add(Timestamp.valueOf(now));
+        return jdbcTemplate.update(sql, args.toArray());
+    }
+
+    private String toJson(SubmissionJournal.Entry entry) {
+        try {
+            return objectMapper.writeValueAsString(entry.answers());
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Failed to serialize submission answers", e);
+        }
+    }
+}
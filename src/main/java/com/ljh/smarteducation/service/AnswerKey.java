@@ -0,0 +1,179 @@
+package com.ljh.smarteducation.service;
+
+import com.ljh.smarteducation.dto.QuestionGradingColumns;
+import com.ljh.smarteducation.entity.Question;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 预编译的答案表
+ *
+ * 根据每道题的题型和正确选项 ID（questions 表的冗余列）得出批改方式，按题目 ID 排序后存放在基本类型数组中，
+ * 批改时二分查找即可，不再逐题解析 content。实例不可变，可在线程间共享。
+ */
+public final class AnswerKey {
+
+    /**
+     * 不参与自动批改，也不需要人工批改（未知题型）
+     */
+    public static final byte MODE_NONE = 0;
+    /**
+     * 选择题/听力题：与正确选项 ID 比较
+     */
+    public static final byte MODE_AUTO = 1;
+    /**
+     * 写作/翻译：需要教师人工批改
+     */
+    public static final byte MODE_MANUAL = 2;
+
+    /**
+     * 没有标记正确选项时的占位值
+     */
+    public static final long NO_OPTION = -1L;
+
+    private static final AnswerKey EMPTY = new AnswerKey(new long[0], new long[0], new byte[0]);
+
+    private final long[] questionIds;
+    private final long[] correctOptionIds;
+    private final byte[] gradingModes;
+
+    private AnswerKey(long[] questionIds, long[] correctOptionIds, byte[] gradingModes) {
+        this.questionIds = questionIds;
+        this.correctOptionIds = correctOptionIds;
+        this.gradingModes = gradingModes;
+    }
+
+    public static AnswerKey empty() {
+        return EMPTY;
+    }
+
+    /**
+     * 从题目实体构建答案表；冗余列尚未回填的旧数据从 content 中提取
+     */
+    public static AnswerKey of(Collection<Question> questions) {
+        return build(questions, Question::getId,
+                q -> q.getQuestionType() != null ? q.getQuestionType() : Question.questionTypeOf(q.getContent()),
+                q -> q.getQuestionType() != null || q.getContent() == null
+                        ? q.getCorrectOptionId() : Question.correctOptionIdOf(q.getContent()));
+    }
+
+    /**
+     * 从冗余列投影构建答案表（调用方需保证这些行的 questionType 已回填）
+     */
+    public static AnswerKey ofColumns(Collection<? extends QuestionGradingColumns> rows) {
+        return build(rows, QuestionGradingColumns::getId, QuestionGradingColumns::getQuestionType,
+                QuestionGradingColumns::getCorrectOptionId);
+    }
+
+    private static <T> AnswerKey build(Collection<? extends T> rows, Function<T, Long> idOf,
+                                       Function<T, String> typeOf, Function<T, Long> optionOf) {
+        List<T> sorted = new ArrayList<>(rows.size());
+        for (T row : rows) {
+            if (idOf.apply(row) != null) {
+                sorted.add(row);
+            }
+        }
+        sorted.sort(Comparator.comparing(idOf));
+
+        int n = sorted.size();
+        long[] ids = new long[n];
+        long[] options = new long[n];
+        byte[] modes = new byte[n];
+        for (int i = 0; i < n; i++) {
+            T row = sorted.get(i);
+            ids[i] = idOf.apply(row);
+            modes[i] = gradingModeOf(typeOf.apply(row));
+            Long option = modes[i] == MODE_AUTO ? optionOf.apply(row) : null;
+            options[i] = option != null ? option : NO_OPTION;
+        }
+        return new AnswerKey(ids, options, modes);
+    }
+
+    /**
+     * 合并两张答案表（ID 重复时以当前表为准）
+     */
+    public AnswerKey merge(AnswerKey other) {
+        if (other.size() == 0) {
+            return this;
+        }
+        if (size() == 0) {
+            return other;
+        }
+        int n = questionIds.length + other.questionIds.length;
+        long[] ids = new long[n];
+        long[] options = new long[n];
+        byte[] modes = new byte[n];
+        int i = 0, j = 0, k = 0;
+        while (i < questionIds.length || j < other.questionIds.length) {
+            boolean takeThis = j >= other.questionIds.length
+                    || (i < questionIds.length && questionIds[i] <= other.questionIds[j]);
+            if (takeThis) {
+                if (j < other.questionIds.length && i < questionIds.length && questionIds[i] == other.questionIds[j]) {
+                    j++;
+                }
+                ids[k] = questionIds[i];
+                options[k] = correctOptionIds[i];
+                modes[k++] = gradingModes[i++];
+            } else {
+                ids[k] = other.questionIds[j];
+                options[k] = other.correctOptionIds[j];
+                modes[k++] = other.gradingModes[j++];
+            }
+        }
+        return new AnswerKey(Arrays.copyOf(ids, k), Arrays.copyOf(options, k), Arrays.copyOf(modes, k));
+    }
+
+    public int size() {
+        return questionIds.length;
+    }
+
+    public boolean contains(long questionId) {
+        return Arrays.binarySearch(questionIds, questionId) >= 0;
+    }
+
+    /**
+     * 题目的批改方式；答案表中没有该题时返回 MODE_NONE
+     */
+    public byte gradingMode(long questionId) {
+        int index = Arrays.binarySearch(questionIds, questionId);
+        return index >= 0 ? gradingModes[index] : MODE_NONE;
+    }
+
+    /**
+     * 自动批改：学生选择的选项 ID 是否等于正确选项
+     */
+    public boolean isCorrect(long questionId, String answer) {
+        int index = Arrays.binarySearch(questionIds, questionId);
+        if (index < 0 || gradingModes[index] != MODE_AUTO || correctOptionIds[index] == NO_OPTION
+                || answer == null) {
+            return false;
+        }
+        try {
+            return Long.parseLong(answer) == correctOptionIds[index];
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 数组占用的近似字节数
+     */
+    public long estimatedBytes() {
+        return 64L + questionIds.length * 17L;
+    }
+
+    private static byte gradingModeOf(String type) {
+        if ("MULTIPLE_CHOICE".equals(type) || "LISTENING".equals(type)) {
+            return MODE_AUTO;
+        }
+        if ("WRITING".equals(type) || "TRANSLATION".equals(type)) {
+            return MODE_MANUAL;
+        }
+        return MODE_NONE;
+    }
+}
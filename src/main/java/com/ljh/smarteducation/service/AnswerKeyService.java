@@ -0,0 +1,22 @@
+package com.ljh.smarteducation.service;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * 答案表服务接口
+ */
+public interface AnswerKeyService {
+
+    /**
+     * 获取批改所需的答案表：按套题整体加载（带缓存），答卷中不属于该套题的题目再按 ID 补查一次
+     * @param questionSetId 答卷所属套题，可以为 null
+     * @param questionIds   答卷中作答的题目 ID
+     */
+    AnswerKey getAnswerKey(Long questionSetId, Collection<Long> questionIds);
+
+    /**
+     * 答案表缓存的命中、未命中与构建耗时统计
+     */
+    Map<String, Object> getStatistics();
+}
@@ -0,0 +1,56 @@
+package com.ljh.smarteducation.service;
+
+import com.ljh.smarteducation.dto.ApiUsageDailyTotals;
+import com.ljh.smarteducation.dto.ApiUsageModelTotals;
+import com.ljh.smarteducation.dto.ApiUsageTotals;
+import com.ljh.smarteducation.entity.ApiUsageLog;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * API 使用日志与日汇总
+ *
+ * 日志写入时同步累加 (日期, 模型, 是否成功) 汇总桶，统计查询读汇总表。
+ */
+public interface ApiUsageService {
+
+    /**
+     * 保存一条调用日志并累加到日汇总
+     */
+    ApiUsageLog record(ApiUsageLog log);
+
+    /**
+     * 全部成功调用的合计
+     */
+    ApiUsageTotals getTotals();
+
+    /**
+     * 从 from 当天起每天成功调用的合计，按日期倒序
+     */
+    List<ApiUsageDailyTotals> getDailyTotals(LocalDate from);
+
+    /**
+     * 按模型统计成功调用的合计；模型未知时 modelName 为 null
+     */
+    List<ApiUsageModelTotals> getModelTotals();
+
+    /**
+     * [start, end] 时间段内成功调用的合计：整天部分读汇总表，首尾不足一天的部分按 created_at 范围查询原始日志
+     */
+    ApiUsageTotals getTotalsBetween(LocalDateTime start, LocalDateTime end);
+
+    /**
+     * 从原始日志重建 [from, to] 日期范围内的汇总
+     * @return 写入的汇总行数
+     */
+    int rebuildRollup(LocalDate from, LocalDate to);
+
+    /**
+     * 首次升级时从最早的日志开始重建全部汇总；完成后写入回填标记，之后调用直接返回
+     * （不以汇总表是否为空判断：启动后的实时写入可能早于回填）
+     * @return 写入的汇总行数
+     */
+    int backfillRollupOnce();
+}
@@ -4,6 +4,7 @@ import com.ljh.smarteducation.entity.AiParseCache;
 import com.ljh.smarteducation.entity.DocumentCache;
 import com.ljh.smarteducation.entity.OcrCache;
 
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -45,4 +46,9 @@ public interface CacheService {
      * 清理过期缓存
      */
     void cleanExpiredCaches();
+    
+    /**
+     * 获取各缓存表的 L1/数据库命中统计
+     */
+    Map<String, Object> getCacheStatistics();
 }
@@ -0,0 +1,362 @@
+package com.ljh.smarteducation.service;
+
+import com.ljh.smarteducation.util.FileHashUtil;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 可断点续传的分片上传
+ *
+ * 协议：init 登记文件名和总大小 → 按偏移量 PUT 分片（附带分片 SHA-256）→ complete 校验整文件 SHA-256。
+ * 分片按偏移量直接定位写入最终文件，不做分片临时文件和合并；已确认的字节数即续传位置，
+ * 重传与已确认区间重叠的分片时只写入新的部分。整文件的 MD5/SHA-256 随分片顺序增量计算，
+ * 完成时无需回读文件。
+ *
+ * 完成后的文件通过 take() 以 StoredUpload 的形式交给 /upload、/upload/async 和 ResourceFileService。
+ * 会话保存在内存中，服务重启后需要重新上传；超过有效期未活动的会话由后台线程定期清理。
+ */
+@Slf4j
+@Service
+public class ChunkedUploadService {
+
+    /**
+     * 过期会话的清理间隔
+     */
+    private static final long PURGE_INTERVAL_MINUTES = 10;
+
+    /**
+     * 分片写入时的复制缓冲区大小，分片内容不整体读入内存
+     */
+    private static final int COPY_BUFFER_BYTES = 64 * 1024;
+
+    private final Map<String, UploadSession> sessions = new ConcurrentHashMap<>();
+
+    private final int maxChunkBytes;
+    private final long maxFileBytes;
+    private final Duration sessionTtl;
+    private ScheduledExecutorService purger;
+
+    public ChunkedUploadService(@Value("${upload.chunked.max-chunk-bytes:8388608}") int maxChunkBytes,
+                                @Value("${upload.chunked.max-file-bytes:2147483648}") long maxFileBytes,
+                                @Value("${upload.chunked.session-ttl-minutes:1440}") long sessionTtlMinutes) {
+        this.maxChunkBytes = maxChunkBytes;
+        this.maxFileBytes = maxFileBytes;
+        this.sessionTtl = Duration.ofMinutes(sessionTtlMinutes);
+    }
+
+    @PostConstruct
+    void start() {
+        purger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "chunked-upload-purge");
+            thread.setDaemon(true);
+            return thread;
+        });
+        purger.scheduleWithFixedDelay(() -> {
+            try {
+                purgeExpired();
+            } catch (Exception e) {
+                log.warn("清理过期分片上传失败: {}", e.getMessage());
+            }
+        }, PURGE_INTERVAL_MINUTES, PURGE_INTERVAL_MINUTES, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    void stop() {
+        purger.shutdownNow();
+    }
+
+    public int getMaxChunkBytes() {
+        return maxChunkBytes;
+    }
+
+    /**
+     * 登记一次分片上传，预先创建目标文件
+     */
+    public UploadSession init(String fileName, String contentType, long totalSize) throws IOException {
+        if (totalSize <= 0) {
+            throw new IllegalArgumentException("Total size must be positive");
+        }
+        if (totalSize > maxFileBytes) {
+            throw new IllegalArgumentException("File exceeds maximum size of " + maxFileBytes + " bytes");
+        }
+        purgeExpired();
+
+        Path target = Files.createTempFile("chunked-", StoredUpload.extensionOf(fileName));
+        UploadSession session = new UploadSession(UUID.randomUUID().toString(), fileName, contentType,
+                totalSize, target);
+        sessions.put(session.getUploadId(), session);
+        return session;
+    }
+
+    public Optional<UploadSession> getSession(String uploadId) {
+        return Optional.ofNullable(sessions.get(uploadId));
+    }
+
+    /**
+     * 写入一个分片
+     * @param offset   分片在文件中的起始位置，不能超过已确认的字节数
+     * @param in       分片内容（最多读取 maxChunkBytes 字节，边读边写入目标文件）
+     * @param checksum 分片内容的 SHA-256 十六进制字符串
+     * @return 写入后已确认的字节数（下一个分片的偏移量）
+     */
+    public long writeChunk(String uploadId, long offset, InputStream in, String checksum) throws IOException {
+        if (checksum == null) {
+            throw new IllegalArgumentException("Chunk checksum mismatch");
+        }
+        return require(uploadId).write(offset, in, checksum, maxChunkBytes);
+    }
+
+    /**
+     * 校验整文件哈希并结束上传；哈希不一致时丢弃已上传内容
+     */
+    public UploadSession complete(String uploadId, String expectedSha256) throws IOException {
+        UploadSession session = require(uploadId);
+        try {
+            session.complete(expectedSha256);
+            return session;
+        } catch (IllegalArgumentException e) {
+            abort(uploadId);
+            throw e;
+        }
+    }
+
+    /**
+     * 取走已完成的上传，调用方负责 close() 以删除文件
+     */
+    public StoredUpload take(String uploadId) {
+        UploadSession session = require(uploadId);
+        synchronized (session) {
+            if (!session.isCompleted()) {
+                throw new IllegalStateException("Upload not completed: " + uploadId);
+            }
+            if (!sessions.remove(uploadId, session)) {
+                throw new IllegalArgumentException("Upload session not found: " + uploadId);
+            }
+            return StoredUpload.adopt(session.target, "file", session.getFileName(), session.getContentType(),
+                    session.getTotalSize(), session.md5Hex, session.sha256Hex);
+        }
+    }
+
+    /**
+     * 上传接口的统一入口：优先使用已完成的分片上传，否则把 multipart 文件落盘
+     */
+    public StoredUpload open(MultipartFile file, String uploadId) throws IOException {
+        if (uploadId != null && !uploadId.isBlank()) {
+            return take(uploadId);
+        }
+        return StoredUpload.spool(file);
+    }
+
+    /**
+     * 放弃上传并删除已写入的内容
+     */
+    public void abort(String uploadId) throws IOException {
+        UploadSession session = sessions.remove(uploadId);
+        if (session != null) {
+            synchronized (session) {
+                Files.deleteIfExists(session.target);
+            }
+        }
+    }
+
+    private UploadSession require(String uploadId) {
+        UploadSession session = sessions.get(uploadId);
+        if (session == null) {
+            throw new IllegalArgumentException("Upload session not found: " + uploadId);
+        }
+        return session;
+    }
+
+    /**
+     * 删除超过有效期未活动的会话及其文件（加锁后再次判断，避免误删刚写入过的会话）
+     */
+    void purgeExpired() {
+        Instant deadline = Instant.now().minus(sessionTtl);
+        for (UploadSession session : sessions.values()) {
+            if (!session.getLastActivity().isBefore(deadline)) {
+                continue;
+            }
+            synchronized (session) {
+                if (session.getLastActivity().isBefore(deadline)
+                        && sessions.remove(session.getUploadId(), session)) {
+                    try {
+                        Files.deleteIfExists(session.target);
+                    } catch (IOException e) {
+                        log.warn("删除过期分片上传文件失败: {}", session.target, e);
+                    }
+                }
+            }
+        }
+    }
+
+    private static MessageDigest newDigest(String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(algorithm + " algorithm not found", e);
+        }
+    }
+
+    private static MessageDigest copyOf(MessageDigest digest) {
+        try {
+            return (MessageDigest) digest.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new RuntimeException(digest.getAlgorithm() + " digest cannot be cloned", e);
+        }
+    }
+
+    /**
+     * 一次分片上传的状态；同一会话的写入串行执行，不同会话互不影响
+     */
+    public static final class UploadSession {
+
+        private final String uploadId;
+        private final String fileName;
+        private final String contentType;
+        private final long totalSize;
+        private final Path target;
+
+        private MessageDigest md5 = newDigest("MD5");
+        private MessageDigest sha256 = newDigest("SHA-256");
+
+        private volatile long receivedBytes;
+        private volatile boolean completed;
+        private volatile Instant lastActivity = Instant.now();
+        private String md5Hex;
+        private String sha256Hex;
+
+        UploadSession(String uploadId, String fileName, String contentType, long totalSize, Path target) {
+            this.uploadId = uploadId;
+            this.fileName = fileName;
+            this.contentType = contentType;
+            this.totalSize = totalSize;
+            this.target = target;
+        }
+
+        /**
+         * 以固定大小的缓冲区把分片直接写到已确认位置之后；校验和通过后才推进已确认字节数，
+         * 校验失败时写入的字节位于已确认区间之外，会被后续分片覆盖
+         */
+        synchronized long write(long offset, InputStream in, String checksum, int maxChunkBytes) throws IOException {
+            if (completed) {
+                throw new IllegalStateException("Upload already completed");
+            }
+            if (offset < 0 || offset > receivedBytes) {
+                throw new IllegalStateException("Offset " + offset + " does not match received bytes " + receivedBytes);
+            }
+            lastActivity = Instant.now();
+
+            MessageDigest chunkDigest = newDigest("SHA-256");
+            MessageDigest nextMd5 = copyOf(md5);
+            MessageDigest nextSha256 = copyOf(sha256);
+            // 与已确认区间重叠的部分（重传）只参与分片校验，不重复写入
+            long skip = receivedBytes - offset;
+            long chunkLength = 0;
+            long position = receivedBytes;
+            byte[] buffer = new byte[COPY_BUFFER_BYTES];
+            try (FileChannel channel = FileChannel.open(target, StandardOpenOption.WRITE)) {
+                int read;
+                // 每次最多读到上限多一个字节，超出即拒绝
+                while ((read = in.read(buffer, 0,
+                        (int) Math.min(buffer.length, maxChunkBytes + 1L - chunkLength))) != -1) {
+                    chunkLength += read;
+                    if (chunkLength > maxChunkBytes) {
+                        throw new IllegalArgumentException("Chunk exceeds maximum size of " + maxChunkBytes + " bytes");
+                    }
+                    if (offset + chunkLength > totalSize) {
+                        throw new IllegalArgumentException("Chunk exceeds declared total size");
+                    }
+                    chunkDigest.update(buffer, 0, read);
+                    int from = (int) Math.max(0, Math.min(read, skip - (chunkLength - read)));
+                    if (from < read) {
+                        ByteBuffer slice = ByteBuffer.wrap(buffer, from, read - from);
+                        while (slice.hasRemaining()) {
+                            position += channel.write(slice, position);
+                        }
+                        nextMd5.update(buffer, from, read - from);
+                        nextSha256.update(buffer, from, read - from);
+                    }
+                }
+            }
+            if (!checksum.equalsIgnoreCase(FileHashUtil.bytesToHex(chunkDigest.digest()))) {
+                throw new IllegalArgumentException("Chunk checksum mismatch");
+            }
+            md5 = nextMd5;
+            sha256 = nextSha256;
+            receivedBytes = position;
+            return receivedBytes;
+        }
+
+        synchronized void complete(String expectedSha256) {
+            if (completed) {
+                return;
+            }
+            if (receivedBytes != totalSize) {
+                throw new IllegalStateException("Upload incomplete: " + receivedBytes + " of " + totalSize + " bytes");
+            }
+            String actual = FileHashUtil.bytesToHex(sha256.digest());
+            if (expectedSha256 == null || !expectedSha256.equalsIgnoreCase(actual)) {
+                throw new IllegalArgumentException("File checksum mismatch");
+            }
+            sha256Hex = actual;
+            md5Hex = FileHashUtil.bytesToHex(md5.digest());
+            completed = true;
+            lastActivity = Instant.now();
+        }
+
+        public String getUploadId() {
+            return uploadId;
+        }
+
+        public String getFileName() {
+            return fileName;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public long getTotalSize() {
+            return totalSize;
+        }
+
+        public long getReceivedBytes() {
+            return receivedBytes;
+        }
+
+        public boolean isCompleted() {
+            return completed;
+        }
+
+        public synchronized String getSha256() {
+            return sha256Hex;
+        }
+
+        public Instant getLastActivity() {
+            return lastActivity;
+        }
+    }
+}
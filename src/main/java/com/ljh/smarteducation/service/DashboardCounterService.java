@@ -0,0 +1,38 @@
+package com.ljh.smarteducation.service;
+
+import java.util.Map;
+
+/**
+ * 仪表盘计数器
+ *
+ * 用户数、答卷数等在内存中按事件增减，读取时不查询数据库；定期与数据库对账修正偏差。
+ */
+public interface DashboardCounterService {
+
+    /**
+     * 仪表盘数据，键与 GET /api/admin/statistics/dashboard 原有响应一致
+     */
+    Map<String, Object> snapshot();
+
+    /**
+     * 新用户创建后调用
+     */
+    void userCreated(String role);
+
+    /**
+     * 答卷写入数据库后调用
+     * @param pending 其中需要人工批改（graded = false）的份数
+     */
+    void submissionsRecorded(int total, int pending);
+
+    /**
+     * 待批改答卷被批改后调用
+     * @param count 由未批改变为已批改的份数
+     */
+    void submissionsGraded(int count);
+
+    /**
+     * 立即与数据库对账
+     */
+    void reconcile();
+}
@@ -1,31 +1,65 @@
 package com.ljh.smarteducation.service;
 
+import com.ljh.smarteducation.util.FileHashUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.MalformedURLException;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.UUID;
 
 @Service
 public class FileStorageService {
 
-    private final Path rootLocation = Paths.get("uploads"); // 存储在项目根目录的 'uploads' 文件夹
+    private final Path rootLocation; // 存储在项目根目录的 'uploads' 文件夹
 
-    public FileStorageService() {
+    /**
+     * 暂存目录：与正式目录同一文件系统，保证原子移动
+     */
+    private final Path stagingLocation;
+
+    /**
+     * 是否启用内容寻址存储（按 SHA-256 分片存放，相同内容只存一份）
+     */
+    private final boolean contentAddressed;
+
+    @Autowired
+    public FileStorageService(@Value("${storage.content-addressed.enabled:true}") boolean contentAddressed) {
+        this(Paths.get("uploads"), contentAddressed);
+    }
+
+    /**
+     * 使用指定的存储根目录（测试用）
+     */
+    FileStorageService(Path rootLocation, boolean contentAddressed) {
+        this.rootLocation = rootLocation;
+        this.stagingLocation = rootLocation.resolve(".staging");
+        this.contentAddressed = contentAddressed;
         try {
             Files.createDirectories(rootLocation);
+            Files.createDirectories(stagingLocation);
         } catch (IOException e) {
             throw new RuntimeException("Could not initialize storage location", e);
         }
     }
 
+    public boolean isContentAddressed() {
+        return contentAddressed;
+    }
+
     /**
      * 存储文件
      * @param file MultipartFile
@@ -44,7 +78,7 @@ public class FileStorageService {
              fileExtension = originalFilename.substring(originalFilename.lastIndexOf("."));
         }
         String uniqueFilename = UUID.randomUUID().toString() + fileExtension;
-        
+
         Path destinationFile = this.rootLocation.resolve(Paths.get(uniqueFilename))
                 .normalize().toAbsolutePath();
 
@@ -53,11 +87,111 @@ public class FileStorageService {
             throw new IOException("Cannot store file outside current directory.");
         }
 
-        Files.copy(file.getInputStream(), destinationFile, StandardCopyOption.REPLACE_EXISTING);
+        try (InputStream is = file.getInputStream()) {
+            Files.copy(is, destinationFile, StandardCopyOption.REPLACE_EXISTING);
+        }
         
         return uniqueFilename; // 返回存储的唯一路径名
     }
 
+    /**
+     * 内容寻址存储第一步：把文件流式写入暂存区，同时计算 SHA-256
+     * 已落盘的 StoredUpload 直接复用其哈希；若相同内容的 blob 已存在则暂不复制，由 commit() 在锁内再次确认
+     * @return 暂存结果，需调用 commit() 完成入库
+     */
+    public StagedBlob stage(MultipartFile file) throws IOException {
+        if (file.isEmpty()) {
+            throw new IOException("Failed to store empty file.");
+        }
+
+        if (file instanceof StoredUpload stored) {
+            if (Files.exists(rootLocation.resolve(blobPath(stored.getSha256())))) {
+                return new StagedBlob(null, stored.getPath(), stored.getSha256(), stored.getSize());
+            }
+            Path tempFile = Files.createTempFile(stagingLocation, "blob-", ".tmp");
+            stored.transferTo(tempFile);
+            return new StagedBlob(tempFile, null, stored.getSha256(), stored.getSize());
+        }
+
+        try (InputStream is = file.getInputStream()) {
+            return stage(is);
+        }
+    }
+
+    /**
+     * 把输入流写入暂存区，同时计算 SHA-256（调用方负责关闭输入流）
+     */
+    public StagedBlob stage(InputStream in) throws IOException {
+        Path tempFile = Files.createTempFile(stagingLocation, "blob-", ".tmp");
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            long size;
+            try (DigestInputStream digestIn = new DigestInputStream(in, sha256)) {
+                size = Files.copy(digestIn, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return new StagedBlob(tempFile, null, FileHashUtil.bytesToHex(sha256.digest()), size);
+        } catch (NoSuchAlgorithmException e) {
+            Files.deleteIfExists(tempFile);
+            throw new RuntimeException("SHA-256 algorithm not found", e);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+    }
+
+    /**
+     * 内容寻址存储第二步：把暂存文件原子移动到 xx/yy/{sha256}；已存在相同内容时丢弃暂存文件
+     * 调用方需持有该 blob 的锁（与删除互斥），这里在锁内重新检查 blob 是否存在：
+     * 暂存时跳过了复制、但 blob 随后被删除的，从源文件重新写入
+     * @return 存储路径（相对于存储根目录）
+     */
+    public String commit(StagedBlob staged) throws IOException {
+        String relativePath = blobPath(staged.sha256());
+        Path target = rootLocation.resolve(relativePath);
+        if (Files.exists(target)) {
+            return relativePath;
+        }
+
+        Path tempFile = staged.tempFile();
+        if (tempFile == null) {
+            tempFile = Files.createTempFile(stagingLocation, "blob-", ".tmp");
+            try {
+                Files.copy(staged.source(), tempFile, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(tempFile);
+                throw e;
+            }
+        }
+
+        try {
+            Files.createDirectories(target.getParent());
+            try {
+                Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                // 并发写入了相同内容，保留已有的 blob
+            }
+            return relativePath;
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * 放弃暂存文件
+     */
+    public void discard(StagedBlob staged) throws IOException {
+        if (staged.tempFile() != null) {
+            Files.deleteIfExists(staged.tempFile());
+        }
+    }
+
+    /**
+     * 内容哈希对应的分片存储路径，例如 "ab/cd/abcd1234..."
+     */
+    public static String blobPath(String sha256) {
+        return sha256.substring(0, 2) + "/" + sha256.substring(2, 4) + "/" + sha256;
+    }
+
     /**
      * 加载文件
      * @param filename 存储在磁盘上的唯一文件名
@@ -74,12 +208,31 @@ public class FileStorageService {
         }
     }
 
+    /**
+     * 存储路径对应的磁盘文件，供下载接口直接用 FileChannel 读取
+     * @param filename 存储在磁盘上的唯一文件名或 blob 路径
+     */
+    public Path resolve(String filename) throws IOException {
+        Path file = rootLocation.resolve(filename).normalize().toAbsolutePath();
+        if (!file.startsWith(rootLocation.toAbsolutePath())) {
+            throw new IOException("Cannot read file outside storage directory.");
+        }
+        return file;
+    }
+
     /**
      * 删除文件
      * @param filename 存储在磁盘上的唯一文件名
      */
     public void delete(String filename) throws IOException {
-         Path file = rootLocation.resolve(filename);
-         Files.deleteIfExists(file);
+         Files.deleteIfExists(resolve(filename));
+    }
+
+    /**
+     * 暂存中的 blob
+     * @param tempFile 暂存文件；为 null 表示暂存时相同内容已存在，未复制
+     * @param source   tempFile 为 null 时的源文件，commit 时 blob 已被删除则从这里重新写入
+     */
+    public record StagedBlob(Path tempFile, Path source, String sha256, long size) {
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,47 @@
+package com.ljh.smarteducation.service;
+
+import com.ljh.smarteducation.dto.GradeRequest;
+import com.ljh.smarteducation.dto.PendingSubmissionSummary;
+import com.ljh.smarteducation.entity.StudentSubmission;
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 人工批改队列
+ *
+ * 教师先领取一批待批改答卷（带租期），领取期间其他教师领取不到这些答卷，也不能覆盖其批改结果；
+ * 租期过期后答卷重新回到队列。
+ */
+public interface GradingService {
+
+    /**
+     * 待批改答卷摘要，按提交时间先后分页
+     */
+    Page<PendingSubmissionSummary> getPendingPage(int page, int size);
+
+    /**
+     * 领取最早的 count 份待批改答卷（含自己已领取的，并续期）
+     * @return 当前由该教师领取的完整答卷
+     */
+    List<StudentSubmission> claim(String grader, int count);
+
+    /**
+     * 释放该教师领取但尚未批改的答卷
+     */
+    int release(String grader);
+
+    /**
+     * 批改一份答卷
+     * @return 批改后的答卷；答卷不存在时为空
+     * @throws IllegalStateException 答卷已被其他教师领取
+     */
+    Optional<StudentSubmission> grade(String grader, GradeRequest grade);
+
+    /**
+     * 一次批改多份答卷
+     * @return 实际更新的份数（被其他教师领取的答卷不更新）
+     */
+    int gradeAll(String grader, List<GradeRequest> grades);
+}
@@ -0,0 +1,240 @@
+package com.ljh.smarteducation.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.ljh.smarteducation.entity.SecurityEventLog;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 客户端 IP 信誉表
+ *
+ * 每个 IP 记录最近 threshold 次违规的时间（环形数组），window-seconds 内达到 threshold 次即封禁 block-seconds。
+ * 封禁期间的请求在 SqlInjectionFilter 中读取请求体之前直接拒绝，不再逐条写安全日志：
+ * 封禁开始时写一条 IP_BLOCKED，封禁结束（或条目被淘汰）时把期间拒绝的次数汇总成一条 IP_BLOCK_SUMMARY。
+ * 条目保存在有容量上限的 Caffeine 缓存中，每个条目单独加锁。
+ */
+@Slf4j
+@Service
+public class IpReputationService {
+
+    private final SecurityEventWriter securityEventWriter;
+    private final int threshold;
+    private final long windowMillis;
+    private final long blockMillis;
+    private final Cache<String, Offender> offenders;
+    private final LongAdder rejected = new LongAdder();
+
+    public IpReputationService(SecurityEventWriter securityEventWriter,
+                               @Value("${security.offender.threshold:5}") int threshold,
+                               @Value("${security.offender.window-seconds:60}") long windowSeconds,
+                               @Value("${security.offender.block-seconds:600}") long blockSeconds,
+                               @Value("${security.offender.max-tracked:100000}") long maxTracked) {
+        this.securityEventWriter = securityEventWriter;
+        this.threshold = Math.max(1, threshold);
+        this.windowMillis = Duration.ofSeconds(windowSeconds).toMillis();
+        this.blockMillis = Duration.ofSeconds(blockSeconds).toMillis();
+        this.offenders = Caffeine.newBuilder()
+                .maximumSize(maxTracked)
+                .expireAfterAccess(Duration.ofSeconds(Math.max(windowSeconds, blockSeconds) * 2))
+                .removalListener((String ip, Offender offender, RemovalCause cause) -> {
+                    if (ip != null && offender != null) {
+                        offender.summarize(ip, System.currentTimeMillis(), true);
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * 该 IP 当前是否处于封禁期；是则记一次拒绝
+     */
+    public boolean checkBlocked(String ip) {
+        return checkBlocked(ip, System.currentTimeMillis());
+    }
+
+    boolean checkBlocked(String ip, long now) {
+        Offender offender = offenders.getIfPresent(ip);
+        if (offender == null) {
+            return false;
+        }
+        if (offender.isBlocked(now)) {
+            offender.rejectWhileBlocked();
+            rejected.increment();
+            return true;
+        }
+        offender.summarize(ip, now, false);
+        return false;
+    }
+
+    /**
+     * 记录一次违规（如检测到 SQL 注入）
+     * @return 本次违规是否导致该 IP 被封禁
+     */
+    public boolean recordOffence(String ip, String requestUrl, String requestMethod) {
+        return recordOffence(ip, requestUrl, requestMethod, System.currentTimeMillis());
+    }
+
+    boolean recordOffence(String ip, String requestUrl, String requestMethod, long now) {
+        Offender offender = offenders.get(ip, key -> new Offender(threshold));
+        if (!offender.hit(now, windowMillis, blockMillis)) {
+            return false;
+        }
+        SecurityEventLog event = new SecurityEventLog();
+        event.setEventType("IP_BLOCKED");
+        event.setSeverity("HIGH");
+        event.setActionTaken("BLOCKED");
+        event.setDescription(String.format("%d 秒内违规 %d 次，封禁 %d 秒", windowMillis / 1000, threshold,
+                blockMillis / 1000));
+        event.setIpAddress(ip);
+        event.setRequestUrl(requestUrl);
+        event.setRequestMethod(requestMethod);
+        securityEventWriter.submit(event);
+        log.warn("IP {} 已被临时封禁 {} 秒", ip, blockMillis / 1000);
+        return true;
+    }
+
+    /**
+     * 解除封禁
+     * @return 该 IP 是否在表中
+     */
+    public boolean unblock(String ip) {
+        Offender offender = offenders.getIfPresent(ip);
+        if (offender == null) {
+            return false;
+        }
+        offenders.invalidate(ip);
+        return true;
+    }
+
+    /**
+     * 当前封禁中的 IP，按封禁结束时间倒序
+     */
+    public List<Map<String, Object>> getBlocklist() {
+        return getBlocklist(System.currentTimeMillis());
+    }
+
+    List<Map<String, Object>> getBlocklist(long now) {
+        List<Map<String, Object>> blocked = new ArrayList<>();
+        offenders.asMap().forEach((ip, offender) -> {
+            Map<String, Object> entry = offender.describe(ip, now);
+            if (entry != null) {
+                blocked.add(entry);
+            }
+        });
+        blocked.sort(Comparator.comparing((Map<String, Object> entry) -> (LocalDateTime) entry.get("blockedUntil"))
+                .reversed());
+        return blocked;
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("trackedIps", offenders.estimatedSize());
+        stats.put("blockedIps", getBlocklist().size());
+        stats.put("rejectedWhileBlocked", rejected.sum());
+        return stats;
+    }
+
+    private static LocalDateTime toDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    /**
+     * 单个 IP 的违规记录
+     */
+    private final class Offender {
+
+        private final long[] hits;
+        private int next;
+        private long totalHits;
+        private long blockedFrom;
+        private volatile long blockedUntil;
+        private long rejectedWhileBlocked;
+
+        Offender(int threshold) {
+            this.hits = new long[threshold];
+        }
+
+        boolean isBlocked(long now) {
+            return blockedUntil > now;
+        }
+
+        synchronized void rejectWhileBlocked() {
+            rejectedWhileBlocked++;
+        }
+
+        /**
+         * @return 是否因本次违规进入封禁
+         */
+        synchronized boolean hit(long now, long windowMillis, long blockMillis) {
+            totalHits++;
+            hits[next] = now;
+            next = (next + 1) % hits.length;
+            // next 指向最早的一次；环满且最早一次仍在窗口内即达到阈值
+            long oldest = hits[next];
+            if (oldest != 0 && now - oldest <= windowMillis && blockedUntil <= now) {
+                blockedFrom = now;
+                blockedUntil = now + blockMillis;
+                // 封禁结束后重新计数
+                Arrays.fill(hits, 0L);
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * 封禁已结束（或条目被淘汰）且期间有被拒绝的请求时，写一条汇总日志
+         */
+        void summarize(String ip, long now, boolean removed) {
+            long count;
+            long from;
+            long until;
+            synchronized (this) {
+                if (rejectedWhileBlocked == 0 || (!removed && blockedUntil > now)) {
+                    return;
+                }
+                count = rejectedWhileBlocked;
+                from = blockedFrom;
+                until = Math.min(blockedUntil, now);
+                rejectedWhileBlocked = 0;
+            }
+            SecurityEventLog event = new SecurityEventLog();
+            event.setEventType("IP_BLOCK_SUMMARY");
+            event.setSeverity("MEDIUM");
+            event.setActionTaken("BLOCKED");
+            event.setDescription(String.format("封禁期间拒绝请求 %d 次", count));
+            event.setIpAddress(ip);
+            event.setRequestUrl("*");
+            event.setRequestMethod("*");
+            event.setRemarks(String.format("blockedFrom=%s, blockedUntil=%s, offences=%d",
+                    toDateTime(from), toDateTime(until), totalHits));
+            securityEventWriter.submit(event);
+        }
+
+        synchronized Map<String, Object> describe(String ip, long now) {
+            if (!isBlocked(now)) {
+                return null;
+            }
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("ipAddress", ip);
+            entry.put("offences", totalHits);
+            entry.put("blockedFrom", toDateTime(blockedFrom));
+            entry.put("blockedUntil", toDateTime(blockedUntil));
+            entry.put("rejectedWhileBlocked", rejectedWhileBlocked);
+            return entry;
+        }
+    }
+}
@@ -1,11 +1,13 @@
 package com.ljh.smarteducation.service;
 
+import com.ljh.smarteducation.dto.QuestionSummary;
 import com.ljh.smarteducation.entity.Question;
 import com.ljh.smarteducation.entity.QuestionSet; // 1. (新增) 导入
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface QuestionBankService {
@@ -28,4 +30,27 @@ public interface QuestionBankService {
      */
     List<Question> getQuestionsBySetId(Long setId);
     // --- ↑↑↑ (新增结束) ↑↑↑ ---
+
+    /**
+     * 游标分页的题目摘要列表（按 ID 升序，不含 content）
+     * @param afterId 上一页最后一道题的 ID，第一页传 null
+     */
+    List<QuestionSummary> listQuestionSummaries(Long afterId, int limit, String subject, Long setId,
+                                                String questionType, String validationStatus);
+
+    /**
+     * 某套题中指定题型的题目（按序号）
+     */
+    List<Question> getQuestionsBySetIdAndType(Long setId, String questionType);
+
+    /**
+     * 各题型的题目数量
+     */
+    Map<String, Long> countQuestionsByType();
+
+    /**
+     * 回填旧题目的冗余列（questionType/partName/groupId/correctOptionId）
+     * @return 更新的行数
+     */
+    int backfillContentColumns();
 }
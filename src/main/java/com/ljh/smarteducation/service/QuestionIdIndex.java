@@ -0,0 +1,179 @@
+package com.ljh.smarteducation.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * 题目 ID 的内存索引，用于随机抽题
+ *
+ * 按 (学科, 难度, 知识点, 题型) 分层存放题目 ID（long 数组），抽题时只在内存中选出 ID，
+ * 再按 ID 查询这几行，不必把整张题目表连同 JSON 内容读出来洗牌。实例不可变。
+ */
+public final class QuestionIdIndex {
+
+    private final List<Stratum> strata;
+    private final int size;
+
+    private QuestionIdIndex(List<Stratum> strata) {
+        this.strata = strata;
+        int total = 0;
+        for (Stratum stratum : strata) {
+            total += stratum.ids().length;
+        }
+        this.size = total;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int strataCount() {
+        return strata.size();
+    }
+
+    /**
+     * 按条件抽取不重复的题目 ID
+     * @param subject      学科，null 表示不限
+     * @param questionType 题型，null 表示不限
+     * @param difficulty   难度，null 表示不限
+     * @param count        需要的题目数量
+     * @param stratified   true：在匹配的各层之间轮流抽取，使不同知识点/题型尽量都有覆盖；
+     *                     false：在所有匹配题目中均匀抽取
+     */
+    public List<Long> sample(String subject, String questionType, String difficulty, int count,
+                             boolean stratified, Random random) {
+        List<Stratum> matched = new ArrayList<>();
+        for (Stratum stratum : strata) {
+            if (matches(subject, stratum.subject()) && matches(questionType, stratum.questionType())
+                    && matches(difficulty, stratum.difficulty())) {
+                matched.add(stratum);
+            }
+        }
+        if (matched.isEmpty() || count <= 0) {
+            return Collections.emptyList();
+        }
+        return stratified ? sampleStratified(matched, count, random) : sampleUniform(matched, count, random);
+    }
+
+    /**
+     * Floyd 算法在 [0, total) 中选出 count 个不重复位置，再通过前缀和映射到各层的 ID
+     */
+    private static List<Long> sampleUniform(List<Stratum> matched, int count, Random random) {
+        int[] offsets = new int[matched.size() + 1];
+        for (int i = 0; i < matched.size(); i++) {
+            offsets[i + 1] = offsets[i] + matched.get(i).ids().length;
+        }
+        int total = offsets[matched.size()];
+        int k = Math.min(count, total);
+
+        Set<Integer> positions = new HashSet<>(k * 2);
+        for (int j = total - k; j < total; j++) {
+            int t = random.nextInt(j + 1);
+            positions.add(positions.contains(t) ? j : t);
+        }
+
+        List<Long> result = new ArrayList<>(k);
+        for (int position : positions) {
+            // 每层至少一个 ID，偏移量严格递增
+            int index = Arrays.binarySearch(offsets, position);
+            int stratumIndex = index >= 0 ? index : -index - 2;
+            result.add(matched.get(stratumIndex).ids()[position - offsets[stratumIndex]]);
+        }
+        Collections.shuffle(result, random);
+        return result;
+    }
+
+    /**
+     * 打乱各层顺序后轮流从每层取一个未选过的 ID，直到数量足够或全部取完
+     */
+    private static List<Long> sampleStratified(List<Stratum> matched, int count, Random random) {
+        List<Stratum> order = new ArrayList<>(matched);
+        Collections.shuffle(order, random);
+
+        Map<Stratum, Set<Integer>> taken = new HashMap<>();
+        List<Long> result = new ArrayList<>(count);
+        boolean progressed = true;
+        while (result.size() < count && progressed) {
+            progressed = false;
+            for (Stratum stratum : order) {
+                if (result.size() >= count) {
+                    break;
+                }
+                long[] ids = stratum.ids();
+                Set<Integer> used = taken.computeIfAbsent(stratum, s -> new HashSet<>());
+                if (used.size() >= ids.length) {
+                    continue;
+                }
+                int pick;
+                do {
+                    pick = random.nextInt(ids.length);
+                } while (!used.add(pick));
+                result.add(ids[pick]);
+                progressed = true;
+            }
+        }
+        return result;
+    }
+
+    private static boolean matches(String filter, String value) {
+        return filter == null || filter.isBlank() || filter.equalsIgnoreCase(value);
+    }
+
+    /**
+     * 一层：同一学科、难度、知识点和题型的题目 ID
+     */
+    public record Stratum(String subject, String difficulty, String knowledgePoint, String questionType, long[] ids) {
+    }
+
+    public static final class Builder {
+
+        private final Map<List<String>, IdBuffer> buffers = new LinkedHashMap<>();
+
+        private Builder() {
+        }
+
+        public Builder add(long id, String subject, String difficulty, String knowledgePoint, String questionType) {
+            buffers.computeIfAbsent(Arrays.asList(subject, difficulty, knowledgePoint, questionType),
+                    key -> new IdBuffer()).add(id);
+            return this;
+        }
+
+        public QuestionIdIndex build() {
+            List<Stratum> strata = new ArrayList<>(buffers.size());
+            for (Map.Entry<List<String>, IdBuffer> entry : buffers.entrySet()) {
+                List<String> key = entry.getKey();
+                strata.add(new Stratum(key.get(0), key.get(1), key.get(2), key.get(3), entry.getValue().toArray()));
+            }
+            return new QuestionIdIndex(strata);
+        }
+    }
+
+    private static final class IdBuffer {
+
+        private long[] ids = new long[8];
+        private int length;
+
+        void add(long id) {
+            if (length == ids.length) {
+                ids = Arrays.copyOf(ids, length * 2);
+            }
+            ids[length++] = id;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(ids, length);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.ljh.smarteducation.service;
+
+import com.ljh.smarteducation.entity.Question;
+
+import java.util.List;
+
+/**
+ * 随机抽题服务接口
+ */
+public interface QuestionSamplingService {
+
+    /**
+     * 按条件随机抽取题目，只查询被抽中的行
+     * @param count        题目数量
+     * @param subject      学科，null 表示不限
+     * @param questionType 题型，null 表示不限
+     * @param difficulty   难度，null 表示不限
+     * @param stratified   是否在各知识点/题型之间分层抽取
+     */
+    List<Question> sample(int count, String subject, String questionType, String difficulty, boolean stratified);
+}
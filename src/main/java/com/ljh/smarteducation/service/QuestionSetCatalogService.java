@@ -0,0 +1,16 @@
+package com.ljh.smarteducation.service;
+
+import com.ljh.smarteducation.dto.QuestionSetSummaryDto;
+import org.springframework.data.domain.Page;
+
+/**
+ * 学生端套题列表（带短时缓存）
+ */
+public interface QuestionSetCatalogService {
+
+    /**
+     * 分页查询套题摘要，按上传时间倒序
+     * @param subject 学科，null 表示全部
+     */
+    Page<QuestionSetSummaryDto> listSets(String subject, int page, int size);
+}
@@ -0,0 +1,37 @@
+package com.ljh.smarteducation.service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 套题详情（GET /api/practice/set/{setId}）响应体缓存
+ *
+ * 缓存已序列化并 gzip 压缩的 JSON 字节，每次构建带版本号和内容 ETag；题目或套题变更时失效。
+ */
+public interface QuestionSetPayloadService {
+
+    /**
+     * 获取套题详情响应体，未缓存时构建
+     * @return 套题不存在时为空
+     */
+    Optional<Payload> getPayload(Long questionSetId);
+
+    /**
+     * 预先构建并缓存指定套题的响应体（如考试开始前）
+     * @return 成功构建的响应体，不存在的套题不包含在内
+     */
+    List<Payload> warmUp(Collection<Long> questionSetIds);
+
+    Map<String, Object> getStatistics();
+
+    /**
+     * @param version 构建时套题的版本号，每次失效递增
+     * @param etag    强 ETag（JSON 内容哈希）
+     * @param gzip    gzip 压缩后的 JSON
+     * @param rawSize 压缩前的字节数
+     */
+    record Payload(Long questionSetId, long version, String etag, byte[] gzip, int rawSize) {
+    }
+}
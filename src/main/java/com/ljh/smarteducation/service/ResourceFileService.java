@@ -1,7 +1,13 @@
 package com.ljh.smarteducation.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.ljh.smarteducation.entity.ResourceFile;
+import com.ljh.smarteducation.event.QuestionBankChangedEvent;
+import com.ljh.smarteducation.repository.QuestionSetRepository;
 import com.ljh.smarteducation.repository.ResourceFileRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -14,42 +20,109 @@ public class ResourceFileService {
 
     private final ResourceFileRepository repository;
     private final FileStorageService storageService;
+    private final QuestionSetRepository questionSetRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public ResourceFileService(ResourceFileRepository repository, FileStorageService storageService) {
+    /**
+     * 按内容哈希分段的锁，串行化同一 blob 的入库与引用计数删除
+     */
+    private final Object[] blobLocks = new Object[64];
+
+    /**
+     * 资源文件元数据缓存：记录创建后不再修改，下载接口按 id 读取时不必每次查库
+     */
+    private final Cache<Long, ResourceFile> metadataCache;
+
+    public ResourceFileService(ResourceFileRepository repository, FileStorageService storageService,
+                               QuestionSetRepository questionSetRepository, ApplicationEventPublisher eventPublisher,
+                               @Value("${resource.metadata-cache.max-entries:10000}") long metadataCacheSize) {
         this.repository = repository;
         this.storageService = storageService;
+        this.questionSetRepository = questionSetRepository;
+        this.eventPublisher = eventPublisher;
+        this.metadataCache = Caffeine.newBuilder()
+                .maximumSize(metadataCacheSize)
+                .build();
+        for (int i = 0; i < blobLocks.length; i++) {
+            blobLocks[i] = new Object();
+        }
     }
 
     public ResourceFile saveFile(MultipartFile file, String subject) throws IOException {
-        String storedPath = storageService.store(file); // 1. 存到磁盘
+        if (!storageService.isContentAddressed()) {
+            String storedPath = storageService.store(file); // 1. 存到磁盘
+            return saveMetadata(file, subject, storedPath, null);
+        }
+
+        // 1. 流式写入暂存区并计算 SHA-256（不持锁，耗时部分）
+        FileStorageService.StagedBlob staged = storageService.stage(file);
+        try {
+            // 2. 入库 blob 与写元数据在同一把锁内完成，避免与删除的引用计数检查交错
+            synchronized (blobLock(staged.sha256())) {
+                String storedPath = storageService.commit(staged);
+                return saveMetadata(file, subject, storedPath, staged.sha256());
+            }
+        } finally {
+            storageService.discard(staged);
+        }
+    }
 
-        // 2. 将元数据存到数据库
+    private ResourceFile saveMetadata(MultipartFile file, String subject, String storedPath, String contentHash) {
+        // 将元数据存到数据库
         ResourceFile resourceFile = new ResourceFile();
         resourceFile.setFileName(file.getOriginalFilename());
         resourceFile.setStoragePath(storedPath);
+        resourceFile.setContentHash(contentHash);
         resourceFile.setFileType(file.getContentType());
         resourceFile.setFileSize(file.getSize());
         resourceFile.setSubject(subject);
         
-        return repository.save(resourceFile);
+        ResourceFile saved = repository.save(resourceFile);
+        metadataCache.put(saved.getId(), saved);
+        return saved;
     }
     
     public Optional<ResourceFile> getFile(Long id) {
-        return repository.findById(id);
+        ResourceFile cached = metadataCache.getIfPresent(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        // 不缓存未找到的结果，避免新记录入库前的查询把它挡住
+        Optional<ResourceFile> loaded = repository.findById(id);
+        loaded.ifPresent(file -> metadataCache.put(id, file));
+        return loaded;
     }
 
     public List<ResourceFile> getAllFiles() {
         return repository.findAll();
     }
     
+    /**
+     * 删除资源文件；引用它的套题的详情缓存随之失效，不再下发指向该文件的签名链接
+     */
     public void deleteFile(Long id) throws IOException {
         Optional<ResourceFile> fileOpt = repository.findById(id);
         if (fileOpt.isPresent()) {
             ResourceFile file = fileOpt.get();
-            storageService.delete(file.getStoragePath()); // 1. 从磁盘删除
-            repository.delete(file); // 2. 从数据库删除
+            String storagePath = file.getStoragePath();
+            List<Long> questionSetIds = questionSetRepository.findIdsByResourceFileId(id);
+            synchronized (blobLock(file.getContentHash() != null ? file.getContentHash() : storagePath)) {
+                repository.delete(file); // 1. 从数据库删除
+                metadataCache.invalidate(id);
+                // 2. 没有其他记录引用同一个 blob 时才从磁盘删除
+                if (repository.countByStoragePath(storagePath) == 0) {
+                    storageService.delete(storagePath);
+                }
+            }
+            if (!questionSetIds.isEmpty()) {
+                eventPublisher.publishEvent(QuestionBankChangedEvent.of(questionSetIds.toArray(Long[]::new)));
+            }
         } else {
             throw new IOException("File not found with id: " + id);
         }
     }
-}
\ No newline at end of file
+
+    private Object blobLock(String key) {
+        return blobLocks[Math.floorMod(key.hashCode(), blobLocks.length)];
+    }
+}
@@ -0,0 +1,165 @@
+package com.ljh.smarteducation.service;
+
+import com.ljh.smarteducation.entity.SecurityEventLog;
+import com.ljh.smarteducation.repository.SecurityEventBatchRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 安全事件异步批量写入
+ *
+ * 请求线程只把事件放入无锁队列；单个后台线程每攒够 batch-size 条或每隔 flush-interval-ms 批量写库。
+ * 队列有界：超过一半容量时视为正在被攻击，只按 1/sample-rate 抽样保留；队列满时直接丢弃。
+ * 抽样和丢弃都有计数，关闭时写完队列中剩余的事件。
+ */
+@Slf4j
+@Service
+public class SecurityEventWriter {
+
+    private final SecurityEventBatchRepository batchRepository;
+    private final int capacity;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final int sampleRate;
+
+    private final ConcurrentLinkedQueue<SecurityEventLog> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong overflowSequence = new AtomicLong();
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder sampledOut = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder failedEvents = new LongAdder();
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public SecurityEventWriter(SecurityEventBatchRepository batchRepository,
+                               @Value("${security.event-writer.capacity:10000}") int capacity,
+                               @Value("${security.event-writer.batch-size:200}") int batchSize,
+                               @Value("${security.event-writer.flush-interval-ms:500}") long flushIntervalMs,
+                               @Value("${security.event-writer.sample-rate:10}") int sampleRate) {
+        this.batchRepository = batchRepository;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        this.sampleRate = Math.max(1, sampleRate);
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        writer = new Thread(this::run, "security-event-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // 写线程未能及时退出时由关闭线程写完剩余事件
+        drain();
+    }
+
+    /**
+     * 提交事件（不阻塞，不抛异常）
+     * @return 事件是否进入队列；被抽样丢弃或队列已满时为 false
+     */
+    public boolean submit(SecurityEventLog event) {
+        if (event.getEventTime() == null) {
+            event.setEventTime(LocalDateTime.now());
+        }
+        int depth = size.get();
+        if (depth >= capacity / 2 && overflowSequence.incrementAndGet() % sampleRate != 0) {
+            sampledOut.increment();
+            return false;
+        }
+        if (size.incrementAndGet() > capacity) {
+            size.decrementAndGet();
+            dropped.increment();
+            return false;
+        }
+        queue.offer(event);
+        accepted.increment();
+        if (depth + 1 >= batchSize) {
+            LockSupport.unpark(writer);
+        }
+        return true;
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queueDepth", size.get());
+        stats.put("capacity", capacity);
+        stats.put("accepted", accepted.sum());
+        stats.put("written", written.sum());
+        stats.put("sampledOut", sampledOut.sum());
+        stats.put("dropped", dropped.sum());
+        stats.put("failedEvents", failedEvents.sum());
+        stats.put("batches", batches.sum());
+        return stats;
+    }
+
+    private void run() {
+        while (running) {
+            if (size.get() < batchSize) {
+                LockSupport.parkNanos(this, flushIntervalNanos);
+            }
+            drain();
+        }
+    }
+
+    /**
+     * 按 batch-size 分批写完当前队列
+     */
+    synchronized void drain() {
+        List<SecurityEventLog> batch = new ArrayList<>(batchSize);
+        SecurityEventLog event;
+        while ((event = queue.poll()) != null) {
+            size.decrementAndGet();
+            batch.add(event);
+            if (batch.size() >= batchSize) {
+                write(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        write(batch);
+    }
+
+    private void write(List<SecurityEventLog> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            written.add(batchRepository.insertAll(batch));
+            batches.increment();
+        } catch (Exception e) {
+            // 安全日志是尽力而为的审计数据，写库失败时丢弃该批，避免在数据库故障时无限堆积
+            failedEvents.add(batch.size());
+            log.error("安全事件批量写入失败，丢弃 {} 条: {}", batch.size(), e.getMessage());
+        }
+    }
+}
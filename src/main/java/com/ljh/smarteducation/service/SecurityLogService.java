@@ -1,16 +1,22 @@
 package com.ljh.smarteducation.service;
 
+import com.ljh.smarteducation.dto.SecurityEventTypeCount;
+import com.ljh.smarteducation.entity.BackfillMarker;
 import com.ljh.smarteducation.entity.SecurityEventLog;
+import com.ljh.smarteducation.repository.BackfillMarkerRepository;
 import com.ljh.smarteducation.repository.SecurityEventLogRepository;
+import com.ljh.smarteducation.repository.SecurityEventMinuteRollupRepository;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * 安全日志存储服务
@@ -23,12 +29,33 @@ import java.util.stream.Collectors;
 public class SecurityLogService {
 
     private final SecurityEventLogRepository securityEventLogRepository;
+    private final SecurityEventWriter securityEventWriter;
+    private final SecurityEventMinuteRollupRepository rollupRepository;
+    private final BackfillMarkerRepository markerRepository;
 
-    public SecurityLogService(SecurityEventLogRepository securityEventLogRepository) {
+    /**
+     * 分钟汇总回填完成标记的名称
+     */
+    static final String BACKFILL_MARKER = "security_event_minute_rollup";
+
+    /**
+     * 是否维护并使用分钟汇总表（与 SecurityEventBatchRepository 使用同一配置）
+     */
+    @Value("${security.event-rollup.enabled:false}")
+    private boolean rollupEnabled;
+
+    public SecurityLogService(SecurityEventLogRepository securityEventLogRepository,
+                              SecurityEventWriter securityEventWriter,
+                              SecurityEventMinuteRollupRepository rollupRepository,
+                              BackfillMarkerRepository markerRepository) {
         this.securityEventLogRepository = securityEventLogRepository;
+        this.securityEventWriter = securityEventWriter;
+        this.rollupRepository = rollupRepository;
+        this.markerRepository = markerRepository;
     }
 
     // ==================== 日志记录方法 ====================
+    // 事件交给 SecurityEventWriter 异步批量写库，返回的对象尚未分配 ID
 
     /**
      * 记录 SQL 注入攻击尝试
@@ -39,7 +66,7 @@ public class SecurityLogService {
      * @param sqlFragment SQL 片段
      * @param requestParams 请求参数
      * @param username 用户名（可为空）
-     * @return 保存的安全事件日志
+     * @return 提交的安全事件日志
      */
     public SecurityEventLog logSqlInjectionAttempt(String ipAddress, String requestUrl, String requestMethod,
                                                     String sqlFragment, String requestParams, String username) {
@@ -56,9 +83,9 @@ public class SecurityLogService {
             eventLog.setRequestParams(requestParams);
             eventLog.setUsername(username);
 
-            SecurityEventLog saved = securityEventLogRepository.save(eventLog);
-            log.info("SQL 注入攻击日志已记录 - ID: {}, IP: {}, URL: {}", saved.getId(), ipAddress, requestUrl);
-            return saved;
+            securityEventWriter.submit(eventLog);
+            log.info("SQL 注入攻击日志已提交 - IP: {}, URL: {}", ipAddress, requestUrl);
+            return eventLog;
         } catch (Exception e) {
             log.error("记录 SQL 注入攻击日志失败: {}", e.getMessage(), e);
             return null;
@@ -71,7 +98,7 @@ public class SecurityLogService {
      * @param ipAddress 客户端 IP 地址
      * @param username 用户名
      * @param requestUrl 请求 URL
-     * @return 保存的安全事件日志
+     * @return 提交的安全事件日志
      */
     public SecurityEventLog logLoginFailure(String ipAddress, String username, String requestUrl) {
         try {
@@ -85,9 +112,9 @@ public class SecurityLogService {
             eventLog.setRequestUrl(requestUrl);
             eventLog.setRequestMethod("POST");
 
-            SecurityEventLog saved = securityEventLogRepository.save(eventLog);
-            log.info("登录失败日志已记录 - ID: {}, 用户: {}, IP: {}", saved.getId(), username, ipAddress);
-            return saved;
+            securityEventWriter.submit(eventLog);
+            log.info("登录失败日志已提交 - 用户: {}, IP: {}", username, ipAddress);
+            return eventLog;
         } catch (Exception e) {
             log.error("记录登录失败日志失败: {}", e.getMessage(), e);
             return null;
@@ -101,7 +128,7 @@ public class SecurityLogService {
      * @param requestUrl 请求 URL
      * @param requestMethod 请求方法
      * @param username 用户名（可为空）
-     * @return 保存的安全事件日志
+     * @return 提交的安全事件日志
      */
     public SecurityEventLog logUnauthorizedAccess(String ipAddress, String requestUrl, String requestMethod, String username) {
         try {
@@ -115,9 +142,9 @@ public class SecurityLogService {
             eventLog.setRequestMethod(requestMethod);
             eventLog.setUsername(username);
 
-            SecurityEventLog saved = securityEventLogRepository.save(eventLog);
-            log.info("未授权访问日志已记录 - ID: {}, IP: {}, URL: {}", saved.getId(), ipAddress, requestUrl);
-            return saved;
+            securityEventWriter.submit(eventLog);
+            log.info("未授权访问日志已提交 - IP: {}, URL: {}", ipAddress, requestUrl);
+            return eventLog;
         } catch (Exception e) {
             log.error("记录未授权访问日志失败: {}", e.getMessage(), e);
             return null;
@@ -134,7 +161,7 @@ public class SecurityLogService {
      * @param requestMethod 请求方法
      * @param severity 严重程度
      * @param username 用户名（可为空）
-     * @return 保存的安全事件日志
+     * @return 提交的安全事件日志
      */
     public SecurityEventLog logSecurityEvent(String eventType, String description, String ipAddress,
                                               String requestUrl, String requestMethod, String severity, String username) {
@@ -149,9 +176,9 @@ public class SecurityLogService {
             eventLog.setUsername(username);
             eventLog.setActionTaken("LOGGED");
 
-            SecurityEventLog saved = securityEventLogRepository.save(eventLog);
-            log.info("安全事件日志已记录 - ID: {}, 类型: {}, IP: {}", saved.getId(), eventType, ipAddress);
-            return saved;
+            securityEventWriter.submit(eventLog);
+            log.info("安全事件日志已提交 - 类型: {}, IP: {}", eventType, ipAddress);
+            return eventLog;
         } catch (Exception e) {
             log.error("记录安全事件日志失败: {}", e.getMessage(), e);
             return null;
@@ -221,6 +248,83 @@ public class SecurityLogService {
         }
     }
 
+    /**
+     * 按事件类型分页查询时间范围内的安全日志（按时间降序）
+     * 
+     * @param eventType 事件类型
+     * @param start 开始时间
+     * @param end 结束时间
+     * @param pageable 分页参数
+     * @return 分页的安全事件日志
+     */
+    public Page<SecurityEventLog> findByEventType(String eventType, LocalDateTime start, LocalDateTime end,
+                                                  Pageable pageable) {
+        try {
+            return securityEventLogRepository.findByEventTypeAndEventTimeBetweenOrderByEventTimeDesc(
+                    eventType, start, end, pageable);
+        } catch (Exception e) {
+            log.error("分页查询事件类型日志失败: {}", e.getMessage(), e);
+            return Page.empty();
+        }
+    }
+
+    /**
+     * 按 IP 地址分页查询时间范围内的安全日志（按时间降序）
+     * 
+     * @param ipAddress IP 地址
+     * @param start 开始时间
+     * @param end 结束时间
+     * @param pageable 分页参数
+     * @return 分页的安全事件日志
+     */
+    public Page<SecurityEventLog> findByIpAddress(String ipAddress, LocalDateTime start, LocalDateTime end,
+                                                  Pageable pageable) {
+        try {
+            return securityEventLogRepository.findByIpAddressAndEventTimeBetweenOrderByEventTimeDesc(
+                    ipAddress, start, end, pageable);
+        } catch (Exception e) {
+            log.error("分页查询 IP 地址日志失败: {}", e.getMessage(), e);
+            return Page.empty();
+        }
+    }
+
+    /**
+     * 按严重程度分页查询时间范围内的安全日志（按时间降序）
+     * 
+     * @param severity 严重程度
+     * @param start 开始时间
+     * @param end 结束时间
+     * @param pageable 分页参数
+     * @return 分页的安全事件日志
+     */
+    public Page<SecurityEventLog> findBySeverity(String severity, LocalDateTime start, LocalDateTime end,
+                                                 Pageable pageable) {
+        try {
+            return securityEventLogRepository.findBySeverityAndEventTimeBetweenOrderByEventTimeDesc(
+                    severity, start, end, pageable);
+        } catch (Exception e) {
+            log.error("分页查询严重程度日志失败: {}", e.getMessage(), e);
+            return Page.empty();
+        }
+    }
+
+    /**
+     * 分页查询时间范围内的安全日志（按时间降序）
+     * 
+     * @param start 开始时间
+     * @param end 结束时间
+     * @param pageable 分页参数
+     * @return 分页的安全事件日志
+     */
+    public Page<SecurityEventLog> findByTimeRange(LocalDateTime start, LocalDateTime end, Pageable pageable) {
+        try {
+            return securityEventLogRepository.findByEventTimeBetweenOrderByEventTimeDesc(start, end, pageable);
+        } catch (Exception e) {
+            log.error("分页查询时间范围日志失败: {}", e.getMessage(), e);
+            return Page.empty();
+        }
+    }
+
     /**
      * 分页查询所有安全日志（按时间降序）
      * 
@@ -243,8 +347,17 @@ public class SecurityLogService {
      * @return SQL 注入攻击记录列表
      */
     public List<SecurityEventLog> findRecentSqlInjectionAttempts(int limit) {
+        return findRecentSqlInjectionAttempts(PageRequest.of(0, limit));
+    }
+
+    /**
+     * 分页查询 SQL 注入攻击记录（按时间降序）
+     * 
+     * @param pageable 分页参数
+     * @return 当前页的 SQL 注入攻击记录
+     */
+    public List<SecurityEventLog> findRecentSqlInjectionAttempts(Pageable pageable) {
         try {
-            Pageable pageable = PageRequest.of(0, limit);
             return securityEventLogRepository.findRecentSqlInjectionAttempts(pageable);
         } catch (Exception e) {
             log.error("查询最近 SQL 注入攻击记录失败: {}", e.getMessage(), e);
@@ -270,6 +383,28 @@ public class SecurityLogService {
         }
     }
 
+    /**
+     * 统计某个事件类型的总数（所有时间）
+     * 启用分钟汇总时，当前分钟之前的部分读汇总表，当前分钟查原始日志
+     * 
+     * @param eventType 事件类型
+     * @return 事件数量
+     */
+    public long countByEventType(String eventType) {
+        try {
+            if (!rollupEnabled) {
+                return securityEventLogRepository.countByEventType(eventType);
+            }
+            LocalDateTime currentMinute = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+            Long rolledUp = rollupRepository.sumByEventTypeBefore(eventType, currentMinute);
+            return (rolledUp != null ? rolledUp : 0L)
+                    + securityEventLogRepository.countByEventTypeAndEventTimeGreaterThanEqual(eventType, currentMinute);
+        } catch (Exception e) {
+            log.error("统计事件类型总数失败: {}", e.getMessage(), e);
+            return 0L;
+        }
+    }
+
     /**
      * 获取安全统计信息
      * 
@@ -281,12 +416,17 @@ public class SecurityLogService {
         try {
             Map<String, Object> statistics = new HashMap<>();
 
+            // 各事件类型数量（数据库分组统计），SQL 注入次数和总事件数都由它得出
+            Map<String, Long> eventTypeCount = getEventTypeCount(start, end);
+
             // SQL 注入攻击次数
-            Long sqlInjectionCount = countSqlInjectionAttempts(start, end);
-            statistics.put("sqlInjectionCount", sqlInjectionCount);
+            statistics.put("sqlInjectionCount", eventTypeCount.getOrDefault("SQL_INJECTION_ATTEMPT", 0L));
 
-            // 总事件数
-            Long totalEvents = securityEventLogRepository.count();
+            // 时间范围内的总事件数
+            long totalEvents = 0;
+            for (Long count : eventTypeCount.values()) {
+                totalEvents += count;
+            }
             statistics.put("totalEvents", totalEvents);
 
             // 时间范围
@@ -295,8 +435,6 @@ public class SecurityLogService {
             timeRange.put("end", end);
             statistics.put("timeRange", timeRange);
 
-            // 各事件类型数量
-            Map<String, Long> eventTypeCount = getEventTypeCount(start, end);
             statistics.put("eventTypeCount", eventTypeCount);
 
             return statistics;
@@ -308,6 +446,7 @@ public class SecurityLogService {
 
     /**
      * 统计各事件类型的数量
+     * 在数据库中分组统计；启用分钟汇总时，整分钟部分读汇总表，首尾不足一分钟的部分查原始日志
      * 
      * @param start 开始时间
      * @param end 结束时间
@@ -315,20 +454,81 @@ public class SecurityLogService {
      */
     public Map<String, Long> getEventTypeCount(LocalDateTime start, LocalDateTime end) {
         try {
-            // 查询时间范围内的所有事件
-            List<SecurityEventLog> events = findByTimeRange(start, end);
-
-            // 按事件类型分组统计
-            Map<String, Long> eventTypeCount = events.stream()
-                    .collect(Collectors.groupingBy(
-                            SecurityEventLog::getEventType,
-                            Collectors.counting()
-                    ));
-
+            Map<String, Long> eventTypeCount = new HashMap<>();
+            if (end.isBefore(start)) {
+                return eventTypeCount;
+            }
+            // 完全落在 [start, end] 内的分钟：[firstMinute, endMinute)
+            LocalDateTime firstMinute = start.truncatedTo(ChronoUnit.MINUTES);
+            if (firstMinute.isBefore(start)) {
+                firstMinute = firstMinute.plusMinutes(1);
+            }
+            LocalDateTime endMinute = end.truncatedTo(ChronoUnit.MINUTES);
+            if (!rollupEnabled || !firstMinute.isBefore(endMinute)) {
+                addCounts(eventTypeCount, securityEventLogRepository.countByEventTypeBetween(start, end));
+                return eventTypeCount;
+            }
+
+            addCounts(eventTypeCount, rollupRepository.sumByEventTypeBetween(firstMinute, endMinute));
+            if (start.isBefore(firstMinute)) {
+                // DATETIME(6) 精度为微秒，首段取到 firstMinute 前 1 微秒
+                addCounts(eventTypeCount,
+                        securityEventLogRepository.countByEventTypeBetween(start, firstMinute.minusNanos(1000)));
+            }
+            addCounts(eventTypeCount, securityEventLogRepository.countByEventTypeBetween(endMinute, end));
             return eventTypeCount;
         } catch (Exception e) {
             log.error("统计事件类型数量失败: {}", e.getMessage(), e);
             return Collections.emptyMap();
         }
     }
+
+    private static void addCounts(Map<String, Long> eventTypeCount, List<SecurityEventTypeCount> rows) {
+        for (SecurityEventTypeCount row : rows) {
+            eventTypeCount.merge(row.getEventType(), row.getEventCount(), Long::sum);
+        }
+    }
+
+    // ==================== 分钟汇总维护 ====================
+
+    public boolean isRollupEnabled() {
+        return rollupEnabled;
+    }
+
+    /**
+     * 从原始日志重建分钟汇总，每天一个事务
+     * 
+     * @param from 开始日期（含）
+     * @param to 结束日期（含）
+     * @return 写入的汇总行数
+     */
+    public int rebuildRollup(LocalDate from, LocalDate to) {
+        long startNanos = System.nanoTime();
+        int rows = 0;
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            rows += rollupRepository.rebuildMinutes(day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+        }
+        log.info("重建安全事件分钟汇总 {} ~ {}，写入 {} 行，耗时 {} ms", from, to, rows,
+                (System.nanoTime() - startNanos) / 1_000_000);
+        return rows;
+    }
+
+    /**
+     * 首次启用分钟汇总时，为已有的安全日志生成汇总；完成后写入回填标记，之后调用直接返回
+     * （不以汇总表是否为空判断：启动后的实时写入可能早于回填）
+     * 
+     * @return 写入的汇总行数
+     */
+    public int backfillRollupOnce() {
+        if (markerRepository.existsById(BACKFILL_MARKER)) {
+            return 0;
+        }
+        LocalDateTime earliest = securityEventLogRepository.findEarliestEventTime();
+        int rows = earliest != null ? rebuildRollup(earliest.toLocalDate(), LocalDate.now()) : 0;
+        BackfillMarker marker = new BackfillMarker();
+        marker.setName(BACKFILL_MARKER);
+        marker.setCompletedAt(LocalDateTime.now());
+        markerRepository.save(marker);
+        return rows;
+    }
 }
@@ -0,0 +1,138 @@
+package com.ljh.smarteducation.service;
+
+import com.ljh.smarteducation.entity.ResourceFile;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * 自描述的签名下载链接
+ *
+ * 令牌内携带存储路径、MIME 类型、文件名、内容哈希和过期时间，用 HMAC-SHA256 签名，
+ * 下载接口验签后直接读取磁盘，不再查询 resource_file 表。
+ * 过期时间按有效期向上取整到整点窗口，同一窗口内同一文件生成的链接相同，便于浏览器/CDN 缓存。
+ */
+@Service
+public class SignedUrlService {
+
+    public static final String URL_PREFIX = "/api/files/s/";
+
+    private static final byte VERSION = 1;
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final long WINDOW_SECONDS = 3600;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecretKeySpec key;
+    private final long ttlSeconds;
+
+    /**
+     * Mac 实例不是线程安全的，每个线程复用一个
+     */
+    private final ThreadLocal<Mac> macs = ThreadLocal.withInitial(this::newMac);
+
+    public SignedUrlService(@Value("${file.url.secret:${jwt.secret}}") String secret,
+                            @Value("${file.url.ttl-seconds:21600}") long ttlSeconds) {
+        // 从密钥派生出专用于下载链接的子密钥，避免与 JWT 签名共用同一把密钥
+        this.key = new SecretKeySpec(hmac(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM),
+                "file-url".getBytes(StandardCharsets.UTF_8)), ALGORITHM);
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    /**
+     * 生成签名下载链接（相对路径）
+     */
+    public String signedUrl(ResourceFile file) {
+        return URL_PREFIX + sign(file, Instant.now());
+    }
+
+    String sign(ResourceFile file, Instant now) {
+        long expiresAt = ((now.getEpochSecond() + ttlSeconds) / WINDOW_SECONDS + 1) * WINDOW_SECONDS;
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(buffer)) {
+            out.writeByte(VERSION);
+            out.writeLong(expiresAt);
+            out.writeLong(file.getId() != null ? file.getId() : 0L);
+            out.writeUTF(file.getStoragePath());
+            out.writeUTF(file.getFileType() != null ? file.getFileType() : "application/octet-stream");
+            out.writeUTF(file.getFileName() != null ? file.getFileName() : "");
+            out.writeUTF(file.getContentHash() != null ? file.getContentHash() : "");
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to encode file token", e);
+        }
+        byte[] payload = buffer.toByteArray();
+        return ENCODER.encodeToString(payload) + "." + ENCODER.encodeToString(macs.get().doFinal(payload));
+    }
+
+    /**
+     * 校验令牌签名和有效期
+     * @return 令牌描述的文件（未关联数据库的临时对象）；签名无效或已过期时为空
+     */
+    public Optional<ResourceFile> verify(String token) {
+        return verify(token, Instant.now());
+    }
+
+    Optional<ResourceFile> verify(String token, Instant now) {
+        int dot = token.indexOf('.');
+        if (dot <= 0) {
+            return Optional.empty();
+        }
+        try {
+            byte[] payload = DECODER.decode(token.substring(0, dot));
+            byte[] signature = DECODER.decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(signature, macs.get().doFinal(payload))) {
+                return Optional.empty();
+            }
+
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+            if (in.readByte() != VERSION || in.readLong() < now.getEpochSecond()) {
+                return Optional.empty();
+            }
+            ResourceFile file = new ResourceFile();
+            file.setId(in.readLong());
+            file.setStoragePath(in.readUTF());
+            file.setFileType(in.readUTF());
+            file.setFileName(in.readUTF());
+            String contentHash = in.readUTF();
+            file.setContentHash(contentHash.isEmpty() ? null : contentHash);
+            return Optional.of(file);
+        } catch (IllegalArgumentException | IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " not available", e);
+        }
+    }
+
+    private static byte[] hmac(SecretKeySpec secret, byte[] data) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(secret);
+            return mac.doFinal(data);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " not available", e);
+        }
+    }
+}
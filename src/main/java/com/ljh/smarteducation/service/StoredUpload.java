@@ -0,0 +1,203 @@
+package com.ljh.smarteducation.service;
+
+import com.ljh.smarteducation.util.FileHashUtil;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * 已落盘的上传文件
+ *
+ * 请求体只在 spool 时读取一次：写入临时文件的同时计算内容 MD5 和 SHA-256。
+ * 之后的解析、哈希、OCR 等阶段通过 getPath()/openChannel() 直接访问磁盘文件，
+ * 不再重复复制输入流。实现 MultipartFile 以便沿用现有的解析接口。
+ *
+ * 使用完毕后调用 close() 删除临时文件。
+ */
+public class StoredUpload implements MultipartFile, Closeable {
+
+    private final Path path;
+    private final String name;
+    private final String originalFilename;
+    private final String contentType;
+    private final long size;
+    private final String md5;
+    private final String sha256;
+
+    private StoredUpload(Path path, String name, String originalFilename, String contentType, long size,
+                         String md5, String sha256) {
+        this.path = path;
+        this.name = name;
+        this.originalFilename = originalFilename;
+        this.contentType = contentType;
+        this.size = size;
+        this.md5 = md5;
+        this.sha256 = sha256;
+    }
+
+    /**
+     * 把上传文件一次性写入临时文件，同时计算哈希
+     */
+    public static StoredUpload spool(MultipartFile file) throws IOException {
+        if (file instanceof StoredUpload stored) {
+            return stored;
+        }
+        try (InputStream in = file.getInputStream()) {
+            return spool(in, file.getName(), file.getOriginalFilename(), file.getContentType());
+        }
+    }
+
+    /**
+     * 把输入流一次性写入临时文件，同时计算哈希（调用方负责关闭输入流）
+     */
+    public static StoredUpload spool(InputStream in, String name, String originalFilename, String contentType)
+            throws IOException {
+        Path tempFile = Files.createTempFile("upload-", extensionOf(originalFilename));
+        try {
+            MessageDigest md5 = MessageDigest.getInstance("MD5");
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            long size;
+            try (DigestInputStream digestIn = new DigestInputStream(new DigestInputStream(in, md5), sha256)) {
+                size = Files.copy(digestIn, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return new StoredUpload(tempFile, name, originalFilename, contentType, size,
+                    FileHashUtil.bytesToHex(md5.digest()), FileHashUtil.bytesToHex(sha256.digest()));
+        } catch (NoSuchAlgorithmException e) {
+            Files.deleteIfExists(tempFile);
+            throw new RuntimeException("Hash algorithm not found", e);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+    }
+
+    /**
+     * 接管一个已经写好、哈希已知的文件（例如分片上传完成后的文件），不再复制内容
+     */
+    public static StoredUpload adopt(Path path, String name, String originalFilename, String contentType,
+                                     long size, String md5, String sha256) {
+        return new StoredUpload(path, name, originalFilename, contentType, size, md5, sha256);
+    }
+
+    /**
+     * 内容的 MD5 十六进制字符串（spool 时已计算）
+     */
+    public String getMd5() {
+        return md5;
+    }
+
+    /**
+     * 内容的 SHA-256 十六进制字符串（spool 时已计算），用于内容寻址存储
+     */
+    public String getSha256() {
+        return sha256;
+    }
+
+    /**
+     * 磁盘上的文件位置，供需要随机访问的解析器（ZIP/PDF/图片）直接打开
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * 以只读方式打开文件通道
+     */
+    public FileChannel openChannel() throws IOException {
+        return FileChannel.open(path, StandardOpenOption.READ);
+    }
+
+    /**
+     * 只读内存映射整个文件
+     */
+    MappedByteBuffer map() throws IOException {
+        try (FileChannel channel = openChannel()) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getOriginalFilename() {
+        return originalFilename;
+    }
+
+    @Override
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public long getSize() {
+        return size;
+    }
+
+    @Override
+    public byte[] getBytes() throws IOException {
+        return Files.readAllBytes(path);
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return Files.newInputStream(path);
+    }
+
+    @Override
+    public void transferTo(File dest) throws IOException {
+        transferTo(dest.toPath());
+    }
+
+    @Override
+    public void transferTo(Path dest) throws IOException {
+        try (FileChannel in = openChannel();
+             FileChannel out = FileChannel.open(dest, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            long position = 0;
+            while (position < size) {
+                position += in.transferTo(position, size - position, out);
+            }
+        }
+    }
+
+    /**
+     * 删除临时文件
+     */
+    @Override
+    public void close() throws IOException {
+        Files.deleteIfExists(path);
+    }
+
+    static String extensionOf(String filename) {
+        if (filename == null) {
+            return null;
+        }
+        int lastDotIndex = filename.lastIndexOf('.');
+        if (lastDotIndex == -1) {
+            return null;
+        }
+        String extension = filename.substring(lastDotIndex);
+        // 只保留安全字符，避免把原始文件名中的路径分隔符带入临时文件名
+        return extension.matches("\\.[A-Za-z0-9]{1,10}") ? extension : null;
+    }
+}
@@ -0,0 +1,24 @@
+package com.ljh.smarteducation.service;
+
+import java.util.Map;
+
+/**
+ * 答卷入库
+ *
+ * 开启写后模式时，答卷先写入本地日志即返回，由后台线程批量写入 student_submission；
+ * 关闭时（或积压超过上限、日志写入失败时）同步保存。
+ */
+public interface SubmissionIntakeService {
+
+    /**
+     * 保存一份已批改的答卷
+     * @param answers 题目 ID（字符串）到答案的映射
+     */
+    void submit(String username, Long questionSetId, Map<String, String> answers, int score, int totalQuestions,
+                boolean graded);
+
+    /**
+     * 队列深度、刷写延迟等运行统计
+     */
+    Map<String, Object> getStatistics();
+}
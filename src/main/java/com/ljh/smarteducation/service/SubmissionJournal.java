@@ -0,0 +1,179 @@
+package com.ljh.smarteducation.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 答卷写入日志（本地追加写文件）
+ *
+ * 每份答卷先以一行 JSON 追加到当前分段文件并落盘，再由后台批量写入数据库；
+ * 一个分段的答卷全部入库后删除该分段。进程崩溃后重启时，残留分段中的答卷会被重放
+ * （写库使用 intakeId 去重，重放已入库的答卷不会产生重复记录）。
+ * 崩溃时写到一半的最后一行无法解析，会被跳过——这份答卷尚未向学生确认。
+ * 逐条重试仍无法入库的答卷（数据错误）追加到死信文件 DEAD_LETTER_FILE，由人工处理，不阻塞后续分段。
+ */
+@Slf4j
+public class SubmissionJournal implements AutoCloseable {
+
+    private static final String SEGMENT_PREFIX = "submissions-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    public static final String DEAD_LETTER_FILE = "dead-letter.jsonl";
+
+    private final Path directory;
+    private final ObjectMapper objectMapper;
+    private final boolean fsync;
+
+    private long nextSegmentNumber;
+    private FileChannel activeChannel;
+    private Segment activeSegment;
+
+    public SubmissionJournal(Path directory, ObjectMapper objectMapper, boolean fsync) throws IOException {
+        this.directory = directory;
+        this.objectMapper = objectMapper;
+        this.fsync = fsync;
+        Files.createDirectories(directory);
+        for (Path path : listSegments()) {
+            nextSegmentNumber = Math.max(nextSegmentNumber, segmentNumberOf(path) + 1);
+        }
+    }
+
+    /**
+     * 读取目录中已有的分段（上次运行未入库的答卷），按写入顺序返回；应在第一次 append 之前调用
+     */
+    public synchronized List<Segment> recover() throws IOException {
+        List<Segment> segments = new ArrayList<>();
+        for (Path path : listSegments()) {
+            List<Entry> entries = new ArrayList<>();
+            try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    try {
+                        entries.add(objectMapper.readValue(line, Entry.class));
+                    } catch (JsonProcessingException e) {
+                        log.warn("跳过答卷日志 {} 中无法解析的一行: {}", path.getFileName(), e.getOriginalMessage());
+                    }
+                }
+            }
+            segments.add(new Segment(path, entries));
+        }
+        return segments;
+    }
+
+    /**
+     * 追加一份答卷；返回时已写入文件（fsync 开启时已落盘）
+     */
+    public synchronized void append(Entry entry) throws IOException {
+        byte[] line = (objectMapper.writeValueAsString(entry) + "\n").getBytes(StandardCharsets.UTF_8);
+        if (activeChannel == null) {
+            Path path = directory.resolve(SEGMENT_PREFIX + String.format("%012d", nextSegmentNumber++) + SEGMENT_SUFFIX);
+            activeChannel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            activeSegment = new Segment(path, new ArrayList<>());
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(line);
+        while (buffer.hasRemaining()) {
+            activeChannel.write(buffer);
+        }
+        if (fsync) {
+            activeChannel.force(false);
+        }
+        activeSegment.entries().add(entry);
+    }
+
+    /**
+     * 关闭当前分段并返回它，之后的答卷写入新分段；当前分段为空时返回 null
+     */
+    public synchronized Segment rotate() throws IOException {
+        if (activeChannel == null) {
+            return null;
+        }
+        activeChannel.close();
+        Segment segment = activeSegment;
+        activeChannel = null;
+        activeSegment = null;
+        return segment;
+    }
+
+    /**
+     * 把无法入库的答卷追加到死信文件（每行一份答卷的 JSON）并落盘
+     */
+    public synchronized void deadLetter(List<Entry> entries) throws IOException {
+        if (entries.isEmpty()) {
+            return;
+        }
+        StringBuilder lines = new StringBuilder();
+        for (Entry entry : entries) {
+            lines.append(objectMapper.writeValueAsString(entry)).append('\n');
+        }
+        try (FileChannel channel = FileChannel.open(directory.resolve(DEAD_LETTER_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+    }
+
+    /**
+     * 分段中的答卷已全部入库（或已转入死信文件）后删除分段文件
+     */
+    public void delete(Segment segment) throws IOException {
+        Files.deleteIfExists(segment.path());
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (activeChannel != null) {
+            activeChannel.close();
+            activeChannel = null;
+        }
+    }
+
+    private List<Path> listSegments() throws IOException {
+        List<Path> paths = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            stream.forEach(paths::add);
+        }
+        paths.sort(null);
+        return paths;
+    }
+
+    private static long segmentNumberOf(Path path) {
+        String name = path.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 一份已批改的答卷
+     * @param intakeId    写入去重用的唯一 ID
+     * @param submittedAt 提交时间（毫秒时间戳）
+     */
+    public record Entry(String intakeId, Long userId, String username, Long questionSetId,
+                        Map<String, String> answers, int score, int totalQuestions, boolean graded,
+                        long submittedAt) {
+    }
+
+    public record Segment(Path path, List<Entry> entries) {
+    }
+}
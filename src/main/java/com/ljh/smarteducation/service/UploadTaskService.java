@@ -48,6 +48,7 @@ public interface UploadTaskService {
     
     /**
      * 异步处理上传任务
+     * 文件需在请求线程内先落盘为 StoredUpload，处理结束后由本方法负责删除
      */
-    void processTaskAsync(String taskId, MultipartFile file, String subject);
+    void processTaskAsync(String taskId, StoredUpload upload, String subject);
 }
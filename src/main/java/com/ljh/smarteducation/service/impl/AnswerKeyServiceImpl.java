@@ -0,0 +1,111 @@
+package com.ljh.smarteducation.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.ljh.smarteducation.dto.QuestionGradingColumns;
+import com.ljh.smarteducation.event.QuestionBankChangedEvent;
+import com.ljh.smarteducation.repository.QuestionBankRepository;
+import com.ljh.smarteducation.service.AnswerKey;
+import com.ljh.smarteducation.service.AnswerKeyService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 答案表服务实现
+ *
+ * 按套题 ID 缓存预编译的答案表（首次批改时构建），一份答卷通常不再查询题目表；
+ * 不在套题中的题目按 ID 补查一次，不进入缓存。构建时只读取 question_type/correct_option_id 列，
+ * 冗余列尚未回填的旧题目才加载完整实体。
+ */
+@Service
+public class AnswerKeyServiceImpl implements AnswerKeyService {
+
+    private final QuestionBankRepository questionRepository;
+    private final Cache<Long, AnswerKey> cache;
+
+    private final LongAdder builds = new LongAdder();
+    private final LongAdder buildNanos = new LongAdder();
+
+    public AnswerKeyServiceImpl(QuestionBankRepository questionRepository,
+                                @Value("${cache.answer-key.max-bytes:16777216}") long maxBytes) {
+        this.questionRepository = questionRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Long setId, AnswerKey key) -> (int) Math.min(Integer.MAX_VALUE, key.estimatedBytes()))
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public AnswerKey getAnswerKey(Long questionSetId, Collection<Long> questionIds) {
+        AnswerKey answerKey = questionSetId != null
+                ? cache.get(questionSetId, this::build)
+                : AnswerKey.empty();
+
+        List<Long> missing = new ArrayList<>();
+        for (Long questionId : questionIds) {
+            if (questionId != null && !answerKey.contains(questionId)) {
+                missing.add(questionId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            answerKey = answerKey.merge(fromColumns(questionRepository.findGradingColumnsByIdIn(missing)));
+        }
+        return answerKey;
+    }
+
+    /**
+     * 套题的题目被修改或删除后使缓存的答案表失效；在事务提交后执行，避免提交前的并发读取把旧数据重新缓存
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onQuestionBankChanged(QuestionBankChangedEvent event) {
+        cache.invalidateAll(event.questionSetIds());
+    }
+
+    @Override
+    public Map<String, Object> getStatistics() {
+        CacheStats cacheStats = cache.stats();
+        long buildCount = builds.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hits", cacheStats.hitCount());
+        stats.put("misses", cacheStats.missCount());
+        stats.put("hitRate", cacheStats.hitRate());
+        stats.put("evictions", cacheStats.evictionCount());
+        stats.put("entries", cache.estimatedSize());
+        stats.put("builds", buildCount);
+        stats.put("avgBuildMs", buildCount == 0 ? 0.0 : buildNanos.sum() / 1e6 / buildCount);
+        return stats;
+    }
+
+    private AnswerKey build(Long questionSetId) {
+        long start = System.nanoTime();
+        AnswerKey answerKey = fromColumns(questionRepository.findGradingColumnsByQuestionSetId(questionSetId));
+        buildNanos.add(System.nanoTime() - start);
+        builds.increment();
+        return answerKey;
+    }
+
+    private AnswerKey fromColumns(List<QuestionGradingColumns> rows) {
+        List<QuestionGradingColumns> backfilled = new ArrayList<>(rows.size());
+        List<Long> legacy = new ArrayList<>();
+        for (QuestionGradingColumns row : rows) {
+            if (row.getQuestionType() != null) {
+                backfilled.add(row);
+            } else {
+                legacy.add(row.getId());
+            }
+        }
+        AnswerKey answerKey = AnswerKey.ofColumns(backfilled);
+        return legacy.isEmpty() ? answerKey : answerKey.merge(AnswerKey.of(questionRepository.findAllById(legacy)));
+    }
+}
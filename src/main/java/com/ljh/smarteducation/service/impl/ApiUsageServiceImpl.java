@@ -0,0 +1,221 @@
+package com.ljh.smarteducation.service.impl;
+
+import com.ljh.smarteducation.dto.ApiUsageDailyTotals;
+import com.ljh.smarteducation.dto.ApiUsageModelTotals;
+import com.ljh.smarteducation.dto.ApiUsageTotals;
+import com.ljh.smarteducation.entity.ApiUsageDailyRollup;
+import com.ljh.smarteducation.entity.ApiUsageLog;
+import com.ljh.smarteducation.entity.BackfillMarker;
+import com.ljh.smarteducation.repository.ApiUsageDailyRollupRepository;
+import com.ljh.smarteducation.repository.ApiUsageLogRepository;
+import com.ljh.smarteducation.repository.BackfillMarkerRepository;
+import com.ljh.smarteducation.service.ApiUsageService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * API 使用统计实现
+ */
+@Slf4j
+@Service
+public class ApiUsageServiceImpl implements ApiUsageService {
+
+    /**
+     * 重建汇总时每个事务处理的天数
+     */
+    private static final int REBUILD_CHUNK_DAYS = 31;
+
+    /**
+     * 回填完成标记的名称
+     */
+    static final String BACKFILL_MARKER = "api_usage_daily_rollup";
+
+    private final ApiUsageLogRepository logRepository;
+    private final ApiUsageDailyRollupRepository rollupRepository;
+    private final BackfillMarkerRepository markerRepository;
+    private final TransactionTemplate rebuildTransaction;
+
+    public ApiUsageServiceImpl(ApiUsageLogRepository logRepository, ApiUsageDailyRollupRepository rollupRepository,
+                               BackfillMarkerRepository markerRepository, PlatformTransactionManager transactionManager) {
+        this.logRepository = logRepository;
+        this.rollupRepository = rollupRepository;
+        this.markerRepository = markerRepository;
+        // READ COMMITTED 下 INSERT ... SELECT 对 api_usage_log 做一致性读而不加共享锁：
+        // 否则重建持有汇总行锁并等待日志行锁，record() 持有日志行锁并等待汇总行锁，形成死锁
+        this.rebuildTransaction = new TransactionTemplate(transactionManager);
+        this.rebuildTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+    }
+
+    @Override
+    @Transactional
+    public ApiUsageLog record(ApiUsageLog usageLog) {
+        ApiUsageLog saved = logRepository.save(usageLog);
+        LocalDateTime createdAt = saved.getCreatedAt() != null ? saved.getCreatedAt() : LocalDateTime.now();
+        rollupRepository.accumulate(createdAt.toLocalDate(),
+                saved.getModelName() != null ? saved.getModelName() : ApiUsageDailyRollup.UNKNOWN_MODEL,
+                Boolean.TRUE.equals(saved.getSuccess()),
+                orZero(saved.getInputTokens()), orZero(saved.getOutputTokens()), orZero(saved.getTotalTokens()),
+                saved.getTotalCost() != null ? saved.getTotalCost() : 0.0,
+                orZero(saved.getQuestionCount()),
+                saved.getDurationMs() != null ? saved.getDurationMs() : 0L);
+        return saved;
+    }
+
+    @Override
+    public ApiUsageTotals getTotals() {
+        return rollupRepository.sumSuccess();
+    }
+
+    @Override
+    public List<ApiUsageDailyTotals> getDailyTotals(LocalDate from) {
+        return rollupRepository.sumSuccessByDay(from);
+    }
+
+    @Override
+    public List<ApiUsageModelTotals> getModelTotals() {
+        List<ApiUsageModelTotals> totals = new ArrayList<>();
+        for (ApiUsageModelTotals row : rollupRepository.sumSuccessByModel()) {
+            totals.add(ApiUsageDailyRollup.UNKNOWN_MODEL.equals(row.getModelName())
+                    ? new ModelTotals(null, row) : row);
+        }
+        return totals;
+    }
+
+    @Override
+    public ApiUsageTotals getTotalsBetween(LocalDateTime start, LocalDateTime end) {
+        if (end.isBefore(start)) {
+            return new Totals(0, 0, 0.0, 0);
+        }
+        // 完全落在 [start, end] 内的日期：[firstDay, endDay)
+        LocalDate firstDay = start.equals(start.toLocalDate().atStartOfDay())
+                ? start.toLocalDate() : start.toLocalDate().plusDays(1);
+        LocalDate endDay = end.toLocalDate();
+        if (!firstDay.isBefore(endDay)) {
+            return Totals.of(logRepository.sumSuccessBetween(start, end));
+        }
+
+        Totals totals = Totals.of(rollupRepository.sumSuccessBetween(firstDay, endDay));
+        if (start.isBefore(firstDay.atStartOfDay())) {
+            // DATETIME(6) 精度为微秒，首段取到 firstDay 零点前 1 微秒
+            totals = totals.plus(logRepository.sumSuccessBetween(start, firstDay.atStartOfDay().minusNanos(1000)));
+        }
+        return totals.plus(logRepository.sumSuccessBetween(endDay.atStartOfDay(), end));
+    }
+
+    @Override
+    public int rebuildRollup(LocalDate from, LocalDate to) {
+        long startNanos = System.nanoTime();
+        int rows = 0;
+        for (LocalDate chunk = from; !chunk.isAfter(to); chunk = chunk.plusDays(REBUILD_CHUNK_DAYS)) {
+            LocalDate chunkFrom = chunk;
+            LocalDate chunkTo = chunk.plusDays(REBUILD_CHUNK_DAYS).isAfter(to.plusDays(1))
+                    ? to.plusDays(1) : chunk.plusDays(REBUILD_CHUNK_DAYS);
+            Integer inserted = rebuildTransaction.execute(status -> {
+                rollupRepository.deleteDays(chunkFrom, chunkTo);
+                return rollupRepository.rebuildDays(chunkFrom.atStartOfDay(), chunkTo.atStartOfDay());
+            });
+            rows += inserted != null ? inserted : 0;
+        }
+        log.info("重建 API 使用日汇总 {} ~ {}，写入 {} 行，耗时 {} ms", from, to, rows,
+                (System.nanoTime() - startNanos) / 1_000_000);
+        return rows;
+    }
+
+    @Override
+    public int backfillRollupOnce() {
+        if (markerRepository.existsById(BACKFILL_MARKER)) {
+            return 0;
+        }
+        LocalDateTime earliest = logRepository.findEarliestCreatedAt();
+        int rows = earliest != null ? rebuildRollup(earliest.toLocalDate(), LocalDate.now()) : 0;
+        BackfillMarker marker = new BackfillMarker();
+        marker.setName(BACKFILL_MARKER);
+        marker.setCompletedAt(LocalDateTime.now());
+        markerRepository.save(marker);
+        return rows;
+    }
+
+    private static long orZero(Integer value) {
+        return value != null ? value : 0L;
+    }
+
+    /**
+     * 汇总表与原始日志的合计相加
+     */
+    private record Totals(long calls, long tokens, double cost, long questions) implements ApiUsageTotals {
+
+        static Totals of(ApiUsageTotals totals) {
+            return new Totals(0, 0, 0.0, 0).plus(totals);
+        }
+
+        Totals plus(ApiUsageTotals other) {
+            if (other == null) {
+                return this;
+            }
+            return new Totals(calls + orZero(other.getCallCount()), tokens + orZero(other.getTotalTokens()),
+                    cost + (other.getTotalCost() != null ? other.getTotalCost() : 0.0),
+                    questions + orZero(other.getQuestionCount()));
+        }
+
+        private static long orZero(Long value) {
+            return value != null ? value : 0L;
+        }
+
+        @Override
+        public Long getCallCount() {
+            return calls;
+        }
+
+        @Override
+        public Long getTotalTokens() {
+            return tokens;
+        }
+
+        @Override
+        public Double getTotalCost() {
+            return cost;
+        }
+
+        @Override
+        public Long getQuestionCount() {
+            return questions;
+        }
+    }
+
+    private record ModelTotals(String modelName, ApiUsageTotals totals) implements ApiUsageModelTotals {
+
+        @Override
+        public String getModelName() {
+            return modelName;
+        }
+
+        @Override
+        public Long getCallCount() {
+            return totals.getCallCount();
+        }
+
+        @Override
+        public Long getTotalTokens() {
+            return totals.getTotalTokens();
+        }
+
+        @Override
+        public Double getTotalCost() {
+            return totals.getTotalCost();
+        }
+
+        @Override
+        public Long getQuestionCount() {
+            return totals.getQuestionCount();
+        }
+    }
+}
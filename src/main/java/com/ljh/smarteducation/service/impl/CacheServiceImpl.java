@@ -1,76 +1,210 @@
 package com.ljh.smarteducation.service.impl;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import com.ljh.smarteducation.entity.AiParseCache;
 import com.ljh.smarteducation.entity.DocumentCache;
 import com.ljh.smarteducation.entity.OcrCache;
+import com.ljh.smarteducation.event.ExpiredCachesCleanedEvent;
 import com.ljh.smarteducation.repository.AiParseCacheRepository;
 import com.ljh.smarteducation.repository.DocumentCacheRepository;
 import com.ljh.smarteducation.repository.OcrCacheRepository;
 import com.ljh.smarteducation.service.CacheService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
 
+/**
+ * 缓存服务实现
+ *
+ * 每张缓存表前面都有一层进程内 L1 缓存（Caffeine，W-TinyLFU 淘汰，按载荷字节数计权），
+ * 查询先走 L1，未命中再查数据库并回填；保存时同步写入数据库和 L1。
+ * 清理过期缓存时，L1 在删除事务提交后才清空（ExpiredCachesCleanedEvent）。
+ */
 @Service
 public class CacheServiceImpl implements CacheService {
-    
+
+    /**
+     * 每个缓存条目的固定开销估算（对象头、字段、时间戳等）
+     */
+    private static final int ENTRY_OVERHEAD = 256;
+
     private final DocumentCacheRepository documentCacheRepository;
     private final OcrCacheRepository ocrCacheRepository;
     private final AiParseCacheRepository aiParseCacheRepository;
-    
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Tier<String, DocumentCache> documentTier;
+    private final Tier<String, OcrCache> ocrTier;
+    private final Tier<String, AiParseCache> aiParseTier;
+
     public CacheServiceImpl(DocumentCacheRepository documentCacheRepository,
                            OcrCacheRepository ocrCacheRepository,
-                           AiParseCacheRepository aiParseCacheRepository) {
+                           AiParseCacheRepository aiParseCacheRepository,
+                           ApplicationEventPublisher eventPublisher,
+                           @Value("${cache.l1.document.max-bytes:4194304}") long documentMaxBytes,
+                           @Value("${cache.l1.ocr.max-bytes:33554432}") long ocrMaxBytes,
+                           @Value("${cache.l1.ai-parse.max-bytes:67108864}") long aiParseMaxBytes) {
         this.documentCacheRepository = documentCacheRepository;
         this.ocrCacheRepository = ocrCacheRepository;
         this.aiParseCacheRepository = aiParseCacheRepository;
+        this.eventPublisher = eventPublisher;
+
+        this.documentTier = new Tier<>(documentMaxBytes,
+                cache -> ENTRY_OVERHEAD + sizeOf(cache.getFileName()) + sizeOf(cache.getSubject()));
+        this.ocrTier = new Tier<>(ocrMaxBytes,
+                cache -> ENTRY_OVERHEAD + sizeOf(cache.getRecognizedText()) + sizeOf(cache.getFileName()));
+        this.aiParseTier = new Tier<>(aiParseMaxBytes,
+                cache -> ENTRY_OVERHEAD + sizeOf(cache.getAiJsonResult()) + sizeOf(cache.getSubject()));
     }
-    
+
     @Override
     public Optional<DocumentCache> findDocumentCache(String fileHash) {
-        return documentCacheRepository.findByFileHash(fileHash);
+        return documentTier.find(fileHash, () -> documentCacheRepository.findByFileHash(fileHash));
     }
-    
+
     @Override
     @Transactional
     public void saveDocumentCache(DocumentCache cache) {
-        documentCacheRepository.save(cache);
+        documentTier.put(cache.getFileHash(), documentCacheRepository.save(cache));
     }
-    
+
     @Override
     public Optional<OcrCache> findOcrCache(String imageHash) {
-        return ocrCacheRepository.findByImageHash(imageHash);
+        return ocrTier.find(imageHash, () -> ocrCacheRepository.findByImageHash(imageHash));
     }
-    
+
     @Override
     @Transactional
     public void saveOcrCache(OcrCache cache) {
-        ocrCacheRepository.save(cache);
+        ocrTier.put(cache.getImageHash(), ocrCacheRepository.save(cache));
     }
-    
+
     @Override
     public Optional<AiParseCache> findAiParseCache(String textHash, String subject) {
-        return aiParseCacheRepository.findByTextHashAndSubject(textHash, subject);
+        return aiParseTier.find(aiParseKey(textHash, subject),
+                () -> aiParseCacheRepository.findByTextHashAndSubject(textHash, subject));
     }
-    
+
     @Override
     @Transactional
     public void saveAiParseCache(AiParseCache cache) {
-        aiParseCacheRepository.save(cache);
+        aiParseTier.put(aiParseKey(cache.getTextHash(), cache.getSubject()), aiParseCacheRepository.save(cache));
     }
-    
+
     @Override
     @Transactional
     public void cleanExpiredCaches() {
         LocalDateTime now = LocalDateTime.now();
         System.out.println(">>> 开始清理过期缓存...");
-        
+
         documentCacheRepository.deleteByExpiresAtBefore(now);
         ocrCacheRepository.deleteByExpiresAtBefore(now);
         aiParseCacheRepository.deleteByExpiresAtBefore(now);
-        
+
+        // 数据库行已删除，L1 中的副本在提交后一并失效
+        eventPublisher.publishEvent(new ExpiredCachesCleanedEvent(now));
+
         System.out.println(">>> 过期缓存清理完成");
     }
+
+    /**
+     * 过期缓存删除提交后清空 L1；不在事务中发布时立即清空
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onExpiredCachesCleaned(ExpiredCachesCleanedEvent event) {
+        documentTier.invalidateAll();
+        ocrTier.invalidateAll();
+        aiParseTier.invalidateAll();
+    }
+
+    @Override
+    public Map<String, Object> getCacheStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("document", documentTier.statistics());
+        stats.put("ocr", ocrTier.statistics());
+        stats.put("aiParse", aiParseTier.statistics());
+        return stats;
+    }
+
+    private static int sizeOf(String value) {
+        // 按 UTF-16 估算，避免计权时做编码转换
+        return value == null ? 0 : value.length() * 2;
+    }
+
+    private static String aiParseKey(String textHash, String subject) {
+        return textHash + ":" + subject;
+    }
+
+    /**
+     * 单张缓存表的 L1 层，记录 L1 与数据库两级的命中/未命中次数
+     */
+    private static final class Tier<K, V> {
+
+        private final Cache<K, V> cache;
+        private final LongAdder dbHits = new LongAdder();
+        private final LongAdder dbMisses = new LongAdder();
+
+        Tier(long maxBytes, ToIntFunction<V> weigher) {
+            this.cache = Caffeine.newBuilder()
+                    .maximumWeight(maxBytes)
+                    .weigher((K key, V value) -> weigher.applyAsInt(value))
+                    .recordStats()
+                    .build();
+        }
+
+        Optional<V> find(K key, Supplier<Optional<V>> loader) {
+            V cached = cache.getIfPresent(key);
+            if (cached != null) {
+                return Optional.of(cached);
+            }
+            Optional<V> loaded = loader.get();
+            if (loaded.isPresent()) {
+                dbHits.increment();
+                cache.put(key, loaded.get());
+            } else {
+                dbMisses.increment();
+            }
+            return loaded;
+        }
+
+        void put(K key, V value) {
+            if (key != null && value != null) {
+                cache.put(key, value);
+            }
+        }
+
+        void invalidateAll() {
+            cache.invalidateAll();
+        }
+
+        Map<String, Object> statistics() {
+            // 条目数和计权字节数由 Caffeine 异步维护，统计前先处理待执行的维护任务
+            cache.cleanUp();
+            CacheStats l1 = cache.stats();
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("l1Hits", l1.hitCount());
+            stats.put("l1Misses", l1.missCount());
+            stats.put("l1HitRate", l1.hitRate());
+            stats.put("l1Evictions", l1.evictionCount());
+            stats.put("l1Entries", cache.estimatedSize());
+            cache.policy().eviction().ifPresent(eviction ->
+                    eviction.weightedSize().ifPresent(bytes -> stats.put("l1Bytes", bytes)));
+            stats.put("dbHits", dbHits.sum());
+            stats.put("dbMisses", dbMisses.sum());
+            return stats;
+        }
+    }
 }
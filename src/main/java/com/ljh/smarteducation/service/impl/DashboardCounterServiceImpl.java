@@ -0,0 +1,176 @@
+package com.ljh.smarteducation.service.impl;
+
+import com.ljh.smarteducation.repository.StudentSubmissionRepository;
+import com.ljh.smarteducation.repository.UserRepository;
+import com.ljh.smarteducation.service.DashboardCounterService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 仪表盘计数器实现
+ *
+ * 每个计数器 = 上次对账时数据库中的值 + 对账后发生的事件增量。对账时先记下当前增量，
+ * 查询数据库后用查询结果替换基数、从增量中扣除记下的部分；查询期间发生的事件可能被重复计入，
+ * 偏差在下一次对账时消除。"今日新用户"在日期变化时归零。
+ */
+@Slf4j
+@Service
+public class DashboardCounterServiceImpl implements DashboardCounterService {
+
+    private static final String ROLE_STUDENT = "ROLE_STUDENT";
+    private static final String ROLE_TEACHER = "ROLE_TEACHER";
+    private static final String ROLE_ADMIN = "ROLE_ADMIN";
+
+    private final UserRepository userRepository;
+    private final StudentSubmissionRepository submissionRepository;
+    private final long reconcileSeconds;
+
+    private final Counter students = new Counter();
+    private final Counter teachers = new Counter();
+    private final Counter admins = new Counter();
+    private final Counter submissions = new Counter();
+    private final Counter pendingSubmissions = new Counter();
+    private final Counter newUsersToday = new Counter();
+    private volatile LocalDate today = LocalDate.now();
+
+    private volatile boolean reconciled;
+    private ScheduledExecutorService scheduler;
+
+    public DashboardCounterServiceImpl(UserRepository userRepository,
+                                       StudentSubmissionRepository submissionRepository,
+                                       @Value("${dashboard.counters.reconcile-seconds:300}") long reconcileSeconds) {
+        this.userRepository = userRepository;
+        this.submissionRepository = submissionRepository;
+        this.reconcileSeconds = reconcileSeconds;
+    }
+
+    @PostConstruct
+    void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "dashboard-counters");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                reconcile();
+            } catch (Exception e) {
+                log.warn("仪表盘计数器对账失败: {}", e.getMessage());
+            }
+        }, 0, reconcileSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        scheduler.shutdownNow();
+    }
+
+    @Override
+    public Map<String, Object> snapshot() {
+        if (!reconciled) {
+            // 启动后首次对账尚未完成
+            reconcile();
+        }
+        rollDay();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("totalStudents", students.get());
+        stats.put("totalTeachers", teachers.get());
+        stats.put("totalAdmins", admins.get());
+        stats.put("totalSubmissions", submissions.get());
+        stats.put("pendingSubmissions", pendingSubmissions.get());
+        stats.put("newUsersToday", newUsersToday.get());
+        return stats;
+    }
+
+    @Override
+    public void userCreated(String role) {
+        if (ROLE_STUDENT.equals(role)) {
+            students.add(1);
+        } else if (ROLE_TEACHER.equals(role)) {
+            teachers.add(1);
+        } else if (ROLE_ADMIN.equals(role)) {
+            admins.add(1);
+        }
+        rollDay();
+        newUsersToday.add(1);
+    }
+
+    @Override
+    public void submissionsRecorded(int total, int pending) {
+        submissions.add(total);
+        pendingSubmissions.add(pending);
+    }
+
+    @Override
+    public void submissionsGraded(int count) {
+        pendingSubmissions.add(-count);
+    }
+
+    @Override
+    public synchronized void reconcile() {
+        LocalDate day = LocalDate.now();
+        long[] snapshots = {students.delta(), teachers.delta(), admins.delta(), submissions.delta(),
+                pendingSubmissions.delta(), newUsersToday.delta()};
+
+        students.reset(userRepository.countByRole(ROLE_STUDENT), snapshots[0]);
+        teachers.reset(userRepository.countByRole(ROLE_TEACHER), snapshots[1]);
+        admins.reset(userRepository.countByRole(ROLE_ADMIN), snapshots[2]);
+        submissions.reset(submissionRepository.count(), snapshots[3]);
+        pendingSubmissions.reset(submissionRepository.countByGraded(false), snapshots[4]);
+        newUsersToday.reset(userRepository.countByCreateTimeGreaterThanEqual(
+                day.atStartOfDay(ZoneOffset.UTC).toLocalDateTime()), snapshots[5]);
+        today = day;
+        reconciled = true;
+    }
+
+    private void rollDay() {
+        LocalDate now = LocalDate.now();
+        if (!now.equals(today)) {
+            synchronized (this) {
+                if (!now.equals(today)) {
+                    newUsersToday.reset(0, newUsersToday.delta());
+                    today = now;
+                }
+            }
+        }
+    }
+
+    /**
+     * 基数 + 增量
+     */
+    private static final class Counter {
+
+        private final AtomicLong base = new AtomicLong();
+        private final LongAdder delta = new LongAdder();
+
+        void add(long value) {
+            delta.add(value);
+        }
+
+        long delta() {
+            return delta.sum();
+        }
+
+        void reset(long newBase, long consumedDelta) {
+            base.set(newBase);
+            delta.add(-consumedDelta);
+        }
+
+        long get() {
+            return Math.max(0, base.get() + delta.sum());
+        }
+    }
+}
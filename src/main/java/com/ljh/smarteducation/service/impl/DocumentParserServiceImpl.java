@@ -4,11 +4,15 @@ import com.ljh.smarteducation.entity.OcrCache;
 import com.ljh.smarteducation.service.CacheService;
 import com.ljh.smarteducation.service.DocumentParserService;
 import com.ljh.smarteducation.service.ImagePreprocessService;
+import com.ljh.smarteducation.service.StoredUpload;
 import com.ljh.smarteducation.util.FileHashUtil;
 import net.sourceforge.tess4j.Tesseract;
 import net.sourceforge.tess4j.TesseractException;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
 import org.apache.poi.xwpf.extractor.XWPFWordExtractor;
 import org.apache.poi.xwpf.usermodel.XWPFDocument;
 import org.springframework.beans.factory.annotation.Value;
@@ -82,6 +86,24 @@ public class DocumentParserServiceImpl implements DocumentParserService {
      */
     private String parseWord(MultipartFile file) throws IOException {
         System.out.println(">>> 使用 Apache POI 解析 Word 文档");
+        if (file instanceof StoredUpload stored) {
+            // 已落盘：按 ZIP 随机访问直接打开，避免把整个文档再读进内存
+            OPCPackage pkg;
+            try {
+                pkg = OPCPackage.open(stored.getPath().toFile(), PackageAccess.READ);
+            } catch (InvalidFormatException e) {
+                throw new IOException("无效的 Word 文档: " + e.getMessage(), e);
+            }
+            try {
+                XWPFWordExtractor extractor = new XWPFWordExtractor(new XWPFDocument(pkg));
+                String text = extractor.getText();
+                System.out.println(">>> Word 解析成功，提取文本长度: " + text.length() + " 字符");
+                return text;
+            } finally {
+                // 只读打开的包用 revert() 释放，close() 会尝试回写
+                pkg.revert();
+            }
+        }
         try (InputStream is = file.getInputStream();
              XWPFDocument document = new XWPFDocument(is);
              XWPFWordExtractor extractor = new XWPFWordExtractor(document)) {
@@ -96,8 +118,9 @@ public class DocumentParserServiceImpl implements DocumentParserService {
      */
     private String parsePdf(MultipartFile file) throws IOException {
         System.out.println(">>> 使用 Apache PDFBox 解析 PDF 文档");
-        try (InputStream is = file.getInputStream();
-             PDDocument document = PDDocument.load(is)) {
+        try (PDDocument document = file instanceof StoredUpload stored
+                ? PDDocument.load(stored.getPath().toFile()) // 已落盘：随机访问读取，不再复制输入流
+                : loadPdf(file)) {
             
             PDFTextStripper stripper = new PDFTextStripper();
             String text = stripper.getText(document);
@@ -107,6 +130,12 @@ public class DocumentParserServiceImpl implements DocumentParserService {
         }
     }
 
+    private PDDocument loadPdf(MultipartFile file) throws IOException {
+        try (InputStream is = file.getInputStream()) {
+            return PDDocument.load(is);
+        }
+    }
+
     /**
      * 解析图片（使用OCR，支持缓存和预处理）
      */
@@ -114,8 +143,8 @@ public class DocumentParserServiceImpl implements DocumentParserService {
         long startTime = System.currentTimeMillis();
         String fileName = file.getOriginalFilename();
         
-        // 1. 计算图片哈希值
-        String imageHash = FileHashUtil.calculateMD5(file);
+        // 1. 计算图片哈希值（已落盘的 StoredUpload 在写入时已算好，不再重读文件）
+        String imageHash = file instanceof StoredUpload stored ? stored.getMd5() : FileHashUtil.calculateMD5(file);
         System.out.println(">>> 图片哈希: " + imageHash);
         
         // 2. 检查缓存
@@ -131,15 +160,26 @@ public class DocumentParserServiceImpl implements DocumentParserService {
         
         System.out.println(">>> 使用 Tesseract OCR 识别图片文字");
         
-        // 创建临时文件
-        Path tempFile = Files.createTempFile("ocr-", "-" + fileName);
+        // 已落盘的上传直接读取；否则先保存到临时文件
+        Path tempFile = null;
+        Path imagePath;
+        if (file instanceof StoredUpload stored) {
+            imagePath = stored.getPath();
+        } else {
+            tempFile = Files.createTempFile("ocr-", "-" + fileName);
+            imagePath = tempFile;
+        }
         
         try {
-            // 保存上传的文件到临时位置
-            Files.copy(file.getInputStream(), tempFile, StandardCopyOption.REPLACE_EXISTING);
+            if (tempFile != null) {
+                // 保存上传的文件到临时位置
+                try (InputStream is = file.getInputStream()) {
+                    Files.copy(is, tempFile, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
             
             // 读取图片
-            BufferedImage image = ImageIO.read(tempFile.toFile());
+            BufferedImage image = ImageIO.read(imagePath.toFile());
             if (image == null) {
                 throw new IOException("无法读取图片文件");
             }
@@ -195,10 +235,12 @@ public class DocumentParserServiceImpl implements DocumentParserService {
                     "错误详情: " + e.getMessage(), e);
         } finally {
             // 删除临时文件
-            try {
-                Files.deleteIfExists(tempFile);
-            } catch (IOException e) {
-                System.err.println(">>> 删除临时文件失败: " + e.getMessage());
+            if (tempFile != null) {
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (IOException e) {
+                    System.err.println(">>> 删除临时文件失败: " + e.getMessage());
+                }
             }
         }
     }
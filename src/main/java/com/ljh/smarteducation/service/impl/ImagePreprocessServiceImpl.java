@@ -5,205 +5,332 @@ import org.springframework.stereotype.Service;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
-import java.awt.image.ConvolveOp;
-import java.awt.image.Kernel;
+import java.awt.image.DataBufferByte;
+import java.util.stream.IntStream;
 
 /**
  * 图片预处理服务实现
+ *
+ * 所有处理都在一份灰度 byte[] 栅格上完成，按行带（band）并行执行，
+ * 避免逐像素调用 getRGB/setRGB 以及每个阶段都新建 BufferedImage。
  */
 @Service
 public class ImagePreprocessServiceImpl implements ImagePreprocessService {
-    
+
+    /**
+     * 每个并行任务处理的行数
+     */
+    private static final int BAND_HEIGHT = 64;
+
     @Override
     public BufferedImage preprocessImage(BufferedImage image) {
         System.out.println(">>> 开始图片预处理...");
-        
-        // 1. 转换为灰度图
-        BufferedImage grayImage = toGrayscale(image);
-        
-        // 2. 增强对比度
-        BufferedImage enhancedImage = enhanceContrast(grayImage);
-        
-        // 3. 去噪
-        BufferedImage denoisedImage = denoise(enhancedImage);
-        
-        // 4. 二值化
-        BufferedImage binarizedImage = binarize(denoisedImage);
-        
-        System.out.println(">>> 图片预处理完成");
-        return binarizedImage;
+        long startTime = System.currentTimeMillis();
+
+        int width = image.getWidth();
+        int height = image.getHeight();
+
+        // 1. 转换为灰度栅格（整条流水线中唯一的一次图片拷贝）
+        byte[] gray = toGrayBytes(image);
+
+        // 2. 对比度增强：直方图均衡化查找表
+        //    查找表单调不减，与中值滤波可交换，因此无需先生成均衡化后的中间图
+        int[] equalizeLut = buildEqualizeLut(histogram(gray), width * height);
+
+        // 3. 去噪：3x3 中值滤波，同时统计均衡化后的直方图供 Otsu 使用
+        byte[] median = new byte[gray.length];
+        int[] histogram = medianFilter(gray, median, width, height, equalizeLut);
+
+        // 4. 二值化：Otsu 阈值映射回原始灰度，直接写入位压缩的黑白图
+        int threshold = calculateOtsuThreshold(histogram);
+        boolean[] white = new boolean[256];
+        for (int i = 0; i < 256; i++) {
+            white[i] = equalizeLut[i] > threshold;
+        }
+        BufferedImage binarized = toBinaryImage(median, width, height, white);
+
+        System.out.println(">>> 图片预处理完成，耗时: " + (System.currentTimeMillis() - startTime) + "ms");
+        return binarized;
     }
-    
+
     @Override
     public BufferedImage autoRotate(BufferedImage image) {
         // 简单实现：检测图片方向并旋转
         // 实际项目中可以使用更复杂的算法
         return image;
     }
-    
+
     @Override
     public BufferedImage binarize(BufferedImage image) {
         int width = image.getWidth();
         int height = image.getHeight();
-        BufferedImage binarized = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_BINARY);
-        
-        // 使用Otsu算法计算最佳阈值
-        int threshold = calculateOtsuThreshold(image);
-        
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                int rgb = image.getRGB(x, y);
-                int gray = (rgb >> 16) & 0xFF; // 获取灰度值
-                
-                // 二值化：大于阈值为白色，小于阈值为黑色
-                int newRgb = gray > threshold ? 0xFFFFFF : 0x000000;
-                binarized.setRGB(x, y, newRgb);
-            }
+        byte[] gray = toGrayBytes(image);
+
+        // 使用Otsu算法计算最佳阈值：大于阈值为白色，小于阈值为黑色
+        int threshold = calculateOtsuThreshold(histogram(gray));
+        boolean[] white = new boolean[256];
+        for (int i = 0; i < 256; i++) {
+            white[i] = i > threshold;
         }
-        
-        return binarized;
+
+        return toBinaryImage(gray, width, height, white);
     }
-    
+
     @Override
     public BufferedImage denoise(BufferedImage image) {
         // 使用中值滤波去噪
         int width = image.getWidth();
         int height = image.getHeight();
-        BufferedImage denoised = new BufferedImage(width, height, image.getType());
-        
-        int radius = 1; // 滤波半径
-        
-        for (int y = radius; y < height - radius; y++) {
-            for (int x = radius; x < width - radius; x++) {
-                int[] pixels = new int[(2 * radius + 1) * (2 * radius + 1)];
-                int index = 0;
-                
-                // 收集邻域像素
-                for (int dy = -radius; dy <= radius; dy++) {
-                    for (int dx = -radius; dx <= radius; dx++) {
-                        int rgb = image.getRGB(x + dx, y + dy);
-                        pixels[index++] = (rgb >> 16) & 0xFF; // 灰度值
-                    }
-                }
-                
-                // 排序并取中值
-                java.util.Arrays.sort(pixels);
-                int median = pixels[pixels.length / 2];
-                
-                int newRgb = (median << 16) | (median << 8) | median;
-                denoised.setRGB(x, y, newRgb);
-            }
-        }
-        
-        return denoised;
+        byte[] gray = toGrayBytes(image);
+
+        byte[] denoised = new byte[gray.length];
+        medianFilter(gray, denoised, width, height, null);
+
+        return toGrayImage(denoised, width, height);
     }
-    
+
     @Override
     public BufferedImage enhanceContrast(BufferedImage image) {
         int width = image.getWidth();
         int height = image.getHeight();
-        BufferedImage enhanced = new BufferedImage(width, height, image.getType());
-        
-        // 计算直方图
-        int[] histogram = new int[256];
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                int rgb = image.getRGB(x, y);
-                int gray = (rgb >> 16) & 0xFF;
-                histogram[gray]++;
-            }
-        }
-        
+        byte[] gray = toGrayBytes(image);
+
         // 直方图均衡化
-        int[] cdf = new int[256];
-        cdf[0] = histogram[0];
-        for (int i = 1; i < 256; i++) {
-            cdf[i] = cdf[i - 1] + histogram[i];
-        }
-        
-        int totalPixels = width * height;
-        int[] equalized = new int[256];
-        for (int i = 0; i < 256; i++) {
-            equalized[i] = (int) ((cdf[i] * 255.0) / totalPixels);
-        }
-        
-        // 应用均衡化
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                int rgb = image.getRGB(x, y);
-                int gray = (rgb >> 16) & 0xFF;
-                int newGray = equalized[gray];
-                int newRgb = (newGray << 16) | (newGray << 8) | newGray;
-                enhanced.setRGB(x, y, newRgb);
+        int[] equalizeLut = buildEqualizeLut(histogram(gray), width * height);
+
+        BufferedImage enhanced = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        byte[] out = ((DataBufferByte) enhanced.getRaster().getDataBuffer()).getData();
+        forEachBand(height, (y0, y1) -> {
+            for (int i = y0 * width, end = y1 * width; i < end; i++) {
+                out[i] = (byte) equalizeLut[gray[i] & 0xFF];
             }
-        }
-        
+        });
+
         return enhanced;
     }
-    
+
     /**
-     * 转换为灰度图
+     * 转换为灰度栅格（每像素一个字节，按行连续存放）
+     * 已经是无填充的 TYPE_BYTE_GRAY 时直接复用其数据，不做拷贝
      */
-    private BufferedImage toGrayscale(BufferedImage image) {
+    private byte[] toGrayBytes(BufferedImage image) {
         int width = image.getWidth();
         int height = image.getHeight();
+
+        if (image.getType() == BufferedImage.TYPE_BYTE_GRAY
+                && image.getRaster().getDataBuffer() instanceof DataBufferByte buffer
+                && buffer.getNumBanks() == 1
+                && buffer.getOffset() == 0
+                && buffer.getData().length == width * height
+                && image.getRaster().getSampleModelTranslateX() == 0
+                && image.getRaster().getSampleModelTranslateY() == 0) {
+            return buffer.getData();
+        }
+
         BufferedImage gray = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
-        
         Graphics2D g = gray.createGraphics();
         g.drawImage(image, 0, 0, null);
         g.dispose();
-        
-        return gray;
+
+        return ((DataBufferByte) gray.getRaster().getDataBuffer()).getData();
     }
-    
+
     /**
-     * 使用Otsu算法计算最佳二值化阈值
+     * 把灰度栅格包装为 TYPE_BYTE_GRAY 图片
      */
-    private int calculateOtsuThreshold(BufferedImage image) {
-        int width = image.getWidth();
-        int height = image.getHeight();
-        
-        // 计算直方图
+    private BufferedImage toGrayImage(byte[] pixels, int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        byte[] data = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        System.arraycopy(pixels, 0, data, 0, pixels.length);
+        return image;
+    }
+
+    /**
+     * 按查找表把灰度栅格写成 TYPE_BYTE_BINARY 黑白图（每字节 8 像素，高位在前，1 为白色）
+     */
+    private BufferedImage toBinaryImage(byte[] pixels, int width, int height, boolean[] white) {
+        BufferedImage binarized = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_BINARY);
+        byte[] packed = ((DataBufferByte) binarized.getRaster().getDataBuffer()).getData();
+        int stride = (width + 7) / 8;
+
+        forEachBand(height, (y0, y1) -> {
+            for (int y = y0; y < y1; y++) {
+                int src = y * width;
+                int dst = y * stride;
+                for (int x = 0; x < width; x += 8) {
+                    int bits = 0;
+                    int n = Math.min(8, width - x);
+                    for (int b = 0; b < n; b++) {
+                        if (white[pixels[src + x + b] & 0xFF]) {
+                            bits |= 0x80 >>> b;
+                        }
+                    }
+                    packed[dst + (x >>> 3)] = (byte) bits;
+                }
+            }
+        });
+
+        return binarized;
+    }
+
+    /**
+     * 3x3 中值滤波（边缘像素按就近复制处理）
+     *
+     * @param lut 非空时，同时按 lut 映射后的灰度统计直方图并返回
+     */
+    private int[] medianFilter(byte[] src, byte[] dst, int width, int height, int[] lut) {
+        int bands = (height + BAND_HEIGHT - 1) / BAND_HEIGHT;
+        int[][] bandHistograms = lut != null ? new int[bands][256] : null;
+
+        forEachBand(height, (y0, y1) -> {
+            int[] hist = lut != null ? bandHistograms[y0 / BAND_HEIGHT] : null;
+            for (int y = y0; y < y1; y++) {
+                int above = Math.max(y - 1, 0) * width;
+                int row = y * width;
+                int below = Math.min(y + 1, height - 1) * width;
+                for (int x = 0; x < width; x++) {
+                    int left = x > 0 ? x - 1 : 0;
+                    int right = x < width - 1 ? x + 1 : width - 1;
+                    int median = median9(
+                            src[above + left] & 0xFF, src[above + x] & 0xFF, src[above + right] & 0xFF,
+                            src[row + left] & 0xFF, src[row + x] & 0xFF, src[row + right] & 0xFF,
+                            src[below + left] & 0xFF, src[below + x] & 0xFF, src[below + right] & 0xFF);
+                    dst[row + x] = (byte) median;
+                    if (hist != null) {
+                        hist[lut[median]]++;
+                    }
+                }
+            }
+        });
+
+        if (lut == null) {
+            return null;
+        }
+        int[] histogram = new int[256];
+        for (int[] bandHistogram : bandHistograms) {
+            for (int i = 0; i < 256; i++) {
+                histogram[i] += bandHistogram[i];
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * 9 个数取中值的排序网络（19 次比较交换，无分支数组分配）
+     */
+    private static int median9(int p0, int p1, int p2, int p3, int p4, int p5, int p6, int p7, int p8) {
+        int t;
+        if (p1 > p2) { t = p1; p1 = p2; p2 = t; }
+        if (p4 > p5) { t = p4; p4 = p5; p5 = t; }
+        if (p7 > p8) { t = p7; p7 = p8; p8 = t; }
+        if (p0 > p1) { t = p0; p0 = p1; p1 = t; }
+        if (p3 > p4) { t = p3; p3 = p4; p4 = t; }
+        if (p6 > p7) { t = p6; p6 = p7; p7 = t; }
+        if (p1 > p2) { t = p1; p1 = p2; p2 = t; }
+        if (p4 > p5) { t = p4; p4 = p5; p5 = t; }
+        if (p7 > p8) { t = p7; p7 = p8; p8 = t; }
+        if (p0 > p3) { p3 = p0; }
+        if (p5 > p8) { p5 = p8; }
+        if (p4 > p7) { t = p4; p4 = p7; p7 = t; }
+        if (p3 > p6) { p6 = p3; }
+        if (p1 > p4) { p4 = p1; }
+        if (p2 > p5) { p2 = p5; }
+        if (p4 > p7) { p4 = p7; }
+        if (p4 > p2) { t = p4; p4 = p2; p2 = t; }
+        if (p6 > p4) { p4 = p6; }
+        if (p4 > p2) { p4 = p2; }
+        return p4;
+    }
+
+    /**
+     * 并行统计灰度直方图
+     */
+    private int[] histogram(byte[] gray) {
+        int chunk = 1 << 18;
+        int chunks = (gray.length + chunk - 1) / chunk;
+        int[][] partial = new int[Math.max(chunks, 1)][256];
+
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            int[] hist = partial[c];
+            for (int i = c * chunk, end = Math.min(gray.length, i + chunk); i < end; i++) {
+                hist[gray[i] & 0xFF]++;
+            }
+        });
+
         int[] histogram = new int[256];
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                int rgb = image.getRGB(x, y);
-                int gray = (rgb >> 16) & 0xFF;
-                histogram[gray]++;
+        for (int[] hist : partial) {
+            for (int i = 0; i < 256; i++) {
+                histogram[i] += hist[i];
             }
         }
-        
-        int total = width * height;
-        float sum = 0;
+        return histogram;
+    }
+
+    /**
+     * 由直方图生成均衡化查找表
+     */
+    private int[] buildEqualizeLut(int[] histogram, int totalPixels) {
+        int[] equalized = new int[256];
+        long cdf = 0;
+        for (int i = 0; i < 256; i++) {
+            cdf += histogram[i];
+            equalized[i] = (int) ((cdf * 255.0) / totalPixels);
+        }
+        return equalized;
+    }
+
+    /**
+     * 按 BAND_HEIGHT 行一组并行处理 [y0, y1) 行区间
+     */
+    private void forEachBand(int height, BandTask task) {
+        int bands = (height + BAND_HEIGHT - 1) / BAND_HEIGHT;
+        IntStream.range(0, bands).parallel().forEach(band -> {
+            int y0 = band * BAND_HEIGHT;
+            task.run(y0, Math.min(height, y0 + BAND_HEIGHT));
+        });
+    }
+
+    @FunctionalInterface
+    private interface BandTask {
+        void run(int y0, int y1);
+    }
+
+    /**
+     * 使用Otsu算法计算最佳二值化阈值
+     */
+    private int calculateOtsuThreshold(int[] histogram) {
+        long total = 0;
+        double sum = 0;
         for (int i = 0; i < 256; i++) {
-            sum += i * histogram[i];
+            total += histogram[i];
+            sum += (double) i * histogram[i];
         }
-        
-        float sumB = 0;
-        int wB = 0;
-        int wF = 0;
-        float maxVariance = 0;
+
+        double sumB = 0;
+        long wB = 0;
+        long wF;
+        double maxVariance = 0;
         int threshold = 0;
-        
+
         for (int i = 0; i < 256; i++) {
             wB += histogram[i];
             if (wB == 0) continue;
-            
+
             wF = total - wB;
             if (wF == 0) break;
-            
-            sumB += i * histogram[i];
-            float mB = sumB / wB;
-            float mF = (sum - sumB) / wF;
-            
-            float variance = wB * wF * (mB - mF) * (mB - mF);
-            
+
+            sumB += (double) i * histogram[i];
+            double mB = sumB / wB;
+            double mF = (sum - sumB) / wF;
+
+            double variance = (double) wB * wF * (mB - mF) * (mB - mF);
+
             if (variance > maxVariance) {
                 maxVariance = variance;
                 threshold = i;
             }
         }
-        
+
         return threshold;
     }
 }
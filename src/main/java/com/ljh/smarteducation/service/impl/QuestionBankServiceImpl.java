@@ -3,12 +3,15 @@ package com.ljh.smarteducation.service.impl;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ljh.smarteducation.dto.QuestionSummary;
+import com.ljh.smarteducation.event.QuestionBankChangedEvent;
 import com.ljh.smarteducation.entity.ApiUsageLog;
 import com.ljh.smarteducation.entity.Question;
 import com.ljh.smarteducation.entity.QuestionSet; // 1. (新增) 导入
-import com.ljh.smarteducation.repository.ApiUsageLogRepository;
 import com.ljh.smarteducation.repository.QuestionBankRepository;
+import com.ljh.smarteducation.repository.QuestionBatchRepository;
 import com.ljh.smarteducation.repository.QuestionSetRepository; // 2. (新增) 导入
+import com.ljh.smarteducation.service.ApiUsageService;
 import com.ljh.smarteducation.service.LlmService;
 import com.ljh.smarteducation.service.QuestionBankService;
 import com.ljh.smarteducation.service.DocumentParserService;
@@ -16,12 +19,15 @@ import com.ljh.smarteducation.service.DocumentSegmentService;
 import com.ljh.smarteducation.service.TextExtractionResult;
 import com.ljh.smarteducation.service.TextExtractionService;
 import com.ljh.smarteducation.util.TokenUsageHolder;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -37,23 +43,29 @@ public class QuestionBankServiceImpl implements QuestionBankService {
 
     // --- ↓↓↓ 3. (新增) 注入套题仓库 ↓↓↓ ---
     private final QuestionSetRepository questionSetRepository;
-    private final ApiUsageLogRepository apiUsageLogRepository;
+    private final ApiUsageService apiUsageService;
     private final TextExtractionService textExtractionService;
+    private final QuestionBatchRepository questionBatchRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     public QuestionBankServiceImpl(DocumentParserService documentParserService, LlmService llmService,
             QuestionBankRepository questionRepository, ObjectMapper objectMapper,
             DocumentSegmentService documentSegmentService,
             QuestionSetRepository questionSetRepository,
-            ApiUsageLogRepository apiUsageLogRepository,
-            TextExtractionService textExtractionService) { // 4. (新增)
+            ApiUsageService apiUsageService,
+            TextExtractionService textExtractionService,
+            QuestionBatchRepository questionBatchRepository,
+            ApplicationEventPublisher eventPublisher) { // 4. (新增)
         this.documentParserService = documentParserService;
         this.llmService = llmService;
         this.questionRepository = questionRepository;
         this.objectMapper = objectMapper;
         this.documentSegmentService = documentSegmentService;
         this.questionSetRepository = questionSetRepository; // 5. (新增)
-        this.apiUsageLogRepository = apiUsageLogRepository;
+        this.apiUsageService = apiUsageService;
         this.textExtractionService = textExtractionService;
+        this.questionBatchRepository = questionBatchRepository;
+        this.eventPublisher = eventPublisher;
     }
     // --- ↑↑↑ 3, 4, 5 修改结束 ↑↑↑ ---
 
@@ -191,6 +203,7 @@ public class QuestionBankServiceImpl implements QuestionBankService {
             }
 
             int questionsSaved = 0;
+            List<Question> pendingQuestions = new ArrayList<>(questionMaps.size());
             // --- ↓↓↓ 7. (核心修改) 使用带索引的循环 ↓↓↓ ---
             for (int i = 0; i < questionMaps.size(); i++) {
                 Map<String, Object> questionMap = questionMaps.get(i);
@@ -223,9 +236,12 @@ public class QuestionBankServiceImpl implements QuestionBankService {
                 }
                 // --- ↑↑↑ 8. 修改结束 ↑↑↑ ---
 
-                questionRepository.save(questionEntity);
+                pendingQuestions.add(questionEntity);
                 questionsSaved++;
             }
+            // 整套题一次批量写入
+            questionBatchRepository.insertAll(pendingQuestions);
+            eventPublisher.publishEvent(QuestionBankChangedEvent.of(savedSet.getId()));
 
             if (questionsSaved == 0) {
                 // (保持不变)
@@ -277,6 +293,7 @@ public class QuestionBankServiceImpl implements QuestionBankService {
     public Question updateQuestion(Long id, Question questionDetails) {
         Question existingQuestion = questionRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Question not found with id: " + id));
+        Long previousSetId = setIdOf(existingQuestion);
 
         // (省略... 保持不变)
         existingQuestion.setSubject(questionDetails.getSubject());
@@ -286,16 +303,24 @@ public class QuestionBankServiceImpl implements QuestionBankService {
         existingQuestion.setQuestionSet(questionDetails.getQuestionSet()); // (确保更新也保存关联)
         existingQuestion.setSequenceNumber(questionDetails.getSequenceNumber()); // (确保更新也保存序号)
 
-        return questionRepository.save(existingQuestion);
+        // 题目可能被移到另一套题，原套题和新套题的缓存都要失效
+        Question saved = questionRepository.save(existingQuestion);
+        eventPublisher.publishEvent(QuestionBankChangedEvent.of(previousSetId, setIdOf(saved)));
+        return saved;
     }
 
     // (保持不变)
     @Override
     public void deleteQuestion(Long id) {
-        if (!questionRepository.existsById(id)) {
-            throw new RuntimeException("Question not found with id: " + id);
-        }
-        questionRepository.deleteById(id);
+        Question question = questionRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Question not found with id: " + id));
+        questionRepository.delete(question);
+        eventPublisher.publishEvent(QuestionBankChangedEvent.of(setIdOf(question)));
+    }
+
+    private static Long setIdOf(Question question) {
+        // 懒加载代理上取 ID 不会触发查询
+        return question.getQuestionSet() != null ? question.getQuestionSet().getId() : null;
     }
 
     // --- ↓↓↓ 9. (新增) 实现新接口 ↓↓↓ ---
@@ -308,6 +333,36 @@ public class QuestionBankServiceImpl implements QuestionBankService {
     public List<Question> getQuestionsBySetId(Long setId) {
         return questionRepository.findByQuestionSetIdOrderBySequenceNumberAsc(setId);
     }
+
+    @Override
+    public List<QuestionSummary> listQuestionSummaries(Long afterId, int limit, String subject, Long setId,
+                                                       String questionType, String validationStatus) {
+        return questionRepository.findSummariesAfter(afterId != null ? afterId : 0L, blankToNull(subject), setId,
+                blankToNull(questionType), blankToNull(validationStatus), limit);
+    }
+
+    @Override
+    public List<Question> getQuestionsBySetIdAndType(Long setId, String questionType) {
+        return questionRepository.findByQuestionSetIdAndQuestionTypeOrderBySequenceNumberAsc(setId, questionType);
+    }
+
+    @Override
+    public Map<String, Long> countQuestionsByType() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Object[] row : questionRepository.countByQuestionType()) {
+            counts.put(row[0] != null ? (String) row[0] : "UNKNOWN", (Long) row[1]);
+        }
+        return counts;
+    }
+
+    @Override
+    public int backfillContentColumns() {
+        return questionBatchRepository.backfillContentColumns();
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
     // --- ↑↑↑ 9. 新增结束 ↑↑↑ ---
 
     /**
@@ -353,7 +408,7 @@ public class QuestionBankServiceImpl implements QuestionBankService {
                 }
             }
 
-            apiUsageLogRepository.save(log);
+            apiUsageService.record(log);
             System.out.println("✅ API 使用日志已保存到数据库");
 
         } catch (Exception e) {
@@ -960,6 +1015,7 @@ private void applyAnswerAndCleanQuestion(Map<String, Object> questionMap) {
         // 3. 逐段处理
         int totalQuestionsSaved = 0;
         int globalSequenceNumber = 1; // 全局题号
+        List<Question> pendingQuestions = new ArrayList<>(); // 各段的题目汇总后一次批量写入
 
         for (int segmentIndex = 0; segmentIndex < segments.size(); segmentIndex++) {
             String segment = segments.get(segmentIndex);
@@ -1009,11 +1065,11 @@ private void applyAnswerAndCleanQuestion(Map<String, Object> questionMap) {
                     questionEntity.setQuestionSet(savedSet);
                     questionEntity.setSequenceNumber(globalSequenceNumber++); // 使用全局序号
 
-                    questionRepository.save(questionEntity);
+                    pendingQuestions.add(questionEntity);
                     totalQuestionsSaved++;
                 }
 
-                System.out.println(">>> 第 " + (segmentIndex + 1) + " 段处理完成，已保存 " + questionMaps.size() + " 道题");
+                System.out.println(">>> 第 " + (segmentIndex + 1) + " 段处理完成，已解析 " + questionMaps.size() + " 道题");
 
             } catch (Exception e) {
                 System.err.println(">>> 错误：第 " + (segmentIndex + 1) + " 段处理失败: " + e.getMessage());
@@ -1022,6 +1078,9 @@ private void applyAnswerAndCleanQuestion(Map<String, Object> questionMap) {
             }
         }
 
+        questionBatchRepository.insertAll(pendingQuestions);
+        eventPublisher.publishEvent(QuestionBankChangedEvent.of(savedSet.getId()));
+
         // 4. 保存API使用记录
         TokenUsageHolder.TokenUsage tokenUsage = TokenUsageHolder.get();
         if (tokenUsage != null) {
@@ -1036,7 +1095,7 @@ private void applyAnswerAndCleanQuestion(Map<String, Object> questionMap) {
             log.setDurationMs(tokenUsage.getDurationMs());
             log.setQuestionCount(totalQuestionsSaved);
             log.setSuccess(true);
-            apiUsageLogRepository.save(log);
+            apiUsageService.record(log);
         }
 
         System.out.println("\n━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
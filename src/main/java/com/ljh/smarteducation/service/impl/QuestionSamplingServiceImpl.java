@@ -0,0 +1,135 @@
+package com.ljh.smarteducation.service.impl;
+
+import com.ljh.smarteducation.entity.Question;
+import com.ljh.smarteducation.event.QuestionBankChangedEvent;
+import com.ljh.smarteducation.repository.QuestionBankRepository;
+import com.ljh.smarteducation.repository.QuestionIndexRepository;
+import com.ljh.smarteducation.service.QuestionIdIndex;
+import com.ljh.smarteducation.service.QuestionSamplingService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 随机抽题服务实现
+ *
+ * 内存中维护题目 ID 索引（定期或在题库变化后重建），抽题时先在索引中选出 ID，
+ * 再用一次 findAllById 取回这几行。首次使用时同步构建；之后索引过期时在 taskExecutor 上后台重建，
+ * 重建期间所有请求继续使用旧索引。
+ */
+@Slf4j
+@Service
+public class QuestionSamplingServiceImpl implements QuestionSamplingService {
+
+    private final QuestionBankRepository questionRepository;
+    private final QuestionIndexRepository questionIndexRepository;
+    private final Executor taskExecutor;
+    private final long refreshNanos;
+
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private volatile Snapshot snapshot;
+    private volatile long invalidatedAt = Long.MIN_VALUE;
+
+    public QuestionSamplingServiceImpl(QuestionBankRepository questionRepository,
+                                       QuestionIndexRepository questionIndexRepository,
+                                       @Qualifier("taskExecutor") Executor taskExecutor,
+                                       @Value("${practice.sampling.refresh-seconds:300}") long refreshSeconds) {
+        this.questionRepository = questionRepository;
+        this.questionIndexRepository = questionIndexRepository;
+        this.taskExecutor = taskExecutor;
+        this.refreshNanos = refreshSeconds * 1_000_000_000L;
+    }
+
+    @Override
+    public List<Question> sample(int count, String subject, String questionType, String difficulty,
+                                 boolean stratified) {
+        List<Long> ids = currentIndex().sample(subject, questionType, difficulty, count, stratified,
+                ThreadLocalRandom.current());
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        // 按抽中的顺序返回；索引重建前被删除的题目直接跳过
+        Map<Long, Question> byId = new HashMap<>();
+        for (Question question : questionRepository.findAllById(ids)) {
+            byId.put(question.getId(), question);
+        }
+        List<Question> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Question question = byId.get(id);
+            if (question != null) {
+                result.add(question);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 题目新增、修改或删除后标记索引过期；在事务提交后执行，保证重建时读到已提交的数据
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onQuestionBankChanged(QuestionBankChangedEvent event) {
+        invalidatedAt = System.nanoTime();
+    }
+
+    private QuestionIdIndex currentIndex() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    snapshot = load();
+                }
+                return snapshot.index();
+            }
+        }
+        if (isStale(current) && refreshing.compareAndSet(false, true)) {
+            try {
+                taskExecutor.execute(this::refresh);
+            } catch (RejectedExecutionException e) {
+                refreshing.set(false);
+                log.warn("抽题索引后台重建被拒绝，继续使用旧索引: {}", e.getMessage());
+            }
+        }
+        return current.index();
+    }
+
+    private void refresh() {
+        try {
+            snapshot = load();
+        } catch (RuntimeException e) {
+            log.warn("抽题索引重建失败，继续使用旧索引: {}", e.getMessage());
+        } finally {
+            refreshing.set(false);
+        }
+    }
+
+    private boolean isStale(Snapshot current) {
+        return current.loadedAt() <= invalidatedAt || System.nanoTime() - current.loadedAt() > refreshNanos;
+    }
+
+    private Snapshot load() {
+        long start = System.nanoTime();
+        QuestionIdIndex.Builder builder = QuestionIdIndex.builder();
+        questionIndexRepository.forEachIndexRow(builder::add);
+        QuestionIdIndex index = builder.build();
+        log.info("抽题索引已重建：{} 道题，{} 个分层，耗时 {} ms", index.size(), index.strataCount(),
+                (System.nanoTime() - start) / 1_000_000);
+        return new Snapshot(index, start);
+    }
+
+    private record Snapshot(QuestionIdIndex index, long loadedAt) {
+    }
+}
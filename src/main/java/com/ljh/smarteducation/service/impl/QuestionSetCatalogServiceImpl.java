@@ -0,0 +1,56 @@
+package com.ljh.smarteducation.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ljh.smarteducation.dto.QuestionSetSummaryDto;
+import com.ljh.smarteducation.event.QuestionBankChangedEvent;
+import com.ljh.smarteducation.repository.QuestionSetRepository;
+import com.ljh.smarteducation.service.QuestionSetCatalogService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+
+/**
+ * 套题列表服务实现
+ *
+ * 按 (学科, 页码, 每页大小) 缓存查询结果；缓存时间很短，数据变更时整体失效。
+ */
+@Service
+public class QuestionSetCatalogServiceImpl implements QuestionSetCatalogService {
+
+    private final QuestionSetRepository questionSetRepository;
+    private final Cache<PageKey, Page<QuestionSetSummaryDto>> cache;
+
+    public QuestionSetCatalogServiceImpl(QuestionSetRepository questionSetRepository,
+                                         @Value("${cache.set-catalog.ttl-seconds:30}") long ttlSeconds,
+                                         @Value("${cache.set-catalog.max-entries:1000}") long maxEntries) {
+        this.questionSetRepository = questionSetRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    @Override
+    public Page<QuestionSetSummaryDto> listSets(String subject, int page, int size) {
+        String normalizedSubject = subject == null || subject.isBlank() ? null : subject;
+        return cache.get(new PageKey(normalizedSubject, page, size),
+                key -> questionSetRepository.findSummaries(key.subject(), PageRequest.of(key.page(), key.size())));
+    }
+
+    /**
+     * 套题新增、删除或题目变更后清空目录缓存；在事务提交后执行，避免提交前的并发读取把旧数据重新缓存
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onQuestionBankChanged(QuestionBankChangedEvent event) {
+        cache.invalidateAll();
+    }
+
+    private record PageKey(String subject, int page, int size) {
+    }
+}
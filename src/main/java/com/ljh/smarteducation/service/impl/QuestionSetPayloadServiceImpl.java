@@ -0,0 +1,202 @@
+package com.ljh.smarteducation.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.ljh.smarteducation.dto.QuestionSetDetailDto;
+import com.ljh.smarteducation.dto.ResourceFileDto;
+import com.ljh.smarteducation.entity.QuestionSet;
+import com.ljh.smarteducation.entity.ResourceFile;
+import com.ljh.smarteducation.event.QuestionBankChangedEvent;
+import com.ljh.smarteducation.repository.QuestionBankRepository;
+import com.ljh.smarteducation.repository.QuestionSetRepository;
+import com.ljh.smarteducation.service.QuestionSetPayloadService;
+import com.ljh.smarteducation.service.SignedUrlService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 套题详情响应体缓存实现
+ *
+ * 同一套题并发未命中时只构建一次（Caffeine 按 key 加锁）。构建在只读事务中进行，以便序列化懒加载的关联；
+ * 构建期间若套题被失效（版本号变化），构建结果用过一次后即从缓存移除。
+ * 响应中的音频签名链接有有效期，缓存的存活时间必须短于链接有效期。
+ */
+@Service
+public class QuestionSetPayloadServiceImpl implements QuestionSetPayloadService {
+
+    private final QuestionBankRepository questionRepository;
+    private final QuestionSetRepository questionSetRepository;
+    private final SignedUrlService signedUrlService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Cache<Long, Payload> cache;
+    /**
+     * 套题版本号，只需在构建期间保持不变；长时间没有变更的套题条目过期后版本号从 0 重新开始
+     */
+    private final Cache<Long, AtomicLong> versions;
+    private final LongAdder builds = new LongAdder();
+    private final LongAdder buildNanos = new LongAdder();
+    private final LongAdder rawBytes = new LongAdder();
+    private final LongAdder gzipBytes = new LongAdder();
+
+    public QuestionSetPayloadServiceImpl(QuestionBankRepository questionRepository,
+                                         QuestionSetRepository questionSetRepository,
+                                         SignedUrlService signedUrlService,
+                                         ObjectMapper objectMapper,
+                                         PlatformTransactionManager transactionManager,
+                                         @Value("${cache.set-detail.max-bytes:33554432}") long maxBytes,
+                                         @Value("${cache.set-detail.ttl-minutes:60}") long ttlMinutes) {
+        this.questionRepository = questionRepository;
+        this.questionSetRepository = questionSetRepository;
+        this.signedUrlService = signedUrlService;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Long setId, Payload payload) -> payload.gzip().length + 128)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .build();
+        this.versions = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofMinutes(ttlMinutes))
+                .build();
+    }
+
+    @Override
+    public Optional<Payload> getPayload(Long questionSetId) {
+        Payload payload = cache.get(questionSetId, this::build);
+        if (payload != null && payload.version() != currentVersion(questionSetId)) {
+            // 构建期间发生了变更，本次仍返回构建结果，下次请求重新构建
+            cache.asMap().remove(questionSetId, payload);
+        }
+        return Optional.ofNullable(payload);
+    }
+
+    /**
+     * 套题或其题目变更后使缓存的载荷失效；在事务提交后执行，提升版本号让构建中的旧载荷不被缓存
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onQuestionBankChanged(QuestionBankChangedEvent event) {
+        event.questionSetIds().forEach(this::bump);
+    }
+
+    @Override
+    public List<Payload> warmUp(Collection<Long> questionSetIds) {
+        List<Payload> payloads = new ArrayList<>(questionSetIds.size());
+        for (Long questionSetId : questionSetIds) {
+            if (questionSetId != null) {
+                getPayload(questionSetId).ifPresent(payloads::add);
+            }
+        }
+        return payloads;
+    }
+
+    @Override
+    public Map<String, Object> getStatistics() {
+        CacheStats cacheStats = cache.stats();
+        long buildCount = builds.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hits", cacheStats.hitCount());
+        stats.put("misses", cacheStats.missCount());
+        stats.put("hitRate", cacheStats.hitRate());
+        stats.put("evictions", cacheStats.evictionCount());
+        stats.put("entries", cache.estimatedSize());
+        stats.put("builds", buildCount);
+        stats.put("avgBuildMs", buildCount == 0 ? 0.0 : buildNanos.sum() / 1e6 / buildCount);
+        stats.put("compressionRatio", rawBytes.sum() == 0 ? 0.0 : (double) gzipBytes.sum() / rawBytes.sum());
+        return stats;
+    }
+
+    private void bump(Long questionSetId) {
+        versions.get(questionSetId, id -> new AtomicLong()).incrementAndGet();
+        cache.invalidate(questionSetId);
+    }
+
+    private long currentVersion(Long questionSetId) {
+        AtomicLong version = versions.getIfPresent(questionSetId);
+        return version != null ? version.get() : 0L;
+    }
+
+    private Payload build(Long questionSetId) {
+        long start = System.nanoTime();
+        long version = currentVersion(questionSetId);
+        byte[] json = readOnlyTransaction.execute(status -> {
+            QuestionSet questionSet = questionSetRepository.findById(questionSetId).orElse(null);
+            if (questionSet == null) {
+                return null;
+            }
+            QuestionSetDetailDto dto = new QuestionSetDetailDto();
+            dto.setQuestions(questionRepository.findByQuestionSetIdOrderBySequenceNumberAsc(questionSetId));
+            ResourceFile resourceFile = questionSet.getResourceFile();
+            if (resourceFile != null) {
+                ResourceFileDto fileDto = new ResourceFileDto();
+                fileDto.setId(resourceFile.getId());
+                fileDto.setFileName(resourceFile.getFileName());
+                fileDto.setFileType(resourceFile.getFileType());
+                fileDto.setFileSize(resourceFile.getFileSize());
+                fileDto.setUrl(signedUrlService.signedUrl(resourceFile));
+                dto.setResourceFile(fileDto);
+            }
+            try {
+                return objectMapper.writeValueAsBytes(dto);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Failed to serialize question set " + questionSetId, e);
+            }
+        });
+        if (json == null) {
+            // 套题不存在时不缓存，避免以后创建同 ID 的套题时读到空结果
+            return null;
+        }
+
+        byte[] gzip = gzip(json);
+        buildNanos.add(System.nanoTime() - start);
+        builds.increment();
+        rawBytes.add(json.length);
+        gzipBytes.add(gzip.length);
+        return new Payload(questionSetId, version, etagOf(json), gzip, json.length);
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(data.length / 4 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+            out.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static String etagOf(byte[] json) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package com.ljh.smarteducation.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ljh.smarteducation.entity.StudentSubmission;
+import com.ljh.smarteducation.entity.User;
+import com.ljh.smarteducation.event.UserChangedEvent;
+import com.ljh.smarteducation.repository.QuestionSetRepository;
+import com.ljh.smarteducation.repository.StudentSubmissionRepository;
+import com.ljh.smarteducation.repository.SubmissionBatchRepository;
+import com.ljh.smarteducation.service.DashboardCounterService;
+import com.ljh.smarteducation.service.SubmissionIntakeService;
+import com.ljh.smarteducation.service.SubmissionJournal;
+import com.ljh.smarteducation.service.UserService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 答卷入库服务实现
+ *
+ * 考试结束时大量答卷在几秒内集中提交。写后模式下请求线程只做内存批改和一次日志追加写，
+ * 后台线程每隔 flush-interval-ms 轮换日志分段并批量写库，写库成功后删除分段；
+ * 整批写库失败时逐条重试：数据错误（外键、非空、超长等）的答卷转入死信文件，其余答卷照常入库，
+ * 不让一份坏答卷阻塞后续分段；数据库不可用等其他错误时分段保留在内存和磁盘上，下一轮重试。
+ * 启动时先重放上次残留的分段。
+ */
+@Slf4j
+@Service
+public class SubmissionIntakeServiceImpl implements SubmissionIntakeService {
+
+    private final SubmissionBatchRepository batchRepository;
+    private final StudentSubmissionRepository submissionRepository;
+    private final QuestionSetRepository questionSetRepository;
+    private final UserService userService;
+    private final DashboardCounterService dashboardCounters;
+    private final ObjectMapper objectMapper;
+
+    private final boolean writeBehind;
+    private final Path journalDirectory;
+    private final boolean fsync;
+    private final long flushIntervalMs;
+    private final long maxPending;
+
+    /**
+     * 用户名到用户 ID 的缓存，提交时不必每次查询用户表；用户变更时由 UserChangedEvent 失效
+     */
+    private final Cache<String, Long> userIds = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .expireAfterAccess(Duration.ofMinutes(30))
+            .build();
+
+    private SubmissionJournal journal;
+    private ScheduledExecutorService writer;
+    private final Deque<SubmissionJournal.Segment> unflushed = new ArrayDeque<>();
+    private final Object flushLock = new Object();
+
+    private final AtomicLong pending = new AtomicLong();
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder synchronous = new LongAdder();
+    private final LongAdder replayed = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder failedFlushes = new LongAdder();
+    private final LongAdder deadLettered = new LongAdder();
+    private final LongAdder flushNanos = new LongAdder();
+    private volatile long lastFlushNanos;
+    private volatile long maxFlushNanos;
+
+    public SubmissionIntakeServiceImpl(SubmissionBatchRepository batchRepository,
+                                       StudentSubmissionRepository submissionRepository,
+                                       QuestionSetRepository questionSetRepository,
+                                       UserService userService,
+                                       DashboardCounterService dashboardCounters,
+                                       ObjectMapper objectMapper,
+                                       @Value("${submission.intake.write-behind:true}") boolean writeBehind,
+                                       @Value("${submission.intake.journal-dir:journal/submissions}") String journalDirectory,
+                                       @Value("${submission.intake.fsync:true}") boolean fsync,
+                                       @Value("${submission.intake.flush-interval-ms:200}") long flushIntervalMs,
+                                       @Value("${submission.intake.max-pending:20000}") long maxPending) {
+        this.batchRepository = batchRepository;
+        this.submissionRepository = submissionRepository;
+        this.questionSetRepository = questionSetRepository;
+        this.userService = userService;
+        this.dashboardCounters = dashboardCounters;
+        this.objectMapper = objectMapper;
+        this.writeBehind = writeBehind;
+        this.journalDirectory = Paths.get(journalDirectory).toAbsolutePath().normalize();
+        this.fsync = fsync;
+        this.flushIntervalMs = flushIntervalMs;
+        this.maxPending = maxPending;
+    }
+
+    @PostConstruct
+    void start() throws IOException {
+        if (!writeBehind) {
+            return;
+        }
+        journal = new SubmissionJournal(journalDirectory, objectMapper, fsync);
+        for (SubmissionJournal.Segment segment : journal.recover()) {
+            if (segment.entries().isEmpty()) {
+                journal.delete(segment);
+                continue;
+            }
+            unflushed.add(segment);
+            pending.addAndGet(segment.entries().size());
+            replayed.add(segment.entries().size());
+        }
+        if (!unflushed.isEmpty()) {
+            log.info("重放答卷日志 {} 份", replayed.sum());
+            flush();
+        }
+
+        writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "submission-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        writer.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() throws IOException {
+        if (writer == null) {
+            return;
+        }
+        writer.shutdown();
+        try {
+            writer.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        journal.close();
+    }
+
+    @Override
+    public void submit(String username, Long questionSetId, Map<String, String> answers, int score,
+                       int totalQuestions, boolean graded) {
+        Long userId = userIds.get(username, name -> userService.findByUsername(name).map(User::getId).orElse(null));
+        if (userId == null) {
+            throw new RuntimeException("User not found");
+        }
+        SubmissionJournal.Entry entry = new SubmissionJournal.Entry(UUID.randomUUID().toString(), userId, username,
+                questionSetId, answers, score, totalQuestions, graded, System.currentTimeMillis());
+
+        if (journal != null && pending.get() < maxPending) {
+            try {
+                journal.append(entry);
+                pending.incrementAndGet();
+                accepted.increment();
+                return;
+            } catch (IOException e) {
+                log.warn("答卷日志写入失败，改为同步保存: {}", e.getMessage());
+            }
+        }
+        saveNow(entry);
+    }
+
+    /**
+     * 用户被删除或改名后失效缓存的 ID，避免答卷记到已删除的用户或旧用户名上
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.username() != null) {
+            userIds.invalidate(event.username());
+        }
+        if (event.userId() != null) {
+            userIds.asMap().values().removeIf(event.userId()::equals);
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStatistics() {
+        long flushCount = flushes.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("writeBehind", journal != null);
+        stats.put("queueDepth", pending.get());
+        stats.put("maxPending", maxPending);
+        stats.put("accepted", accepted.sum());
+        stats.put("written", written.sum());
+        stats.put("synchronous", synchronous.sum());
+        stats.put("replayed", replayed.sum());
+        stats.put("flushes", flushCount);
+        stats.put("failedFlushes", failedFlushes.sum());
+        stats.put("deadLettered", deadLettered.sum());
+        stats.put("lastFlushMs", lastFlushNanos / 1e6);
+        stats.put("avgFlushMs", flushCount == 0 ? 0.0 : flushNanos.sum() / 1e6 / flushCount);
+        stats.put("maxFlushMs", maxFlushNanos / 1e6);
+        return stats;
+    }
+
+    /**
+     * 轮换当前分段并把所有未入库的分段写入数据库
+     */
+    void flush() {
+        synchronized (flushLock) {
+            try {
+                SubmissionJournal.Segment rotated = journal.rotate();
+                if (rotated != null) {
+                    unflushed.add(rotated);
+                }
+                while (!unflushed.isEmpty()) {
+                    SubmissionJournal.Segment segment = unflushed.peek();
+                    long start = System.nanoTime();
+                    List<SubmissionJournal.Entry> inserted = insertSegment(segment);
+                    long elapsed = System.nanoTime() - start;
+                    recordCounters(inserted);
+                    journal.delete(segment);
+                    unflushed.poll();
+
+                    int size = segment.entries().size();
+                    pending.addAndGet(-size);
+                    written.add(size);
+                    flushes.increment();
+                    flushNanos.add(elapsed);
+                    lastFlushNanos = elapsed;
+                    maxFlushNanos = Math.max(maxFlushNanos, elapsed);
+                }
+            } catch (Exception e) {
+                failedFlushes.increment();
+                log.error("答卷批量入库失败，{} 个分段待重试: {}", unflushed.size(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 整批写入一个分段；失败时逐条重试，数据错误的答卷转入死信文件。
+     * 逐条重试中遇到其他错误（如数据库不可用）时抛出，分段保留待下一轮重试（已入库的答卷重放时按 intakeId 跳过）
+     * @return 本次实际插入的答卷
+     */
+    private List<SubmissionJournal.Entry> insertSegment(SubmissionJournal.Segment segment) throws IOException {
+        try {
+            return batchRepository.insertAll(segment.entries());
+        } catch (DataIntegrityViolationException | IllegalArgumentException e) {
+            log.warn("答卷分段 {} 整批入库失败，逐条重试: {}", segment.path().getFileName(), e.getMessage());
+        }
+        List<SubmissionJournal.Entry> inserted = new ArrayList<>();
+        List<SubmissionJournal.Entry> rejected = new ArrayList<>();
+        for (SubmissionJournal.Entry entry : segment.entries()) {
+            try {
+                inserted.addAll(batchRepository.insertAll(List.of(entry)));
+            } catch (DataIntegrityViolationException | IllegalArgumentException e) {
+                log.error("答卷 {}（用户 {}）无法入库，转入死信文件: {}", entry.intakeId(), entry.username(), e.getMessage());
+                rejected.add(entry);
+            }
+        }
+        journal.deadLetter(rejected);
+        deadLettered.add(rejected.size());
+        return inserted;
+    }
+
+    private void saveNow(SubmissionJournal.Entry entry) {
+        StudentSubmission submission = new StudentSubmission();
+        submission.setUserId(entry.userId());
+        submission.setUsername(entry.username());
+        submission.setAnswers(entry.answers());
+        submission.setScore(entry.score());
+        submission.setTotalQuestions(entry.totalQuestions());
+        submission.setGraded(entry.graded());
+        submission.setIntakeId(entry.intakeId());
+        if (entry.questionSetId() != null) {
+            // 从数据库查找 QuestionSet 以确保关联的是一个受管实体
+            questionSetRepository.findById(entry.questionSetId()).ifPresent(submission::setQuestionSet);
+        }
+        submissionRepository.save(submission);
+        synchronous.increment();
+        dashboardCounters.submissionsRecorded(1, entry.graded() ? 0 : 1);
+    }
+
+    /**
+     * 更新仪表盘计数；重放时已入库的答卷不在 inserted 中，不会重复计数
+     */
+    private void recordCounters(List<SubmissionJournal.Entry> inserted) {
+        int ungraded = 0;
+        for (SubmissionJournal.Entry entry : inserted) {
+            if (!entry.graded()) {
+                ungraded++;
+            }
+        }
+        dashboardCounters.submissionsRecorded(inserted.size(), ungraded);
+    }
+}
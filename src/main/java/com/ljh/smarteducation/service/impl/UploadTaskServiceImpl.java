@@ -3,14 +3,13 @@ package com.ljh.smarteducation.service.impl;
 import com.ljh.smarteducation.entity.UploadTask;
 import com.ljh.smarteducation.repository.UploadTaskRepository;
 import com.ljh.smarteducation.service.QuestionBankService;
+import com.ljh.smarteducation.service.StoredUpload;
 import com.ljh.smarteducation.service.UploadTaskService;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -121,34 +120,23 @@ public class UploadTaskServiceImpl implements UploadTaskService {
     
     @Override
     @Async("taskExecutor")
-    public void processTaskAsync(String taskId, MultipartFile file, String subject) {
+    public void processTaskAsync(String taskId, StoredUpload upload, String subject) {
         System.out.println("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
         System.out.println("🚀 异步任务开始: " + taskId);
         System.out.println("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
         
-        File tempFile = null;
         try {
             // 标记为处理中
             markAsProcessing(taskId);
             
-            // ⚠️ 重要：MultipartFile在异步方法中可能失效，需要先保存到临时文件
-            tempFile = File.createTempFile("upload-", "-" + file.getOriginalFilename());
-            file.transferTo(tempFile);
-            System.out.println(">>> 文件已保存到临时位置: " + tempFile.getAbsolutePath());
-            
-            // 创建一个新的MultipartFile包装临时文件
-            MultipartFile tempMultipartFile = new org.springframework.mock.web.MockMultipartFile(
-                file.getName(),
-                file.getOriginalFilename(),
-                file.getContentType(),
-                new java.io.FileInputStream(tempFile)
-            );
+            // 文件已在请求线程中落盘（StoredUpload），这里直接使用，不再复制
+            System.out.println(">>> 使用已落盘的上传文件: " + upload.getPath() + " (MD5: " + upload.getMd5() + ")");
             
             // 更新进度：文档解析
             updateProgress(taskId, 10, "正在解析文档...");
             
             // 调用原有的导入逻辑
-            questionBankService.importQuestionsFromWord(tempMultipartFile, subject);
+            questionBankService.importQuestionsFromWord(upload, subject);
             
             // 更新进度：完成
             updateProgress(taskId, 90, "正在保存数据...");
@@ -171,13 +159,11 @@ public class UploadTaskServiceImpl implements UploadTaskService {
             markAsFailed(taskId, e.getMessage());
         } finally {
             // 清理临时文件
-            if (tempFile != null && tempFile.exists()) {
-                try {
-                    tempFile.delete();
-                    System.out.println(">>> 临时文件已删除: " + tempFile.getAbsolutePath());
-                } catch (Exception e) {
-                    System.err.println(">>> 删除临时文件失败: " + e.getMessage());
-                }
+            try {
+                upload.close();
+                System.out.println(">>> 临时文件已删除: " + upload.getPath());
+            } catch (IOException e) {
+                System.err.println(">>> 删除临时文件失败: " + e.getMessage());
             }
         }
     }
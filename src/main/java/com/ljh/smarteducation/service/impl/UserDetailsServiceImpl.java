@@ -1,32 +1,97 @@
 package com.ljh.smarteducation.service.impl;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.ljh.smarteducation.entity.User;
+import com.ljh.smarteducation.event.UserChangedEvent;
 import com.ljh.smarteducation.repository.UserRepository;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
 import java.util.Collections;
+import java.util.List;
 
 @Service
 public class UserDetailsServiceImpl implements UserDetailsService {
 
-    @Autowired
-    private UserRepository userRepository;
+    private final UserRepository userRepository;
+
+    /**
+     * JWT 请求使用的用户信息缓存（不含密码哈希），用户新增/修改/删除时由 UserChangedEvent 失效
+     */
+    private final Cache<String, CachedUser> principals;
 
+    public UserDetailsServiceImpl(UserRepository userRepository,
+                                  @Value("${cache.user-details.ttl-seconds:300}") long ttlSeconds,
+                                  @Value("${cache.user-details.max-entries:10000}") long maxEntries) {
+        this.userRepository = userRepository;
+        this.principals = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    /**
+     * 登录认证使用，每次查询数据库（需要密码哈希）
+     */
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByUsername(username)
+        User user = findUser(username);
+        return new org.springframework.security.core.userdetails.User(user.getUsername(), user.getPassword(),
+                authoritiesOf(user));
+    }
+
+    /**
+     * 已签名 JWT 的请求使用：优先读缓存，缓存的 UserDetails 不含密码
+     */
+    public UserDetails loadCachedUserByUsername(String username) throws UsernameNotFoundException {
+        CachedUser cached = principals.getIfPresent(username);
+        if (cached == null) {
+            User user = findUser(username);
+            cached = new CachedUser(user.getId(), new org.springframework.security.core.userdetails.User(
+                    user.getUsername(), "", authoritiesOf(user)));
+            principals.put(username, cached);
+        }
+        return cached.details();
+    }
+
+    /**
+     * 失效某个用户的缓存；在事务提交后执行，避免提交前的并发请求读到旧数据并重新缓存。
+     * 用户名可能已被修改，同时按 ID 清除旧用户名的条目
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.username() != null) {
+            principals.invalidate(event.username());
+        }
+        if (event.userId() != null) {
+            principals.asMap().values().removeIf(cached -> event.userId().equals(cached.userId()));
+        }
+    }
+
+    public void evictAll() {
+        principals.invalidateAll();
+    }
+
+    private User findUser(String username) {
+        return userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User Not Found with username: " + username));
+    }
 
+    private static List<GrantedAuthority> authoritiesOf(User user) {
         // --- ↓↓↓ (核心修复) 确保所有角色都被正确授予 "ROLE_" 前缀 ---
         String role = user.getRole();
         if (role == null) {
             // 如果用户没有角色，给予一个默认的、无权限的角色
-            return new org.springframework.security.core.userdetails.User(user.getUsername(), user.getPassword(),
-                    Collections.emptyList());
+            return Collections.emptyList();
         }
         
         // 如果角色字符串没有 "ROLE_" 前缀，则添加它
@@ -34,8 +99,10 @@ public class UserDetailsServiceImpl implements UserDetailsService {
             role = "ROLE_" + role;
         }
 
-        return new org.springframework.security.core.userdetails.User(user.getUsername(), user.getPassword(),
-                Collections.singletonList(new SimpleGrantedAuthority(role)));
+        return Collections.singletonList(new SimpleGrantedAuthority(role));
         // --- ↑↑↑ 修复结束 ↑↑↑ ---
     }
-}
\ No newline at end of file
+
+    private record CachedUser(Long userId, UserDetails details) {
+    }
+}
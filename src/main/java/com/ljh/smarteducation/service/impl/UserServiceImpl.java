@@ -2,6 +2,7 @@ package com.ljh.smarteducation.service.impl;
 
 import com.ljh.smarteducation.entity.User;
 import com.ljh.smarteducation.repository.UserRepository;
+import com.ljh.smarteducation.service.DashboardCounterService;
 import com.ljh.smarteducation.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -15,18 +16,23 @@ public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final DashboardCounterService dashboardCounters;
 
     @Autowired
-    public UserServiceImpl(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserServiceImpl(UserRepository userRepository, PasswordEncoder passwordEncoder,
+                           DashboardCounterService dashboardCounters) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.dashboardCounters = dashboardCounters;
     }
 
     @Override
     public User createUser(User user) {
         // 在保存到数据库之前，对密码进行加密
         user.setPassword(passwordEncoder.encode(user.getPassword()));
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        dashboardCounters.userCreated(saved.getRole());
+        return saved;
     }
 
     @Override
@@ -6,6 +6,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 
 /**
  * 文件哈希工具类 - 用于计算文件MD5
@@ -48,11 +49,7 @@ public class FileHashUtil {
     /**
      * 将字节数组转换为十六进制字符串
      */
-    private static String bytesToHex(byte[] bytes) {
-        StringBuilder sb = new StringBuilder();
-        for (byte b : bytes) {
-            sb.append(String.format("%02x", b));
-        }
-        return sb.toString();
+    public static String bytesToHex(byte[] bytes) {
+        return HexFormat.of().formatHex(bytes);
     }
 }
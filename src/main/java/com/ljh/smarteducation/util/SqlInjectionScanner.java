@@ -0,0 +1,414 @@
+package com.ljh.smarteducation.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * 单遍 SQL 注入扫描器
+ *
+ * 与 InputValidator.containsSqlInjection 使用相同的规则（SQL 关键字、注释符、常见恒真式），
+ * 但把关键字和恒真式预编译为两张确定性自动机（Aho-Corasick），每个字符只做一次查表，不做大小写转换的整串拷贝，
+ * 也不对同一输入跑三遍正则。
+ *
+ * 两种用法：
+ * <ul>
+ *     <li>{@link #containsSqlInjection(CharSequence)}：扫描一段文本（URL 参数等）</li>
+ *     <li>{@link #forJson()}：按块喂入 UTF-8 编码的 JSON 字节，只检查字符串值（对象的键和数字、结构字符不参与），
+ *     转义序列按解码后的字符检查。实例不是线程安全的，每个请求一个</li>
+ * </ul>
+ * 与正则实现的差别：恒真式 "' AND 1=1" 在忽略空白后匹配，"'AND1=1" 这类没有空格的写法也会被拦截。
+ */
+public final class SqlInjectionScanner {
+
+    private static final String[] SQL_KEYWORDS = {
+            "SELECT", "INSERT", "UPDATE", "DELETE", "DROP", "ALTER", "CREATE", "EXEC", "EXECUTE", "UNION",
+            "TRUNCATE", "GRANT", "REVOKE", "MERGE", "CALL", "DECLARE"
+    };
+
+    /**
+     * 去掉空白后的恒真式；"';DROP TABLE"、"'UNION SELECT"、"admin'--" 等已被关键字和注释符规则覆盖
+     */
+    private static final String[] TAUTOLOGIES = {"'OR'1'='1", "'AND1=1"};
+
+    /**
+     * 关键字自动机的字母表：0 = 非单词字符（词边界），1..26 = A..Z，27 = 其他单词字符
+     */
+    private static final int KEYWORD_BOUNDARY = 0;
+    private static final int KEYWORD_OTHER_WORD = 27;
+    private static final byte[] ASCII_KEYWORD_SYMBOLS = asciiKeywordSymbols();
+    private static final Dfa KEYWORDS = Dfa.build(keywordPatterns(), 28);
+
+    /**
+     * 恒真式自动机的字母表：0 = 其他字符，其余见 TAUTOLOGY_ALPHABET
+     */
+    private static final String TAUTOLOGY_ALPHABET = "'ORAND1=";
+    private static final byte[] ASCII_TAUTOLOGY_SYMBOLS = asciiTautologySymbols();
+    private static final Dfa TAUTOLOGY = Dfa.build(tautologyPatterns(), TAUTOLOGY_ALPHABET.length() + 1);
+
+    // ==================== 文本匹配状态 ====================
+
+    private int keywordState;
+    private int tautologyState;
+    private int previousChar;
+    private boolean detected;
+
+    // ==================== JSON 解析状态 ====================
+
+    private long offset;
+    private long valueStart = -1;
+    private boolean inString;
+    private boolean scanningString;
+    private boolean escape;
+    private int unicodeDigits = -1;
+    private int unicodeValue;
+    private int utf8Remaining;
+    private int utf8Value;
+    private boolean expectKey;
+    private final Deque<Boolean> containers = new ArrayDeque<>();
+
+    private SqlInjectionScanner() {
+    }
+
+    /**
+     * 扫描一段文本
+     */
+    public static boolean containsSqlInjection(CharSequence text) {
+        if (text == null) {
+            return false;
+        }
+        SqlInjectionScanner scanner = new SqlInjectionScanner();
+        scanner.beginText();
+        for (int i = 0; i < text.length() && !scanner.detected; i++) {
+            scanner.accept(text.charAt(i));
+        }
+        scanner.endText();
+        return scanner.detected;
+    }
+
+    /**
+     * 创建 JSON 字节流扫描器
+     */
+    public static SqlInjectionScanner forJson() {
+        return new SqlInjectionScanner();
+    }
+
+    /**
+     * 喂入一段 JSON 字节
+     * @return 是否已检测到注入（检测到后不再处理后续字节）
+     */
+    public boolean feed(byte[] bytes, int from, int length) {
+        int end = from + length;
+        for (int i = from; i < end && !detected; i++) {
+            consume(bytes[i] & 0xFF);
+            offset++;
+        }
+        return detected;
+    }
+
+    /**
+     * 输入结束（未闭合的字符串按结束处理）
+     * @return 是否检测到注入
+     */
+    public boolean finish() {
+        if (inString && scanningString && !detected) {
+            endText();
+        }
+        return detected;
+    }
+
+    public boolean detected() {
+        return detected;
+    }
+
+    /**
+     * 触发检测的字符串值在输入中的起始字节偏移（开头引号之后）；未检测到时为 -1
+     */
+    public long matchedValueStart() {
+        return detected ? valueStart : -1;
+    }
+
+    // ==================== JSON 字节处理 ====================
+
+    private void consume(int b) {
+        if (!inString) {
+            structural(b);
+            return;
+        }
+        if (utf8Remaining > 0) {
+            if ((b & 0xC0) != 0x80) {
+                utf8Remaining = 0;
+                scanChar(0xFFFD);
+                consume(b);
+                return;
+            }
+            utf8Value = (utf8Value << 6) | (b & 0x3F);
+            if (--utf8Remaining == 0) {
+                scanChar(utf8Value);
+            }
+            return;
+        }
+        if (unicodeDigits >= 0) {
+            int digit = Character.digit(b, 16);
+            unicodeValue = (unicodeValue << 4) | Math.max(digit, 0);
+            if (++unicodeDigits == 4) {
+                unicodeDigits = -1;
+                scanChar(unicodeValue);
+            }
+            return;
+        }
+        if (escape) {
+            escape = false;
+            switch (b) {
+                case 'u' -> {
+                    unicodeDigits = 0;
+                    unicodeValue = 0;
+                }
+                case 'n' -> scanChar('\n');
+                case 't' -> scanChar('\t');
+                case 'r' -> scanChar('\r');
+                case 'b' -> scanChar('\b');
+                case 'f' -> scanChar('\f');
+                default -> scanChar(b);
+            }
+            return;
+        }
+        if (b == '\\') {
+            escape = true;
+        } else if (b == '"') {
+            inString = false;
+            if (scanningString) {
+                endText();
+            }
+        } else if (b < 0x80) {
+            scanChar(b);
+        } else if (b >= 0xF0) {
+            utf8Remaining = 3;
+            utf8Value = b & 0x07;
+        } else if (b >= 0xE0) {
+            utf8Remaining = 2;
+            utf8Value = b & 0x0F;
+        } else if (b >= 0xC0) {
+            utf8Remaining = 1;
+            utf8Value = b & 0x1F;
+        } else {
+            scanChar(0xFFFD);
+        }
+    }
+
+    private void structural(int b) {
+        switch (b) {
+            case '"' -> {
+                inString = true;
+                scanningString = !expectKey;
+                if (scanningString) {
+                    valueStart = offset + 1;
+                    beginText();
+                }
+            }
+            case '{' -> {
+                containers.push(Boolean.TRUE);
+                expectKey = true;
+            }
+            case '[' -> {
+                containers.push(Boolean.FALSE);
+                expectKey = false;
+            }
+            case '}', ']' -> {
+                containers.poll();
+                expectKey = false;
+            }
+            case ',' -> expectKey = Boolean.TRUE.equals(containers.peek());
+            case ':' -> expectKey = false;
+            default -> {
+                // 空白、数字、true/false/null
+            }
+        }
+    }
+
+    private void scanChar(int c) {
+        if (scanningString) {
+            accept(c);
+        }
+    }
+
+    // ==================== 文本匹配 ====================
+
+    private void beginText() {
+        keywordState = KEYWORDS.next(0, KEYWORD_BOUNDARY);
+        tautologyState = 0;
+        previousChar = 0;
+    }
+
+    private void endText() {
+        if (KEYWORDS.accepts(KEYWORDS.next(keywordState, KEYWORD_BOUNDARY))) {
+            detected = true;
+        }
+    }
+
+    private void accept(int c) {
+        // 注释符：--、/*、*/、#
+        if (c == '#' || (c == '-' && previousChar == '-') || (c == '*' && previousChar == '/')
+                || (c == '/' && previousChar == '*')) {
+            detected = true;
+            return;
+        }
+        previousChar = c;
+
+        keywordState = KEYWORDS.next(keywordState, keywordSymbol(c));
+        if (KEYWORDS.accepts(keywordState)) {
+            detected = true;
+            return;
+        }
+
+        // 与正则中的 \s 一致，空白不参与恒真式匹配
+        if (c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f' || c == 0x0B) {
+            return;
+        }
+        tautologyState = TAUTOLOGY.next(tautologyState, tautologySymbol(c));
+        if (TAUTOLOGY.accepts(tautologyState)) {
+            detected = true;
+        }
+    }
+
+    private static int keywordSymbol(int c) {
+        if (c < 0x80) {
+            return ASCII_KEYWORD_SYMBOLS[c];
+        }
+        // 与 java.util.regex 的 \b 一致：字母、数字和下划线是单词字符
+        return Character.isLetterOrDigit(c) ? KEYWORD_OTHER_WORD : KEYWORD_BOUNDARY;
+    }
+
+    private static int tautologySymbol(int c) {
+        return c < 0x80 ? ASCII_TAUTOLOGY_SYMBOLS[c] : 0;
+    }
+
+    private static byte[] asciiKeywordSymbols() {
+        byte[] symbols = new byte[0x80];
+        for (int c = 0; c < 0x80; c++) {
+            if (c >= 'a' && c <= 'z') {
+                symbols[c] = (byte) (c - 'a' + 1);
+            } else if (c >= 'A' && c <= 'Z') {
+                symbols[c] = (byte) (c - 'A' + 1);
+            } else if (c == '_' || Character.isLetterOrDigit(c)) {
+                symbols[c] = KEYWORD_OTHER_WORD;
+            }
+        }
+        return symbols;
+    }
+
+    private static byte[] asciiTautologySymbols() {
+        byte[] symbols = new byte[0x80];
+        for (int i = 0; i < TAUTOLOGY_ALPHABET.length(); i++) {
+            char c = TAUTOLOGY_ALPHABET.charAt(i);
+            symbols[c] = (byte) (i + 1);
+            symbols[Character.toLowerCase(c)] = (byte) (i + 1);
+        }
+        return symbols;
+    }
+
+    private static List<int[]> keywordPatterns() {
+        List<int[]> patterns = new ArrayList<>();
+        for (String keyword : SQL_KEYWORDS) {
+            int[] pattern = new int[keyword.length() + 2];
+            pattern[0] = KEYWORD_BOUNDARY;
+            for (int i = 0; i < keyword.length(); i++) {
+                pattern[i + 1] = keywordSymbol(keyword.charAt(i));
+            }
+            pattern[pattern.length - 1] = KEYWORD_BOUNDARY;
+            patterns.add(pattern);
+        }
+        return patterns;
+    }
+
+    private static List<int[]> tautologyPatterns() {
+        List<int[]> patterns = new ArrayList<>();
+        for (String tautology : TAUTOLOGIES) {
+            patterns.add(tautology.chars().map(SqlInjectionScanner::tautologySymbol).toArray());
+        }
+        return patterns;
+    }
+
+    /**
+     * 多模式确定性自动机：由 Aho-Corasick 的 trie 和失败指针展开为完整的状态转移表
+     */
+    private static final class Dfa {
+
+        private final int alphabetSize;
+        private final int[] transitions;
+        private final boolean[] accepting;
+
+        private Dfa(int alphabetSize, int[][] table, BitSet accepting) {
+            this.alphabetSize = alphabetSize;
+            this.transitions = new int[table.length * alphabetSize];
+            this.accepting = new boolean[table.length];
+            for (int state = 0; state < table.length; state++) {
+                System.arraycopy(table[state], 0, transitions, state * alphabetSize, alphabetSize);
+                this.accepting[state] = accepting.get(state);
+            }
+        }
+
+        static Dfa build(List<int[]> patterns, int alphabetSize) {
+            List<int[]> trie = new ArrayList<>();
+            BitSet accepting = new BitSet();
+            trie.add(newNode(alphabetSize));
+            for (int[] pattern : patterns) {
+                int state = 0;
+                for (int symbol : pattern) {
+                    if (trie.get(state)[symbol] < 0) {
+                        trie.get(state)[symbol] = trie.size();
+                        trie.add(newNode(alphabetSize));
+                    }
+                    state = trie.get(state)[symbol];
+                }
+                accepting.set(state);
+            }
+
+            int[] failure = new int[trie.size()];
+            Deque<Integer> queue = new ArrayDeque<>();
+            for (int symbol = 0; symbol < alphabetSize; symbol++) {
+                int child = trie.get(0)[symbol];
+                if (child < 0) {
+                    trie.get(0)[symbol] = 0;
+                } else {
+                    failure[child] = 0;
+                    queue.add(child);
+                }
+            }
+            while (!queue.isEmpty()) {
+                int state = queue.poll();
+                if (accepting.get(failure[state])) {
+                    accepting.set(state);
+                }
+                for (int symbol = 0; symbol < alphabetSize; symbol++) {
+                    int child = trie.get(state)[symbol];
+                    int fallback = trie.get(failure[state])[symbol];
+                    if (child < 0) {
+                        trie.get(state)[symbol] = fallback;
+                    } else {
+                        failure[child] = fallback;
+                        queue.add(child);
+                    }
+                }
+            }
+            return new Dfa(alphabetSize, trie.toArray(new int[0][]), accepting);
+        }
+
+        private static int[] newNode(int alphabetSize) {
+            int[] node = new int[alphabetSize];
+            Arrays.fill(node, -1);
+            return node;
+        }
+
+        int next(int state, int symbol) {
+            return transitions[state * alphabetSize + symbol];
+        }
+
+        boolean accepts(int state) {
+            return accepting[state];
+        }
+    }
+}
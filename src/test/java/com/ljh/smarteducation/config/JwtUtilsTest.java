@@ -0,0 +1,53 @@
+package com.ljh.smarteducation.config;
+
+import com.ljh.smarteducation.entity.User;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JwtUtils 的单元测试
+ */
+@DisplayName("JwtUtils 测试")
+class JwtUtilsTest {
+
+    private static final String SECRET = "test-secret-test-secret-test-secret-test-secret-test-secret-test-secret!";
+
+    @Test
+    @DisplayName("测试校验 - 有效令牌返回用户名，重复校验命中缓存")
+    void testVerifyAndGetUsername_Valid() {
+        JwtUtils jwtUtils = new JwtUtils(SECRET, 60_000, 100, 600);
+        String token = jwtUtils.generateJwtToken(user("alice"));
+
+        assertEquals("alice", jwtUtils.verifyAndGetUsername(token));
+        assertEquals("alice", jwtUtils.verifyAndGetUsername(token));
+    }
+
+    @Test
+    @DisplayName("测试校验 - 篡改、其他密钥签发、过期或空令牌返回 null")
+    void testVerifyAndGetUsername_Invalid() {
+        JwtUtils jwtUtils = new JwtUtils(SECRET, 60_000, 100, 600);
+        String token = jwtUtils.generateJwtToken(user("alice"));
+        assertEquals("alice", jwtUtils.verifyAndGetUsername(token));
+
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+        assertNull(jwtUtils.verifyAndGetUsername(tampered));
+
+        JwtUtils otherKey = new JwtUtils(SECRET.replace('t', 'x'), 60_000, 100, 600);
+        assertNull(otherKey.verifyAndGetUsername(token));
+
+        JwtUtils expired = new JwtUtils(SECRET, -60_000, 100, 600);
+        assertNull(expired.verifyAndGetUsername(expired.generateJwtToken(user("bob"))));
+
+        assertNull(jwtUtils.verifyAndGetUsername("not-a-jwt"));
+        assertNull(jwtUtils.verifyAndGetUsername(""));
+        assertNull(jwtUtils.verifyAndGetUsername(null));
+    }
+
+    private static User user(String username) {
+        User user = new User();
+        user.setUsername(username);
+        return user;
+    }
+}
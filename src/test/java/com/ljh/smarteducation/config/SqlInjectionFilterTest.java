@@ -0,0 +1,135 @@
+package com.ljh.smarteducation.config;
+
+import com.ljh.smarteducation.service.IpReputationService;
+import com.ljh.smarteducation.service.SecurityEventWriter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * SqlInjectionFilter 的单元测试（请求体检查、客户端 IP 识别）
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("SqlInjectionFilter 测试")
+class SqlInjectionFilterTest {
+
+    private static final int MAX_INSPECT_BYTES = 64;
+
+    @Mock
+    private SecurityEventWriter securityEventWriter;
+    @Mock
+    private IpReputationService ipReputationService;
+    @Mock
+    private FilterChain chain;
+
+    private SqlInjectionFilter filter;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        filter = new SqlInjectionFilter(securityEventWriter, ipReputationService);
+        ReflectionTestUtils.setField(filter, "filterEnabled", true);
+        ReflectionTestUtils.setField(filter, "filterMode", "STRICT");
+        ReflectionTestUtils.setField(filter, "maxInspectBytes", MAX_INSPECT_BYTES);
+        filter.init(null);
+    }
+
+    @Test
+    @DisplayName("测试超大请求体 - 用空白填充到上限之后的注入不会被放行，直接返回 413")
+    void testDoFilter_RejectsBodyOverLimit() throws Exception {
+        String body = "{\"q\":\"a\"" + " ".repeat(MAX_INSPECT_BYTES) + ",\"x\":\"1' OR '1'='1\"}";
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(jsonRequest(body), response, chain);
+
+        assertEquals(413, response.getStatus());
+        assertTrue(response.getContentAsString().contains("PAYLOAD_TOO_LARGE"));
+        verify(chain, never()).doFilter(any(), any());
+    }
+
+    @Test
+    @DisplayName("测试未声明长度的超大请求体 - 读满上限后仍有数据时返回 413")
+    void testDoFilter_RejectsChunkedBodyOverLimit() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/test") {
+            @Override
+            public long getContentLengthLong() {
+                return -1;
+            }
+        };
+        request.setContentType("application/json");
+        request.setContent(("{\"q\":\"" + "a".repeat(MAX_INSPECT_BYTES) + "\"}").getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, chain);
+
+        assertEquals(413, response.getStatus());
+        verify(chain, never()).doFilter(any(), any());
+    }
+
+    @Test
+    @DisplayName("测试正常请求体 - 放行，后续处理可多次读取完整请求体")
+    void testDoFilter_BodyCanBeReadRepeatedly() throws Exception {
+        String body = "{\"q\":\"hello\"}";
+        AtomicReference<ServletRequest> forwarded = new AtomicReference<>();
+        doAnswer(invocation -> {
+            forwarded.set(invocation.getArgument(0));
+            return null;
+        }).when(chain).doFilter(any(), any());
+
+        filter.doFilter(jsonRequest(body), new MockHttpServletResponse(), chain);
+
+        HttpServletRequest request = (HttpServletRequest) forwarded.get();
+        assertNotNull(request);
+        assertEquals(body, new String(request.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+        assertEquals(body, new String(request.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+        assertEquals(body, request.getReader().readLine());
+    }
+
+    @Test
+    @DisplayName("测试客户端 IP - 直接连接方不是受信任代理时忽略 X-Forwarded-For")
+    void testClientIp_IgnoresForwardedForFromUntrustedPeer() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/test");
+        request.setRemoteAddr("203.0.113.7");
+        request.addHeader("X-Forwarded-For", "198.51.100.1");
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        verify(ipReputationService).checkBlocked("203.0.113.7");
+    }
+
+    @Test
+    @DisplayName("测试客户端 IP - 经过受信任代理时取 X-Forwarded-For 中最右边的非代理地址")
+    void testClientIp_UsesRightmostUntrustedHopBehindTrustedProxy() throws Exception {
+        ReflectionTestUtils.setField(filter, "trustedProxies", "10.0.0.0/8, 127.0.0.1");
+        filter.init(null);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/test");
+        request.setRemoteAddr("10.0.0.5");
+        request.addHeader("X-Forwarded-For", "1.1.1.1, 198.51.100.1, 10.0.0.9");
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        verify(ipReputationService).checkBlocked("198.51.100.1");
+    }
+
+    private static MockHttpServletRequest jsonRequest(String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/test");
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+}
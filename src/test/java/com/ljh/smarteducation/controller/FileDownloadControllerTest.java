@@ -0,0 +1,218 @@
+package com.ljh.smarteducation.controller;
+
+import com.ljh.smarteducation.entity.ResourceFile;
+import com.ljh.smarteducation.service.FileStorageService;
+import com.ljh.smarteducation.service.ResourceFileService;
+import com.ljh.smarteducation.service.SignedUrlService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * FileDownloadController 的单元测试（Range、条件请求与 sendfile）
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("FileDownloadController 测试")
+class FileDownloadControllerTest {
+
+    private static final String CONTENT = "0123456789abcdefghij";
+    private static final String HASH = "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855";
+    private static final String ETAG = "\"" + HASH + "\"";
+
+    @Mock
+    private ResourceFileService resourceFileService;
+    @Mock
+    private FileStorageService storageService;
+    @Mock
+    private SignedUrlService signedUrlService;
+
+    @TempDir
+    Path directory;
+
+    private MockMvc mockMvc;
+    private Path blob;
+    private ResourceFile file;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(new FileDownloadController(resourceFileService, storageService, signedUrlService))
+                .build();
+        blob = Files.writeString(directory.resolve(HASH), CONTENT, StandardCharsets.UTF_8);
+
+        file = new ResourceFile();
+        file.setId(7L);
+        file.setFileName("listening.mp3");
+        file.setStoragePath("e3/b0/" + HASH);
+        file.setContentHash(HASH);
+        file.setFileType("audio/mpeg");
+        lenient().when(resourceFileService.getFile(7L)).thenReturn(Optional.of(file));
+        lenient().when(storageService.resolve("e3/b0/" + HASH)).thenReturn(blob);
+    }
+
+    @Test
+    @DisplayName("测试完整下载 - 返回 200、强 ETag 和长期缓存头")
+    void testServeFile_FullContent() throws Exception {
+        mockMvc.perform(get("/api/files/7"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, ETAG))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable"))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, CONTENT.length()))
+                .andExpect(content().string(CONTENT));
+    }
+
+    @Test
+    @DisplayName("测试单段 Range - 返回 206 和对应区间")
+    void testServeFile_SingleRange() throws Exception {
+        mockMvc.perform(get("/api/files/7").header(HttpHeaders.RANGE, "bytes=2-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/20"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 4))
+                .andExpect(content().string("2345"));
+    }
+
+    @Test
+    @DisplayName("测试后缀 Range - 返回最后 N 个字节")
+    void testServeFile_SuffixRange() throws Exception {
+        mockMvc.perform(get("/api/files/7").header(HttpHeaders.RANGE, "bytes=-3"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 17-19/20"))
+                .andExpect(content().string("hij"));
+    }
+
+    @Test
+    @DisplayName("测试多段 Range - 按完整内容返回 200")
+    void testServeFile_MultiRangeReturnsFullContent() throws Exception {
+        mockMvc.perform(get("/api/files/7").header(HttpHeaders.RANGE, "bytes=0-1,4-5"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_RANGE))
+                .andExpect(content().string(CONTENT));
+    }
+
+    @Test
+    @DisplayName("测试无法满足的 Range - 起点越过文件末尾时返回 416")
+    void testServeFile_UnsatisfiableRange() throws Exception {
+        mockMvc.perform(get("/api/files/7").header(HttpHeaders.RANGE, "bytes=20-30"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */20"))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    @DisplayName("测试格式错误的 Range - 返回 416")
+    void testServeFile_MalformedRange() throws Exception {
+        mockMvc.perform(get("/api/files/7").header(HttpHeaders.RANGE, "bytes=abc"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */20"));
+    }
+
+    @Test
+    @DisplayName("测试 If-None-Match - ETag 匹配（含弱比较和列表）时返回 304")
+    void testServeFile_IfNoneMatchReturnsNotModified() throws Exception {
+        mockMvc.perform(get("/api/files/7").header(HttpHeaders.IF_NONE_MATCH, "\"other\", W/" + ETAG))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, ETAG))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    @DisplayName("测试 If-None-Match - ETag 不匹配时返回完整内容")
+    void testServeFile_IfNoneMatchMismatch() throws Exception {
+        mockMvc.perform(get("/api/files/7").header(HttpHeaders.IF_NONE_MATCH, "\"stale\""))
+                .andExpect(status().isOk())
+                .andExpect(content().string(CONTENT));
+    }
+
+    @Test
+    @DisplayName("测试 If-Range - ETag 匹配时按 Range 返回 206")
+    void testServeFile_IfRangeMatches() throws Exception {
+        mockMvc.perform(get("/api/files/7").header(HttpHeaders.RANGE, "bytes=0-2").header(HttpHeaders.IF_RANGE, ETAG))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().string("012"));
+    }
+
+    @Test
+    @DisplayName("测试 If-Range - ETag 已变化或为日期时忽略 Range，返回完整内容")
+    void testServeFile_IfRangeMismatchReturnsFullContent() throws Exception {
+        mockMvc.perform(get("/api/files/7").header(HttpHeaders.RANGE, "bytes=0-2").header(HttpHeaders.IF_RANGE, "\"old\""))
+                .andExpect(status().isOk())
+                .andExpect(content().string(CONTENT));
+        mockMvc.perform(get("/api/files/7").header(HttpHeaders.RANGE, "bytes=0-2")
+                        .header(HttpHeaders.IF_RANGE, "Wed, 21 Oct 2015 07:28:00 GMT"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(CONTENT));
+    }
+
+    @Test
+    @DisplayName("测试 sendfile - 容器支持时只设置 sendfile 属性，不在 Servlet 中写出内容")
+    void testServeFile_DelegatesToSendfile() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/files/7")
+                        .header(HttpHeaders.RANGE, "bytes=10-14")
+                        .requestAttr("org.apache.tomcat.sendfile.support", Boolean.TRUE))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 5))
+                .andExpect(content().string(""))
+                .andReturn();
+
+        MockHttpServletRequest request = result.getRequest();
+        assertEquals(blob.toString(), request.getAttribute("org.apache.tomcat.sendfile.filename"));
+        assertEquals(10L, request.getAttribute("org.apache.tomcat.sendfile.start"));
+        assertEquals(15L, request.getAttribute("org.apache.tomcat.sendfile.end"));
+    }
+
+    @Test
+    @DisplayName("测试 sendfile 回退 - 容器不支持时用 FileChannel 写出区间")
+    void testServeFile_FallsBackToTransferTo() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/files/7")
+                        .header(HttpHeaders.RANGE, "bytes=10-14")
+                        .requestAttr("org.apache.tomcat.sendfile.support", Boolean.FALSE))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().string("abcde"))
+                .andReturn();
+
+        assertNull(result.getRequest().getAttribute("org.apache.tomcat.sendfile.filename"));
+    }
+
+    @Test
+    @DisplayName("测试文件缺失 - 记录不存在或磁盘文件已删除时返回 404")
+    void testServeFile_NotFound() throws Exception {
+        when(resourceFileService.getFile(8L)).thenReturn(Optional.empty());
+        mockMvc.perform(get("/api/files/8")).andExpect(status().isNotFound());
+
+        Files.delete(blob);
+        mockMvc.perform(get("/api/files/7")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("测试签名链接 - 验签失败返回 403，成功时不查询数据库")
+    void testServeSignedFile() throws Exception {
+        when(signedUrlService.verify("bad")).thenReturn(Optional.empty());
+        mockMvc.perform(get("/api/files/s/bad")).andExpect(status().isForbidden());
+
+        when(signedUrlService.verify("good")).thenReturn(Optional.of(file));
+        mockMvc.perform(get("/api/files/s/good"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(CONTENT));
+        verifyNoInteractions(resourceFileService);
+    }
+}
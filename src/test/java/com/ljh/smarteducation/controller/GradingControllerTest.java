@@ -0,0 +1,97 @@
+package com.ljh.smarteducation.controller;
+
+import com.ljh.smarteducation.dto.GradeRequest;
+import com.ljh.smarteducation.entity.StudentSubmission;
+import com.ljh.smarteducation.service.GradingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * GradingController 的单元测试（领取冲突）
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("GradingController 测试")
+class GradingControllerTest {
+
+    @Mock
+    private GradingService gradingService;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(new GradingController(gradingService)).build();
+    }
+
+    @Test
+    @DisplayName("测试批改 - 答卷被其他教师领取时返回 409")
+    void testGradeSubmission_ForeignClaimReturnsConflict() throws Exception {
+        when(gradingService.grade(eq("t2"), any(GradeRequest.class)))
+                .thenThrow(new IllegalStateException("Submission is claimed by another grader"));
+
+        mockMvc.perform(post("/api/admin/grading/5")
+                        .principal(new TestingAuthenticationToken("t2", null))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"manualScore\":80,\"feedback\":\"ok\"}"))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    @DisplayName("测试批改 - 持有领取或领取已过期时返回批改后的答卷")
+    void testGradeSubmission_Success() throws Exception {
+        StudentSubmission submission = new StudentSubmission();
+        submission.setId(5L);
+        when(gradingService.grade(eq("t1"), argThat(grade -> grade.getSubmissionId() == 5L
+                && grade.getManualScore() == 80 && "ok".equals(grade.getFeedback()))))
+                .thenReturn(Optional.of(submission));
+
+        mockMvc.perform(post("/api/admin/grading/5")
+                        .principal(new TestingAuthenticationToken("t1", null))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"manualScore\":80,\"feedback\":\"ok\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(5));
+    }
+
+    @Test
+    @DisplayName("测试批量批改 - 缺少答卷 ID 时返回 400，不调用批改")
+    void testGradeSubmissions_RejectsMissingId() throws Exception {
+        mockMvc.perform(post("/api/admin/grading/bulk")
+                        .principal(new TestingAuthenticationToken("t1", null))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"manualScore\":80}]"))
+                .andExpect(status().isBadRequest());
+
+        verify(gradingService, never()).gradeAll(any(), anyList());
+    }
+
+    @Test
+    @DisplayName("测试领取 - 领取份数限制在 1 到 500 之间")
+    void testClaimSubmissions_ClampsCount() throws Exception {
+        when(gradingService.claim(eq("t1"), eq(500))).thenReturn(List.of());
+
+        mockMvc.perform(post("/api/admin/grading/claim").param("count", "10000")
+                        .principal(new TestingAuthenticationToken("t1", null)))
+                .andExpect(status().isOk());
+
+        verify(gradingService).claim("t1", 500);
+    }
+}
@@ -0,0 +1,104 @@
+package com.ljh.smarteducation.controller;
+
+import com.ljh.smarteducation.service.QuestionSetPayloadService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * PracticeController 的单元测试（套题详情的内容协商与条件请求）
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("PracticeController 测试")
+class PracticeControllerTest {
+
+    private static final String JSON = "{\"questions\":[]}";
+
+    @Mock
+    private QuestionSetPayloadService questionSetPayloadService;
+
+    @InjectMocks
+    private PracticeController controller;
+
+    private MockMvc mockMvc;
+    private byte[] gzip;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+            out.write(JSON.getBytes(StandardCharsets.UTF_8));
+        }
+        gzip = buffer.toByteArray();
+        lenient().when(questionSetPayloadService.getPayload(1L))
+                .thenReturn(Optional.of(new QuestionSetPayloadService.Payload(1L, 0, "\"abc\"", gzip, JSON.length())));
+    }
+
+    @Test
+    @DisplayName("测试 Accept-Encoding 解析 - 按编码名和 q 值判断，gzip;q=0 表示不接受")
+    void testAcceptsGzip() {
+        assertTrue(PracticeController.acceptsGzip("gzip, deflate, br"));
+        assertTrue(PracticeController.acceptsGzip("br;q=1.0, GZIP;q=0.5"));
+        assertTrue(PracticeController.acceptsGzip("x-gzip"));
+        assertTrue(PracticeController.acceptsGzip("identity;q=1, *;q=0.1"));
+        assertFalse(PracticeController.acceptsGzip(null));
+        assertFalse(PracticeController.acceptsGzip("identity"));
+        assertFalse(PracticeController.acceptsGzip("gzip;q=0"));
+        assertFalse(PracticeController.acceptsGzip("gzip;q=0.000, *"));
+        assertFalse(PracticeController.acceptsGzip("*;q=0"));
+        assertFalse(PracticeController.acceptsGzip("gzip;q=abc"));
+        assertFalse(PracticeController.acceptsGzip("nogzip, gzipx"));
+    }
+
+    @Test
+    @DisplayName("测试套题详情 - 接受 gzip 时直接返回压缩内容和 -gz ETag")
+    void testGetQuestionsForSet_Gzip() throws Exception {
+        mockMvc.perform(get("/api/practice/set/1").header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"abc-gz\""))
+                .andExpect(content().bytes(gzip));
+    }
+
+    @Test
+    @DisplayName("测试套题详情 - gzip;q=0 时返回未压缩内容")
+    void testGetQuestionsForSet_GzipRefused() throws Exception {
+        mockMvc.perform(get("/api/practice/set/1").header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, identity"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"abc\""))
+                .andExpect(content().string(JSON));
+    }
+
+    @Test
+    @DisplayName("测试套题详情 - If-None-Match 与当前编码的 ETag 匹配时返回 304")
+    void testGetQuestionsForSet_NotModified() throws Exception {
+        mockMvc.perform(get("/api/practice/set/1")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                        .header(HttpHeaders.IF_NONE_MATCH, "W/\"abc-gz\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+        // 未压缩响应的 ETag 不同，不能用 gzip 版本的 ETag 验证
+        mockMvc.perform(get("/api/practice/set/1").header(HttpHeaders.IF_NONE_MATCH, "\"abc-gz\""))
+                .andExpect(status().isOk())
+                .andExpect(content().string(JSON));
+    }
+}
@@ -0,0 +1,164 @@
+package com.ljh.smarteducation.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ljh.smarteducation.entity.Question;
+import com.ljh.smarteducation.entity.QuestionSet;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * QuestionBatchRepository 的单元测试（批量写入与冗余列回填）
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("QuestionBatchRepository 测试")
+class QuestionBatchRepositoryTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private QuestionBatchRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new QuestionBatchRepository(jdbcTemplate, new ObjectMapper());
+    }
+
+    @Test
+    @DisplayName("测试批量写入 - 每 500 行一批执行，行数与题目数一致")
+    void testInsertAll_BatchesOf500() {
+        List<Question> questions = new ArrayList<>();
+        for (int i = 0; i < 1201; i++) {
+            questions.add(question(i, null));
+        }
+
+        assertEquals(1201, repository.insertAll(questions));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> batches = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(3)).batchUpdate(startsWith("INSERT INTO `questions`"), batches.capture());
+        assertEquals(List.of(500, 500, 201), batches.getAllValues().stream().map(List::size).toList());
+        assertEquals(0, batches.getAllValues().get(0).get(0)[5]);
+        assertEquals(1200, batches.getAllValues().get(2).get(200)[5]);
+    }
+
+    @Test
+    @DisplayName("测试批量写入 - 空列表不执行 SQL")
+    void testInsertAll_Empty() {
+        assertEquals(0, repository.insertAll(List.of()));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("测试批量写入 - 参数顺序与列顺序一致，content 序列化为 JSON，冗余列从 content 同步")
+    void testInsertAll_ColumnMapping() throws Exception {
+        QuestionSet questionSet = new QuestionSet();
+        questionSet.setId(42L);
+        Map<String, Object> content = new LinkedHashMap<>();
+        content.put("questionType", "LISTENING");
+        content.put("partName", "Part I");
+        content.put("groupId", "g7");
+        content.put("options", List.of(Map.of("id", 3, "isCorrect", false), Map.of("id", 4, "isCorrect", true)));
+        Question question = question(7, questionSet);
+        question.setContent(content);
+
+        repository.insertAll(List.of(question, question(8, null)));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> batch = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate).batchUpdate(sql.capture(), batch.capture());
+        assertTrue(sql.getValue().contains("(subject, difficulty, knowledge_point, content, question_set_id, "
+                + "sequence_number, validation_status, question_type, part_name, group_id, correct_option_id, "
+                + "create_time, update_time)"));
+
+        Object[] row = batch.getValue().get(0);
+        assertEquals(13, row.length);
+        assertArrayEquals(new Object[]{"English", "Easy", "Grammar"}, Arrays.copyOfRange(row, 0, 3));
+        assertEquals(content, new ObjectMapper().readValue((String) row[3], Map.class));
+        assertEquals(42L, row[4]);
+        assertEquals(7, row[5]);
+        assertEquals("PENDING", row[6]);
+        assertArrayEquals(new Object[]{"LISTENING", "Part I", "g7", 4L}, Arrays.copyOfRange(row, 7, 11));
+        assertInstanceOf(Timestamp.class, row[11]);
+        assertEquals(row[11], row[12]);
+
+        Object[] bare = batch.getValue().get(1);
+        assertNull(bare[3]);
+        assertNull(bare[4]);
+        assertNull(bare[7]);
+    }
+
+    @Test
+    @DisplayName("测试回填冗余列 - 题型缺失、显式为 null 或 content 无法解析时记为 UNKNOWN")
+    void testBackfillContentColumns_UnknownQuestionTypes() throws Exception {
+        stubBackfillRows(
+                new Object[]{1L, "{\"questionType\":\"READING\",\"partName\":\"Part II\",\"groupId\":\"g1\","
+                        + "\"options\":[{\"id\":7,\"correct\":true}]}"},
+                new Object[]{2L, "{\"questionType\":null}"},
+                new Object[]{3L, "{not json"},
+                new Object[]{4L, null},
+                new Object[]{5L, "{}"});
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{1, 1, 1, 1, -2});
+
+        assertEquals(5, repository.backfillContentColumns());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> updates = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(contains("question_type IS NULL"), updates.capture());
+        List<Object[]> rows = updates.getValue();
+        assertArrayEquals(new Object[]{"READING", "Part II", "g1", 7L, 1L}, rows.get(0));
+        assertArrayEquals(new Object[]{QuestionBatchRepository.UNKNOWN_QUESTION_TYPE, null, null, null, 2L}, rows.get(1));
+        assertArrayEquals(new Object[]{QuestionBatchRepository.UNKNOWN_QUESTION_TYPE, null, null, null, 3L}, rows.get(2));
+        assertArrayEquals(new Object[]{QuestionBatchRepository.UNKNOWN_QUESTION_TYPE, null, null, null, 4L}, rows.get(3));
+        assertArrayEquals(new Object[]{"MULTIPLE_CHOICE", null, null, null, 5L}, rows.get(4));
+    }
+
+    private static Question question(int sequenceNumber, QuestionSet questionSet) {
+        Question question = new Question();
+        question.setSubject("English");
+        question.setDifficulty("Easy");
+        question.setKnowledgePoint("Grammar");
+        question.setSequenceNumber(sequenceNumber);
+        question.setQuestionSet(questionSet);
+        return question;
+    }
+
+    /**
+     * 第一次查询返回给定的行，之后的查询（下一页）为空
+     */
+    private void stubBackfillRows(Object[]... rows) {
+        List<Object[]> remaining = new ArrayList<>(List.of(rows));
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (Object[] row : remaining) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getLong(1)).thenReturn((Long) row[0]);
+                when(rs.getString(2)).thenReturn((String) row[1]);
+                handler.processRow(rs);
+            }
+            remaining.clear();
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+    }
+}
@@ -0,0 +1,88 @@
+package com.ljh.smarteducation.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ljh.smarteducation.dto.GradeRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * SubmissionBatchRepository 批量批改与 StudentSubmissionRepository 领取语句的单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("SubmissionBatchRepository 测试")
+class SubmissionBatchRepositoryTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private SubmissionBatchRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new SubmissionBatchRepository(jdbcTemplate, new ObjectMapper());
+    }
+
+    @Test
+    @DisplayName("测试批量批改 - 一条 UPDATE 按 ID 用 CASE 分别写入分数和评语，跳过他人未过期的领取")
+    void testGradeAll_SingleCaseUpdate() {
+        LocalDateTime now = LocalDateTime.of(2026, 1, 1, 9, 0);
+        when(jdbcTemplate.update(anyString(), any(Object[].class))).thenReturn(2);
+
+        int updated = repository.gradeAll(List.of(grade(1L, 60, "a"), grade(2L, null, "b")), "t1", now);
+
+        assertEquals(2, updated);
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbcTemplate, times(1)).update(sql.capture(), args.capture());
+        assertEquals("UPDATE `student_submission` SET manual_score = CASE id WHEN ? THEN ? WHEN ? THEN ? END"
+                + ", feedback = CASE id WHEN ? THEN ? WHEN ? THEN ? END"
+                + ", graded = true, claimed_by = NULL, claim_expires_at = NULL"
+                + " WHERE id IN (?,?) AND (claimed_by IS NULL OR claimed_by = ? OR claim_expires_at < ?)",
+                sql.getValue());
+        assertArrayEquals(new Object[]{1L, 60, 2L, null, 1L, "a", 2L, "b", 1L, 2L, "t1", Timestamp.valueOf(now)},
+                args.getValue());
+    }
+
+    @Test
+    @DisplayName("测试批量批改 - 空列表不执行 SQL")
+    void testGradeAll_Empty() {
+        assertEquals(0, repository.gradeAll(List.of(), "t1", LocalDateTime.now()));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("测试领取语句 - 只领取未批改且无人持有、自己持有或已过期的答卷，按提交时间取最早的 count 份")
+    void testClaimPending_QueryContract() throws Exception {
+        String sql = StudentSubmissionRepository.class
+                .getMethod("claimPending", String.class, LocalDateTime.class, LocalDateTime.class, int.class)
+                .getAnnotation(Query.class).value();
+
+        assertTrue(sql.contains("SET claimed_by = :grader, claim_expires_at = :expiresAt"));
+        assertTrue(sql.contains("WHERE graded = false AND (claimed_by IS NULL OR claimed_by = :grader "
+                + "OR claim_expires_at < :now)"));
+        assertTrue(sql.endsWith("ORDER BY submission_time ASC, id ASC LIMIT :count"));
+    }
+
+    private static GradeRequest grade(Long submissionId, Integer manualScore, String feedback) {
+        GradeRequest grade = new GradeRequest();
+        grade.setSubmissionId(submissionId);
+        grade.setManualScore(manualScore);
+        grade.setFeedback(feedback);
+        return grade;
+    }
+}
@@ -0,0 +1,82 @@
+package com.ljh.smarteducation.service;
+
+import com.ljh.smarteducation.entity.Question;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * AnswerKey 的单元测试
+ */
+@DisplayName("AnswerKey 测试")
+class AnswerKeyTest {
+
+    @Test
+    @DisplayName("测试答案表 - 选择题按正确选项批改，写作题标记人工批改")
+    void testOf_GradesLikeQuestionContent() {
+        AnswerKey answerKey = AnswerKey.of(List.of(
+                question(3L, Map.of("questionType", "WRITING")),
+                question(1L, Map.of("questionType", "MULTIPLE_CHOICE", "options", List.of(
+                        Map.of("id", 10, "correct", false),
+                        Map.of("id", 11, "correct", true)))),
+                question(2L, Map.of("questionType", "LISTENING", "options", List.of(
+                        Map.of("id", "20", "isCorrect", true)))),
+                question(4L, Map.of("options", List.of(Map.of("id", 40, "correct", false))))));
+
+        assertTrue(answerKey.isCorrect(1L, "11"));
+        assertFalse(answerKey.isCorrect(1L, "10"));
+        assertFalse(answerKey.isCorrect(1L, "abc"));
+        assertTrue(answerKey.isCorrect(2L, "20"));
+        // 没有标记正确选项的题目任何答案都不得分
+        assertFalse(answerKey.isCorrect(4L, "-1"));
+
+        assertEquals(AnswerKey.MODE_MANUAL, answerKey.gradingMode(3L));
+        assertEquals(AnswerKey.MODE_AUTO, answerKey.gradingMode(4L));
+        assertEquals(AnswerKey.MODE_NONE, answerKey.gradingMode(99L));
+    }
+
+    @Test
+    @DisplayName("测试合并 - 合并后应同时包含两张表的题目")
+    void testMerge_CombinesSortedKeys() {
+        AnswerKey left = AnswerKey.of(List.of(
+                question(5L, Map.of("options", List.of(Map.of("id", 50, "correct", true))))));
+        AnswerKey right = AnswerKey.of(List.of(
+                question(2L, Map.of("options", List.of(Map.of("id", 20, "correct", true)))),
+                question(5L, Map.of("questionType", "WRITING"))));
+
+        AnswerKey merged = left.merge(right);
+        assertEquals(2, merged.size());
+        assertTrue(merged.isCorrect(2L, "20"));
+        assertTrue(merged.isCorrect(5L, "50"));
+    }
+
+    @Test
+    @DisplayName("测试冗余列 - 同步后的列与从 content 解析的批改结果一致")
+    void testOf_UsesSyncedColumns() {
+        Question listening = question(7L, Map.of("questionType", "LISTENING", "partName", "Part II",
+                "groupId", 3, "options", List.of(Map.of("id", 70, "correct", true))));
+        listening.syncContentColumns();
+
+        assertEquals("LISTENING", listening.getQuestionType());
+        assertEquals("Part II", listening.getPartName());
+        assertEquals("3", listening.getGroupId());
+        assertEquals(70L, listening.getCorrectOptionId());
+
+        // 列已同步时以列为准，不再解析 content
+        listening.setContent(Map.of());
+        AnswerKey answerKey = AnswerKey.of(List.of(listening));
+        assertTrue(answerKey.isCorrect(7L, "70"));
+        assertEquals(AnswerKey.MODE_AUTO, answerKey.gradingMode(7L));
+    }
+
+    private static Question question(Long id, Map<String, Object> content) {
+        Question question = new Question();
+        question.setId(id);
+        question.setContent(content);
+        return question;
+    }
+}
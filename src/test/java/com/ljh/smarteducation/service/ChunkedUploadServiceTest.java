@@ -0,0 +1,123 @@
+package com.ljh.smarteducation.service;
+
+import com.ljh.smarteducation.util.FileHashUtil;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ChunkedUploadService 的单元测试
+ */
+@DisplayName("ChunkedUploadService 测试")
+class ChunkedUploadServiceTest {
+
+    private final ChunkedUploadService service = new ChunkedUploadService(16, 1024, 60);
+
+    @Test
+    @DisplayName("测试分片上传 - 重传重叠分片后完成，哈希应与原文件一致")
+    void testChunkedUpload_ResumeAndComplete() throws Exception {
+        byte[] content = new byte[40];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+
+        ChunkedUploadService.UploadSession session = service.init("listening.mp3", "audio/mpeg", content.length);
+        String id = session.getUploadId();
+
+        assertEquals(16, put(id, 0, Arrays.copyOfRange(content, 0, 16)));
+        // 客户端超时后从较早的位置重传，重叠部分不应重复写入
+        assertEquals(24, put(id, 8, Arrays.copyOfRange(content, 8, 24)));
+        assertEquals(40, put(id, 24, Arrays.copyOfRange(content, 24, 40)));
+
+        service.complete(id, hex("SHA-256", content));
+
+        try (StoredUpload upload = service.take(id)) {
+            assertArrayEquals(content, Files.readAllBytes(upload.getPath()));
+            assertEquals(hex("MD5", content), upload.getMd5());
+            assertEquals(hex("SHA-256", content), upload.getSha256());
+            assertEquals("listening.mp3", upload.getOriginalFilename());
+        }
+        assertTrue(service.getSession(id).isEmpty());
+    }
+
+    @Test
+    @DisplayName("测试分片校验 - 校验和错误或偏移量超前应被拒绝")
+    void testChunkedUpload_RejectsBadChunks() throws Exception {
+        ChunkedUploadService.UploadSession session = service.init("paper.pdf", null, 8);
+        String id = session.getUploadId();
+        byte[] chunk = {1, 2, 3, 4};
+
+        assertThrows(IllegalArgumentException.class,
+                () -> service.writeChunk(id, 0, new ByteArrayInputStream(chunk), hex("SHA-256", new byte[]{9})));
+        assertThrows(IllegalStateException.class, () -> put(id, 4, chunk));
+        assertEquals(0, session.getReceivedBytes());
+        assertThrows(IllegalStateException.class, () -> service.take(id));
+
+        put(id, 0, chunk);
+        put(id, 4, chunk);
+        // 整文件哈希不一致时丢弃上传
+        assertThrows(IllegalArgumentException.class, () -> service.complete(id, hex("SHA-256", chunk)));
+        assertTrue(service.getSession(id).isEmpty());
+    }
+
+    @Test
+    @DisplayName("测试分片校验失败后重传 - 已写入的错误内容被覆盖，整文件哈希不受影响")
+    void testChunkedUpload_RetryAfterChecksumMismatch() throws Exception {
+        byte[] content = {1, 2, 3, 4, 5, 6, 7, 8};
+        ChunkedUploadService.UploadSession session = service.init("paper.pdf", null, content.length);
+        String id = session.getUploadId();
+
+        byte[] corrupted = {1, 2, 3, 4, 0, 0, 0, 0};
+        assertThrows(IllegalArgumentException.class,
+                () -> service.writeChunk(id, 0, new ByteArrayInputStream(corrupted), hex("SHA-256", content)));
+        assertEquals(0, session.getReceivedBytes());
+
+        assertEquals(8, put(id, 0, content));
+        service.complete(id, hex("SHA-256", content));
+        try (StoredUpload upload = service.take(id)) {
+            assertArrayEquals(content, Files.readAllBytes(upload.getPath()));
+            assertEquals(hex("MD5", content), upload.getMd5());
+        }
+    }
+
+    @Test
+    @DisplayName("测试超大分片 - 超过分片上限或声明的总大小时拒绝，不推进已确认字节数")
+    void testChunkedUpload_RejectsOversizedChunks() throws Exception {
+        ChunkedUploadService.UploadSession session = service.init("paper.pdf", null, 20);
+        String id = session.getUploadId();
+
+        assertThrows(IllegalArgumentException.class, () -> put(id, 0, new byte[17]));
+        assertEquals(16, put(id, 0, new byte[16]));
+        assertThrows(IllegalArgumentException.class, () -> put(id, 16, new byte[5]));
+        assertEquals(16, session.getReceivedBytes());
+    }
+
+    @Test
+    @DisplayName("测试过期清理 - 超过有效期未活动的会话及其文件被删除")
+    void testPurgeExpired_RemovesIdleSessions() throws Exception {
+        ChunkedUploadService expiring = new ChunkedUploadService(16, 1024, 0);
+        ChunkedUploadService.UploadSession session = expiring.init("listening.mp3", "audio/mpeg", 8);
+        String id = session.getUploadId();
+        Thread.sleep(5);
+
+        expiring.purgeExpired();
+
+        assertTrue(expiring.getSession(id).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> expiring.writeChunk(id, 0,
+                new ByteArrayInputStream(new byte[8]), hex("SHA-256", new byte[8])));
+    }
+
+    private long put(String id, long offset, byte[] chunk) throws Exception {
+        return service.writeChunk(id, offset, new ByteArrayInputStream(chunk), hex("SHA-256", chunk));
+    }
+
+    private static String hex(String algorithm, byte[] data) throws Exception {
+        return FileHashUtil.bytesToHex(MessageDigest.getInstance(algorithm).digest(data));
+    }
+}
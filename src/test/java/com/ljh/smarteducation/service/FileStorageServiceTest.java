@@ -0,0 +1,128 @@
+package com.ljh.smarteducation.service;
+
+import com.ljh.smarteducation.util.FileHashUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * FileStorageService 的单元测试（内容寻址暂存、入库与路径检查）
+ */
+@DisplayName("FileStorageService 测试")
+class FileStorageServiceTest {
+
+    private static final byte[] CONTENT = "Part I Listening Comprehension".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path root;
+
+    private FileStorageService storage;
+
+    @BeforeEach
+    void setUp() {
+        storage = new FileStorageService(root, true);
+    }
+
+    @Test
+    @DisplayName("测试暂存与入库 - 暂存时计算 SHA-256，入库后移动到按哈希分片的路径，暂存区清空")
+    void testStageAndCommit() throws Exception {
+        String sha256 = sha256(CONTENT);
+
+        FileStorageService.StagedBlob staged = storage.stage(new ByteArrayInputStream(CONTENT));
+        assertEquals(sha256, staged.sha256());
+        assertEquals(CONTENT.length, staged.size());
+        assertTrue(staged.tempFile().startsWith(root.resolve(".staging")));
+
+        String path = storage.commit(staged);
+        storage.discard(staged);
+
+        assertEquals(sha256.substring(0, 2) + "/" + sha256.substring(2, 4) + "/" + sha256, path);
+        assertArrayEquals(CONTENT, Files.readAllBytes(root.resolve(path)));
+        assertEquals(0, stagingFileCount());
+    }
+
+    @Test
+    @DisplayName("测试相同内容 - 第二次入库复用已有 blob，丢弃暂存文件")
+    void testCommit_DeduplicatesContent() throws Exception {
+        String first = storage.commit(storage.stage(new ByteArrayInputStream(CONTENT)));
+        FileStorageService.StagedBlob second = storage.stage(new ByteArrayInputStream(CONTENT));
+
+        assertEquals(first, storage.commit(second));
+        storage.discard(second);
+
+        assertEquals(0, stagingFileCount());
+        try (Stream<Path> blobs = Files.walk(root.resolve(first).getParent())) {
+            assertEquals(1, blobs.filter(Files::isRegularFile).count());
+        }
+    }
+
+    @Test
+    @DisplayName("测试放弃暂存 - 删除暂存文件，不写入 blob")
+    void testDiscard() throws Exception {
+        FileStorageService.StagedBlob staged = storage.stage(new ByteArrayInputStream(CONTENT));
+
+        storage.discard(staged);
+
+        assertFalse(Files.exists(staged.tempFile()));
+        assertFalse(Files.exists(root.resolve(FileStorageService.blobPath(staged.sha256()))));
+    }
+
+    @Test
+    @DisplayName("测试已落盘的上传 - blob 已存在时不复制；入库前 blob 被删除则从源文件重新写入")
+    void testStageStoredUpload_ReusesExistingBlob() throws Exception {
+        String path = storage.commit(storage.stage(new ByteArrayInputStream(CONTENT)));
+
+        try (StoredUpload upload = StoredUpload.spool(new MockMultipartFile("file", "listening.mp3",
+                "audio/mpeg", CONTENT))) {
+            FileStorageService.StagedBlob staged = storage.stage(upload);
+            assertNull(staged.tempFile());
+            assertEquals(upload.getPath(), staged.source());
+
+            storage.delete(path);
+            assertEquals(path, storage.commit(staged));
+            storage.discard(staged);
+        }
+
+        assertArrayEquals(CONTENT, Files.readAllBytes(root.resolve(path)));
+        assertEquals(0, stagingFileCount());
+    }
+
+    @Test
+    @DisplayName("测试路径检查 - 解析或删除存储目录之外的路径时抛出异常")
+    void testResolve_RejectsTraversal() throws Exception {
+        Path outside = Files.writeString(root.resolveSibling(root.getFileName() + "-secret.txt"), "secret");
+        try {
+            assertEquals(root.resolve("ab/cd/abcd").toAbsolutePath(), storage.resolve("ab/cd/abcd"));
+            assertEquals(root.resolve("b.mp3").toAbsolutePath(), storage.resolve("a/../b.mp3"));
+            assertThrows(IOException.class, () -> storage.resolve("../" + outside.getFileName()));
+            assertThrows(IOException.class, () -> storage.resolve("ab/../../" + outside.getFileName()));
+            assertThrows(IOException.class, () -> storage.resolve(outside.toAbsolutePath().toString()));
+            assertThrows(IOException.class, () -> storage.delete("../" + outside.getFileName()));
+            assertTrue(Files.exists(outside));
+        } finally {
+            Files.deleteIfExists(outside);
+        }
+    }
+
+    private long stagingFileCount() throws IOException {
+        try (Stream<Path> files = Files.list(root.resolve(".staging"))) {
+            return files.count();
+        }
+    }
+
+    private static String sha256(byte[] data) throws Exception {
+        return FileHashUtil.bytesToHex(MessageDigest.getInstance("SHA-256").digest(data));
+    }
+}
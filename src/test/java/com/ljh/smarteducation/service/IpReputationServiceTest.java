@@ -0,0 +1,97 @@
+package com.ljh.smarteducation.service;
+
+import com.ljh.smarteducation.entity.SecurityEventLog;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * IpReputationService 的单元测试（显式传入当前时间）
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("IpReputationService 测试")
+class IpReputationServiceTest {
+
+    private static final String IP = "10.0.0.1";
+
+    @Mock
+    private SecurityEventWriter securityEventWriter;
+
+    @Test
+    @DisplayName("测试封禁 - 窗口内达到阈值后封禁，封禁期内请求被拒绝")
+    void testRecordOffence_BlocksAfterThreshold() {
+        IpReputationService service = new IpReputationService(securityEventWriter, 3, 60, 600, 1000);
+        long now = 1_000_000L;
+
+        assertFalse(service.recordOffence(IP, "/api/a", "POST", now));
+        assertFalse(service.recordOffence(IP, "/api/a", "POST", now + 1000));
+        assertFalse(service.checkBlocked(IP, now + 1500));
+        assertTrue(service.recordOffence(IP, "/api/a", "POST", now + 2000));
+
+        assertTrue(service.checkBlocked(IP, now + 3000));
+        assertFalse(service.checkBlocked("10.0.0.2", now + 3000));
+        List<Map<String, Object>> blocklist = service.getBlocklist(now + 3000);
+        assertEquals(1, blocklist.size());
+        assertEquals(IP, blocklist.get(0).get("ipAddress"));
+        assertEquals(1L, blocklist.get(0).get("rejectedWhileBlocked"));
+
+        ArgumentCaptor<SecurityEventLog> captor = ArgumentCaptor.forClass(SecurityEventLog.class);
+        verify(securityEventWriter).submit(captor.capture());
+        assertEquals("IP_BLOCKED", captor.getValue().getEventType());
+    }
+
+    @Test
+    @DisplayName("测试滑动窗口 - 违规间隔超过窗口不触发封禁")
+    void testRecordOffence_OutsideWindow() {
+        IpReputationService service = new IpReputationService(securityEventWriter, 3, 60, 600, 1000);
+        long now = 1_000_000L;
+
+        assertFalse(service.recordOffence(IP, "/api/a", "POST", now));
+        assertFalse(service.recordOffence(IP, "/api/a", "POST", now + 40_000));
+        assertFalse(service.recordOffence(IP, "/api/a", "POST", now + 80_000));
+        assertTrue(service.recordOffence(IP, "/api/a", "POST", now + 100_000));
+    }
+
+    @Test
+    @DisplayName("测试汇总 - 封禁期内的拒绝在封禁结束后合并成一条日志")
+    void testCheckBlocked_SummarizesAfterExpiry() {
+        IpReputationService service = new IpReputationService(securityEventWriter, 1, 60, 10, 1000);
+        long now = 1_000_000L;
+
+        assertTrue(service.recordOffence(IP, "/api/a", "POST", now));
+        for (int i = 1; i <= 5; i++) {
+            assertTrue(service.checkBlocked(IP, now + i * 1000));
+        }
+        assertFalse(service.checkBlocked(IP, now + 11_000));
+        assertFalse(service.checkBlocked(IP, now + 12_000));
+
+        ArgumentCaptor<SecurityEventLog> captor = ArgumentCaptor.forClass(SecurityEventLog.class);
+        verify(securityEventWriter, times(2)).submit(captor.capture());
+        SecurityEventLog summary = captor.getAllValues().get(1);
+        assertEquals("IP_BLOCK_SUMMARY", summary.getEventType());
+        assertEquals(IP, summary.getIpAddress());
+        assertTrue(summary.getDescription().contains("5"));
+        assertEquals(5L, service.getStatistics().get("rejectedWhileBlocked"));
+    }
+
+    @Test
+    @DisplayName("测试解除封禁")
+    void testUnblock() {
+        IpReputationService service = new IpReputationService(securityEventWriter, 1, 60, 600, 1000);
+
+        assertFalse(service.unblock(IP));
+        service.recordOffence(IP, "/api/a", "POST");
+        assertTrue(service.checkBlocked(IP));
+        assertTrue(service.unblock(IP));
+        assertFalse(service.checkBlocked(IP));
+    }
+}
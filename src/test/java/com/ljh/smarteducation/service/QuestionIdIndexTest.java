@@ -0,0 +1,54 @@
+package com.ljh.smarteducation.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * QuestionIdIndex 的单元测试
+ */
+@DisplayName("QuestionIdIndex 测试")
+class QuestionIdIndexTest {
+
+    private final QuestionIdIndex index = QuestionIdIndex.builder()
+            .add(1, "English", "Easy", "Grammar", "MULTIPLE_CHOICE")
+            .add(2, "English", "Easy", "Grammar", "MULTIPLE_CHOICE")
+            .add(3, "English", "Hard", "Vocabulary", "MULTIPLE_CHOICE")
+            .add(4, "English", "Hard", "Listening", "LISTENING")
+            .add(5, "Math", "Easy", "Algebra", "MULTIPLE_CHOICE")
+            .add(6, "English", "Easy", "Writing", "WRITING")
+            .build();
+
+    @Test
+    @DisplayName("测试均匀抽题 - 结果不重复且都满足过滤条件")
+    void testSample_UniformRespectsFilters() {
+        Random random = new Random(42);
+        for (int round = 0; round < 50; round++) {
+            List<Long> ids = index.sample("english", "multiple_choice", null, 2, false, random);
+            assertEquals(2, ids.size());
+            assertEquals(2, new HashSet<>(ids).size());
+            assertTrue(Set.of(1L, 2L, 3L).containsAll(ids));
+        }
+        // 请求数量超过匹配数量时返回全部匹配题目
+        assertEquals(Set.of(1L, 2L, 6L), new HashSet<>(index.sample("English", null, "Easy", 10, false, random)));
+        assertTrue(index.sample("Physics", null, null, 5, false, random).isEmpty());
+    }
+
+    @Test
+    @DisplayName("测试分层抽题 - 每层先各取一道再补足")
+    void testSample_StratifiedCoversEveryStratum() {
+        List<Long> ids = index.sample("English", null, null, 4, true, new Random(7));
+        assertEquals(4, ids.size());
+        // 英语共 4 个分层：(Easy,Grammar)、(Hard,Vocabulary)、(Hard,Listening)、(Easy,Writing)
+        assertTrue(ids.contains(3L));
+        assertTrue(ids.contains(4L));
+        assertTrue(ids.contains(6L));
+        assertTrue(ids.contains(1L) || ids.contains(2L));
+    }
+}
@@ -0,0 +1,155 @@
+package com.ljh.smarteducation.service;
+
+import com.ljh.smarteducation.entity.ResourceFile;
+import com.ljh.smarteducation.event.QuestionBankChangedEvent;
+import com.ljh.smarteducation.repository.QuestionSetRepository;
+import com.ljh.smarteducation.repository.ResourceFileRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * ResourceFileService 的单元测试（内容寻址去重、按引用计数删除共享 blob）
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ResourceFileService 测试")
+class ResourceFileServiceTest {
+
+    private static final byte[] CONTENT = "listening audio".getBytes(StandardCharsets.UTF_8);
+
+    @Mock
+    private ResourceFileRepository repository;
+    @Mock
+    private FileStorageService storageService;
+    @Mock
+    private QuestionSetRepository questionSetRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private ResourceFileService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new ResourceFileService(repository, storageService, questionSetRepository, eventPublisher, 100);
+    }
+
+    @Test
+    @DisplayName("测试删除文件 - 引用该文件的套题详情缓存失效")
+    void testDeleteFile_InvalidatesReferencingSets() throws Exception {
+        ResourceFile file = resourceFile(5L, "ab/cd/abcd", "abcd");
+        when(repository.findById(5L)).thenReturn(Optional.of(file));
+        when(questionSetRepository.findIdsByResourceFileId(5L)).thenReturn(List.of(11L, 12L));
+
+        service.deleteFile(5L);
+
+        verify(repository).delete(file);
+        verify(eventPublisher).publishEvent(new QuestionBankChangedEvent(Set.of(11L, 12L)));
+    }
+
+    @Test
+    @DisplayName("测试删除文件 - 没有套题引用时不发布题库变更事件")
+    void testDeleteFile_NoReferencingSets() throws Exception {
+        ResourceFile file = resourceFile(6L, "ab/cd/abcd", "abcd");
+        when(repository.findById(6L)).thenReturn(Optional.of(file));
+        when(questionSetRepository.findIdsByResourceFileId(6L)).thenReturn(List.of());
+
+        service.deleteFile(6L);
+
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    @DisplayName("测试上传相同内容 - 两条记录共享同一个 blob，暂存文件被清理")
+    void testSaveFile_SharesBlobForSameContent(@TempDir Path root) throws Exception {
+        service = contentAddressedService(root);
+
+        ResourceFile first = service.saveFile(upload("a.mp3"), "English");
+        ResourceFile second = service.saveFile(upload("b.mp3"), "English");
+
+        assertNotEquals(first.getId(), second.getId());
+        assertEquals(first.getStoragePath(), second.getStoragePath());
+        assertEquals(first.getContentHash(), second.getContentHash());
+        assertEquals(FileStorageService.blobPath(first.getContentHash()), first.getStoragePath());
+        assertArrayEquals(CONTENT, Files.readAllBytes(root.resolve(first.getStoragePath())));
+        try (Stream<Path> staging = Files.list(root.resolve(".staging"))) {
+            assertEquals(0, staging.count());
+        }
+        // 新保存的记录直接进入元数据缓存
+        assertEquals(Optional.of(second), service.getFile(second.getId()));
+        verify(repository, never()).findById(any());
+    }
+
+    @Test
+    @DisplayName("测试删除共享 blob - 仍有其他记录引用时保留 blob，最后一条记录删除后才删除 blob")
+    void testDeleteFile_RefcountsSharedBlob(@TempDir Path root) throws Exception {
+        service = contentAddressedService(root);
+        ResourceFile first = service.saveFile(upload("a.mp3"), "English");
+        ResourceFile second = service.saveFile(upload("b.mp3"), "English");
+        Path blob = root.resolve(first.getStoragePath());
+        when(repository.findById(first.getId())).thenReturn(Optional.of(first));
+        when(repository.findById(second.getId())).thenReturn(Optional.of(second));
+        when(repository.countByStoragePath(first.getStoragePath())).thenReturn(1L, 0L);
+
+        service.deleteFile(first.getId());
+        assertTrue(Files.exists(blob));
+
+        service.deleteFile(second.getId());
+        assertFalse(Files.exists(blob));
+        verify(repository).delete(first);
+        verify(repository).delete(second);
+    }
+
+    @Test
+    @DisplayName("测试删除不存在的文件 - 抛出 IOException")
+    void testDeleteFile_NotFound() throws Exception {
+        when(repository.findById(9L)).thenReturn(Optional.empty());
+
+        assertThrows(IOException.class, () -> service.deleteFile(9L));
+        verify(storageService, never()).delete(any());
+    }
+
+    private ResourceFileService contentAddressedService(Path root) {
+        AtomicLong ids = new AtomicLong();
+        when(repository.save(any(ResourceFile.class))).thenAnswer(invocation -> {
+            ResourceFile file = invocation.getArgument(0);
+            file.setId(ids.incrementAndGet());
+            return file;
+        });
+        return new ResourceFileService(repository, new FileStorageService(root, true), questionSetRepository,
+                eventPublisher, 100);
+    }
+
+    private static MockMultipartFile upload(String fileName) {
+        return new MockMultipartFile("file", fileName, "audio/mpeg", CONTENT);
+    }
+
+    private static ResourceFile resourceFile(Long id, String storagePath, String contentHash) {
+        ResourceFile file = new ResourceFile();
+        file.setId(id);
+        file.setFileName("listening.mp3");
+        file.setStoragePath(storagePath);
+        file.setContentHash(contentHash);
+        file.setFileType("audio/mpeg");
+        return file;
+    }
+}
@@ -0,0 +1,76 @@
+package com.ljh.smarteducation.service;
+
+import com.ljh.smarteducation.entity.SecurityEventLog;
+import com.ljh.smarteducation.repository.SecurityEventBatchRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * SecurityEventWriter 的单元测试（不启动后台线程，直接调用 drain）
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("SecurityEventWriter 测试")
+class SecurityEventWriterTest {
+
+    @Mock
+    private SecurityEventBatchRepository batchRepository;
+
+    @Test
+    @DisplayName("测试批量写入 - 按 batch-size 分批并填写事件时间")
+    void testDrain_WritesInBatches() {
+        when(batchRepository.insertAll(anyList())).thenAnswer(invocation -> ((List<?>) invocation.getArgument(0)).size());
+        SecurityEventWriter writer = new SecurityEventWriter(batchRepository, 100, 2, 500, 10);
+
+        SecurityEventLog first = event();
+        writer.submit(first);
+        writer.submit(event());
+        writer.submit(event());
+        writer.drain();
+
+        assertNotNull(first.getEventTime());
+        verify(batchRepository, times(2)).insertAll(anyList());
+        Map<String, Object> stats = writer.getStatistics();
+        assertEquals(3L, stats.get("written"));
+        assertEquals(0, stats.get("queueDepth"));
+    }
+
+    @Test
+    @DisplayName("测试溢出 - 超过一半容量后抽样保留，队列满时丢弃并计数")
+    void testSubmit_SamplesAndDropsOverflow() {
+        SecurityEventWriter writer = new SecurityEventWriter(batchRepository, 4, 100, 500, 2);
+
+        int acceptedCount = 0;
+        for (int i = 0; i < 20; i++) {
+            if (writer.submit(event())) {
+                acceptedCount++;
+            }
+        }
+
+        Map<String, Object> stats = writer.getStatistics();
+        assertEquals(4, acceptedCount);
+        assertEquals(4, stats.get("queueDepth"));
+        assertEquals(9L, stats.get("sampledOut"));
+        assertEquals(7L, stats.get("dropped"));
+    }
+
+    private static SecurityEventLog event() {
+        SecurityEventLog event = new SecurityEventLog();
+        event.setEventType("SQL_INJECTION_ATTEMPT");
+        event.setIpAddress("10.0.0.1");
+        event.setRequestUrl("/api/test");
+        event.setRequestMethod("POST");
+        event.setActionTaken("BLOCKED");
+        event.setSeverity("HIGH");
+        return event;
+    }
+}
@@ -1,7 +1,10 @@
 package com.ljh.smarteducation.service;
 
+import com.ljh.smarteducation.dto.SecurityEventTypeCount;
 import com.ljh.smarteducation.entity.SecurityEventLog;
+import com.ljh.smarteducation.repository.BackfillMarkerRepository;
 import com.ljh.smarteducation.repository.SecurityEventLogRepository;
+import com.ljh.smarteducation.repository.SecurityEventMinuteRollupRepository;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -13,13 +16,17 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 /**
@@ -32,13 +39,22 @@ class SecurityLogServiceTest {
     @Mock
     private SecurityEventLogRepository repository;
 
+    @Mock
+    private SecurityEventWriter writer;
+
+    @Mock
+    private SecurityEventMinuteRollupRepository rollupRepository;
+
+    @Mock
+    private BackfillMarkerRepository markerRepository;
+
     @InjectMocks
     private SecurityLogService service;
 
     // ==================== 测试日志记录方法 ====================
 
     @Test
-    @DisplayName("测试记录 SQL 注入攻击 - 应该成功保存日志")
+    @DisplayName("测试记录 SQL 注入攻击 - 应该提交给异步写入")
     void testLogSqlInjectionAttempt_Success() {
         // 准备测试数据
         String ipAddress = "192.168.1.100";
@@ -48,11 +64,6 @@ class SecurityLogServiceTest {
         String requestParams = "{\"search\":\"' OR '1'='1\"}";
         String username = "user123";
 
-        // 模拟保存操作
-        SecurityEventLog savedLog = new SecurityEventLog();
-        savedLog.setId(1L);
-        when(repository.save(any(SecurityEventLog.class))).thenReturn(savedLog);
-
         // 执行测试
         SecurityEventLog result = service.logSqlInjectionAttempt(
             ipAddress, requestUrl, requestMethod, sqlFragment, requestParams, username
@@ -60,13 +71,13 @@ class SecurityLogServiceTest {
 
         // 验证结果
         assertNotNull(result);
-        assertEquals(1L, result.getId());
 
-        // 验证 repository.save() 被调用
+        // 验证事件交给异步写入，而不是在请求线程中保存
         ArgumentCaptor<SecurityEventLog> captor = ArgumentCaptor.forClass(SecurityEventLog.class);
-        verify(repository, times(1)).save(captor.capture());
+        verify(writer, times(1)).submit(captor.capture());
+        verify(repository, never()).save(any(SecurityEventLog.class));
 
-        // 验证保存的对象字段正确
+        // 验证提交的对象字段正确
         SecurityEventLog capturedLog = captor.getValue();
         assertEquals("SQL_INJECTION_ATTEMPT", capturedLog.getEventType());
         assertEquals("HIGH", capturedLog.getSeverity());
@@ -80,28 +91,22 @@ class SecurityLogServiceTest {
     }
 
     @Test
-    @DisplayName("测试记录登录失败 - 应该成功保存日志")
+    @DisplayName("测试记录登录失败 - 应该提交给异步写入")
     void testLogLoginFailure_Success() {
         // 准备测试数据
         String ipAddress = "192.168.1.101";
         String username = "testuser";
         String requestUrl = "/api/auth/login";
 
-        // 模拟保存操作
-        SecurityEventLog savedLog = new SecurityEventLog();
-        savedLog.setId(2L);
-        when(repository.save(any(SecurityEventLog.class))).thenReturn(savedLog);
-
         // 执行测试
         SecurityEventLog result = service.logLoginFailure(ipAddress, username, requestUrl);
 
         // 验证结果
         assertNotNull(result);
-        assertEquals(2L, result.getId());
 
-        // 验证保存的对象字段
+        // 验证提交的对象字段
         ArgumentCaptor<SecurityEventLog> captor = ArgumentCaptor.forClass(SecurityEventLog.class);
-        verify(repository, times(1)).save(captor.capture());
+        verify(writer, times(1)).submit(captor.capture());
 
         SecurityEventLog capturedLog = captor.getValue();
         assertEquals("LOGIN_FAILURE", capturedLog.getEventType());
@@ -113,7 +118,7 @@ class SecurityLogServiceTest {
     }
 
     @Test
-    @DisplayName("测试记录未授权访问 - 应该成功保存日志")
+    @DisplayName("测试记录未授权访问 - 应该提交给异步写入")
     void testLogUnauthorizedAccess_Success() {
         // 准备测试数据
         String ipAddress = "192.168.1.102";
@@ -121,11 +126,6 @@ class SecurityLogServiceTest {
         String requestMethod = "GET";
         String username = "student1";
 
-        // 模拟保存操作
-        SecurityEventLog savedLog = new SecurityEventLog();
-        savedLog.setId(3L);
-        when(repository.save(any(SecurityEventLog.class))).thenReturn(savedLog);
-
         // 执行测试
         SecurityEventLog result = service.logUnauthorizedAccess(
             ipAddress, requestUrl, requestMethod, username
@@ -133,11 +133,10 @@ class SecurityLogServiceTest {
 
         // 验证结果
         assertNotNull(result);
-        assertEquals(3L, result.getId());
 
-        // 验证保存的对象字段
+        // 验证提交的对象字段
         ArgumentCaptor<SecurityEventLog> captor = ArgumentCaptor.forClass(SecurityEventLog.class);
-        verify(repository, times(1)).save(captor.capture());
+        verify(writer, times(1)).submit(captor.capture());
 
         SecurityEventLog capturedLog = captor.getValue();
         assertEquals("UNAUTHORIZED_ACCESS", capturedLog.getEventType());
@@ -219,6 +218,22 @@ class SecurityLogServiceTest {
         verify(repository, times(1)).findAllByOrderByEventTimeDesc(pageable);
     }
 
+    @Test
+    @DisplayName("测试按时间范围分页查询 - 应该只取当前页")
+    void testFindByTimeRange_Paged() {
+        LocalDateTime start = LocalDateTime.of(2026, 1, 1, 0, 0);
+        LocalDateTime end = LocalDateTime.of(2026, 1, 2, 0, 0);
+        Pageable pageable = PageRequest.of(2, 50);
+        Page<SecurityEventLog> mockPage = new PageImpl<>(List.of(createMockLog(1L, "LOGIN_FAILURE")), pageable, 101);
+        when(repository.findByEventTimeBetweenOrderByEventTimeDesc(start, end, pageable)).thenReturn(mockPage);
+
+        Page<SecurityEventLog> result = service.findByTimeRange(start, end, pageable);
+
+        assertEquals(1, result.getContent().size());
+        assertEquals(101, result.getTotalElements());
+        verify(repository, never()).findByEventTimeBetween(any(), any());
+    }
+
     // ==================== 测试统计方法 ====================
 
     @Test
@@ -248,15 +263,13 @@ class SecurityLogServiceTest {
         // 准备测试数据
         LocalDateTime start = LocalDateTime.now().minusDays(7);
         LocalDateTime end = LocalDateTime.now();
-        List<SecurityEventLog> mockLogs = Arrays.asList(
-            createMockLog(1L, "SQL_INJECTION_ATTEMPT"),
-            createMockLog(2L, "SQL_INJECTION_ATTEMPT"),
-            createMockLog(3L, "LOGIN_FAILURE"),
-            createMockLog(4L, "UNAUTHORIZED_ACCESS")
-        );
 
-        // 模拟查询操作
-        when(repository.findByEventTimeBetween(start, end)).thenReturn(mockLogs);
+        // 模拟数据库分组统计
+        when(repository.countByEventTypeBetween(start, end)).thenReturn(Arrays.asList(
+            typeCount("SQL_INJECTION_ATTEMPT", 2L),
+            typeCount("LOGIN_FAILURE", 1L),
+            typeCount("UNAUTHORIZED_ACCESS", 1L)
+        ));
 
         // 执行测试
         var result = service.getEventTypeCount(start, end);
@@ -266,10 +279,83 @@ class SecurityLogServiceTest {
         assertEquals(2L, result.get("SQL_INJECTION_ATTEMPT"));
         assertEquals(1L, result.get("LOGIN_FAILURE"));
         assertEquals(1L, result.get("UNAUTHORIZED_ACCESS"));
+        verifyNoInteractions(rollupRepository);
+    }
+
+    @Test
+    @DisplayName("测试获取事件类型统计 - 启用分钟汇总时整分钟读汇总表，首尾查原始日志")
+    void testGetEventTypeCount_WithRollup() {
+        ReflectionTestUtils.setField(service, "rollupEnabled", true);
+        LocalDateTime start = LocalDateTime.of(2026, 1, 1, 10, 0, 30);
+        LocalDateTime end = LocalDateTime.of(2026, 1, 1, 12, 5, 10);
+        LocalDateTime firstMinute = LocalDateTime.of(2026, 1, 1, 10, 1);
+        LocalDateTime endMinute = LocalDateTime.of(2026, 1, 1, 12, 5);
+
+        when(rollupRepository.sumByEventTypeBetween(firstMinute, endMinute)).thenReturn(Arrays.asList(
+            typeCount("SQL_INJECTION_ATTEMPT", 100L),
+            typeCount("LOGIN_FAILURE", 7L)
+        ));
+        when(repository.countByEventTypeBetween(start, firstMinute.minusNanos(1000)))
+            .thenReturn(List.of(typeCount("SQL_INJECTION_ATTEMPT", 2L)));
+        when(repository.countByEventTypeBetween(endMinute, end))
+            .thenReturn(List.of(typeCount("UNAUTHORIZED_ACCESS", 1L)));
+
+        Map<String, Object> statistics = service.getSecurityStatistics(start, end);
+
+        @SuppressWarnings("unchecked")
+        Map<String, Long> eventTypeCount = (Map<String, Long>) statistics.get("eventTypeCount");
+        assertEquals(102L, eventTypeCount.get("SQL_INJECTION_ATTEMPT"));
+        assertEquals(7L, eventTypeCount.get("LOGIN_FAILURE"));
+        assertEquals(1L, eventTypeCount.get("UNAUTHORIZED_ACCESS"));
+        assertEquals(102L, statistics.get("sqlInjectionCount"));
+        assertEquals(110L, statistics.get("totalEvents"));
+        verify(repository, never()).count();
+    }
+
+    @Test
+    @DisplayName("测试分钟汇总回填 - 不看汇总表是否为空，重建到今天并写入回填标记")
+    void testBackfillRollupOnce_IgnoresLiveRowsAndWritesMarker() {
+        LocalDate today = LocalDate.now();
+        when(markerRepository.existsById(SecurityLogService.BACKFILL_MARKER)).thenReturn(false);
+        when(repository.findEarliestEventTime()).thenReturn(today.minusDays(1).atTime(8, 0));
+        when(rollupRepository.rebuildMinutes(any(), any())).thenReturn(3);
+
+        assertEquals(6, service.backfillRollupOnce());
+
+        verify(rollupRepository, never()).count();
+        verify(rollupRepository).rebuildMinutes(today.minusDays(1).atStartOfDay(), today.atStartOfDay());
+        verify(rollupRepository).rebuildMinutes(today.atStartOfDay(), today.plusDays(1).atStartOfDay());
+        verify(markerRepository).save(argThat(marker -> SecurityLogService.BACKFILL_MARKER.equals(marker.getName())));
+    }
+
+    @Test
+    @DisplayName("测试分钟汇总回填 - 已有回填标记时直接返回")
+    void testBackfillRollupOnce_SkipsWhenMarked() {
+        when(markerRepository.existsById(SecurityLogService.BACKFILL_MARKER)).thenReturn(true);
+
+        assertEquals(0, service.backfillRollupOnce());
+
+        verifyNoInteractions(rollupRepository);
+        verify(repository, never()).findEarliestEventTime();
+        verify(markerRepository, never()).save(any());
     }
 
     // ==================== 辅助方法 ====================
 
+    private SecurityEventTypeCount typeCount(String eventType, Long count) {
+        return new SecurityEventTypeCount() {
+            @Override
+            public String getEventType() {
+                return eventType;
+            }
+
+            @Override
+            public Long getEventCount() {
+                return count;
+            }
+        };
+    }
+
     /**
      * 创建模拟的 SecurityEventLog 对象
      */
@@ -0,0 +1,60 @@
+package com.ljh.smarteducation.service;
+
+import com.ljh.smarteducation.entity.ResourceFile;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SignedUrlService 的单元测试
+ */
+@DisplayName("SignedUrlService 测试")
+class SignedUrlServiceTest {
+
+    private final SignedUrlService service = new SignedUrlService("test-secret", 3600);
+
+    @Test
+    @DisplayName("测试签名链接 - 令牌应还原出文件信息，同一时间窗口内链接不变")
+    void testSignAndVerify_RoundTrip() {
+        ResourceFile file = audioFile();
+        Instant now = Instant.ofEpochSecond(1_700_000_000L);
+
+        String token = service.sign(file, now);
+        assertEquals(token, service.sign(file, now.plusSeconds(60)));
+
+        Optional<ResourceFile> verified = service.verify(token, now);
+        assertTrue(verified.isPresent());
+        assertEquals(7L, verified.get().getId());
+        assertEquals("ab/cd/abcd", verified.get().getStoragePath());
+        assertEquals("audio/mpeg", verified.get().getFileType());
+        assertEquals("四级听力.mp3", verified.get().getFileName());
+        assertEquals("abcd", verified.get().getContentHash());
+    }
+
+    @Test
+    @DisplayName("测试签名链接 - 篡改、过期或其他密钥签发的令牌应被拒绝")
+    void testVerify_RejectsInvalidTokens() {
+        Instant now = Instant.ofEpochSecond(1_700_000_000L);
+        String token = service.sign(audioFile(), now);
+
+        String tampered = (token.charAt(3) == 'A' ? 'B' : 'A') + "";
+        assertTrue(service.verify(token.substring(0, 3) + tampered + token.substring(4), now).isEmpty());
+        assertTrue(service.verify(token, now.plusSeconds(3 * 3600)).isEmpty());
+        assertTrue(new SignedUrlService("other-secret", 3600).verify(token, now).isEmpty());
+        assertTrue(service.verify("not-a-token", now).isEmpty());
+    }
+
+    private static ResourceFile audioFile() {
+        ResourceFile file = new ResourceFile();
+        file.setId(7L);
+        file.setStoragePath("ab/cd/abcd");
+        file.setFileType("audio/mpeg");
+        file.setFileName("四级听力.mp3");
+        file.setContentHash("abcd");
+        return file;
+    }
+}
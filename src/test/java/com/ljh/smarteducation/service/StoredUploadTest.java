@@ -0,0 +1,57 @@
+package com.ljh.smarteducation.service;
+
+import com.ljh.smarteducation.util.FileHashUtil;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * StoredUpload 的单元测试
+ */
+@DisplayName("StoredUpload 测试")
+class StoredUploadTest {
+
+    @Test
+    @DisplayName("测试落盘 - 应该一次写入并同时算出与原文件一致的 MD5")
+    void testSpool_ComputesHashWhileWriting() throws Exception {
+        byte[] content = "Part I Listening Comprehension".getBytes(StandardCharsets.UTF_8);
+        MockMultipartFile original = new MockMultipartFile("file", "paper.docx",
+                "application/octet-stream", content);
+
+        try (StoredUpload upload = StoredUpload.spool(original)) {
+            assertEquals(FileHashUtil.calculateMD5(original), upload.getMd5());
+            assertEquals(upload.getMd5(), FileHashUtil.calculateMD5(upload));
+            assertEquals(content.length, upload.getSize());
+            assertEquals("paper.docx", upload.getOriginalFilename());
+            assertTrue(upload.getPath().toString().endsWith(".docx"));
+            assertArrayEquals(content, upload.getBytes());
+
+            ByteBuffer mapped = upload.map();
+            byte[] mappedBytes = new byte[mapped.remaining()];
+            mapped.get(mappedBytes);
+            assertArrayEquals(content, mappedBytes);
+        }
+    }
+
+    @Test
+    @DisplayName("测试关闭 - 应该删除临时文件")
+    void testClose_DeletesTempFile() throws Exception {
+        MockMultipartFile original = new MockMultipartFile("file", "../../etc/passwd",
+                "text/plain", new byte[]{1, 2, 3});
+
+        StoredUpload upload = StoredUpload.spool(original);
+        Path path = upload.getPath();
+        assertTrue(Files.exists(path));
+        assertFalse(path.getFileName().toString().contains("passwd"));
+
+        upload.close();
+        assertFalse(Files.exists(path));
+    }
+}
@@ -0,0 +1,77 @@
+package com.ljh.smarteducation.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SubmissionJournal 的单元测试
+ */
+@DisplayName("SubmissionJournal 测试")
+class SubmissionJournalTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("测试轮换 - 分段包含轮换前追加的答卷，删除后不再被恢复")
+    void testRotate_ReturnsAppendedEntries() throws Exception {
+        try (SubmissionJournal journal = new SubmissionJournal(directory, objectMapper, false)) {
+            assertNull(journal.rotate());
+
+            journal.append(entry("a"));
+            journal.append(entry("b"));
+            SubmissionJournal.Segment segment = journal.rotate();
+            journal.append(entry("c"));
+
+            assertEquals(List.of("a", "b"), segment.entries().stream().map(SubmissionJournal.Entry::intakeId).toList());
+            journal.delete(segment);
+        }
+
+        try (SubmissionJournal reopened = new SubmissionJournal(directory, objectMapper, false)) {
+            List<SubmissionJournal.Segment> recovered = reopened.recover();
+            assertEquals(1, recovered.size());
+            assertEquals("c", recovered.get(0).entries().get(0).intakeId());
+        }
+    }
+
+    @Test
+    @DisplayName("测试恢复 - 崩溃时写了一半的最后一行应被跳过，新分段不覆盖旧分段")
+    void testRecover_SkipsTruncatedTail() throws Exception {
+        Path segmentPath;
+        try (SubmissionJournal journal = new SubmissionJournal(directory, objectMapper, true)) {
+            journal.append(entry("a"));
+            segmentPath = journal.rotate().path();
+        }
+        Files.writeString(segmentPath, "{\"intakeId\":\"b\",\"userId\":", StandardCharsets.UTF_8,
+                StandardOpenOption.APPEND);
+
+        try (SubmissionJournal journal = new SubmissionJournal(directory, objectMapper, true)) {
+            List<SubmissionJournal.Segment> recovered = journal.recover();
+            assertEquals(1, recovered.size());
+            SubmissionJournal.Entry restored = recovered.get(0).entries().get(0);
+            assertEquals("a", restored.intakeId());
+            assertEquals(Map.of("1", "11"), restored.answers());
+
+            journal.append(entry("c"));
+            assertNotEquals(segmentPath, journal.rotate().path());
+        }
+    }
+
+    private static SubmissionJournal.Entry entry(String intakeId) {
+        return new SubmissionJournal.Entry(intakeId, 7L, "student", 3L, Map.of("1", "11"), 1, 1, true,
+                1_700_000_000_000L);
+    }
+}
@@ -0,0 +1,148 @@
+package com.ljh.smarteducation.service.impl;
+
+import com.ljh.smarteducation.dto.ApiUsageTotals;
+import com.ljh.smarteducation.entity.ApiUsageLog;
+import com.ljh.smarteducation.repository.ApiUsageDailyRollupRepository;
+import com.ljh.smarteducation.repository.ApiUsageLogRepository;
+import com.ljh.smarteducation.repository.BackfillMarkerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * ApiUsageServiceImpl 的单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ApiUsageService 测试")
+class ApiUsageServiceImplTest {
+
+    @Mock
+    private ApiUsageLogRepository logRepository;
+    @Mock
+    private ApiUsageDailyRollupRepository rollupRepository;
+    @Mock
+    private BackfillMarkerRepository markerRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ApiUsageServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        service = new ApiUsageServiceImpl(logRepository, rollupRepository, markerRepository, transactionManager);
+    }
+
+    @Test
+    @DisplayName("测试记录日志 - 保存日志并累加到所属日期和模型的汇总桶")
+    void testRecord_AccumulatesRollup() {
+        ApiUsageLog usageLog = new ApiUsageLog();
+        usageLog.setModelName("qwen-plus");
+        usageLog.setSuccess(true);
+        usageLog.setTotalTokens(1200);
+        usageLog.setInputTokens(1000);
+        usageLog.setOutputTokens(200);
+        usageLog.setTotalCost(0.5);
+        usageLog.setQuestionCount(10);
+        usageLog.setCreatedAt(LocalDateTime.of(2024, 3, 1, 10, 0));
+        when(logRepository.save(usageLog)).thenReturn(usageLog);
+
+        service.record(usageLog);
+
+        verify(rollupRepository).accumulate(LocalDate.of(2024, 3, 1), "qwen-plus", true,
+                1000L, 200L, 1200L, 0.5, 10L, 0L);
+    }
+
+    @Test
+    @DisplayName("测试时间段合计 - 整天读汇总表，首尾不足一天的部分查询原始日志")
+    void testGetTotalsBetween_SplitsPartialDays() {
+        LocalDateTime start = LocalDateTime.of(2024, 3, 1, 12, 0);
+        LocalDateTime end = LocalDateTime.of(2024, 3, 5, 8, 30);
+        when(rollupRepository.sumSuccessBetween(LocalDate.of(2024, 3, 2), LocalDate.of(2024, 3, 5)))
+                .thenReturn(totals(30, 3000, 3.0, 60));
+        when(logRepository.sumSuccessBetween(start, LocalDate.of(2024, 3, 2).atStartOfDay().minusNanos(1000)))
+                .thenReturn(totals(2, 200, 0.2, 4));
+        when(logRepository.sumSuccessBetween(LocalDate.of(2024, 3, 5).atStartOfDay(), end))
+                .thenReturn(totals(1, 100, 0.1, 2));
+
+        ApiUsageTotals result = service.getTotalsBetween(start, end);
+
+        assertEquals(33L, result.getCallCount());
+        assertEquals(3300L, result.getTotalTokens());
+        assertEquals(3.3, result.getTotalCost(), 1e-9);
+        assertEquals(66L, result.getQuestionCount());
+    }
+
+    @Test
+    @DisplayName("测试时间段合计 - 不足一整天时只查询原始日志")
+    void testGetTotalsBetween_ShortRangeUsesRawLogs() {
+        LocalDateTime start = LocalDateTime.of(2024, 3, 1, 9, 0);
+        LocalDateTime end = LocalDateTime.of(2024, 3, 1, 18, 0);
+        when(logRepository.sumSuccessBetween(start, end)).thenReturn(totals(5, 500, 0.5, 10));
+
+        assertEquals(5L, service.getTotalsBetween(start, end).getCallCount());
+        verify(rollupRepository, never()).sumSuccessBetween(any(), any());
+    }
+
+    @Test
+    @DisplayName("测试回填 - 汇总表已有实时写入的数据时仍回填历史，完成后写入标记")
+    void testBackfillRollupOnce_IgnoresLiveRowsAndWritesMarker() {
+        when(markerRepository.existsById(ApiUsageServiceImpl.BACKFILL_MARKER)).thenReturn(false);
+        when(logRepository.findEarliestCreatedAt()).thenReturn(LocalDate.now().atStartOfDay());
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(rollupRepository.rebuildDays(any(), any())).thenReturn(4);
+
+        assertEquals(4, service.backfillRollupOnce());
+
+        verify(rollupRepository, never()).count();
+        verify(rollupRepository).deleteDays(LocalDate.now(), LocalDate.now().plusDays(1));
+        verify(markerRepository).save(argThat(marker -> ApiUsageServiceImpl.BACKFILL_MARKER.equals(marker.getName())));
+    }
+
+    @Test
+    @DisplayName("测试回填 - 已有回填标记时直接返回")
+    void testBackfillRollupOnce_SkipsWhenMarked() {
+        when(markerRepository.existsById(ApiUsageServiceImpl.BACKFILL_MARKER)).thenReturn(true);
+
+        assertEquals(0, service.backfillRollupOnce());
+
+        verifyNoInteractions(logRepository, rollupRepository);
+        verify(markerRepository, never()).save(any());
+    }
+
+    private static ApiUsageTotals totals(long calls, long tokens, double cost, long questions) {
+        return new ApiUsageTotals() {
+            @Override
+            public Long getCallCount() {
+                return calls;
+            }
+
+            @Override
+            public Long getTotalTokens() {
+                return tokens;
+            }
+
+            @Override
+            public Double getTotalCost() {
+                return cost;
+            }
+
+            @Override
+            public Long getQuestionCount() {
+                return questions;
+            }
+        };
+    }
+}
@@ -0,0 +1,158 @@
+package com.ljh.smarteducation.service.impl;
+
+import com.ljh.smarteducation.entity.AiParseCache;
+import com.ljh.smarteducation.entity.OcrCache;
+import com.ljh.smarteducation.event.ExpiredCachesCleanedEvent;
+import com.ljh.smarteducation.repository.AiParseCacheRepository;
+import com.ljh.smarteducation.repository.DocumentCacheRepository;
+import com.ljh.smarteducation.repository.OcrCacheRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * CacheServiceImpl 的单元测试（L1/数据库两级缓存与命中统计）
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("CacheService 测试")
+class CacheServiceImplTest {
+
+    @Mock
+    private DocumentCacheRepository documentCacheRepository;
+    @Mock
+    private OcrCacheRepository ocrCacheRepository;
+    @Mock
+    private AiParseCacheRepository aiParseCacheRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private CacheServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        service = new CacheServiceImpl(documentCacheRepository, ocrCacheRepository, aiParseCacheRepository,
+                eventPublisher, 1 << 20, 1 << 20, 1 << 20);
+    }
+
+    @Test
+    @DisplayName("测试查询 - 首次从数据库加载并回填 L1，之后命中 L1 不再查库")
+    void testFindOcrCache_LoadsIntoL1() {
+        OcrCache cache = ocrCache("h1", "recognized");
+        when(ocrCacheRepository.findByImageHash("h1")).thenReturn(Optional.of(cache));
+
+        assertEquals(Optional.of(cache), service.findOcrCache("h1"));
+        assertEquals(Optional.of(cache), service.findOcrCache("h1"));
+        assertEquals(Optional.of(cache), service.findOcrCache("h1"));
+
+        verify(ocrCacheRepository, times(1)).findByImageHash("h1");
+        Map<String, Object> stats = tierStatistics("ocr");
+        assertEquals(2L, stats.get("l1Hits"));
+        assertEquals(1L, stats.get("l1Misses"));
+        assertEquals(1L, stats.get("dbHits"));
+        assertEquals(0L, stats.get("dbMisses"));
+        assertEquals(1L, stats.get("l1Entries"));
+    }
+
+    @Test
+    @DisplayName("测试查询 - 数据库中也没有时不缓存空结果，每次都查库并计入 dbMisses")
+    void testFindOcrCache_MissNotCached() {
+        when(ocrCacheRepository.findByImageHash("missing")).thenReturn(Optional.empty());
+
+        assertTrue(service.findOcrCache("missing").isEmpty());
+        assertTrue(service.findOcrCache("missing").isEmpty());
+
+        verify(ocrCacheRepository, times(2)).findByImageHash("missing");
+        Map<String, Object> stats = tierStatistics("ocr");
+        assertEquals(0L, stats.get("l1Hits"));
+        assertEquals(2L, stats.get("dbMisses"));
+        assertEquals(0L, stats.get("dbHits"));
+    }
+
+    @Test
+    @DisplayName("测试保存 - 写入数据库的同时写入 L1，按载荷字节数计权")
+    void testSaveOcrCache_WritesThrough() {
+        OcrCache cache = ocrCache("h2", "abcd");
+        when(ocrCacheRepository.save(cache)).thenReturn(cache);
+
+        service.saveOcrCache(cache);
+
+        assertEquals(Optional.of(cache), service.findOcrCache("h2"));
+        verify(ocrCacheRepository, never()).findByImageHash(any());
+        Map<String, Object> stats = tierStatistics("ocr");
+        assertEquals(1L, stats.get("l1Hits"));
+        // 256 字节固定开销 + "abcd" 与 "scan.png" 按 UTF-16 计
+        assertEquals(256L + 8 + 16, stats.get("l1Bytes"));
+    }
+
+    @Test
+    @DisplayName("测试 AI 解析缓存 - 按文本哈希和学科区分条目")
+    void testFindAiParseCache_KeyedBySubject() {
+        AiParseCache english = aiParseCache("t1", "English");
+        when(aiParseCacheRepository.findByTextHashAndSubject("t1", "English")).thenReturn(Optional.of(english));
+        when(aiParseCacheRepository.findByTextHashAndSubject("t1", "Math")).thenReturn(Optional.empty());
+
+        assertEquals(Optional.of(english), service.findAiParseCache("t1", "English"));
+        assertTrue(service.findAiParseCache("t1", "Math").isEmpty());
+        assertEquals(Optional.of(english), service.findAiParseCache("t1", "English"));
+
+        Map<String, Object> stats = tierStatistics("aiParse");
+        assertEquals(1L, stats.get("l1Hits"));
+        assertEquals(1L, stats.get("dbHits"));
+        assertEquals(1L, stats.get("dbMisses"));
+    }
+
+    @Test
+    @DisplayName("测试清理过期缓存 - L1 在删除提交后（收到事件时）才清空")
+    void testCleanExpiredCaches_InvalidatesL1AfterCommit() {
+        OcrCache cache = ocrCache("h3", "text");
+        when(ocrCacheRepository.save(cache)).thenReturn(cache);
+        service.saveOcrCache(cache);
+
+        service.cleanExpiredCaches();
+
+        ArgumentCaptor<ExpiredCachesCleanedEvent> event = ArgumentCaptor.forClass(ExpiredCachesCleanedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        verify(ocrCacheRepository).deleteByExpiresAtBefore(event.getValue().expiredBefore());
+        // 事务提交前 L1 仍然可用
+        assertEquals(Optional.of(cache), service.findOcrCache("h3"));
+
+        service.onExpiredCachesCleaned(event.getValue());
+
+        when(ocrCacheRepository.findByImageHash("h3")).thenReturn(Optional.empty());
+        assertTrue(service.findOcrCache("h3").isEmpty());
+        assertEquals(0L, tierStatistics("ocr").get("l1Entries"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> tierStatistics(String tier) {
+        return (Map<String, Object>) service.getCacheStatistics().get(tier);
+    }
+
+    private static OcrCache ocrCache(String imageHash, String text) {
+        OcrCache cache = new OcrCache();
+        cache.setImageHash(imageHash);
+        cache.setRecognizedText(text);
+        cache.setFileName("scan.png");
+        return cache;
+    }
+
+    private static AiParseCache aiParseCache(String textHash, String subject) {
+        AiParseCache cache = new AiParseCache();
+        cache.setTextHash(textHash);
+        cache.setSubject(subject);
+        cache.setAiJsonResult("[]");
+        return cache;
+    }
+}
@@ -0,0 +1,83 @@
+package com.ljh.smarteducation.service.impl;
+
+import com.ljh.smarteducation.repository.StudentSubmissionRepository;
+import com.ljh.smarteducation.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * DashboardCounterServiceImpl 的单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("DashboardCounterService 测试")
+class DashboardCounterServiceImplTest {
+
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private StudentSubmissionRepository submissionRepository;
+
+    private DashboardCounterServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        when(userRepository.countByRole("ROLE_STUDENT")).thenReturn(10L);
+        when(userRepository.countByRole("ROLE_TEACHER")).thenReturn(2L);
+        when(userRepository.countByRole("ROLE_ADMIN")).thenReturn(1L);
+        when(userRepository.countByCreateTimeGreaterThanEqual(any())).thenReturn(3L);
+        when(submissionRepository.count()).thenReturn(100L);
+        when(submissionRepository.countByGraded(false)).thenReturn(5L);
+        service = new DashboardCounterServiceImpl(userRepository, submissionRepository, 300);
+    }
+
+    @Test
+    @DisplayName("测试快照 - 首次读取时对账，之后按事件增减且不再查询数据库")
+    void testSnapshot_AppliesEventsWithoutQueries() {
+        Map<String, Object> initial = service.snapshot();
+        assertEquals(10L, initial.get("totalStudents"));
+        assertEquals(2L, initial.get("totalTeachers"));
+        assertEquals(1L, initial.get("totalAdmins"));
+        assertEquals(100L, initial.get("totalSubmissions"));
+        assertEquals(5L, initial.get("pendingSubmissions"));
+        assertEquals(3L, initial.get("newUsersToday"));
+
+        service.userCreated("ROLE_STUDENT");
+        service.submissionsRecorded(4, 2);
+        service.submissionsGraded(3);
+
+        Map<String, Object> stats = service.snapshot();
+        assertEquals(11L, stats.get("totalStudents"));
+        assertEquals(104L, stats.get("totalSubmissions"));
+        assertEquals(4L, stats.get("pendingSubmissions"));
+        assertEquals(4L, stats.get("newUsersToday"));
+        verify(submissionRepository, times(1)).count();
+    }
+
+    @Test
+    @DisplayName("测试对账 - 数据库计数替换基数，对账前的事件增量不重复计入")
+    void testReconcile_ReplacesDrift() {
+        service.reconcile();
+        service.submissionsRecorded(7, 7);
+
+        when(submissionRepository.count()).thenReturn(106L);
+        when(submissionRepository.countByGraded(false)).thenReturn(11L);
+        service.reconcile();
+
+        Map<String, Object> stats = service.snapshot();
+        assertEquals(106L, stats.get("totalSubmissions"));
+        assertEquals(11L, stats.get("pendingSubmissions"));
+
+        service.submissionsRecorded(1, 0);
+        assertEquals(107L, service.snapshot().get("totalSubmissions"));
+    }
+}
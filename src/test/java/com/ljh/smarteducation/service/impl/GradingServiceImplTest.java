@@ -0,0 +1,164 @@
+package com.ljh.smarteducation.service.impl;
+
+import com.ljh.smarteducation.dto.GradeRequest;
+import com.ljh.smarteducation.entity.StudentSubmission;
+import com.ljh.smarteducation.repository.StudentSubmissionRepository;
+import com.ljh.smarteducation.repository.SubmissionBatchRepository;
+import com.ljh.smarteducation.service.DashboardCounterService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * GradingServiceImpl 的单元测试（领取租约、冲突与过期接管）
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("GradingService 测试")
+class GradingServiceImplTest {
+
+    private static final long LEASE_MINUTES = 15;
+
+    @Mock
+    private StudentSubmissionRepository submissionRepository;
+    @Mock
+    private SubmissionBatchRepository batchRepository;
+    @Mock
+    private DashboardCounterService dashboardCounters;
+
+    private GradingServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        service = new GradingServiceImpl(submissionRepository, batchRepository, dashboardCounters, LEASE_MINUTES);
+    }
+
+    @Test
+    @DisplayName("测试领取 - 按租约时长领取或续期，返回同一时刻仍由自己持有的答卷")
+    void testClaim_LeaseWindow() {
+        StudentSubmission claimed = new StudentSubmission();
+        when(submissionRepository.claimPending(eq("t1"), any(), any(), eq(10))).thenReturn(1);
+        when(submissionRepository.findClaimedBy(eq("t1"), any())).thenReturn(List.of(claimed));
+
+        assertEquals(List.of(claimed), service.claim("t1", 10));
+
+        ArgumentCaptor<LocalDateTime> now = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<LocalDateTime> expiresAt = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(submissionRepository).claimPending(eq("t1"), now.capture(), expiresAt.capture(), eq(10));
+        assertEquals(Duration.ofMinutes(LEASE_MINUTES), Duration.between(now.getValue(), expiresAt.getValue()));
+        // 列出领取结果时使用同一个 now，刚续期的答卷不会因时钟推进被漏掉，已过期的领取不会被列出
+        verify(submissionRepository).findClaimedBy("t1", now.getValue());
+    }
+
+    @Test
+    @DisplayName("测试续期 - 再次领取时已持有的答卷的到期时间向后推移")
+    void testClaim_RenewalExtendsLease() throws Exception {
+        ArgumentCaptor<LocalDateTime> expiresAt = ArgumentCaptor.forClass(LocalDateTime.class);
+        when(submissionRepository.claimPending(eq("t1"), any(), expiresAt.capture(), anyInt())).thenReturn(1);
+
+        service.claim("t1", 1);
+        Thread.sleep(5);
+        service.claim("t1", 1);
+
+        assertTrue(expiresAt.getAllValues().get(1).isAfter(expiresAt.getAllValues().get(0)));
+    }
+
+    @Test
+    @DisplayName("测试批改 - 答卷被他人领取且未过期时抛出 IllegalStateException（接口返回 409）")
+    void testGrade_ForeignClaimConflicts() {
+        when(submissionRepository.countByIdInAndGraded(List.of(5L), false)).thenReturn(1L);
+        when(submissionRepository.grade(eq(5L), any(), any(), eq("t2"), any())).thenReturn(0);
+        when(submissionRepository.existsById(5L)).thenReturn(true);
+
+        assertThrows(IllegalStateException.class, () -> service.grade("t2", gradeRequest(5L, 80, "ok")));
+
+        verifyNoInteractions(dashboardCounters);
+        verify(submissionRepository, never()).findById(any());
+    }
+
+    @Test
+    @DisplayName("测试批改 - 答卷不存在时返回空")
+    void testGrade_MissingSubmission() {
+        when(submissionRepository.grade(eq(6L), any(), any(), eq("t1"), any())).thenReturn(0);
+        when(submissionRepository.existsById(6L)).thenReturn(false);
+
+        assertTrue(service.grade("t1", gradeRequest(6L, 80, "ok")).isEmpty());
+        verifyNoInteractions(dashboardCounters);
+    }
+
+    @Test
+    @DisplayName("测试批改 - 他人的领取已过期时可以接管，按当前时间判断租约")
+    void testGrade_ExpiredLeaseTakenOver() {
+        StudentSubmission graded = new StudentSubmission();
+        when(submissionRepository.countByIdInAndGraded(List.of(7L), false)).thenReturn(1L);
+        when(submissionRepository.grade(eq(7L), eq(90), eq("good"), eq("t2"), any())).thenReturn(1);
+        when(submissionRepository.findById(7L)).thenReturn(Optional.of(graded));
+
+        LocalDateTime before = LocalDateTime.now();
+        assertEquals(Optional.of(graded), service.grade("t2", gradeRequest(7L, 90, "good")));
+
+        ArgumentCaptor<LocalDateTime> now = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(submissionRepository).grade(eq(7L), eq(90), eq("good"), eq("t2"), now.capture());
+        assertFalse(now.getValue().isBefore(before));
+        verify(dashboardCounters).submissionsGraded(1);
+    }
+
+    @Test
+    @DisplayName("测试批改已批改的答卷 - 成功但不重复计入待批改数量")
+    void testGrade_AlreadyGradedNotCounted() {
+        when(submissionRepository.countByIdInAndGraded(List.of(8L), false)).thenReturn(0L);
+        when(submissionRepository.grade(eq(8L), any(), any(), eq("t1"), any())).thenReturn(1);
+        when(submissionRepository.findById(8L)).thenReturn(Optional.of(new StudentSubmission()));
+
+        assertTrue(service.grade("t1", gradeRequest(8L, 70, null)).isPresent());
+        verify(dashboardCounters).submissionsGraded(0);
+    }
+
+    @Test
+    @DisplayName("测试批量批改 - 被他人领取而跳过的答卷不计入已批改数量")
+    void testGradeAll_SkipsForeignClaims() {
+        List<GradeRequest> grades = List.of(gradeRequest(1L, 60, "a"), gradeRequest(2L, 70, "b"),
+                gradeRequest(3L, 80, "c"));
+        when(submissionRepository.countByIdInAndGraded(List.of(1L, 2L, 3L), false)).thenReturn(3L);
+        when(batchRepository.gradeAll(eq(grades), eq("t1"), any())).thenReturn(2);
+
+        assertEquals(2, service.gradeAll("t1", grades));
+
+        verify(dashboardCounters).submissionsGraded(2);
+    }
+
+    @Test
+    @DisplayName("测试批量批改 - 空列表不查询数据库")
+    void testGradeAll_Empty() {
+        when(batchRepository.gradeAll(anyList(), anyString(), any())).thenReturn(0);
+
+        assertEquals(0, service.gradeAll("t1", List.of()));
+
+        verify(submissionRepository, never()).countByIdInAndGraded(any(), any());
+        verify(dashboardCounters).submissionsGraded(0);
+    }
+
+    private static GradeRequest gradeRequest(Long submissionId, Integer manualScore, String feedback) {
+        GradeRequest grade = new GradeRequest();
+        grade.setSubmissionId(submissionId);
+        grade.setManualScore(manualScore);
+        grade.setFeedback(feedback);
+        return grade;
+    }
+}
@@ -0,0 +1,95 @@
+package com.ljh.smarteducation.service.impl;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ImagePreprocessServiceImpl 的单元测试
+ */
+@DisplayName("ImagePreprocessServiceImpl 测试")
+class ImagePreprocessServiceImplTest {
+
+    private final ImagePreprocessServiceImpl service = new ImagePreprocessServiceImpl();
+
+    @Test
+    @DisplayName("测试中值滤波 - 应该与逐像素排序取中值的结果一致")
+    void testDenoise_MatchesNaiveMedian() {
+        int width = 157;
+        int height = 131;
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        Random random = new Random(42);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.getRaster().setSample(x, y, 0, random.nextInt(256));
+            }
+        }
+
+        BufferedImage denoised = service.denoise(image);
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int[] window = new int[9];
+                int index = 0;
+                for (int dy = -1; dy <= 1; dy++) {
+                    for (int dx = -1; dx <= 1; dx++) {
+                        int sx = Math.min(Math.max(x + dx, 0), width - 1);
+                        int sy = Math.min(Math.max(y + dy, 0), height - 1);
+                        window[index++] = image.getRaster().getSample(sx, sy, 0);
+                    }
+                }
+                Arrays.sort(window);
+                assertEquals(window[4], denoised.getRaster().getSample(x, y, 0), "x=" + x + ", y=" + y);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("测试完整预处理 - 应该去除椒盐噪声并保留文字区域")
+    void testPreprocessImage_RemovesSaltNoise() {
+        int width = 300;
+        int height = 200;
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                boolean text = x >= 100 && x < 200 && y >= 80 && y < 120;
+                image.setRGB(x, y, text ? 0x202020 : 0xF0F0F0);
+            }
+        }
+        // 孤立的黑色噪点
+        image.setRGB(20, 20, 0x000000);
+        image.setRGB(250, 170, 0x000000);
+
+        BufferedImage result = service.preprocessImage(image);
+
+        assertEquals(BufferedImage.TYPE_BYTE_BINARY, result.getType());
+        assertEquals(width, result.getWidth());
+        assertEquals(height, result.getHeight());
+        assertEquals(0x000000, result.getRGB(150, 100) & 0xFFFFFF);
+        assertEquals(0xFFFFFF, result.getRGB(20, 20) & 0xFFFFFF);
+        assertEquals(0xFFFFFF, result.getRGB(250, 170) & 0xFFFFFF);
+        assertEquals(0xFFFFFF, result.getRGB(0, 0) & 0xFFFFFF);
+        assertEquals(0xFFFFFF, result.getRGB(width - 1, height - 1) & 0xFFFFFF);
+    }
+
+    @Test
+    @DisplayName("测试二值化 - 应该按 Otsu 阈值区分黑白")
+    void testBinarize_SplitsByOtsuThreshold() {
+        BufferedImage image = new BufferedImage(10, 1, BufferedImage.TYPE_BYTE_GRAY);
+        for (int x = 0; x < 10; x++) {
+            image.getRaster().setSample(x, 0, 0, x < 5 ? 30 : 220);
+        }
+
+        BufferedImage result = service.binarize(image);
+
+        for (int x = 0; x < 10; x++) {
+            int expected = x < 5 ? 0x000000 : 0xFFFFFF;
+            assertEquals(expected, result.getRGB(x, 0) & 0xFFFFFF, "x=" + x);
+        }
+    }
+}
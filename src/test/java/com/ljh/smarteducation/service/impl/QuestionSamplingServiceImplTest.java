@@ -0,0 +1,81 @@
+package com.ljh.smarteducation.service.impl;
+
+import com.ljh.smarteducation.entity.Question;
+import com.ljh.smarteducation.event.QuestionBankChangedEvent;
+import com.ljh.smarteducation.repository.QuestionBankRepository;
+import com.ljh.smarteducation.repository.QuestionIndexRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.*;
+
+/**
+ * QuestionSamplingServiceImpl 的单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("QuestionSamplingService 测试")
+class QuestionSamplingServiceImplTest {
+
+    @Mock
+    private QuestionBankRepository questionRepository;
+    @Mock
+    private QuestionIndexRepository questionIndexRepository;
+
+    private final List<Runnable> pendingTasks = new ArrayList<>();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private QuestionSamplingServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        service = new QuestionSamplingServiceImpl(questionRepository, questionIndexRepository, pendingTasks::add, 300);
+        // 每次重建索引都只有一道新题，据此判断当前使用的是哪一版索引
+        doAnswer(invocation -> {
+            QuestionIndexRepository.IndexRowHandler handler = invocation.getArgument(0);
+            handler.accept(nextId.getAndIncrement(), "English", "Easy", "Grammar", "MULTIPLE_CHOICE");
+            return null;
+        }).when(questionIndexRepository).forEachIndexRow(any());
+        when(questionRepository.findAllById(anyIterable())).thenAnswer(invocation -> {
+            List<Question> questions = new ArrayList<>();
+            for (Long id : invocation.<Iterable<Long>>getArgument(0)) {
+                Question question = new Question();
+                question.setId(id);
+                questions.add(question);
+            }
+            return questions;
+        });
+    }
+
+    @Test
+    @DisplayName("测试后台重建 - 题库变更后继续使用旧索引，后台任务完成后切换到新索引")
+    void testSample_RebuildsInBackgroundAfterChange() {
+        assertEquals(1L, sampledId());
+        assertTrue(pendingTasks.isEmpty());
+
+        service.onQuestionBankChanged(QuestionBankChangedEvent.of(1L));
+        assertEquals(1L, sampledId());
+        assertEquals(1L, sampledId());
+        assertEquals(1, pendingTasks.size(), "重建期间不应重复提交任务");
+
+        pendingTasks.remove(0).run();
+        assertEquals(2L, sampledId());
+        assertTrue(pendingTasks.isEmpty());
+        verify(questionIndexRepository, times(2)).forEachIndexRow(any());
+    }
+
+    private Long sampledId() {
+        List<Question> questions = service.sample(1, null, null, null, false);
+        assertEquals(1, questions.size());
+        return questions.get(0).getId();
+    }
+}
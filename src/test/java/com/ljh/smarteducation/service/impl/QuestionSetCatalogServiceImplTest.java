@@ -0,0 +1,101 @@
+package com.ljh.smarteducation.service.impl;
+
+import com.ljh.smarteducation.dto.QuestionSetSummaryDto;
+import com.ljh.smarteducation.event.QuestionBankChangedEvent;
+import com.ljh.smarteducation.repository.QuestionSetRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+/**
+ * QuestionSetCatalogServiceImpl 的单元测试（按页缓存与题库变更失效）
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("QuestionSetCatalogService 测试")
+class QuestionSetCatalogServiceImplTest {
+
+    @Mock
+    private QuestionSetRepository questionSetRepository;
+
+    private QuestionSetCatalogServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        service = new QuestionSetCatalogServiceImpl(questionSetRepository, 30, 1000);
+    }
+
+    @Test
+    @DisplayName("测试列表 - 相同的学科、页码和每页大小只查询一次")
+    void testListSets_CachesSamePage() {
+        Page<QuestionSetSummaryDto> page = new PageImpl<>(List.of(new QuestionSetSummaryDto()));
+        when(questionSetRepository.findSummaries("English", PageRequest.of(0, 20))).thenReturn(page);
+
+        assertSame(page, service.listSets("English", 0, 20));
+        assertSame(page, service.listSets("English", 0, 20));
+
+        verify(questionSetRepository, times(1)).findSummaries(any(), any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("测试列表 - 学科、页码或每页大小不同时分别查询")
+    void testListSets_KeyedBySubjectPageAndSize() {
+        when(questionSetRepository.findSummaries(any(), any(Pageable.class))).thenReturn(Page.empty());
+
+        service.listSets("English", 0, 20);
+        service.listSets("Math", 0, 20);
+        service.listSets("English", 1, 20);
+        service.listSets("English", 0, 50);
+        service.listSets("English", 0, 20);
+
+        verify(questionSetRepository).findSummaries("English", PageRequest.of(0, 20));
+        verify(questionSetRepository).findSummaries("Math", PageRequest.of(0, 20));
+        verify(questionSetRepository).findSummaries("English", PageRequest.of(1, 20));
+        verify(questionSetRepository).findSummaries("English", PageRequest.of(0, 50));
+        verifyNoMoreInteractions(questionSetRepository);
+    }
+
+    @Test
+    @DisplayName("测试列表 - 空学科与未指定学科共用同一个缓存条目，按全部学科查询")
+    void testListSets_BlankSubjectNormalized() {
+        when(questionSetRepository.findSummaries(isNull(), eq(PageRequest.of(0, 20)))).thenReturn(Page.empty());
+
+        service.listSets(null, 0, 20);
+        service.listSets("", 0, 20);
+        service.listSets("  ", 0, 20);
+
+        verify(questionSetRepository, times(1)).findSummaries(isNull(), any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("测试题库变更 - 收到事件后所有页失效，再次查询时重新加载")
+    void testOnQuestionBankChanged_InvalidatesAllPages() {
+        Page<QuestionSetSummaryDto> stale = new PageImpl<>(List.of(new QuestionSetSummaryDto()));
+        Page<QuestionSetSummaryDto> fresh = new PageImpl<>(List.of(new QuestionSetSummaryDto(), new QuestionSetSummaryDto()));
+        when(questionSetRepository.findSummaries("English", PageRequest.of(0, 20))).thenReturn(stale, fresh);
+        when(questionSetRepository.findSummaries("Math", PageRequest.of(0, 20))).thenReturn(Page.empty());
+        service.listSets("English", 0, 20);
+        service.listSets("Math", 0, 20);
+
+        service.onQuestionBankChanged(QuestionBankChangedEvent.of(7L));
+
+        assertSame(fresh, service.listSets("English", 0, 20));
+        service.listSets("Math", 0, 20);
+        verify(questionSetRepository, times(2)).findSummaries("English", PageRequest.of(0, 20));
+        verify(questionSetRepository, times(2)).findSummaries("Math", PageRequest.of(0, 20));
+    }
+}
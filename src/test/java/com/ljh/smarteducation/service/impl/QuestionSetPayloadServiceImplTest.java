@@ -0,0 +1,115 @@
+package com.ljh.smarteducation.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ljh.smarteducation.entity.Question;
+import com.ljh.smarteducation.entity.QuestionSet;
+import com.ljh.smarteducation.event.QuestionBankChangedEvent;
+import com.ljh.smarteducation.repository.QuestionBankRepository;
+import com.ljh.smarteducation.repository.QuestionSetRepository;
+import com.ljh.smarteducation.service.QuestionSetPayloadService;
+import com.ljh.smarteducation.service.SignedUrlService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * QuestionSetPayloadServiceImpl 的单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("QuestionSetPayloadService 测试")
+class QuestionSetPayloadServiceImplTest {
+
+    @Mock
+    private QuestionBankRepository questionRepository;
+    @Mock
+    private QuestionSetRepository questionSetRepository;
+    @Mock
+    private SignedUrlService signedUrlService;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private QuestionSetPayloadServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        service = new QuestionSetPayloadServiceImpl(questionRepository, questionSetRepository, signedUrlService,
+                new ObjectMapper(), transactionManager, 1 << 20, 60);
+    }
+
+    @Test
+    @DisplayName("测试缓存 - 第二次请求不再查询数据库，gzip 内容可还原为 JSON")
+    void testGetPayload_CachesCompressedJson() throws IOException {
+        givenSet(1L, "Reading passage");
+
+        QuestionSetPayloadService.Payload first = service.getPayload(1L).orElseThrow();
+        QuestionSetPayloadService.Payload second = service.getPayload(1L).orElseThrow();
+
+        assertSame(first, second);
+        verify(questionRepository, times(1)).findByQuestionSetIdOrderBySequenceNumberAsc(1L);
+        String json = gunzip(first.gzip());
+        assertTrue(json.contains("Reading passage"));
+        assertEquals(json.getBytes(StandardCharsets.UTF_8).length, first.rawSize());
+        assertTrue(first.etag().startsWith("\"") && first.etag().endsWith("\""));
+    }
+
+    @Test
+    @DisplayName("测试失效 - 失效后重新构建，版本号递增，内容变化时 ETag 变化")
+    void testInvalidate_RebuildsWithNewVersion() {
+        givenSet(2L, "Old stem");
+        QuestionSetPayloadService.Payload before = service.getPayload(2L).orElseThrow();
+
+        givenSet(2L, "New stem");
+        service.onQuestionBankChanged(QuestionBankChangedEvent.of(2L));
+        QuestionSetPayloadService.Payload after = service.getPayload(2L).orElseThrow();
+
+        assertTrue(after.version() > before.version());
+        assertNotEquals(before.etag(), after.etag());
+        verify(questionRepository, times(2)).findByQuestionSetIdOrderBySequenceNumberAsc(2L);
+    }
+
+    @Test
+    @DisplayName("测试不存在的套题 - 返回空且不缓存")
+    void testGetPayload_MissingSetNotCached() {
+        when(questionSetRepository.findById(3L)).thenReturn(Optional.empty());
+
+        assertTrue(service.getPayload(3L).isEmpty());
+        assertTrue(service.getPayload(3L).isEmpty());
+        verify(questionSetRepository, times(2)).findById(3L);
+        assertTrue(service.warmUp(List.of(3L)).isEmpty());
+    }
+
+    private void givenSet(Long setId, String questionText) {
+        QuestionSet questionSet = new QuestionSet();
+        questionSet.setId(setId);
+        questionSet.setTitle("Set " + setId);
+        Question question = new Question();
+        question.setId(setId * 10);
+        question.setContent(Map.of("questionText", questionText));
+        when(questionSetRepository.findById(setId)).thenReturn(Optional.of(questionSet));
+        when(questionRepository.findByQuestionSetIdOrderBySequenceNumberAsc(setId)).thenReturn(List.of(question));
+    }
+
+    private static String gunzip(byte[] gzip) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
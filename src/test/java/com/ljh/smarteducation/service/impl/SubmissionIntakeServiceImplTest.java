@@ -0,0 +1,146 @@
+package com.ljh.smarteducation.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ljh.smarteducation.repository.QuestionSetRepository;
+import com.ljh.smarteducation.repository.StudentSubmissionRepository;
+import com.ljh.smarteducation.repository.SubmissionBatchRepository;
+import com.ljh.smarteducation.service.DashboardCounterService;
+import com.ljh.smarteducation.service.SubmissionJournal;
+import com.ljh.smarteducation.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * SubmissionIntakeServiceImpl 的单元测试（写后入库、逐条重试与死信）
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("SubmissionIntakeService 测试")
+class SubmissionIntakeServiceImplTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock
+    private SubmissionBatchRepository batchRepository;
+    @Mock
+    private StudentSubmissionRepository submissionRepository;
+    @Mock
+    private QuestionSetRepository questionSetRepository;
+    @Mock
+    private UserService userService;
+    @Mock
+    private DashboardCounterService dashboardCounters;
+
+    @TempDir
+    Path directory;
+
+    private SubmissionIntakeServiceImpl service;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (service != null) {
+            service.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("测试坏分段 - 排在前面的分段中无法入库的答卷转入死信文件，后面的分段照常入库")
+    void testFlush_BadSegmentDoesNotBlockLaterSegments() throws Exception {
+        writeSegments(List.of(entry("ok-1", false), entry("bad", false)), List.of(entry("ok-2", true)));
+        when(batchRepository.insertAll(anyList())).thenAnswer(invocation -> {
+            List<SubmissionJournal.Entry> entries = invocation.getArgument(0);
+            if (entries.stream().anyMatch(entry -> entry.intakeId().equals("bad"))) {
+                throw new DataIntegrityViolationException("Data too long for column 'username'");
+            }
+            return entries;
+        });
+
+        service = startService();
+
+        Map<String, Object> stats = service.getStatistics();
+        assertEquals(0L, stats.get("queueDepth"));
+        assertEquals(1L, stats.get("deadLettered"));
+        assertEquals(3L, stats.get("written"));
+        String deadLetters = Files.readString(directory.resolve(SubmissionJournal.DEAD_LETTER_FILE), StandardCharsets.UTF_8);
+        assertTrue(deadLetters.contains("\"intakeId\":\"bad\""));
+        assertFalse(deadLetters.contains("ok-"));
+        verify(batchRepository).insertAll(List.of(entry("ok-2", true)));
+        verify(dashboardCounters).submissionsRecorded(1, 1);
+        verify(dashboardCounters).submissionsRecorded(1, 0);
+        try (SubmissionJournal reopened = new SubmissionJournal(directory, objectMapper, false)) {
+            assertTrue(reopened.recover().isEmpty());
+        }
+    }
+
+    @Test
+    @DisplayName("测试数据库不可用 - 分段保留待重试，不转入死信文件")
+    void testFlush_TransientFailureKeepsSegment() throws Exception {
+        writeSegments(List.of(entry("a", false)));
+        when(batchRepository.insertAll(anyList())).thenThrow(new DataAccessResourceFailureException("Connection refused"));
+
+        service = startService();
+
+        Map<String, Object> stats = service.getStatistics();
+        assertEquals(1L, stats.get("queueDepth"));
+        assertEquals(0L, stats.get("deadLettered"));
+        assertFalse(Files.exists(directory.resolve(SubmissionJournal.DEAD_LETTER_FILE)));
+        verifyNoInteractions(dashboardCounters);
+    }
+
+    @Test
+    @DisplayName("测试重放 - 已入库的答卷不计入仪表盘计数")
+    void testFlush_ReplayedEntriesNotCounted() throws Exception {
+        SubmissionJournal.Entry stored = entry("stored", false);
+        SubmissionJournal.Entry fresh = entry("fresh", false);
+        writeSegments(List.of(stored, fresh));
+        when(batchRepository.insertAll(List.of(stored, fresh))).thenReturn(List.of(fresh));
+
+        service = startService();
+
+        verify(dashboardCounters).submissionsRecorded(1, 1);
+        assertEquals(0L, service.getStatistics().get("queueDepth"));
+    }
+
+    private SubmissionIntakeServiceImpl startService() throws Exception {
+        SubmissionIntakeServiceImpl intake = new SubmissionIntakeServiceImpl(batchRepository, submissionRepository,
+                questionSetRepository, userService, dashboardCounters, objectMapper, true, directory.toString(),
+                false, 3_600_000, 1000);
+        intake.start();
+        return intake;
+    }
+
+    /**
+     * 模拟上次运行残留的分段（每个参数一个分段，按顺序写入）
+     */
+    @SafeVarargs
+    private void writeSegments(List<SubmissionJournal.Entry>... segments) throws Exception {
+        try (SubmissionJournal journal = new SubmissionJournal(directory, objectMapper, false)) {
+            for (List<SubmissionJournal.Entry> segment : segments) {
+                for (SubmissionJournal.Entry entry : segment) {
+                    journal.append(entry);
+                }
+                journal.rotate();
+            }
+        }
+    }
+
+    private static SubmissionJournal.Entry entry(String intakeId, boolean graded) {
+        return new SubmissionJournal.Entry(intakeId, 1L, "alice", 10L, Map.of("1", "A"), 1, 1, graded, 1000L);
+    }
+}
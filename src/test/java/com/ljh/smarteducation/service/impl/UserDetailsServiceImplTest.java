@@ -0,0 +1,90 @@
+package com.ljh.smarteducation.service.impl;
+
+import com.ljh.smarteducation.entity.User;
+import com.ljh.smarteducation.event.UserChangedEvent;
+import com.ljh.smarteducation.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * UserDetailsServiceImpl 的单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("UserDetailsServiceImpl 测试")
+class UserDetailsServiceImplTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private UserDetailsServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        service = new UserDetailsServiceImpl(userRepository, 300, 100);
+    }
+
+    @Test
+    @DisplayName("测试缓存 - 同一用户只查询一次数据库，缓存中不含密码")
+    void testLoadCachedUserByUsername_CachesWithoutPassword() {
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.of(user(1L, "alice", "STUDENT")));
+
+        UserDetails first = service.loadCachedUserByUsername("alice");
+        UserDetails second = service.loadCachedUserByUsername("alice");
+
+        assertSame(first, second);
+        assertEquals("", first.getPassword());
+        assertEquals("ROLE_STUDENT", first.getAuthorities().iterator().next().getAuthority());
+        verify(userRepository, times(1)).findByUsername("alice");
+    }
+
+    @Test
+    @DisplayName("测试失效 - 角色变更后重新加载；按 ID 清除旧用户名")
+    void testEvictUser_ReloadsAfterChange() {
+        when(userRepository.findByUsername("alice"))
+                .thenReturn(Optional.of(user(1L, "alice", "ROLE_STUDENT")))
+                .thenReturn(Optional.of(user(1L, "alice", "ROLE_TEACHER")));
+        assertEquals("ROLE_STUDENT", service.loadCachedUserByUsername("alice")
+                .getAuthorities().iterator().next().getAuthority());
+
+        service.onUserChanged(new UserChangedEvent(1L, "alice-renamed"));
+
+        assertEquals("ROLE_TEACHER", service.loadCachedUserByUsername("alice")
+                .getAuthorities().iterator().next().getAuthority());
+        verify(userRepository, times(2)).findByUsername("alice");
+    }
+
+    @Test
+    @DisplayName("测试登录加载 - 不走缓存并带密码哈希；不存在的用户抛出异常且不缓存")
+    void testLoadUserByUsername_Uncached() {
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.of(user(1L, "alice", "ROLE_ADMIN")));
+        when(userRepository.findByUsername("ghost")).thenReturn(Optional.empty());
+
+        assertEquals("hash", service.loadUserByUsername("alice").getPassword());
+        assertEquals("hash", service.loadUserByUsername("alice").getPassword());
+        assertThrows(UsernameNotFoundException.class, () -> service.loadCachedUserByUsername("ghost"));
+        assertThrows(UsernameNotFoundException.class, () -> service.loadCachedUserByUsername("ghost"));
+
+        verify(userRepository, times(2)).findByUsername("alice");
+        verify(userRepository, times(2)).findByUsername("ghost");
+    }
+
+    private static User user(Long id, String username, String role) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        user.setPassword("hash");
+        user.setRole(role);
+        return user;
+    }
+}
@@ -0,0 +1,80 @@
+package com.ljh.smarteducation.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SqlInjectionScanner 的单元测试
+ */
+@DisplayName("SqlInjectionScanner 测试")
+class SqlInjectionScannerTest {
+
+    private static final String[] SAMPLES = {
+            "hello world", "user123", "测试数据", "normal text", "", "   ",
+            "SELECT * FROM users", "DROP TABLE students", "INSERT INTO users", "DELETE FROM questions",
+            "UPDATE users SET", "UNION SELECT", "select", "selection", "update_time", "reselect", "9select",
+            "' OR '1'='1", "admin'--", "'; DROP TABLE users", "' UNION SELECT", "' AND 1=1", "admin'/*",
+            "test--comment", "test/*comment*/", "test#comment", "a-b-c", "1/2*3", "exec", "执行select",
+            "Please select the correct answer.", "x' or  '1' =  '1"
+    };
+
+    @Test
+    @DisplayName("测试文本扫描 - 与 InputValidator.containsSqlInjection 结果一致")
+    void testContainsSqlInjection_MatchesInputValidator() {
+        for (String sample : SAMPLES) {
+            assertEquals(InputValidator.containsSqlInjection(sample), SqlInjectionScanner.containsSqlInjection(sample),
+                    sample);
+        }
+    }
+
+    @Test
+    @DisplayName("测试 JSON 扫描 - 只检查字符串值，跳过键、数字和结构字符")
+    void testJson_ScansStringValuesOnly() {
+        assertFalse(scanJson("{\"delete\": 1, \"update\": [1, 2], \"title\": \"Unit 3 reading\"}"));
+        assertTrue(scanJson("{\"title\": \"x\", \"tags\": [\"a\", \"DROP TABLE users\"]}"));
+        assertTrue(scanJson("{\"nested\": {\"q\": \"' OR '1'='1\"}}"));
+        assertFalse(scanJson("{\"a\": \"SELECTED\", \"b\": \"测试数据\"}"));
+    }
+
+    @Test
+    @DisplayName("测试 JSON 转义 - 按解码后的字符检查")
+    void testJson_DecodesEscapes() {
+        // \\n 解码为换行，构成词边界；\\u0023 为 #
+        assertTrue(scanJson("{\"a\": \"line1\\nSELECT 1\"}"));
+        assertTrue(scanJson("{\"a\": \"color \\u0023fff\"}"));
+        assertFalse(scanJson("{\"a\": \"say \\\"hi\\\" \\\\ ok\"}"));
+    }
+
+    @Test
+    @DisplayName("测试分块输入 - 任意位置切分的结果与整体输入一致")
+    void testJson_ChunkBoundaries() {
+        byte[] body = "{\"k\": \"中文 then uNiOn sElEcT\"}".getBytes(StandardCharsets.UTF_8);
+        for (int split = 0; split <= body.length; split++) {
+            SqlInjectionScanner scanner = SqlInjectionScanner.forJson();
+            scanner.feed(body, 0, split);
+            scanner.feed(body, split, body.length - split);
+            assertTrue(scanner.finish(), "split at " + split);
+        }
+    }
+
+    @Test
+    @DisplayName("测试匹配位置 - 返回触发检测的字符串值的起始偏移")
+    void testJson_MatchedValueStart() {
+        String json = "{\"ok\": \"fine\", \"bad\": \"a -- b\"}";
+        SqlInjectionScanner scanner = SqlInjectionScanner.forJson();
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        assertTrue(scanner.feed(bytes, 0, bytes.length));
+        assertEquals(json.indexOf("a -- b"), scanner.matchedValueStart());
+    }
+
+    private static boolean scanJson(String json) {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        SqlInjectionScanner scanner = SqlInjectionScanner.forJson();
+        scanner.feed(bytes, 0, bytes.length);
+        return scanner.finish();
+    }
+}